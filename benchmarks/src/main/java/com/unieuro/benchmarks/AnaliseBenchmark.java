@@ -0,0 +1,89 @@
+package com.unieuro.benchmarks;
+
+import com.unieuro.analise.AnaliseEmocional;
+import com.unieuro.analise.AvaliadorRisco;
+import com.unieuro.analise.EstadoPacientes;
+import com.unieuro.analise.JanelaPaciente;
+import com.unieuro.analise.LoteAvaliacao;
+import com.unieuro.analise.RegrasRisco;
+import com.unieuro.model.Humor;
+import com.unieuro.model.NivelAtividade;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de processar uma leitura no analisador emocional (atualizar a janela do paciente
+ * e reavaliar o risco) conforme o número de pacientes acompanhados.
+ * Cada operação é uma leitura; os pacientes são visitados em rodízio.
+ * avaliarLote pontua todas as janelas de uma vez, como o analisador faz com cada lote recebido.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnaliseBenchmark {
+    
+    private static final int LEITURAS_PRE_CARREGADAS = 12;
+    private static final int LOTE = 1000;
+    
+    @Param({"1", "100", "10000"})
+    public int pacientes;
+    
+    private JanelaPaciente[] janelas;
+    private Humor[] humores;
+    private double[] sonos;
+    private long diaAtual;
+    private int proximo;
+    
+    @Setup(Level.Trial)
+    public void iniciar() {
+        Random random = new Random(42);
+        diaAtual = LocalDate.now().toEpochDay();
+        janelas = new JanelaPaciente[pacientes];
+        
+        for (int p = 0; p < pacientes; p++) {
+            janelas[p] = new JanelaPaciente(p + 1, EstadoPacientes.DIAS_JANELA,
+                RegrasRisco.LIMIAR_SONO_BAIXO_PADRAO);
+            for (int i = 0; i < LEITURAS_PRE_CARREGADAS; i++) {
+                long dia = diaAtual - (LEITURAS_PRE_CARREGADAS - 1 - i) / 4;
+                janelas[p].adicionar(dia, 4 + random.nextInt(6), 1 + random.nextInt(5),
+                    Humor.values()[random.nextInt(3)], NivelAtividade.LEVE, 55 + random.nextInt(45));
+            }
+        }
+        
+        // Valores pré-sorteados para não medir o Random
+        humores = new Humor[1024];
+        sonos = new double[1024];
+        for (int i = 0; i < humores.length; i++) {
+            humores[i] = Humor.values()[random.nextInt(3)];
+            sonos[i] = 4 + random.nextInt(60) / 10.0;
+        }
+    }
+    
+    @Benchmark
+    public AnaliseEmocional processarLeitura() {
+        int indice = proximo;
+        proximo = indice + 1 == pacientes ? 0 : indice + 1;
+        
+        JanelaPaciente janela = janelas[indice];
+        int amostra = indice & 1023;
+        janela.adicionar(diaAtual, sonos[amostra], 3, humores[amostra], NivelAtividade.MODERADA, 60 + (amostra & 31));
+        return AvaliadorRisco.avaliar(janela);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public LoteAvaliacao avaliarLote() {
+        LoteAvaliacao lote = new LoteAvaliacao(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            lote.adicionar(janelas[i % pacientes]);
+        }
+        lote.avaliar();
+        return lote;
+    }
+}
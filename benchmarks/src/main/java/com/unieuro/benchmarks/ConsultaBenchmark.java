@@ -0,0 +1,61 @@
+package com.unieuro.benchmarks;
+
+import com.unieuro.database.DatabaseManager;
+import com.unieuro.model.Humor;
+import com.unieuro.model.LoteLeituras;
+import com.unieuro.model.NivelAtividade;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de DatabaseManager.buscarDadosSaudeRecentes conforme cresce o histórico do paciente.
+ * O histórico é espalhado pelos dias anteriores, LEITURAS_POR_DIA por dia: a janela consultada
+ * traz sempre as mesmas leituras e só a tabela cresce.
+ * Cada valor de historico roda em um fork próprio, com um banco H2 em memória novo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsultaBenchmark {
+    
+    private static final long ID_IDOSO = 1;
+    private static final int LEITURAS_POR_DIA = 10;
+    private static final int DIAS_CONSULTA = 7;
+    
+    @Param({"100", "1000", "10000"})
+    public int historico;
+    
+    private DatabaseManager dbManager;
+    
+    @Setup(Level.Trial)
+    public void iniciar() {
+        // Mede só o banco; o diário escreveria em ./dados/diario a cada execução
+        System.setProperty("saude.diario.ativo", "false");
+        // A retenção apagaria o histórico com mais de 30 dias durante a medição
+        System.setProperty("saude.retencao.ativa", "false");
+        dbManager = DatabaseManager.getInstance();
+        long hoje = LocalDate.now().toEpochDay();
+        LoteLeituras leituras = new LoteLeituras(historico);
+        for (int i = 0; i < historico; i++) {
+            leituras.adicionar(0L, ID_IDOSO, hoje - i / LEITURAS_POR_DIA, 5 + (i % 40) / 10.0, 1 + i % 5,
+                Humor.values()[i % 3], NivelAtividade.LEVE, 60 + i % 30, 0L);
+        }
+        dbManager.inserirLeituras(leituras);
+        dbManager.aguardarGravacoes();
+    }
+    
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        dbManager.close();
+    }
+    
+    @Benchmark
+    public LoteLeituras buscarDadosSaudeRecentes() {
+        return dbManager.buscarDadosSaudeRecentes(ID_IDOSO, DIAS_CONSULTA);
+    }
+}
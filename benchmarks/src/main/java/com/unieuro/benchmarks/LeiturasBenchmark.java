@@ -0,0 +1,149 @@
+package com.unieuro.benchmarks;
+
+import com.unieuro.analise.EstadoPacientes;
+import com.unieuro.analise.JanelaPaciente;
+import com.unieuro.analise.LoteAvaliacao;
+import com.unieuro.analise.RegrasRisco;
+import com.unieuro.model.Humor;
+import com.unieuro.model.LeituraSaude;
+import com.unieuro.model.LoteLeituras;
+import com.unieuro.model.NivelAtividade;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de montar e percorrer um lote de leituras em cada representação: um HashMap&lt;String, Object&gt;
+ * por leitura (o formato antigo de buscarDadosSaudeRecentes e do coletor), um LeituraSaude por leitura
+ * e o LoteLeituras colunar. Cada operação é uma leitura: monta o lote de um ciclo de coleta e o processa
+ * como o analisador, acrescentando cada leitura à janela do paciente e pontuando o lote com LoteAvaliacao.
+ * Rode com -prof gc e compare gc.alloc.rate.norm (bytes alocados por leitura).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class LeiturasBenchmark {
+    
+    private static final int LOTE = 1000;
+    
+    private long dia;
+    private JanelaPaciente[] janelas;
+    private double[] sonos;
+    private int[] qualidades;
+    private Humor[] humores;
+    private NivelAtividade[] atividades;
+    private int[] frequencias;
+    
+    @Setup(Level.Trial)
+    public void iniciar() {
+        Random random = new Random(42);
+        dia = LocalDate.now().toEpochDay();
+        janelas = new JanelaPaciente[LOTE];
+        for (int i = 0; i < LOTE; i++) {
+            janelas[i] = new JanelaPaciente(i, EstadoPacientes.DIAS_JANELA, RegrasRisco.LIMIAR_SONO_BAIXO_PADRAO);
+        }
+        sonos = new double[LOTE];
+        qualidades = new int[LOTE];
+        humores = new Humor[LOTE];
+        atividades = new NivelAtividade[LOTE];
+        frequencias = new int[LOTE];
+        // Valores pré-sorteados para não medir o Random
+        for (int i = 0; i < LOTE; i++) {
+            sonos[i] = 5.0 + random.nextDouble() * 4.0;
+            qualidades[i] = 2 + random.nextInt(4);
+            humores[i] = Humor.values()[random.nextInt(3)];
+            atividades[i] = NivelAtividade.values()[random.nextInt(5)];
+            frequencias[i] = 60 + random.nextInt(40);
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public int mapas() {
+        List<Map<String, Object>> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            Map<String, Object> dados = new HashMap<>();
+            dados.put("id", (long) i);
+            dados.put("id_idoso", (long) i);
+            dados.put("data_coleta", Date.valueOf(LocalDate.ofEpochDay(dia)));
+            dados.put("sono_horas", sonos[i]);
+            dados.put("qualidade_sono", qualidades[i]);
+            dados.put("humor", humores[i].getRotulo());
+            dados.put("atividade_fisica", atividades[i].getRotulo());
+            dados.put("frequencia_cardiaca", frequencias[i]);
+            lote.add(dados);
+        }
+        
+        LoteAvaliacao avaliacao = new LoteAvaliacao(LOTE);
+        for (Map<String, Object> dados : lote) {
+            JanelaPaciente janela = janelas[((Long) dados.get("id_idoso")).intValue()];
+            janela.adicionar(((Date) dados.get("data_coleta")).toLocalDate().toEpochDay(),
+                (Double) dados.get("sono_horas"), (Integer) dados.get("qualidade_sono"),
+                Humor.deRotulo((String) dados.get("humor")),
+                NivelAtividade.deRotulo((String) dados.get("atividade_fisica")),
+                (Integer) dados.get("frequencia_cardiaca"));
+            avaliacao.adicionar(janela);
+        }
+        return pontuar(avaliacao);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public int registros() {
+        List<LeituraSaude> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            lote.add(new LeituraSaude(i, i, dia, sonos[i], qualidades[i], humores[i], atividades[i],
+                frequencias[i]));
+        }
+        
+        LoteAvaliacao avaliacao = new LoteAvaliacao(LOTE);
+        for (LeituraSaude leitura : lote) {
+            JanelaPaciente janela = janelas[(int) leitura.getIdIdoso()];
+            janela.adicionar(leitura.getDiaColeta(), leitura.getSonoHoras(), leitura.getQualidadeSono(),
+                leitura.getHumor(), leitura.getAtividadeFisica(), leitura.getFrequenciaCardiaca());
+            avaliacao.adicionar(janela);
+        }
+        return pontuar(avaliacao);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public int loteColunar() {
+        // Um lote novo por ciclo, como faz o Agente de Coleta
+        LoteLeituras lote = new LoteLeituras(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            lote.adicionar(0L, i, dia, sonos[i], qualidades[i], humores[i], atividades[i], frequencias[i], 0L);
+        }
+        
+        LoteAvaliacao avaliacao = new LoteAvaliacao(LOTE);
+        for (int i = 0; i < lote.tamanho(); i++) {
+            JanelaPaciente janela = janelas[(int) lote.getIdIdoso(i)];
+            janela.adicionar(lote.getDiaColeta(i), lote.getSonoHoras(i), lote.getQualidadeSono(i),
+                lote.getHumor(i), lote.getAtividadeFisica(i), lote.getFrequenciaCardiaca(i));
+            avaliacao.adicionar(janela);
+        }
+        return pontuar(avaliacao);
+    }
+    
+    /**
+     * Pontua o lote com as regras em uso, como AgenteAnalisadorEmocional.receberLeituras.
+     */
+    private static int pontuar(LoteAvaliacao avaliacao) {
+        avaliacao.avaliar();
+        int pontuacao = 0;
+        for (int i = 0; i < avaliacao.tamanho(); i++) {
+            pontuacao += avaliacao.getAnalise(i).getPontuacao();
+        }
+        return pontuacao;
+    }
+}
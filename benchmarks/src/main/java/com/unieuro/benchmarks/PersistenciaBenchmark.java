@@ -0,0 +1,141 @@
+package com.unieuro.benchmarks;
+
+import com.unieuro.database.DatabaseManager;
+import com.unieuro.database.GravadorEmLote;
+import com.unieuro.model.Humor;
+import com.unieuro.model.NivelAtividade;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a gravação de dados_saude registro a registro (uma conexão e um commit por
+ * INSERT, como era antes do gravador em lote) com a gravação via GravadorEmLote.
+ * Cada operação corresponde a uma leitura gravada.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenciaBenchmark {
+    
+    private static final int LEITURAS_POR_INVOCACAO = 1000;
+    
+    private static final String SQL_INSERT =
+        "INSERT INTO dados_saude (id_idoso, data_coleta, sono_horas, qualidade_sono, " +
+        "humor, atividade_fisica, frequencia_cardiaca) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private HikariDataSource dataSource;
+    private Date hoje;
+    
+    @Setup(Level.Trial)
+    public void iniciar() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:benchmark_persistencia;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(4);
+        dataSource = new HikariDataSource(config);
+        hoje = Date.valueOf(LocalDate.now());
+        
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS dados_saude (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+                "id_idoso BIGINT," +
+                "data_coleta DATE NOT NULL," +
+                "sono_horas DECIMAL(3,1)," +
+                "qualidade_sono INT," +
+                "humor VARCHAR(20)," +
+                "atividade_fisica VARCHAR(50)," +
+                "frequencia_cardiaca INT," +
+                "observacoes TEXT" +
+                ")");
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        dataSource.close();
+    }
+    
+    /**
+     * Gravador com o tamanho de lote parametrizado; lote 1 equivale a um commit por registro
+     * feito pela thread de gravação.
+     */
+    @State(Scope.Benchmark)
+    public static class EstadoGravador {
+        
+        @Param({"1", "500"})
+        public int tamanhoLote;
+        
+        GravadorEmLote<Integer> gravador;
+        
+        @Setup(Level.Trial)
+        public void iniciar(PersistenciaBenchmark benchmark) {
+            Date hoje = benchmark.hoje;
+            gravador = new GravadorEmLote<>("benchmark", benchmark.dataSource, SQL_INSERT,
+                (stmt, i) -> vincular(stmt, hoje, i),
+                10000, tamanhoLote, 200);
+        }
+        
+        @TearDown(Level.Trial)
+        public void encerrar() {
+            gravador.close();
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LEITURAS_POR_INVOCACAO)
+    public void insercaoIndividual() throws SQLException {
+        for (int i = 0; i < LEITURAS_POR_INVOCACAO; i++) {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SQL_INSERT)) {
+                vincular(stmt, hoje, i);
+                stmt.executeUpdate();
+            }
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LEITURAS_POR_INVOCACAO)
+    public void insercaoEmLote(EstadoGravador estado) {
+        for (int i = 0; i < LEITURAS_POR_INVOCACAO; i++) {
+            estado.gravador.enfileirar(i);
+        }
+        estado.gravador.aguardarGravacoes();
+    }
+    
+    /**
+     * Caminho completo usado pelos agentes: DatabaseManager.inserirDadosSaude.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LEITURAS_POR_INVOCACAO)
+    public void insercaoDatabaseManager() {
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        for (int i = 0; i < LEITURAS_POR_INVOCACAO; i++) {
+            dbManager.inserirDadosSaude(1 + i % 2, 7.5, 4, Humor.POSITIVO, NivelAtividade.LEVE, 72);
+        }
+        dbManager.aguardarGravacoes();
+    }
+    
+    private static void vincular(PreparedStatement stmt, Date dataColeta, int i) throws SQLException {
+        stmt.setLong(1, 1 + i % 2);
+        stmt.setDate(2, dataColeta);
+        stmt.setDouble(3, 7.5);
+        stmt.setInt(4, 4);
+        stmt.setString(5, Humor.POSITIVO.getRotulo());
+        stmt.setString(6, NivelAtividade.LEVE.getRotulo());
+        stmt.setInt(7, 72);
+    }
+}
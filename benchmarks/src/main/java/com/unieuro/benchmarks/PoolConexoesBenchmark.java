@@ -0,0 +1,69 @@
+package com.unieuro.benchmarks;
+
+import com.unieuro.database.DatabaseManager;
+import com.unieuro.model.Humor;
+import com.unieuro.model.LoteLeituras;
+import com.unieuro.model.NivelAtividade;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de consultas concorrentes (16 threads) conforme o tamanho do pool de conexões,
+ * contra o H2 embarcado em memória ou em disco. A configuração é passada ao DatabaseManager
+ * pelas mesmas propriedades saude.db.* usadas em produção; cada combinação roda em um fork próprio.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class PoolConexoesBenchmark {
+    
+    private static final int HISTORICO_POR_IDOSO = 500;
+    
+    @Param({"1", "2", "4", "8", "16"})
+    public int tamanhoPool;
+    
+    @Param({"h2-mem", "h2-arquivo"})
+    public String backend;
+    
+    private DatabaseManager dbManager;
+    private Path diretorio;
+    
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        System.setProperty("saude.db.backend", backend);
+        // Mede só o banco; o diário escreveria em ./dados/diario a cada execução
+        System.setProperty("saude.diario.ativo", "false");
+        System.setProperty("saude.db.pool.tamanhoMaximo", Integer.toString(tamanhoPool));
+        System.setProperty("saude.db.pool.minimoOcioso", Integer.toString(tamanhoPool));
+        if ("h2-arquivo".equals(backend)) {
+            diretorio = Files.createTempDirectory("benchmark-pool");
+            System.setProperty("saude.db.arquivo", diretorio.resolve("saude_mental").toString());
+        }
+        
+        dbManager = DatabaseManager.getInstance();
+        for (int i = 0; i < HISTORICO_POR_IDOSO * 2; i++) {
+            dbManager.inserirDadosSaude(1 + i % 2, 5 + (i % 40) / 10.0, 1 + i % 5,
+                Humor.values()[i % 3], NivelAtividade.LEVE, 60 + i % 30);
+        }
+        dbManager.aguardarGravacoes();
+    }
+    
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        dbManager.close();
+    }
+    
+    @Benchmark
+    public LoteLeituras consultaConcorrente() {
+        long idIdoso = 1 + (Thread.currentThread().getId() & 1);
+        return dbManager.buscarDadosSaudeRecentes(idIdoso, 7);
+    }
+}
@@ -0,0 +1,34 @@
+package com.unieuro.benchmarks;
+
+import com.unieuro.analise.GeradorRecomendacoes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de escolher uma recomendação para um nível de risco, como faz o AgenteRecomendacao a cada tick.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RecomendacaoBenchmark {
+    
+    @Param({"baixo", "moderado", "alto"})
+    public String nivelRisco;
+    
+    private GeradorRecomendacoes gerador;
+    
+    @Setup(Level.Trial)
+    public void iniciar() {
+        gerador = new GeradorRecomendacoes(new Random(42));
+    }
+    
+    @Benchmark
+    public String gerarRecomendacao() {
+        return gerador.gerarRecomendacao(nivelRisco);
+    }
+}
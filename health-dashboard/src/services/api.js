@@ -68,11 +68,16 @@ class ApiService {
   }
 
   /**
-   * Busca análises emocionais recentes
+   * Busca análises emocionais recentes.
+   * Retorna { itens, proximo_cursor }; passe proximo_cursor para obter a página seguinte.
    */
-  async getAnalyses(idIdoso = 1) {
+  async getAnalyses(idIdoso = 1, cursor = null, limite = 20) {
     try {
-      const response = await fetch(`${API_BASE_URL}/analyses/${idIdoso}`);
+      const params = new URLSearchParams({ limite });
+      if (cursor) {
+        params.set('cursor', cursor);
+      }
+      const response = await fetch(`${API_BASE_URL}/analyses/${idIdoso}?${params}`);
       if (!response.ok) {
         throw new Error('Erro ao buscar análises');
       }
@@ -84,11 +89,15 @@ class ApiService {
   }
 
   /**
-   * Busca recomendações recentes
+   * Busca recomendações recentes (mesmo formato paginado de getAnalyses)
    */
-  async getRecommendations(idIdoso = 1) {
+  async getRecommendations(idIdoso = 1, cursor = null, limite = 20) {
     try {
-      const response = await fetch(`${API_BASE_URL}/recommendations/${idIdoso}`);
+      const params = new URLSearchParams({ limite });
+      if (cursor) {
+        params.set('cursor', cursor);
+      }
+      const response = await fetch(`${API_BASE_URL}/recommendations/${idIdoso}?${params}`);
       if (!response.ok) {
         throw new Error('Erro ao buscar recomendações');
       }
@@ -115,6 +124,36 @@ class ApiService {
     }
   }
 
+  /**
+   * Assina o fluxo em tempo real (SSE) de leituras, análises e alertas dos pacientes informados.
+   * Os handlers recebem o objeto do evento e sua sequência. O navegador reconecta sozinho
+   * e retoma a partir do último evento recebido. Retorna uma função que encerra a assinatura.
+   */
+  subscribeToEvents(pacientes = [], handlers = {}, desde = null) {
+    const params = new URLSearchParams();
+    if (pacientes.length > 0) {
+      params.set('pacientes', pacientes.join(','));
+    }
+    if (desde !== null) {
+      params.set('desde', desde);
+    }
+    const source = new EventSource(`${API_BASE_URL}/stream?${params}`);
+
+    ['leitura', 'analise', 'alerta', 'lacuna'].forEach((tipo) => {
+      source.addEventListener(tipo, (event) => {
+        const handler = handlers[tipo];
+        if (handler) {
+          handler(JSON.parse(event.data), event.lastEventId ? Number(event.lastEventId) : null);
+        }
+      });
+    });
+    source.onerror = (error) => {
+      console.error('Erro no fluxo de eventos:', error);
+    };
+
+    return () => source.close();
+  }
+
   // Métodos de fallback com dados simulados (para quando a API não estiver disponível)
 
   getMockHealthData() {
@@ -145,21 +184,27 @@ class ApiService {
   }
 
   getMockAnalyses() {
-    return [
-      { id: 1, data: '2024-01-07', risco: 'moderado', descricao: 'Sono insuficiente e humor baixo detectados' },
-      { id: 2, data: '2024-01-06', risco: 'baixo', descricao: 'Indicadores dentro da normalidade' },
-      { id: 3, data: '2024-01-05', risco: 'baixo', descricao: 'Bom padrão de sono e atividade' },
-      { id: 4, data: '2024-01-04', risco: 'alto', descricao: 'Múltiplos indicadores de risco detectados' }
-    ];
+    return {
+      itens: [
+        { id: 1, data: '2024-01-07', risco: 'moderado', descricao: 'Sono insuficiente e humor baixo detectados' },
+        { id: 2, data: '2024-01-06', risco: 'baixo', descricao: 'Indicadores dentro da normalidade' },
+        { id: 3, data: '2024-01-05', risco: 'baixo', descricao: 'Bom padrão de sono e atividade' },
+        { id: 4, data: '2024-01-04', risco: 'alto', descricao: 'Múltiplos indicadores de risco detectados' }
+      ],
+      proximo_cursor: null
+    };
   }
 
   getMockRecommendations() {
-    return [
-      { id: 1, recomendacao: 'Pratique exercícios de respiração por 10 minutos', tipo: 'moderado' },
-      { id: 2, recomendacao: 'Faça uma caminhada de 15-20 minutos', tipo: 'moderado' },
-      { id: 3, recomendacao: 'Continue mantendo sua rotina saudável', tipo: 'baixo' },
-      { id: 4, recomendacao: 'Entre em contato com um familiar ou cuidador', tipo: 'alto' }
-    ];
+    return {
+      itens: [
+        { id: 1, recomendacao: 'Pratique exercícios de respiração por 10 minutos', tipo: 'moderado' },
+        { id: 2, recomendacao: 'Faça uma caminhada de 15-20 minutos', tipo: 'moderado' },
+        { id: 3, recomendacao: 'Continue mantendo sua rotina saudável', tipo: 'baixo' },
+        { id: 4, recomendacao: 'Entre em contato com um familiar ou cuidador', tipo: 'alto' }
+      ],
+      proximo_cursor: null
+    };
   }
 
   getMockAgentsStatus() {
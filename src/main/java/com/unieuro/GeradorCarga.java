@@ -0,0 +1,197 @@
+package com.unieuro;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unieuro.agents.AgenteAnalisadorEmocional;
+import com.unieuro.agents.AgenteColetaDados;
+import com.unieuro.agents.AgenteRecomendacao;
+import com.unieuro.database.DatabaseManager;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import jadex.base.IPlatformConfiguration;
+import jadex.base.PlatformConfigurationHandler;
+import jadex.base.Starter;
+import jadex.bridge.IExternalAccess;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Modo gerador de carga: simula N idosos com o mesmo modelo do Agente de Coleta, com o tempo
+ * acelerado, e mede a vazão e as latências de ponta a ponta do pipeline
+ * coleta → análise → recomendação.
+ * Ativado pelo Main com -Dsaude.carga.pacientes=N; demais propriedades:
+ * saude.carga.aceleracao (fator de compressão do tempo e do relógio que data as leituras, padrão 60),
+ * saude.carga.semente (42), saude.carga.aquecimentoSegundos (10), saude.carga.duracaoSegundos (60) e
+ * saude.carga.relatorio (arquivo JSON opcional para o relatório).
+ */
+final class GeradorCarga {
+    
+    private static final Logger logger = Logger.getLogger(GeradorCarga.class.getName());
+    
+    static final String PROP_PACIENTES = "saude.carga.pacientes";
+    private static final String PROP_ACELERACAO = "saude.carga.aceleracao";
+    private static final String PROP_SEMENTE = "saude.carga.semente";
+    private static final String PROP_AQUECIMENTO = "saude.carga.aquecimentoSegundos";
+    private static final String PROP_DURACAO = "saude.carga.duracaoSegundos";
+    private static final String PROP_RELATORIO = "saude.carga.relatorio";
+    
+    // Intervalos dos agentes em tempo real, divididos pelo fator de aceleração
+    private static final int INTERVALO_COLETA_MS = 10000;
+    private static final int INTERVALO_ANALISE_MS = 15000;
+    private static final long JANELA_DEDUPLICACAO_MS = 300000;
+    
+    private GeradorCarga() {
+    }
+    
+    static void executar() {
+        int pacientes = Integer.getInteger(PROP_PACIENTES, 50000);
+        double aceleracao = Double.parseDouble(System.getProperty(PROP_ACELERACAO, "60"));
+        long semente = Long.getLong(PROP_SEMENTE, 42L);
+        int aquecimento = Integer.getInteger(PROP_AQUECIMENTO, 10);
+        int duracao = Integer.getInteger(PROP_DURACAO, 60);
+        
+        DatabaseManager dbManager = DatabaseManager.getInstance();
+        try {
+            int criados = dbManager.cadastrarIdososSinteticos(pacientes);
+            logger.info(String.format("Gerador de carga: %d idosos (%d criados), aceleração %.0fx, semente %d",
+                pacientes, criados, aceleracao, semente));
+            
+            IPlatformConfiguration config = PlatformConfigurationHandler.getMinimal();
+            IExternalAccess plataforma = Starter.createPlatform(config).get();
+            
+            int totalShards = Main.calcularTotalShards();
+            int intervaloColeta = (int) Math.max(1, Math.round(INTERVALO_COLETA_MS / aceleracao));
+            int intervaloAnalise = (int) Math.max(1, Math.round(INTERVALO_ANALISE_MS / aceleracao));
+            long janelaDeduplicacao = Math.max(1, Math.round(JANELA_DEDUPLICACAO_MS / aceleracao));
+            // Origem comum do relógio simulado: todos os shards datam as leituras com o mesmo dia
+            long inicioSimulacao = System.currentTimeMillis();
+            
+            for (int shard = 0; shard < totalShards; shard++) {
+                Map<String, Object> coleta = new HashMap<>();
+                coleta.put("intervaloColeta", intervaloColeta);
+                coleta.put("semente", semente);
+                coleta.put("aceleracao", aceleracao);
+                coleta.put("inicioSimulacao", inicioSimulacao);
+                Main.criarAgente(plataforma, AgenteColetaDados.class, shard, totalShards, coleta);
+                
+                Map<String, Object> analise = new HashMap<>();
+                analise.put("intervaloAnalise", intervaloAnalise);
+                Main.criarAgente(plataforma, AgenteAnalisadorEmocional.class, shard, totalShards, analise);
+                
+                Map<String, Object> recomendacao = new HashMap<>();
+                recomendacao.put("janelaDeduplicacao", janelaDeduplicacao);
+                recomendacao.put("semente", semente);
+                Main.criarAgente(plataforma, AgenteRecomendacao.class, shard, totalShards, recomendacao);
+            }
+            logger.info(String.format("%d shard(s), coleta a cada %dms; aquecimento de %ds, medição de %ds",
+                totalShards, intervaloColeta, aquecimento, duracao));
+            
+            // Descarta o aquecimento: histogramas zerados e contadores tomados como base
+            TimeUnit.SECONDS.sleep(aquecimento);
+            Metricas.zerarHistogramas();
+            Map<String, Long> inicio = contadores();
+            long inicioNanos = System.nanoTime();
+            
+            TimeUnit.SECONDS.sleep(duracao);
+            Map<String, Long> fim = contadores();
+            double segundos = (System.nanoTime() - inicioNanos) / 1e9;
+            
+            Map<String, Object> relatorio = montarRelatorio(pacientes, aceleracao, semente, totalShards,
+                segundos, inicio, fim);
+            String json = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(relatorio);
+            logger.info("Relatório do gerador de carga:\n" + json);
+            
+            String arquivo = System.getProperty(PROP_RELATORIO);
+            if (arquivo != null) {
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(arquivo), relatorio);
+            }
+            
+            plataforma.killComponent().get();
+            
+        } catch (Exception e) {
+            logger.severe("Erro no gerador de carga: " + e.getMessage());
+            e.printStackTrace();
+            dbManager.close();
+            System.exit(1);
+        }
+        dbManager.close();
+        System.exit(0);
+    }
+    
+    private static Map<String, Long> contadores() {
+        Map<String, Long> valores = new HashMap<>();
+        for (String nome : new String[] {"coleta.leituras", "analise.realizadas", "recomendacao.geradas",
+                "recomendacao.suprimidas", "gravador.dados_saude.registros_gravados",
+                "gravador.dados_saude.registros_perdidos", "gravador.analises_emocionais.registros_perdidos",
+                "gravador.recomendacoes.registros_perdidos", "executor.banco.rejeitadas",
+                "coleta.gravacoes_falhas"}) {
+            valores.put(nome, Metricas.contador(nome).getValor());
+        }
+        return valores;
+    }
+    
+    private static Map<String, Object> montarRelatorio(int pacientes, double aceleracao, long semente,
+                                                       int totalShards, double segundos,
+                                                       Map<String, Long> inicio, Map<String, Long> fim) {
+        Map<String, Object> parametros = new LinkedHashMap<>();
+        parametros.put("pacientes", pacientes);
+        parametros.put("aceleracao", aceleracao);
+        parametros.put("semente", semente);
+        parametros.put("shards", totalShards);
+        parametros.put("segundos_medidos", segundos);
+        parametros.put("dias_simulados_medidos", segundos * aceleracao / 86400);
+        
+        Map<String, Object> vazao = new LinkedHashMap<>();
+        vazao.put("leituras_esperadas_por_segundo", pacientes * aceleracao * 1000 / INTERVALO_COLETA_MS);
+        vazao.put("leituras_por_segundo", taxa("coleta.leituras", inicio, fim, segundos));
+        vazao.put("leituras_gravadas_por_segundo",
+            taxa("gravador.dados_saude.registros_gravados", inicio, fim, segundos));
+        vazao.put("analises_por_segundo", taxa("analise.realizadas", inicio, fim, segundos));
+        vazao.put("recomendacoes_geradas_por_segundo", taxa("recomendacao.geradas", inicio, fim, segundos));
+        vazao.put("recomendacoes_suprimidas_por_segundo", taxa("recomendacao.suprimidas", inicio, fim, segundos));
+        
+        Map<String, Object> latencias = new LinkedHashMap<>();
+        latencias.put("coleta_ate_analise", latencia("analise.latencia_coleta_ate_analise_nanos"));
+        latencias.put("coleta_ate_recomendacao", latencia("recomendacao.latencia_coleta_ate_decisao_nanos"));
+        latencias.put("ciclo_coleta", latencia("agente.coleta.ciclo_nanos"));
+        latencias.put("gravacao_lote_dados_saude", latencia("gravador.dados_saude.latencia_gravacao_nanos"));
+        latencias.put("espera_conexao", latencia("pool.espera_conexao_nanos"));
+        
+        Map<String, Object> perdas = new LinkedHashMap<>();
+        for (String nome : new String[] {"gravador.dados_saude.registros_perdidos",
+                "gravador.analises_emocionais.registros_perdidos", "gravador.recomendacoes.registros_perdidos",
+                "executor.banco.rejeitadas", "coleta.gravacoes_falhas"}) {
+            perdas.put(nome, fim.get(nome) - inicio.get(nome));
+        }
+        
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("parametros", parametros);
+        relatorio.put("vazao", vazao);
+        relatorio.put("latencias_ms", latencias);
+        relatorio.put("perdas", perdas);
+        return relatorio;
+    }
+    
+    private static double taxa(String contador, Map<String, Long> inicio, Map<String, Long> fim, double segundos) {
+        return (fim.get(contador) - inicio.get(contador)) / segundos;
+    }
+    
+    /**
+     * Percentis em milissegundos de um histograma registrado em nanossegundos.
+     */
+    private static Map<String, Object> latencia(String nome) {
+        Histograma histograma = Metricas.histograma(nome);
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("amostras", histograma.getContagem());
+        resumo.put("p50", histograma.percentil(50) / 1e6);
+        resumo.put("p90", histograma.percentil(90) / 1e6);
+        resumo.put("p99", histograma.percentil(99) / 1e6);
+        resumo.put("p999", histograma.percentil(99.9) / 1e6);
+        resumo.put("maximo", histograma.getMaximo() / 1e6);
+        return resumo;
+    }
+}
@@ -3,70 +3,260 @@ package com.unieuro;
 import com.unieuro.agents.AgenteColetaDados;
 import com.unieuro.agents.AgenteAnalisadorEmocional;
 import com.unieuro.agents.AgenteRecomendacao;
+import com.unieuro.cluster.MembrosCluster;
 import com.unieuro.database.DatabaseManager;
+import com.unieuro.metrics.TemposInicializacao;
+import jadex.base.IExtendedPlatformConfiguration;
 import jadex.base.IPlatformConfiguration;
 import jadex.base.PlatformConfigurationHandler;
 import jadex.base.Starter;
+import jadex.bridge.IExternalAccess;
+import jadex.bridge.service.types.cms.CreationInfo;
+import jadex.commons.future.IFuture;
+import org.springframework.boot.SpringApplication;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
  * Classe principal para iniciar o sistema multiagente de monitoramento de saúde mental.
+ * Com -Dsaude.api=true a API REST (WebApiApplication) sobe na mesma JVM, compartilhando com os
+ * agentes o DatabaseManager, os caches e o estado em memória dos idosos.
+ * Com -Dsaude.inicioRapido=true o banco é preparado em paralelo com a plataforma, os agentes são
+ * criados em paralelo e a primeira coleta não espera; os tempos de cada fase ficam nas métricas
+ * inicializacao.*.
+ * Com -Dsaude.cluster.endereco=host:porta a plataforma entra em um cluster com as demais
+ * (-Dsaude.cluster.sementes) e seus agentes atendem só os idosos que o anel de hash consistente
+ * atribui a este nó; todos os nós usam o mesmo banco.
  */
 public class Main {
     
     private static final Logger logger = Logger.getLogger(Main.class.getName());
     
+    /**
+     * Quantidade de shards de agentes por núcleo de CPU (-Dsaude.shardsPorNucleo=2, por exemplo).
+     */
+    private static final String PROP_SHARDS_POR_NUCLEO = "saude.shardsPorNucleo";
+    
+    /**
+     * Sobe também a API REST nesta JVM (-Dsaude.api=true).
+     */
+    private static final String PROP_API = "saude.api";
+    
+    /**
+     * Perfil de início rápido (-Dsaude.inicioRapido=true).
+     */
+    private static final String PROP_INICIO_RAPIDO = "saude.inicioRapido";
+    
+    /**
+     * Encerra a JVM após a primeira coleta; usado na execução de treino que gera o arquivo AppCDS.
+     */
+    private static final String PROP_ENCERRAR_APOS_COLETA = "saude.encerrarAposPrimeiraColeta";
+    
+    private static final long ESPERA_MAXIMA_PRIMEIRA_COLETA_SEGUNDOS = 120;
+    
+    /**
+     * Endereço UDP deste nó no cluster (-Dsaude.cluster.endereco=127.0.0.1:7701); sem ele o processo roda sozinho.
+     */
+    private static final String PROP_CLUSTER_ENDERECO = "saude.cluster.endereco";
+    
+    /**
+     * Endereços de outros nós, separados por vírgula; basta um que já esteja no cluster.
+     */
+    private static final String PROP_CLUSTER_SEMENTES = "saude.cluster.sementes";
+    
+    /**
+     * Id estável do nó no anel (padrão: nome da plataforma Jadex, que muda a cada execução).
+     */
+    private static final String PROP_CLUSTER_NO = "saude.cluster.no";
+    
     public static void main(String[] args) {
+        TemposInicializacao.registrarJvm();
+        
+        // Com -Dsaude.carga.pacientes=N o sistema roda como gerador de carga
+        if (System.getProperty(GeradorCarga.PROP_PACIENTES) != null) {
+            GeradorCarga.executar();
+            return;
+        }
+        
+        boolean inicioRapido = Boolean.getBoolean(PROP_INICIO_RAPIDO);
         try {
             logger.info("=== Iniciando Sistema Multiagente de Monitoramento de Saúde Mental ===");
+            long fase = System.nanoTime();
             
-            // Inicializa o banco de dados
+            // Inicializa o banco de dados; no início rápido, em paralelo com a plataforma Jadex
             logger.info("Inicializando banco de dados...");
-            DatabaseManager dbManager = DatabaseManager.getInstance();
-            
-            // Lista os idosos cadastrados
-            logger.info("Idosos cadastrados no sistema:");
-            dbManager.listarIdosos().forEach(idoso -> 
-                logger.info(String.format("ID: %d, Nome: %s, Idade: %d", 
-                    idoso.get("id"), idoso.get("nome"), idoso.get("idade")))
-            );
+            CompletableFuture<DatabaseManager> banco;
+            if (inicioRapido) {
+                banco = CompletableFuture.supplyAsync(DatabaseManager::getInstance);
+            } else {
+                banco = CompletableFuture.completedFuture(DatabaseManager.getInstance());
+                fase = TemposInicializacao.registrar("banco", fase);
+                
+                // Lista os idosos cadastrados
+                logger.info("Idosos cadastrados no sistema:");
+                banco.join().listarIdosos().forEach(idoso -> 
+                    logger.info(String.format("ID: %d, Nome: %s, Idade: %d", 
+                        idoso.get("id"), idoso.get("nome"), idoso.get("idade")))
+                );
+            }
             
             // Configura a plataforma Jadex
             IPlatformConfiguration config = PlatformConfigurationHandler.getMinimal();
+            if (inicioRapido) {
+                configurarInicioRapido(config);
+            }
             
-            // Adiciona os agentes ao sistema
-            logger.info("Configurando agentes...");
+            // Inicia a plataforma Jadex
+            logger.info("Iniciando plataforma Jadex...");
+            IExternalAccess plataforma = Starter.createPlatform(config).get();
+            fase = TemposInicializacao.registrar("plataforma", fase);
             
-            // Agente de Coleta de Dados para idoso ID 1
-            config.addComponent(AgenteColetaDados.class);
+            // Entra no cluster antes de criar os agentes, para que partam do anel com os nós já ativos
+            if (System.getProperty(PROP_CLUSTER_ENDERECO) != null) {
+                iniciarCluster(plataforma);
+                fase = TemposInicializacao.registrar("cluster", fase);
+            }
             
-            // Agente Analisador Emocional para idoso ID 1
-            config.addComponent(AgenteAnalisadorEmocional.class);
+            DatabaseManager dbManager = banco.join();
+            if (inicioRapido) {
+                fase = TemposInicializacao.registrar("espera_banco", fase);
+            }
             
-            // Agente de Recomendação para idoso ID 1
-            config.addComponent(AgenteRecomendacao.class);
+            // Cada shard recebe um trio de agentes responsável por uma partição da tabela idosos
+            int totalShards = calcularTotalShards();
+            logger.info("Configurando agentes em " + totalShards + " shard(s)...");
             
-            // Inicia a plataforma Jadex
-            logger.info("Iniciando plataforma Jadex...");
-            Starter.createPlatform(config).get();
-            
-            logger.info("=== Sistema iniciado com sucesso! ===");
-            logger.info("Os agentes estão executando e monitorando a saúde mental do idoso.");
-            logger.info("Pressione Ctrl+C para parar o sistema.");
+            // No início rápido todas as criações são pedidas antes de esperar por qualquer uma
+            Map<String, Object> argumentosColeta = inicioRapido
+                ? Collections.singletonMap("atrasoInicial", 0L)
+                : Collections.emptyMap();
+            List<IFuture<IExternalAccess>> criacoes = new ArrayList<>();
+            for (int shard = 0; shard < totalShards; shard++) {
+                criacoes.add(criarAgenteAsync(plataforma, AgenteColetaDados.class, shard, totalShards,
+                    argumentosColeta));
+                criacoes.add(criarAgenteAsync(plataforma, AgenteAnalisadorEmocional.class, shard, totalShards,
+                    Collections.emptyMap()));
+                criacoes.add(criarAgenteAsync(plataforma, AgenteRecomendacao.class, shard, totalShards,
+                    Collections.emptyMap()));
+                if (!inicioRapido) {
+                    aguardar(criacoes);
+                }
+            }
+            aguardar(criacoes);
+            TemposInicializacao.registrar("agentes", fase);
             
             // Adiciona hook para shutdown graceful
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 logger.info("Encerrando sistema...");
+                MembrosCluster.getInstance().close();
                 dbManager.close();
                 logger.info("Sistema encerrado.");
             }));
             
+            // API no mesmo processo: os controladores obtêm o mesmo DatabaseManager já inicializado
+            if (Boolean.getBoolean(PROP_API)) {
+                logger.info("Iniciando API REST na mesma JVM...");
+                SpringApplication.run(WebApiApplication.class, args);
+            }
+            
+            logger.info("=== Sistema iniciado com sucesso! ===");
+            logger.info("Os agentes estão executando e monitorando a saúde mental dos idosos.");
+            logger.info("Pressione Ctrl+C para parar o sistema.");
+            
+            // Execução de treino do AppCDS: as classes carregadas até aqui vão para o arquivo na saída
+            if (Boolean.getBoolean(PROP_ENCERRAR_APOS_COLETA)) {
+                if (!TemposInicializacao.aguardarPrimeiraColeta(ESPERA_MAXIMA_PRIMEIRA_COLETA_SEGUNDOS,
+                        TimeUnit.SECONDS)) {
+                    logger.warning("Primeira coleta não ocorreu em " + ESPERA_MAXIMA_PRIMEIRA_COLETA_SEGUNDOS + "s");
+                }
+                System.exit(0);
+            }
+            
         } catch (Exception e) {
             logger.severe("Erro ao iniciar o sistema: " + e.getMessage());
             e.printStackTrace();
             System.exit(1);
         }
     }
+    
+    /**
+     * Calcula o número de shards a partir da propriedade de shards por núcleo.
+     */
+    static int calcularTotalShards() {
+        double shardsPorNucleo = Double.parseDouble(System.getProperty(PROP_SHARDS_POR_NUCLEO, "1"));
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, (int) Math.ceil(shardsPorNucleo * nucleos));
+    }
+    
+    /**
+     * Inicia o nó do cluster com as propriedades saude.cluster.* (intervalos em milissegundos).
+     */
+    private static void iniciarCluster(IExternalAccess plataforma) throws IOException {
+        String idNo = System.getProperty(PROP_CLUSTER_NO, plataforma.getId().getName());
+        List<InetSocketAddress> sementes = new ArrayList<>();
+        for (String semente : System.getProperty(PROP_CLUSTER_SEMENTES, "").split(",")) {
+            if (!semente.trim().isEmpty()) {
+                sementes.add(MembrosCluster.interpretar(semente));
+            }
+        }
+        long intervaloHeartbeat = Long.getLong("saude.cluster.intervaloHeartbeatMs", 1000);
+        MembrosCluster.getInstance().iniciar(idNo,
+            MembrosCluster.interpretar(System.getProperty(PROP_CLUSTER_ENDERECO)), sementes, intervaloHeartbeat,
+            Long.getLong("saude.cluster.timeoutMs", 5 * intervaloHeartbeat),
+            Long.getLong("saude.cluster.esperaInicialMs", 3 * intervaloHeartbeat));
+    }
+    
+    /**
+     * Plataforma só com o kernel micro (todos os agentes do sistema são micro agentes) e sem os
+     * agentes de sistema opcionais, para que a plataforma não procure outros kernels no classpath.
+     */
+    private static void configurarInicioRapido(IPlatformConfiguration config) {
+        config.setKernels(IPlatformConfiguration.KERNEL_MICRO);
+        IExtendedPlatformConfiguration estendida = config.getExtendedPlatformConfiguration();
+        estendida.setChat(false);
+        estendida.setCli(false);
+        estendida.setFiletransfer(false);
+        estendida.setSensors(false);
+        estendida.setSimul(false);
+    }
+    
+    /**
+     * Espera e esvazia a lista de criações pendentes.
+     */
+    private static void aguardar(List<IFuture<IExternalAccess>> criacoes) {
+        for (IFuture<IExternalAccess> criacao : criacoes) {
+            criacao.get();
+        }
+        criacoes.clear();
+    }
+    
+    /**
+     * Cria um agente do shard com argumentos adicionais (intervalos, semente etc.).
+     */
+    static void criarAgente(IExternalAccess plataforma, Class<?> tipo, int shard, int totalShards,
+                            Map<String, Object> argumentos) {
+        criarAgenteAsync(plataforma, tipo, shard, totalShards, argumentos).get();
+    }
+    
+    /**
+     * Pede a criação de um agente do shard sem esperar que ela termine.
+     */
+    static IFuture<IExternalAccess> criarAgenteAsync(IExternalAccess plataforma, Class<?> tipo, int shard,
+                                                     int totalShards, Map<String, Object> argumentos) {
+        CreationInfo info = new CreationInfo()
+            .setFilenameClass(tipo)
+            .setName(tipo.getSimpleName() + "-" + shard)
+            .addArgument("shard", shard)
+            .addArgument("totalShards", totalShards);
+        argumentos.forEach(info::addArgument);
+        return plataforma.createComponent(info);
+    }
 }
-
@@ -1,25 +1,58 @@
 package com.unieuro.agents;
 
+import com.unieuro.analise.AnaliseEmocional;
+import com.unieuro.analise.AvaliadorRisco;
+import com.unieuro.analise.EstadoPacientes;
+import com.unieuro.analise.JanelaPaciente;
+import com.unieuro.analise.LoteAnalises;
+import com.unieuro.analise.LoteAvaliacao;
 import com.unieuro.database.DatabaseManager;
+import com.unieuro.metrics.AlertasAmostrados;
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import com.unieuro.model.LoteLeituras;
 import jadex.bridge.IInternalAccess;
 import jadex.bridge.service.annotation.OnStart;
+import jadex.commons.future.Future;
 import jadex.commons.future.IFuture;
 import jadex.micro.annotation.Agent;
 import jadex.micro.annotation.AgentArgument;
+import jadex.micro.annotation.ProvidedService;
+import jadex.micro.annotation.ProvidedServices;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Agente responsável por analisar dados de saúde e identificar riscos emocionais.
- * Processa dados do banco e gera análises emocionais.
+ * Recebe as leituras novas do Agente de Coleta pelo serviço IServicoAnalise e as analisa
+ * imediatamente; a consulta periódica ao banco fica apenas como contingência para idosos
+ * que não receberam leituras pelo serviço.
+ * O histórico de cada idoso é mantido em uma JanelaPaciente atualizada a cada leitura.
+ * As análises de cada ciclo são repassadas ao Agente de Recomendação pelo serviço IServicoRecomendacao.
  */
 @Agent
-public class AgenteAnalisadorEmocional {
+@ProvidedServices(@ProvidedService(type = IServicoAnalise.class))
+public class AgenteAnalisadorEmocional implements IServicoAnalise {
     
     private static final Logger logger = Logger.getLogger(AgenteAnalisadorEmocional.class.getName());
+    private static final Histograma latenciaColetaAnalise =
+        Metricas.histograma("analise.latencia_coleta_ate_analise_nanos");
+    private static final Histograma duracaoLote = Metricas.histograma("agente.analise.lote_nanos");
+    private static final Histograma duracaoContingencia = Metricas.histograma("agente.analise.contingencia_nanos");
+    private static final Histograma duracaoReanalise = Metricas.histograma("agente.analise.reanalise_nanos");
+    private static final Contador analisesRealizadas = Metricas.contador("analise.realizadas");
+    private static final AlertasAmostrados alertas = new AlertasAmostrados(logger, "analise.alertas",
+        "ALERTA: risco detectado", 10000);
+    // Consultas de reconstrução das janelas em andamento ao mesmo tempo, na partida
+    private static final int RECONSTRUCOES_SIMULTANEAS = 4;
+    // Consultas de contingência disparadas por ciclo; o restante fica para os ciclos seguintes
+    private static final int MAXIMO_REANALISES_POR_CICLO = 1000;
     private DatabaseManager dbManager;
+    private final EstadoPacientes estado = EstadoPacientes.getInstance();
     
     @AgentArgument
     private long idIdoso = 1; // ID do idoso a ser analisado
@@ -27,171 +60,239 @@ public class AgenteAnalisadorEmocional {
     @AgentArgument
     private int intervaloAnalise = 15000; // Intervalo em milissegundos (15 segundos)
     
-    // Limiares para identificação de riscos
-    private static final double LIMIAR_SONO_BAIXO = 6.0;
-    private static final int LIMIAR_QUALIDADE_SONO_BAIXA = 3;
-    private static final int LIMIAR_FC_ALTA = 90;
-    private static final int LIMIAR_FC_BAIXA = 60;
+    @AgentArgument
+    private int shard = 0; // Partição da tabela idosos atendida por esta instância
+    
+    @AgentArgument
+    private int totalShards = 0; // 0 = modo de idoso único (idIdoso)
+    
+    @AgentArgument
+    private long intervaloAtualizacaoParticao = 60000; // Recarga da lista de idosos do shard
+    
+    private ParticaoPacientes particao;
+    private int cursorContingencia; // Acessado apenas pela thread do agente
+    private double limiarSonoBaixo; // Limiar usado pelas janelas desta partição; só na thread do agente
+    private StatusAgentes.StatusAgente status;
+    private IInternalAccess agente;
+    
+    // Recomendadores que recebem as análises (o do mesmo shard, ou todos no modo de idoso único)
+    private volatile List<IServicoRecomendacao> recomendadores = new ArrayList<>();
     
     /**
      * Inicializa o agente e inicia a análise periódica.
      */
     @OnStart
     void iniciarAnalise(IInternalAccess me) {
-        logger.info("Agente Analisador Emocional iniciado para idoso ID: " + idIdoso);
+        agente = me;
+        particao = ParticaoPacientes.deArgumentos(idIdoso, shard, totalShards, intervaloAtualizacaoParticao);
+        logger.info("Agente Analisador Emocional iniciado para " + particao);
         
         // Inicializa o gerenciador de banco de dados
         dbManager = DatabaseManager.getInstance();
+        status = StatusAgentes.getInstance().registrar("Agente Analisador",
+            String.format("Analisando leituras recebidas (contingência a cada %ds)", intervaloAnalise / 1000),
+            particao, intervaloAnalise);
+        
+        // Reconstrói as janelas da partição a partir do banco sem ocupar a thread do agente:
+        // as consultas rodam no ExecutorBanco e cada resultado volta como um passo do agente
+        limiarSonoBaixo = estado.getLimiarSonoBaixo();
+        ContinuacaoAgente.aoConcluir(me, particao.atualizar(dbManager), ids -> {
+            reconstruir(ids);
+            logger.info("Reconstrução das janelas iniciada para " + ids.length + " idosos de " + particao);
+        });
+        
+        // Em um cluster, idosos assumidos de outro nó têm a janela reconstruída e os liberados
+        // deixam de ocupar memória aqui
+        particao.aoRebalancear((assumidos, liberados) -> {
+            for (long id : liberados) {
+                estado.remover(id);
+            }
+            reconstruir(assumidos);
+        });
         
-        // Inicia a análise periódica
+        // Análise periódica de contingência: só consulta o banco para idosos sem leituras
+        // recebidas pelo serviço dentro do intervalo de análise
         me.repeatStep(5000, intervaloAnalise, dummy -> {
-            analisarDadosRecentes();
+            long inicio = System.nanoTime();
+            long limite = System.currentTimeMillis() - intervaloAnalise;
+            long[] idsParticao = particao.getIds(dbManager);
+            // Regras recarregadas com outro limiar de sono baixo: as contagens das janelas foram
+            // feitas com o anterior, então as janelas são refeitas a partir do banco
+            double limiar = estado.getLimiarSonoBaixo();
+            if (limiar != limiarSonoBaixo) {
+                logger.info(String.format("Limiar de sono baixo alterado de %.1f para %.1f; reconstruindo %d janelas de %s",
+                    limiarSonoBaixo, limiar, idsParticao.length, particao));
+                limiarSonoBaixo = limiar;
+                reconstruir(idsParticao);
+            }
+            // Percorre a partição a partir de onde o ciclo anterior parou
+            int reanalises = 0;
+            for (int n = 0; n < idsParticao.length && reanalises < MAXIMO_REANALISES_POR_CICLO; n++) {
+                cursorContingencia = (cursorContingencia + 1) % idsParticao.length;
+                JanelaPaciente janela = estado.obterJanela(idsParticao[cursorContingencia]);
+                if (janela.getAtualizadaEm() < limite) {
+                    analisarDadosRecentes(janela);
+                    reanalises++;
+                }
+            }
+            status.registrarExecucao(idsParticao.length);
+            duracaoContingencia.registrar(System.nanoTime() - inicio);
             return IFuture.DONE;
         });
     }
     
     /**
-     * Analisa os dados de saúde recentes e identifica riscos emocionais.
+     * Reconstrói as janelas dos idosos a partir do banco, com RECONSTRUCOES_SIMULTANEAS consultas em andamento.
+     * Todas as janelas são marcadas antes, para que as leituras recebidas enquanto esperam a vez na
+     * cadeia sejam reaplicadas sobre o histórico.
      */
-    private void analisarDadosRecentes() {
-        try {
-            // Busca dados dos últimos 3 dias
-            List<Map<String, Object>> dadosRecentes = dbManager.buscarDadosSaudeRecentes(idIdoso, 3);
-            
-            if (dadosRecentes.isEmpty()) {
-                logger.warning("Nenhum dado encontrado para análise do idoso ID: " + idIdoso);
-                return;
-            }
-            
-            // Analisa os dados mais recentes
-            Map<String, Object> dadosMaisRecentes = dadosRecentes.get(0);
-            AnaliseEmocional analise = analisarDados(dadosMaisRecentes, dadosRecentes);
-            
-            // Salva a análise no banco
-            dbManager.inserirAnaliseEmocional(idIdoso, analise.nivelRisco, analise.descricao);
-            
-            logger.info(String.format(
-                "Análise realizada - Risco: %s, Descrição: %s",
-                analise.nivelRisco, analise.descricao
-            ));
-            
-            // Se há risco, pode notificar o agente de recomendação
-            if (!"baixo".equals(analise.nivelRisco)) {
-                logger.warning("ALERTA: Risco " + analise.nivelRisco + " detectado para idoso ID: " + idIdoso);
-            }
-            
-        } catch (Exception e) {
-            logger.severe("Erro na análise emocional: " + e.getMessage());
+    private void reconstruir(long[] ids) {
+        for (long id : ids) {
+            estado.obterJanela(id).iniciarReconstrucao();
+        }
+        int[] proxima = {0};
+        for (int i = 0; i < Math.min(RECONSTRUCOES_SIMULTANEAS, ids.length); i++) {
+            reconstruirProxima(ids, proxima);
         }
     }
     
     /**
-     * Realiza a análise dos dados de saúde.
+     * Reconstrói a janela do próximo idoso e, ao terminar, passa ao seguinte. Cada cadeia mantém
+     * uma consulta em andamento, para não inundar a fila do ExecutorBanco com milhares de idosos.
      */
-    private AnaliseEmocional analisarDados(Map<String, Object> dadosAtuais, List<Map<String, Object>> historico) {
-        AnaliseEmocional analise = new AnaliseEmocional();
-        StringBuilder descricao = new StringBuilder();
-        int pontuacaoRisco = 0;
-        
-        // Análise do sono
-        double sonoHoras = (Double) dadosAtuais.get("sono_horas");
-        int qualidadeSono = (Integer) dadosAtuais.get("qualidade_sono");
-        
-        if (sonoHoras < LIMIAR_SONO_BAIXO) {
-            pontuacaoRisco += 2;
-            descricao.append("Sono insuficiente (").append(sonoHoras).append("h). ");
-        }
-        
-        if (qualidadeSono < LIMIAR_QUALIDADE_SONO_BAIXA) {
-            pontuacaoRisco += 2;
-            descricao.append("Qualidade do sono ruim (").append(qualidadeSono).append("/5). ");
-        }
-        
-        // Análise do humor
-        String humor = (String) dadosAtuais.get("humor");
-        if ("negativo".equals(humor)) {
-            pontuacaoRisco += 3;
-            descricao.append("Humor negativo. ");
-        }
-        
-        // Análise da atividade física
-        String atividadeFisica = (String) dadosAtuais.get("atividade_fisica");
-        if ("sedentaria".equals(atividadeFisica) || "nenhuma".equals(atividadeFisica)) {
-            pontuacaoRisco += 2;
-            descricao.append("Atividade física insuficiente. ");
-        }
-        
-        // Análise da frequência cardíaca
-        int fc = (Integer) dadosAtuais.get("frequencia_cardiaca");
-        if (fc > LIMIAR_FC_ALTA || fc < LIMIAR_FC_BAIXA) {
-            pontuacaoRisco += 1;
-            descricao.append("Frequência cardíaca anormal (").append(fc).append(" bpm). ");
+    private void reconstruirProxima(long[] ids, int[] proxima) {
+        if (proxima[0] >= ids.length) {
+            return;
         }
-        
-        // Análise de tendências (se há dados históricos)
-        if (historico.size() > 1) {
-            analisarTendencias(historico, descricao);
-        }
-        
-        // Determina o nível de risco
-        if (pontuacaoRisco >= 6) {
-            analise.nivelRisco = "alto";
-        } else if (pontuacaoRisco >= 3) {
-            analise.nivelRisco = "moderado";
-        } else {
-            analise.nivelRisco = "baixo";
-        }
-        
-        // Finaliza a descrição
-        if (descricao.length() == 0) {
-            descricao.append("Indicadores dentro da normalidade.");
-        }
-        
-        analise.descricao = descricao.toString().trim();
-        
-        return analise;
+        JanelaPaciente janela = estado.obterJanela(ids[proxima[0]++]);
+        IFuture<LoteLeituras> consulta =
+            dbManager.buscarDadosSaudeRecentesAsync(janela.getIdIdoso(), EstadoPacientes.DIAS_JANELA);
+        ContinuacaoAgente.aoConcluir(agente, consulta, dados -> {
+            estado.reconstruir(janela, dados);
+            reconstruirProxima(ids, proxima);
+        });
+        ContinuacaoAgente.aoFalhar(agente, consulta, e -> {
+            janela.cancelarReconstrucao();
+            reconstruirProxima(ids, proxima);
+        });
+    }
+    
+    @Override
+    public IFuture<Integer> getShard() {
+        return new Future<>(shard);
     }
     
     /**
-     * Analisa tendências nos dados históricos.
+     * Analisa as leituras assim que chegam do Agente de Coleta. As janelas são atualizadas
+     * primeiro e todas as leituras do lote são pontuadas juntas pelo motor de regras.
      */
-    private void analisarTendencias(List<Map<String, Object>> historico, StringBuilder descricao) {
-        // Verifica se há piora consistente no humor
-        int humorNegativoConsecutivo = 0;
-        for (Map<String, Object> dado : historico) {
-            if ("negativo".equals(dado.get("humor"))) {
-                humorNegativoConsecutivo++;
-            } else {
-                break;
+    @Override
+    public IFuture<Void> receberLeituras(LoteLeituras leituras) {
+        long inicio = System.nanoTime();
+        LoteAvaliacao avaliacao = new LoteAvaliacao(leituras.tamanho());
+        int[] origem = new int[leituras.tamanho()];
+        for (int i = 0; i < leituras.tamanho(); i++) {
+            long id = leituras.getIdIdoso(i);
+            if (particao == null || !particao.contem(id)) {
+                continue;
+            }
+            try {
+                JanelaPaciente janela = estado.obterJanela(id);
+                janela.adicionar(leituras.getDiaColeta(i), leituras.getSonoHoras(i), leituras.getQualidadeSono(i),
+                    leituras.getHumor(i), leituras.getAtividadeFisica(i), leituras.getFrequenciaCardiaca(i));
+                origem[avaliacao.adicionar(janela)] = i;
+                
+            } catch (Exception e) {
+                logger.severe("Erro na análise emocional: " + e.getMessage());
             }
         }
         
-        if (humorNegativoConsecutivo >= 2) {
-            descricao.append("Tendência de humor negativo persistente. ");
+        LoteAnalises produzidas = new LoteAnalises(avaliacao.tamanho());
+        try {
+            avaliacao.avaliar();
+            for (int linha = 0; linha < avaliacao.tamanho(); linha++) {
+                int i = origem[linha];
+                registrarAnalise(leituras.getIdIdoso(i), avaliacao.getAnalise(linha),
+                    leituras.getInstanteColetaNanos(i), produzidas);
+                latenciaColetaAnalise.registrar(System.nanoTime() - leituras.getInstanteColetaNanos(i));
+            }
+        } catch (Exception e) {
+            logger.severe("Erro na análise emocional: " + e.getMessage());
         }
+        publicarAnalises(produzidas);
+        duracaoLote.registrar(System.nanoTime() - inicio);
+        return IFuture.DONE;
+    }
+    
+    /**
+     * Ressincroniza a janela com o banco e identifica riscos emocionais (caminho de contingência).
+     * A consulta roda no ExecutorBanco; a avaliação continua na thread do agente.
+     */
+    private void analisarDadosRecentes(JanelaPaciente janela) {
+        long id = janela.getIdIdoso();
+        janela.iniciarReconstrucao();
+        IFuture<LoteLeituras> consulta = dbManager.buscarDadosSaudeRecentesAsync(id, EstadoPacientes.DIAS_JANELA);
+        ContinuacaoAgente.aoFalhar(agente, consulta, e -> janela.cancelarReconstrucao());
+        ContinuacaoAgente.aoConcluir(agente, consulta,
+            dados -> {
+                long inicio = System.nanoTime();
+                try {
+                    // Recarrega os dados dos últimos dias
+                    estado.reconstruir(janela, dados);
+                    
+                    if (!janela.possuiLeitura()) {
+                        logger.warning("Nenhum dado encontrado para análise do idoso ID: " + id);
+                        return;
+                    }
+                    
+                    LoteAnalises produzidas = new LoteAnalises(1);
+                    registrarAnalise(id, AvaliadorRisco.avaliar(janela), 0L, produzidas);
+                    publicarAnalises(produzidas);
+                    
+                } catch (Exception e) {
+                    logger.severe("Erro na análise emocional: " + e.getMessage());
+                } finally {
+                    duracaoReanalise.registrar(System.nanoTime() - inicio);
+                }
+            });
+    }
+    
+    /**
+     * Grava o resultado da análise e o acrescenta ao lote enviado ao recomendador.
+     */
+    private void registrarAnalise(long idIdoso, AnaliseEmocional analise, long instanteColetaNanos,
+                                  LoteAnalises produzidas) {
+        // Salva a análise no banco
+        // A descrição só é montada pelo gravador, ao vincular o registro
+        dbManager.inserirAnaliseEmocionalAsync(idIdoso, analise.getNivelRisco(), analise::getDescricao);
+        produzidas.adicionar(idIdoso, analise, instanteColetaNanos);
+        analisesRealizadas.incrementar();
         
-        // Verifica tendência de sono ruim
-        int sonoRuimConsecutivo = 0;
-        for (Map<String, Object> dado : historico) {
-            double sono = (Double) dado.get("sono_horas");
-            if (sono < LIMIAR_SONO_BAIXO) {
-                sonoRuimConsecutivo++;
-            } else {
-                break;
-            }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format(
+                "Análise realizada - Idoso: %d, Risco: %s, Descrição: %s",
+                idIdoso, analise.getNivelRisco(), analise.getDescricao()
+            ));
         }
         
-        if (sonoRuimConsecutivo >= 2) {
-            descricao.append("Padrão de sono inadequado persistente. ");
+        if (!"baixo".equals(analise.getNivelRisco())) {
+            alertas.registrar(analise.getNivelRisco(), idIdoso);
         }
     }
     
     /**
-     * Classe interna para representar uma análise emocional.
+     * Envia as análises do ciclo ao Agente de Recomendação.
      */
-    private static class AnaliseEmocional {
-        String nivelRisco;
-        String descricao;
+    private void publicarAnalises(LoteAnalises analises) {
+        if (analises.isVazio()) {
+            return;
+        }
+        if (recomendadores.isEmpty()) {
+            LocalizadorServicos.localizar(agente, IServicoRecomendacao.class, shard, totalShards,
+                encontrados -> recomendadores = encontrados);
+        }
+        for (IServicoRecomendacao recomendador : recomendadores) {
+            recomendador.receberAnalises(analises);
+        }
     }
 }
-
@@ -1,24 +1,40 @@
 package com.unieuro.agents;
 
+import com.unieuro.analise.RelogioSimulado;
+import com.unieuro.analise.SimuladorSaude;
 import com.unieuro.database.DatabaseManager;
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import com.unieuro.metrics.TemposInicializacao;
+import com.unieuro.model.LoteLeituras;
 import jadex.bridge.IInternalAccess;
 import jadex.bridge.service.annotation.OnStart;
 import jadex.commons.future.IFuture;
 import jadex.micro.annotation.Agent;
 import jadex.micro.annotation.AgentArgument;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Agente responsável por coletar e simular dados de saúde de idosos.
- * Os dados são armazenados no banco de dados e enviados para análise.
+ * Os dados são armazenados no banco de dados e enviados ao Agente Analisador
+ * pelo serviço IServicoAnalise.
  */
 @Agent
 public class AgenteColetaDados {
     
     private static final Logger logger = Logger.getLogger(AgenteColetaDados.class.getName());
-    private Random random = new Random();
+    private static final Histograma duracaoCiclo = Metricas.histograma("agente.coleta.ciclo_nanos");
+    private static final Contador leiturasColetadas = Metricas.contador("coleta.leituras");
+    private static final Contador gravacoesFalhas = Metricas.contador("coleta.gravacoes_falhas");
+    // Ciclos pulados depois de falhas de gravação: dobram a cada ciclo com falha, até este limite
+    private static final int MAXIMO_CICLOS_PAUSA = 8;
+    private SimuladorSaude simulador;
     private DatabaseManager dbManager;
     
     @AgentArgument
@@ -27,114 +43,176 @@ public class AgenteColetaDados {
     @AgentArgument
     private int intervaloColeta = 10000; // Intervalo em milissegundos (10 segundos)
     
+    @AgentArgument
+    private int shard = 0; // Partição da tabela idosos atendida por esta instância
+    
+    @AgentArgument
+    private int totalShards = 0; // 0 = modo de idoso único (idIdoso)
+    
+    @AgentArgument
+    private long intervaloAtualizacaoParticao = 60000; // Recarga da lista de idosos do shard
+    
+    @AgentArgument
+    private long semente = 0; // Semente do simulador; 0 = aleatória
+    
+    @AgentArgument
+    private long atrasoInicial = 1000; // Espera antes do primeiro ciclo; 0 no início rápido
+    
+    @AgentArgument
+    private double aceleracao = 1; // Fator do relógio que data as leituras; > 1 no gerador de carga
+    
+    @AgentArgument
+    private long inicioSimulacao = 0; // Origem do relógio (ms); 0 = início do agente
+    
+    private RelogioSimulado relogio;
+    
+    // Backpressure (acessados só na thread do agente): gravações que falharam desde a última
+    // verificação, tamanho da pausa atual e ciclos que ainda faltam pular
+    private int falhasGravacao;
+    private String ultimaFalha;
+    private int ciclosPausa;
+    private int ciclosAPular;
+    private boolean ultimoCicloColetou;
+    private ParticaoPacientes particao;
+    private StatusAgentes.StatusAgente status;
+    private IInternalAccess agente;
+    
+    // Analisadores que recebem as leituras coletadas (o do mesmo shard, ou todos no modo de idoso único)
+    private volatile List<IServicoAnalise> analisadores = new ArrayList<>();
+    
     /**
      * Inicializa o agente e inicia a coleta de dados.
      */
     @OnStart
     void iniciarColeta(IInternalAccess me) {
-        logger.info("Agente de Coleta de Dados iniciado para idoso ID: " + idIdoso);
+        agente = me;
+        particao = ParticaoPacientes.deArgumentos(idIdoso, shard, totalShards, intervaloAtualizacaoParticao);
+        // Com semente fixa, cada shard tem uma sequência própria e reproduzível
+        simulador = new SimuladorSaude(semente != 0 ? new Random(semente + shard) : new Random());
+        relogio = new RelogioSimulado(inicioSimulacao != 0 ? inicioSimulacao : System.currentTimeMillis(), aceleracao);
+        logger.info("Agente de Coleta de Dados iniciado para " + particao);
         
         // Inicializa o gerenciador de banco de dados
         dbManager = DatabaseManager.getInstance();
+        status = StatusAgentes.getInstance().registrar("Agente de Coleta",
+            String.format("Coletando dados a cada %ds", intervaloColeta / 1000), particao, intervaloColeta);
         
-        // Inicia a coleta periódica de dados
-        me.repeatStep(1000, intervaloColeta, dummy -> {
-            coletarDadosSaude();
+        // Carrega a lista de idosos do shard antes do primeiro ciclo
+        particao.atualizar(dbManager);
+        
+        // Inicia a coleta periódica de dados: um único timer para todos os idosos da partição
+        me.repeatStep(atrasoInicial, intervaloColeta, dummy -> {
+            if (pausarPorFalhas()) {
+                return IFuture.DONE;
+            }
+            long inicio = System.nanoTime();
+            long[] ids = particao.getIds(dbManager);
+            LoteLeituras coletadas = new LoteLeituras(ids.length);
+            long hoje = relogio.hoje();
+            for (long id : ids) {
+                coletarDadosSaude(id, hoje, coletadas);
+            }
+            publicarLeituras(coletadas);
+            status.registrarExecucao(ids.length);
+            TemposInicializacao.marcarPrimeiraColeta();
+            leiturasColetadas.incrementar(coletadas.tamanho());
+            duracaoCiclo.registrar(System.nanoTime() - inicio);
             return IFuture.DONE;
         });
     }
     
     /**
-     * Simula e coleta dados de saúde do idoso.
+     * Decide no início do ciclo se a coleta é pulada. Gravações recusadas (fila do gravador e
+     * ExecutorBanco cheios, diário encerrado) pausam a coleta por um ciclo, e a pausa dobra a cada
+     * ciclo coletado que volta a falhar; um ciclo sem falhas encerra a pausa.
      */
-    private void coletarDadosSaude() {
-        try {
-            // Simula dados de saúde realistas para idosos
-            DadosSaude dados = simularDadosSaude();
-            
-            // Armazena no banco de dados
-            dbManager.inserirDadosSaude(
-                idIdoso,
-                dados.sonoHoras,
-                dados.qualidadeSono,
-                dados.humor,
-                dados.atividadeFisica,
-                dados.frequenciaCardiaca
-            );
-            
-            logger.info(String.format(
-                "Dados coletados - Sono: %.1fh, Humor: %s, Atividade: %s, FC: %d bpm",
-                dados.sonoHoras, dados.humor, dados.atividadeFisica, dados.frequenciaCardiaca
-            ));
-            
-            // Aqui poderia enviar mensagem para o Agente Analisador
-            // Por simplicidade, vamos apenas logar
-            
-        } catch (Exception e) {
-            logger.severe("Erro na coleta de dados: " + e.getMessage());
+    private boolean pausarPorFalhas() {
+        if (ciclosAPular > 0) {
+            ciclosAPular--;
+            return true;
         }
+        if (falhasGravacao > 0) {
+            ciclosPausa = Math.min(Math.max(1, ciclosPausa * 2), MAXIMO_CICLOS_PAUSA);
+            logger.warning(String.format("%d leitura(s) não gravada(s) (%s); coleta pausada por %d ciclo(s)",
+                falhasGravacao, ultimaFalha, ciclosPausa));
+            falhasGravacao = 0;
+            ciclosAPular = ciclosPausa - 1;
+            ultimoCicloColetou = false;
+            return true;
+        }
+        if (ultimoCicloColetou) {
+            ciclosPausa = 0;
+        }
+        ultimoCicloColetou = true;
+        return false;
     }
     
     /**
-     * Simula dados de saúde realistas para uma pessoa idosa.
+     * Registra uma gravação que falhou; chamado na thread do agente.
      */
-    private DadosSaude simularDadosSaude() {
-        DadosSaude dados = new DadosSaude();
-        
-        // Sono: 4-10 horas (tendência para 6-8 horas)
-        dados.sonoHoras = 5.0 + (random.nextDouble() * 4.0); // 5.0 a 9.0 horas
-        
-        // Qualidade do sono: 1-5 (1=muito ruim, 5=excelente)
-        dados.qualidadeSono = 2 + random.nextInt(4); // 2 a 5
-        
-        // Humor baseado na qualidade do sono
-        if (dados.qualidadeSono >= 4 && dados.sonoHoras >= 7) {
-            dados.humor = random.nextBoolean() ? "positivo" : "neutro";
-        } else if (dados.qualidadeSono <= 2 || dados.sonoHoras < 6) {
-            dados.humor = random.nextBoolean() ? "negativo" : "neutro";
-        } else {
-            dados.humor = "neutro";
+    private void registrarFalhaGravacao(Exception e) {
+        falhasGravacao++;
+        ultimaFalha = e.toString();
+        gravacoesFalhas.incrementar();
+    }
+    
+    /**
+     * Envia as leituras do ciclo ao Agente Analisador, que as analisa sem esperar seu próximo ciclo.
+     */
+    private void publicarLeituras(LoteLeituras leituras) {
+        if (leituras.isVazio()) {
+            return;
         }
-        
-        // Atividade física baseada no humor
-        if ("positivo".equals(dados.humor)) {
-            String[] atividades = {"moderada", "intensa", "leve"};
-            dados.atividadeFisica = atividades[random.nextInt(atividades.length)];
-        } else if ("negativo".equals(dados.humor)) {
-            String[] atividades = {"sedentaria", "leve", "nenhuma"};
-            dados.atividadeFisica = atividades[random.nextInt(atividades.length)];
-        } else {
-            String[] atividades = {"leve", "moderada", "sedentaria"};
-            dados.atividadeFisica = atividades[random.nextInt(atividades.length)];
+        if (analisadores.isEmpty()) {
+            localizarAnalisadores();
         }
-        
-        // Frequência cardíaca: 60-100 bpm (normal para idosos)
-        // Pode variar com atividade física e humor
-        int fcBase = 65 + random.nextInt(20); // 65-85 bpm base
-        
-        if ("intensa".equals(dados.atividadeFisica)) {
-            dados.frequenciaCardiaca = fcBase + 10 + random.nextInt(15); // +10 a +25
-        } else if ("moderada".equals(dados.atividadeFisica)) {
-            dados.frequenciaCardiaca = fcBase + 5 + random.nextInt(10); // +5 a +15
-        } else {
-            dados.frequenciaCardiaca = fcBase + random.nextInt(10) - 5; // -5 a +5
+        for (IServicoAnalise analisador : analisadores) {
+            analisador.receberLeituras(leituras);
         }
-        
-        // Garante que FC está dentro dos limites normais
-        dados.frequenciaCardiaca = Math.max(50, Math.min(120, dados.frequenciaCardiaca));
-        
-        return dados;
     }
     
     /**
-     * Classe interna para representar dados de saúde.
+     * Procura os analisadores da plataforma. No modo particionado, fica apenas com o do mesmo shard.
+     * Enquanto nenhum for encontrado, as leituras são analisadas pela consulta periódica ao banco.
      */
-    private static class DadosSaude {
-        double sonoHoras;
-        int qualidadeSono;
-        String humor;
-        String atividadeFisica;
-        int frequenciaCardiaca;
+    private void localizarAnalisadores() {
+        LocalizadorServicos.localizar(agente, IServicoAnalise.class, shard, totalShards,
+            encontrados -> analisadores = encontrados);
+    }
+    
+    /**
+     * Simula e coleta dados de saúde do idoso, acrescentando a leitura ao lote do ciclo.
+     */
+    private void coletarDadosSaude(long idIdoso, long hoje, LoteLeituras coletadas) {
+        try {
+            // Simula dados de saúde realistas para idosos
+            int i = coletadas.tamanho();
+            simulador.simular(idIdoso, hoje, System.nanoTime(), coletadas);
+            
+            // Armazena no banco de dados
+            IFuture<Void> gravacao = dbManager.inserirDadosSaudeAsync(
+                idIdoso,
+                hoje,
+                coletadas.getSonoHoras(i),
+                coletadas.getQualidadeSono(i),
+                coletadas.getHumor(i),
+                coletadas.getAtividadeFisica(i),
+                coletadas.getFrequenciaCardiaca(i)
+            );
+            ContinuacaoAgente.aoFalhar(agente, gravacao, this::registrarFalhaGravacao);
+            
+            // Uma linha por leitura: apenas em FINE para não pesar no caminho quente
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine(String.format(
+                    "Dados coletados - Idoso: %d, Sono: %.1fh, Humor: %s, Atividade: %s, FC: %d bpm",
+                    idIdoso, coletadas.getSonoHoras(i), coletadas.getHumor(i), coletadas.getAtividadeFisica(i),
+                    coletadas.getFrequenciaCardiaca(i)
+                ));
+            }
+            
+        } catch (Exception e) {
+            logger.severe("Erro na coleta de dados: " + e.getMessage());
+        }
     }
 }
 
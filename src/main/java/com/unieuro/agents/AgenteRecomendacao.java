@@ -1,108 +1,173 @@
 package com.unieuro.agents;
 
+import com.unieuro.analise.AnaliseEmocional;
+import com.unieuro.analise.GeradorRecomendacoes;
+import com.unieuro.analise.LoteAnalises;
 import com.unieuro.database.DatabaseManager;
+import com.unieuro.metrics.AlertasAmostrados;
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
 import jadex.bridge.IInternalAccess;
 import jadex.bridge.service.annotation.OnStart;
+import jadex.commons.future.Future;
 import jadex.commons.future.IFuture;
 import jadex.micro.annotation.Agent;
 import jadex.micro.annotation.AgentArgument;
+import jadex.micro.annotation.ProvidedService;
+import jadex.micro.annotation.ProvidedServices;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Agente responsável por gerar recomendações personalizadas baseadas nas análises emocionais.
- * Monitora as análises e sugere intervenções apropriadas.
+ * Recebe as análises do Agente Analisador pelo serviço IServicoRecomendacao e só grava uma
+ * recomendação quando o nível de risco do idoso muda ou quando a última recomendação para o
+ * mesmo nível é mais antiga que a janela de deduplicação.
  */
 @Agent
-public class AgenteRecomendacao {
+@ProvidedServices(@ProvidedService(type = IServicoRecomendacao.class))
+public class AgenteRecomendacao implements IServicoRecomendacao {
     
     private static final Logger logger = Logger.getLogger(AgenteRecomendacao.class.getName());
+    private static final Contador recomendacoesGeradas = Metricas.contador("recomendacao.geradas");
+    private static final Contador recomendacoesSuprimidas = Metricas.contador("recomendacao.suprimidas");
+    private static final AlertasAmostrados alertas = new AlertasAmostrados(logger, "recomendacao.alertas",
+        "ALERTA CRÍTICO: recomendação urgente enviada", 10000);
+    private static final Histograma duracaoLote = Metricas.histograma("agente.recomendacao.lote_nanos");
+    private static final Histograma latenciaColetaDecisao =
+        Metricas.histograma("recomendacao.latencia_coleta_ate_decisao_nanos");
     private DatabaseManager dbManager;
-    private Random random = new Random();
+    private GeradorRecomendacoes geradorRecomendacoes;
     
     @AgentArgument
     private long idIdoso = 1; // ID do idoso
     
     @AgentArgument
-    private int intervaloRecomendacao = 20000; // Intervalo em milissegundos (20 segundos)
+    private long janelaDeduplicacao = 300000; // Sem nova recomendação para o mesmo risco por 5 minutos
     
-    // Recomendações por tipo de risco
-    private static final List<String> RECOMENDACOES_RISCO_BAIXO = Arrays.asList(
-        "Continue mantendo sua rotina saudável",
-        "Pratique exercícios de respiração por 5 minutos",
-        "Ouça música relaxante",
-        "Faça uma caminhada leve",
-        "Mantenha contato social com familiares"
-    );
+    @AgentArgument
+    private int shard = 0; // Partição da tabela idosos atendida por esta instância
+    
+    @AgentArgument
+    private int totalShards = 0; // 0 = modo de idoso único (idIdoso)
+    
+    @AgentArgument
+    private long intervaloAtualizacaoParticao = 60000; // Recarga da lista de idosos do shard
+    
+    @AgentArgument
+    private long semente = 0; // Semente da escolha de recomendações; 0 = aleatória
     
-    private static final List<String> RECOMENDACOES_RISCO_MODERADO = Arrays.asList(
-        "Pratique exercícios de respiração profunda por 10 minutos",
-        "Faça uma caminhada de 15-20 minutos",
-        "Pratique meditação ou mindfulness",
-        "Converse com um familiar ou amigo",
-        "Escute música calma e relaxante",
-        "Faça alongamentos suaves",
-        "Beba um chá calmante (camomila, erva-cidreira)"
-    );
+    private ParticaoPacientes particao;
+    private StatusAgentes.StatusAgente status;
     
-    private static final List<String> RECOMENDACOES_RISCO_ALTO = Arrays.asList(
-        "Entre em contato com um familiar ou cuidador",
-        "Considere conversar com um profissional de saúde",
-        "Pratique técnicas de relaxamento imediatamente",
-        "Evite ficar sozinho por longos períodos",
-        "Mantenha uma rotina de sono regular",
-        "Procure atividades que tragam prazer e bem-estar",
-        "Considere participar de grupos de apoio"
-    );
+    // Última recomendação por idoso; acessado apenas pela thread do agente
+    private final Map<Long, UltimaRecomendacao> ultimas = new HashMap<>();
+    
+    /**
+     * Nível de risco e instante da última recomendação gravada para um idoso.
+     */
+    private static class UltimaRecomendacao {
+        final String nivelRisco;
+        final long instante;
+        
+        UltimaRecomendacao(String nivelRisco, long instante) {
+            this.nivelRisco = nivelRisco;
+            this.instante = instante;
+        }
+    }
     
     /**
-     * Inicializa o agente e inicia o monitoramento.
+     * Inicializa o agente; as recomendações passam a ser geradas pelas análises recebidas.
      */
     @OnStart
     void iniciarMonitoramento(IInternalAccess me) {
-        logger.info("Agente de Recomendação iniciado para idoso ID: " + idIdoso);
+        particao = ParticaoPacientes.deArgumentos(idIdoso, shard, totalShards, intervaloAtualizacaoParticao);
+        geradorRecomendacoes = new GeradorRecomendacoes(semente != 0 ? new Random(semente + shard) : new Random());
+        logger.info("Agente de Recomendação iniciado para " + particao);
         
         // Inicializa o gerenciador de banco de dados
         dbManager = DatabaseManager.getInstance();
-        
-        // Inicia o monitoramento periódico
-        me.repeatStep(8000, intervaloRecomendacao, dummy -> {
-            verificarAnalisesRecentes();
-            return IFuture.DONE;
-        });
+        status = StatusAgentes.getInstance().registrar("Agente de Recomendação",
+            String.format("Gerando sugestões por análise recebida (deduplicação de %ds)", janelaDeduplicacao / 1000),
+            particao, janelaDeduplicacao);
+    }
+    
+    @Override
+    public IFuture<Integer> getShard() {
+        return new Future<>(shard);
     }
     
     /**
-     * Verifica análises emocionais recentes e gera recomendações.
+     * Avalia as análises recebidas e gera recomendações apenas para mudanças de risco
+     * ou quando a janela de deduplicação expirou.
      */
-    private void verificarAnalisesRecentes() {
-        try {
-            // Busca a análise mais recente
-            // Por simplicidade, vamos simular que sempre há uma análise recente
-            // Em um sistema real, consultaríamos a tabela analises_emocionais
+    @Override
+    public IFuture<Void> receberAnalises(LoteAnalises analises) {
+        long inicio = System.nanoTime();
+        long agora = System.currentTimeMillis();
+        int atendidos = 0;
+        for (int i = 0; i < analises.tamanho(); i++) {
+            long id = analises.getIdIdoso(i);
+            if (particao == null || !particao.contem(id)) {
+                continue;
+            }
+            atendidos++;
+            AnaliseEmocional analise = analises.getAnalise(i);
             
-            String riscoSimulado = simularRiscoAtual();
-            String recomendacao = gerarRecomendacao(riscoSimulado);
+            UltimaRecomendacao ultima = ultimas.get(id);
+            if (ultima != null && ultima.nivelRisco.equals(analise.getNivelRisco())
+                    && agora - ultima.instante < janelaDeduplicacao) {
+                recomendacoesSuprimidas.incrementar();
+            } else {
+                gerarRecomendacao(id, analise);
+                ultimas.put(id, new UltimaRecomendacao(analise.getNivelRisco(), agora));
+            }
+            
+            // Fim do pipeline para leituras vindas do coletor: recomendação gerada ou suprimida
+            long instanteColeta = analises.getInstanteColetaNanos(i);
+            if (instanteColeta != 0) {
+                latenciaColetaDecisao.registrar(System.nanoTime() - instanteColeta);
+            }
+        }
+        if (status != null) {
+            status.registrarExecucao(atendidos);
+        }
+        duracaoLote.registrar(System.nanoTime() - inicio);
+        return IFuture.DONE;
+    }
+    
+    /**
+     * Gera e grava a recomendação para o nível de risco da análise.
+     */
+    private void gerarRecomendacao(long idIdoso, AnaliseEmocional analise) {
+        try {
+            String nivelRisco = analise.getNivelRisco();
+            String recomendacao = geradorRecomendacoes.gerarRecomendacao(nivelRisco);
             
             // Salva a recomendação no banco
-            dbManager.inserirRecomendacao(
+            dbManager.inserirRecomendacaoAsync(
                 idIdoso, 
                 recomendacao, 
-                riscoSimulado, 
-                "Recomendação gerada automaticamente baseada na análise emocional"
+                nivelRisco, 
+                () -> "Recomendação gerada a partir da análise: " + analise.getDescricao()
             );
+            recomendacoesGeradas.incrementar();
             
-            logger.info(String.format(
-                "Recomendação gerada para risco %s: %s",
-                riscoSimulado, recomendacao
-            ));
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine(String.format(
+                    "Recomendação gerada para idoso %d, risco %s: %s",
+                    idIdoso, nivelRisco, recomendacao
+                ));
+            }
             
             // Se o risco é alto, pode disparar alertas adicionais
-            if ("alto".equals(riscoSimulado)) {
-                logger.warning("ALERTA CRÍTICO: Risco alto detectado! Recomendação urgente enviada.");
+            if ("alto".equals(nivelRisco)) {
+                alertas.registrar(nivelRisco, idIdoso);
                 // Aqui poderia enviar notificações para cuidadores, familiares, etc.
             }
             
@@ -110,65 +175,4 @@ public class AgenteRecomendacao {
             logger.severe("Erro ao gerar recomendações: " + e.getMessage());
         }
     }
-    
-    /**
-     * Gera uma recomendação baseada no nível de risco.
-     */
-    private String gerarRecomendacao(String nivelRisco) {
-        List<String> recomendacoes;
-        
-        switch (nivelRisco.toLowerCase()) {
-            case "alto":
-                recomendacoes = RECOMENDACOES_RISCO_ALTO;
-                break;
-            case "moderado":
-                recomendacoes = RECOMENDACOES_RISCO_MODERADO;
-                break;
-            case "baixo":
-            default:
-                recomendacoes = RECOMENDACOES_RISCO_BAIXO;
-                break;
-        }
-        
-        // Seleciona uma recomendação aleatória da lista apropriada
-        return recomendacoes.get(random.nextInt(recomendacoes.size()));
-    }
-    
-    /**
-     * Simula o nível de risco atual (em um sistema real, consultaria o banco).
-     */
-    private String simularRiscoAtual() {
-        // Simula distribuição realista de riscos
-        int probabilidade = random.nextInt(100);
-        
-        if (probabilidade < 60) {
-            return "baixo";
-        } else if (probabilidade < 85) {
-            return "moderado";
-        } else {
-            return "alto";
-        }
-    }
-    
-    /**
-     * Gera recomendação personalizada baseada no histórico do idoso.
-     */
-    private String gerarRecomendacaoPersonalizada(String nivelRisco, String contexto) {
-        // Esta função poderia usar machine learning ou regras mais sofisticadas
-        // para personalizar recomendações baseadas no histórico do idoso
-        
-        String recomendacaoBase = gerarRecomendacao(nivelRisco);
-        
-        // Adiciona personalização baseada no contexto
-        if (contexto != null && contexto.contains("sono")) {
-            recomendacaoBase += " Foque especialmente em melhorar a qualidade do sono.";
-        } else if (contexto != null && contexto.contains("humor")) {
-            recomendacaoBase += " Procure atividades que melhorem seu humor.";
-        } else if (contexto != null && contexto.contains("atividade")) {
-            recomendacaoBase += " Aumente gradualmente sua atividade física.";
-        }
-        
-        return recomendacaoBase;
-    }
 }
-
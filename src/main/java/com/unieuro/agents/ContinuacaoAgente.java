@@ -0,0 +1,64 @@
+package com.unieuro.agents;
+
+import jadex.bridge.IExternalAccess;
+import jadex.bridge.IInternalAccess;
+import jadex.commons.future.IFuture;
+import jadex.commons.future.IResultListener;
+
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Continua na thread do agente o processamento de um resultado produzido fora dela
+ * (por exemplo, uma consulta ao banco feita pelo ExecutorBanco).
+ */
+final class ContinuacaoAgente {
+    
+    private static final Logger logger = Logger.getLogger(ContinuacaoAgente.class.getName());
+    
+    private ContinuacaoAgente() {
+    }
+    
+    /**
+     * Agenda a continuação como um passo do agente quando o futuro for concluído.
+     * Falhas são registradas no log e a continuação não é executada.
+     */
+    static <T> void aoConcluir(IInternalAccess agente, IFuture<T> futuro, Consumer<T> continuacao) {
+        IExternalAccess acesso = agente.getExternalAccess();
+        futuro.addResultListener(new IResultListener<T>() {
+            @Override
+            public void resultAvailable(T resultado) {
+                acesso.scheduleStep(ia -> {
+                    continuacao.accept(resultado);
+                    return IFuture.DONE;
+                });
+            }
+            
+            @Override
+            public void exceptionOccurred(Exception e) {
+                logger.warning("Operação assíncrona do agente " + acesso.getId() + " falhou: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Agenda o tratamento como um passo do agente se o futuro falhar. O sucesso não agenda nada,
+     * para que operações frequentes (uma gravação por leitura) não custem um passo cada.
+     */
+    static <T> void aoFalhar(IInternalAccess agente, IFuture<T> futuro, Consumer<Exception> tratamento) {
+        IExternalAccess acesso = agente.getExternalAccess();
+        futuro.addResultListener(new IResultListener<T>() {
+            @Override
+            public void resultAvailable(T resultado) {
+            }
+            
+            @Override
+            public void exceptionOccurred(Exception e) {
+                acesso.scheduleStep(ia -> {
+                    tratamento.accept(e);
+                    return IFuture.DONE;
+                });
+            }
+        });
+    }
+}
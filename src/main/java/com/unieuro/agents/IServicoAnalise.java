@@ -0,0 +1,20 @@
+package com.unieuro.agents;
+
+import com.unieuro.model.LoteLeituras;
+import jadex.bridge.service.annotation.Reference;
+import jadex.bridge.service.annotation.Service;
+import jadex.commons.future.IFuture;
+
+/**
+ * Serviço oferecido pelo Agente Analisador Emocional para receber leituras novas
+ * assim que são coletadas, sem esperar pelo próximo ciclo de consulta ao banco.
+ */
+@Service
+public interface IServicoAnalise extends IServicoParticionado {
+    
+    /**
+     * Entrega leituras recém-coletadas para análise imediata.
+     * Leituras de idosos fora da partição do analisador são ignoradas.
+     */
+    IFuture<Void> receberLeituras(@Reference LoteLeituras leituras);
+}
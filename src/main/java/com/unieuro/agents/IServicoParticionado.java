@@ -0,0 +1,14 @@
+package com.unieuro.agents;
+
+import jadex.commons.future.IFuture;
+
+/**
+ * Base dos serviços oferecidos por agentes particionados em shards da tabela idosos.
+ */
+public interface IServicoParticionado {
+    
+    /**
+     * Shard da tabela idosos atendido pelo agente (0 no modo de idoso único).
+     */
+    IFuture<Integer> getShard();
+}
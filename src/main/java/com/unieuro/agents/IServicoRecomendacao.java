@@ -0,0 +1,20 @@
+package com.unieuro.agents;
+
+import com.unieuro.analise.LoteAnalises;
+import jadex.bridge.service.annotation.Reference;
+import jadex.bridge.service.annotation.Service;
+import jadex.commons.future.IFuture;
+
+/**
+ * Serviço oferecido pelo Agente de Recomendação para receber as análises produzidas
+ * pelo Agente Analisador Emocional.
+ */
+@Service
+public interface IServicoRecomendacao extends IServicoParticionado {
+    
+    /**
+     * Entrega análises recém-produzidas. Análises de idosos fora da partição do
+     * recomendador são ignoradas.
+     */
+    IFuture<Void> receberAnalises(@Reference LoteAnalises analises);
+}
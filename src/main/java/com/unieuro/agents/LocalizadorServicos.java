@@ -0,0 +1,48 @@
+package com.unieuro.agents;
+
+import jadex.bridge.IInternalAccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Localiza na plataforma os serviços dos agentes de outra etapa do fluxo.
+ */
+final class LocalizadorServicos {
+    
+    private LocalizadorServicos() {
+    }
+    
+    /**
+     * Procura os serviços do tipo informado. No modo de idoso único (totalShards 0) entrega todos;
+     * no modo particionado, entrega apenas o do mesmo shard assim que ele responder.
+     * Se nenhum serviço for encontrado, o destino não é chamado.
+     */
+    static <T extends IServicoParticionado> void localizar(IInternalAccess agente, Class<T> tipo,
+                                                         int shard, int totalShards, Consumer<List<T>> destino) {
+        Collection<T> servicos;
+        try {
+            servicos = agente.getLocalServices(tipo);
+        } catch (RuntimeException e) {
+            return;
+        }
+        
+        if (totalShards == 0) {
+            if (!servicos.isEmpty()) {
+                destino.accept(new ArrayList<>(servicos));
+            }
+            return;
+        }
+        for (T servico : servicos) {
+            servico.getShard().addResultListener(shardServico -> {
+                if (shardServico == shard) {
+                    List<T> encontrado = new ArrayList<>();
+                    encontrado.add(servico);
+                    destino.accept(encontrado);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.unieuro.agents;
+
+import com.unieuro.cluster.MembrosCluster;
+import com.unieuro.database.DatabaseManager;
+import jadex.commons.future.Future;
+import jadex.commons.future.IFuture;
+import jadex.commons.future.IResultListener;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Conjunto de idosos atendido por uma instância de agente.
+ * No modo particionado, o idoso pertence ao shard (id mod totalShards) e a lista é
+ * recarregada periodicamente, de modo que idosos cadastrados com a plataforma em
+ * execução são assumidos pelo shard correspondente sem reiniciar os agentes.
+ * Em um cluster, o shard fica só com os idosos que o anel de MembrosCluster atribui a este nó;
+ * quando membros entram ou saem, a lista é refiltrada na chamada seguinte de getIds.
+ */
+public class ParticaoPacientes {
+    
+    private static final Logger logger = Logger.getLogger(ParticaoPacientes.class.getName());
+    
+    private final int shard;
+    private final int totalShards;
+    private final long intervaloAtualizacaoMs;
+    private final MembrosCluster cluster = MembrosCluster.getInstance();
+    // Atualizados pela thread do ExecutorBanco ao fim de cada recarga
+    private volatile long[] idsShard;
+    private volatile long[] ids;
+    private volatile long versaoAnel;
+    private volatile BiConsumer<long[], long[]> aoRebalancear;
+    private volatile long ultimaAtualizacao;
+    private volatile boolean atualizando;
+    
+    private ParticaoPacientes(int shard, int totalShards, long intervaloAtualizacaoMs, long[] ids) {
+        this.shard = shard;
+        this.totalShards = totalShards;
+        this.intervaloAtualizacaoMs = intervaloAtualizacaoMs;
+        this.idsShard = ids;
+        this.ids = ids;
+    }
+    
+    /**
+     * Partição fixa com um único idoso (modo original, um agente por idoso).
+     */
+    public static ParticaoPacientes pacienteUnico(long idIdoso) {
+        return new ParticaoPacientes(0, 0, 0, new long[] { idIdoso });
+    }
+    
+    /**
+     * Partição correspondente a um shard da tabela idosos.
+     */
+    public static ParticaoPacientes shard(int shard, int totalShards, long intervaloAtualizacaoMs) {
+        if (totalShards <= 0 || shard < 0 || shard >= totalShards) {
+            throw new IllegalArgumentException("Shard inválido: " + shard + "/" + totalShards);
+        }
+        return new ParticaoPacientes(shard, totalShards, intervaloAtualizacaoMs, new long[0]);
+    }
+    
+    /**
+     * Cria a partição a partir dos argumentos do agente: totalShards = 0 mantém o modo de idoso único.
+     */
+    public static ParticaoPacientes deArgumentos(long idIdoso, int shard, int totalShards,
+                                                 long intervaloAtualizacaoMs) {
+        return totalShards > 0
+            ? shard(shard, totalShards, intervaloAtualizacaoMs)
+            : pacienteUnico(idIdoso);
+    }
+    
+    /**
+     * Retorna os idosos da partição sem bloquear. Quando o intervalo expira, dispara a recarga
+     * assíncrona da lista; o resultado passa a valer a partir da chamada seguinte.
+     * Se o anel do cluster mudou, refiltra a lista e avisa o ouvinte de aoRebalancear.
+     */
+    public long[] getIds(DatabaseManager dbManager) {
+        if (totalShards > 0 && !atualizando
+                && System.currentTimeMillis() - ultimaAtualizacao >= intervaloAtualizacaoMs) {
+            atualizar(dbManager);
+        }
+        if (totalShards > 0 && versaoAnel != cluster.getVersao()) {
+            rebalancear();
+        }
+        return ids;
+    }
+    
+    /**
+     * Registra quem é avisado, na thread que chama getIds, dos idosos assumidos e liberados
+     * por este nó quando o anel do cluster muda.
+     */
+    public void aoRebalancear(BiConsumer<long[], long[]> ouvinte) {
+        this.aoRebalancear = ouvinte;
+    }
+    
+    private synchronized void rebalancear() {
+        long versao = cluster.getVersao();
+        if (versao == versaoAnel) {
+            return;
+        }
+        long[] anteriores = ids;
+        long[] atuais = filtrar(idsShard);
+        ids = atuais;
+        versaoAnel = versao;
+        
+        long[] assumidos = diferenca(atuais, anteriores);
+        long[] liberados = diferenca(anteriores, atuais);
+        if (assumidos.length > 0 || liberados.length > 0) {
+            logger.info(String.format("%s: %d idosos assumidos e %d liberados (anel versão %d), atendendo %d",
+                this, assumidos.length, liberados.length, versao, atuais.length));
+            BiConsumer<long[], long[]> ouvinte = aoRebalancear;
+            if (ouvinte != null) {
+                ouvinte.accept(assumidos, liberados);
+            }
+        }
+    }
+    
+    /**
+     * Idosos do shard atribuídos a este nó pelo anel (todos, fora de um cluster).
+     */
+    private long[] filtrar(long[] doShard) {
+        if (!cluster.isAtivo()) {
+            return doShard;
+        }
+        long[] filtrados = new long[doShard.length];
+        int total = 0;
+        for (long id : doShard) {
+            if (cluster.pertence(id)) {
+                filtrados[total++] = id;
+            }
+        }
+        return Arrays.copyOf(filtrados, total);
+    }
+    
+    /**
+     * Ids de a que não estão em b; ambos em ordem crescente.
+     */
+    private static long[] diferenca(long[] a, long[] b) {
+        long[] resultado = new long[a.length];
+        int total = 0;
+        int j = 0;
+        for (long id : a) {
+            while (j < b.length && b[j] < id) {
+                j++;
+            }
+            if (j == b.length || b[j] != id) {
+                resultado[total++] = id;
+            }
+        }
+        return Arrays.copyOf(resultado, total);
+    }
+    
+    /**
+     * Recarrega a lista de idosos do shard no ExecutorBanco.
+     * No modo de idoso único devolve a lista fixa imediatamente.
+     */
+    public IFuture<long[]> atualizar(DatabaseManager dbManager) {
+        if (totalShards == 0) {
+            return new Future<>(ids);
+        }
+        atualizando = true;
+        IFuture<long[]> futuro = dbManager.listarIdsIdososAsync(shard, totalShards);
+        futuro.addResultListener(new IResultListener<long[]>() {
+            @Override
+            public void resultAvailable(long[] doShard) {
+                int anteriores = ids.length;
+                synchronized (ParticaoPacientes.this) {
+                    idsShard = doShard;
+                    // Se o anel mudou desde o último filtro, a troca fica com rebalancear, que avisa o ouvinte
+                    long versao = cluster.getVersao();
+                    if (ultimaAtualizacao == 0 || versao == versaoAnel) {
+                        ids = filtrar(doShard);
+                        versaoAnel = versao;
+                    }
+                }
+                if (ids.length != anteriores) {
+                    logger.info(String.format("%s agora atende %d idosos", ParticaoPacientes.this, ids.length));
+                }
+                ultimaAtualizacao = System.currentTimeMillis();
+                atualizando = false;
+            }
+            
+            @Override
+            public void exceptionOccurred(Exception e) {
+                logger.warning("Falha ao recarregar idosos do shard " + shard + ": " + e.getMessage());
+                atualizando = false;
+            }
+        });
+        return futuro;
+    }
+    
+    /**
+     * Indica se o idoso pertence a esta partição.
+     */
+    public boolean contem(long idIdoso) {
+        if (totalShards == 0) {
+            return ids[0] == idIdoso;
+        }
+        return shardDe(idIdoso, totalShards) == shard && cluster.pertence(idIdoso);
+    }
+    
+    /**
+     * Shard responsável por um idoso.
+     */
+    public static int shardDe(long idIdoso, int totalShards) {
+        return (int) Math.floorMod(idIdoso, (long) totalShards);
+    }
+    
+    public int getShard() {
+        return shard;
+    }
+    
+    public int getTotalShards() {
+        return totalShards;
+    }
+    
+    @Override
+    public String toString() {
+        return totalShards == 0 ? "idoso " + ids[0] : "shard " + shard + "/" + totalShards;
+    }
+}
@@ -0,0 +1,98 @@
+package com.unieuro.agents;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registro do estado real dos agentes em execução (intervalo, shard e última execução),
+ * consultado pela API de status.
+ */
+public final class StatusAgentes {
+    
+    private static final StatusAgentes instance = new StatusAgentes();
+    
+    // Um agente é considerado atrasado se passar este número de intervalos sem executar
+    private static final int INTERVALOS_TOLERADOS = 3;
+    
+    private final List<StatusAgente> agentes = new CopyOnWriteArrayList<>();
+    
+    private StatusAgentes() {
+    }
+    
+    public static StatusAgentes getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Estado de um agente; atualizado pelo próprio agente a cada execução periódica.
+     */
+    public static final class StatusAgente {
+        private final String nome;
+        private final String descricao;
+        private final ParticaoPacientes particao;
+        private final long intervaloMs;
+        private final long iniciadoEm = System.currentTimeMillis();
+        private volatile long ultimaExecucao;
+        private volatile int pacientes;
+        private volatile long execucoes;
+        
+        private StatusAgente(String nome, String descricao, ParticaoPacientes particao, long intervaloMs) {
+            this.nome = nome;
+            this.descricao = descricao;
+            this.particao = particao;
+            this.intervaloMs = intervaloMs;
+        }
+        
+        /**
+         * Chamado pelo agente ao fim de cada execução (sempre na thread do agente).
+         */
+        public void registrarExecucao(int pacientesAtendidos) {
+            pacientes = pacientesAtendidos;
+            execucoes++;
+            ultimaExecucao = System.currentTimeMillis();
+        }
+        
+        Map<String, Object> paraMapa(long agora) {
+            String status;
+            if (ultimaExecucao == 0) {
+                status = agora - iniciadoEm > intervaloMs * INTERVALOS_TOLERADOS ? "atrasado" : "iniciando";
+            } else {
+                status = agora - ultimaExecucao > intervaloMs * INTERVALOS_TOLERADOS ? "atrasado" : "ativo";
+            }
+            
+            Map<String, Object> mapa = new LinkedHashMap<>();
+            mapa.put("name", particao.getTotalShards() > 0
+                ? String.format("%s (shard %d/%d)", nome, particao.getShard(), particao.getTotalShards())
+                : nome);
+            mapa.put("status", status);
+            mapa.put("description", descricao);
+            mapa.put("intervalo_ms", intervaloMs);
+            mapa.put("pacientes", pacientes);
+            mapa.put("execucoes", execucoes);
+            mapa.put("ultima_execucao", ultimaExecucao == 0 ? null : ultimaExecucao);
+            return mapa;
+        }
+    }
+    
+    /**
+     * Registra um agente. O intervalo é o tempo esperado entre execuções, usado para
+     * identificar agentes atrasados.
+     */
+    public StatusAgente registrar(String nome, String descricao, ParticaoPacientes particao, long intervaloMs) {
+        StatusAgente status = new StatusAgente(nome, descricao, particao, intervaloMs);
+        agentes.add(status);
+        return status;
+    }
+    
+    public List<Map<String, Object>> listar() {
+        long agora = System.currentTimeMillis();
+        List<Map<String, Object>> lista = new ArrayList<>(agentes.size());
+        for (StatusAgente status : agentes) {
+            lista.add(status.paraMapa(agora));
+        }
+        return lista;
+    }
+}
@@ -0,0 +1,195 @@
+package com.unieuro.analise;
+
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import com.unieuro.model.PopulacaoPacientes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Agregações sobre a população de idosos (coortes), calculadas em paralelo com fork/join.
+ * A população é dividida ao meio até blocos de LIMIAR_DIVISAO linhas; cada bloco produz uma
+ * parcial e as parciais são combinadas na volta, no pool comum de fork/join.
+ */
+public final class AgregacaoCoorte {
+    
+    /** Linhas abaixo das quais uma tarefa não se divide mais. */
+    static final int LIMIAR_DIVISAO = 2048;
+    
+    private static final int IDADE_MAXIMA = 130;
+    
+    private static final Histograma duracaoSonoPorFaixa =
+        Metricas.histograma("coorte.sono_por_faixa_etaria.latencia_nanos");
+    private static final Histograma duracaoOutliersFc =
+        Metricas.histograma("coorte.outliers_frequencia_cardiaca.latencia_nanos");
+    
+    private AgregacaoCoorte() {
+    }
+    
+    /**
+     * Parcial calculada para as linhas [inicio, fim).
+     */
+    @FunctionalInterface
+    private interface Folha<R> {
+        R calcular(int inicio, int fim);
+    }
+    
+    private static final class Tarefa<R> extends RecursiveTask<R> {
+        private final int inicio;
+        private final int fim;
+        private final Folha<R> folha;
+        private final BinaryOperator<R> combinar;
+        
+        Tarefa(int inicio, int fim, Folha<R> folha, BinaryOperator<R> combinar) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.folha = folha;
+            this.combinar = combinar;
+        }
+        
+        @Override
+        protected R compute() {
+            if (fim - inicio <= LIMIAR_DIVISAO) {
+                return folha.calcular(inicio, fim);
+            }
+            int meio = (inicio + fim) >>> 1;
+            Tarefa<R> esquerda = new Tarefa<>(inicio, meio, folha, combinar);
+            esquerda.fork();
+            R direita = new Tarefa<>(meio, fim, folha, combinar).compute();
+            return combinar.apply(esquerda.join(), direita);
+        }
+    }
+    
+    private static <R> R dividir(int tamanho, Folha<R> folha, BinaryOperator<R> combinar) {
+        return ForkJoinPool.commonPool().invoke(new Tarefa<>(0, tamanho, folha, combinar));
+    }
+    
+    /**
+     * Totais das janelas em memória desta JVM (últimos EstadoPacientes.DIAS_JANELA dias).
+     * Idosos sem idade conhecida ou sem leituras na janela ficam de fora.
+     */
+    public static PopulacaoPacientes deEstado(EstadoPacientes estado, Map<Long, Integer> idades) {
+        PopulacaoPacientes populacao = new PopulacaoPacientes(estado.getTotalPacientes());
+        for (JanelaPaciente janela : estado.getJanelas()) {
+            Integer idade = idades.get(janela.getIdIdoso());
+            if (idade != null) {
+                janela.copiarTotais(populacao, idade);
+            }
+        }
+        return populacao;
+    }
+    
+    /**
+     * Média de sono por faixa etária de largura anos, da faixa mais jovem para a mais velha.
+     * Cada faixa traz o número de idosos, o total de leituras e a média de sono das leituras.
+     */
+    public static List<Map<String, Object>> sonoPorFaixaEtaria(PopulacaoPacientes populacao, int largura) {
+        long inicio = System.nanoTime();
+        int faixas = IDADE_MAXIMA / largura + 1;
+        
+        // Por faixa: [idosos, leituras, soma de sono]
+        double[][] totais = dividir(populacao.tamanho(), (de, ate) -> {
+            double[][] parcial = new double[faixas][3];
+            for (int i = de; i < ate; i++) {
+                double[] faixa = parcial[Math.min(Math.max(populacao.getIdade(i), 0), IDADE_MAXIMA) / largura];
+                faixa[0]++;
+                faixa[1] += populacao.getLeituras(i);
+                faixa[2] += populacao.getSomaSono(i);
+            }
+            return parcial;
+        }, (a, b) -> {
+            for (int f = 0; f < faixas; f++) {
+                for (int c = 0; c < 3; c++) {
+                    a[f][c] += b[f][c];
+                }
+            }
+            return a;
+        });
+        
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        for (int f = 0; f < faixas; f++) {
+            if (totais[f][0] == 0) {
+                continue;
+            }
+            Map<String, Object> faixa = new LinkedHashMap<>();
+            faixa.put("faixa", (f * largura) + "-" + (f * largura + largura - 1));
+            faixa.put("idosos", (long) totais[f][0]);
+            faixa.put("leituras", (long) totais[f][1]);
+            faixa.put("sono_medio", totais[f][2] / totais[f][1]);
+            resultado.add(faixa);
+        }
+        duracaoSonoPorFaixa.registrar(System.nanoTime() - inicio);
+        return resultado;
+    }
+    
+    /**
+     * Idosos cuja frequência cardíaca média no período se afasta da média da população por
+     * pelo menos limiteZ desvios padrão, do maior afastamento para o menor (no máximo limite).
+     * Duas passadas paralelas: média e desvio da população, depois o filtro.
+     */
+    public static Map<String, Object> outliersFrequenciaCardiaca(PopulacaoPacientes populacao, double limiteZ,
+                                                                 int limite) {
+        long inicio = System.nanoTime();
+        int total = populacao.tamanho();
+        
+        // [soma, soma dos quadrados] das médias individuais
+        double[] somas = dividir(total, (de, ate) -> {
+            double[] parcial = new double[2];
+            for (int i = de; i < ate; i++) {
+                double media = populacao.getMediaFrequenciaCardiaca(i);
+                parcial[0] += media;
+                parcial[1] += media * media;
+            }
+            return parcial;
+        }, (a, b) -> {
+            a[0] += b[0];
+            a[1] += b[1];
+            return a;
+        });
+        double mediaPopulacao = total == 0 ? 0.0 : somas[0] / total;
+        double desvio = total < 2 ? 0.0
+            : Math.sqrt(Math.max(0.0, (somas[1] - total * mediaPopulacao * mediaPopulacao) / (total - 1)));
+        
+        List<Integer> linhas = desvio == 0.0 ? Collections.emptyList() : dividir(total, (de, ate) -> {
+            List<Integer> parcial = new ArrayList<>();
+            for (int i = de; i < ate; i++) {
+                if (Math.abs(populacao.getMediaFrequenciaCardiaca(i) - mediaPopulacao) >= limiteZ * desvio) {
+                    parcial.add(i);
+                }
+            }
+            return parcial;
+        }, (a, b) -> {
+            a.addAll(b);
+            return a;
+        });
+        
+        List<Map<String, Object>> outliers = new ArrayList<>(linhas.size());
+        for (int i : linhas) {
+            double media = populacao.getMediaFrequenciaCardiaca(i);
+            Map<String, Object> outlier = new LinkedHashMap<>();
+            outlier.put("id_idoso", populacao.getIdIdoso(i));
+            outlier.put("idade", populacao.getIdade(i));
+            outlier.put("fc_media", media);
+            outlier.put("z", (media - mediaPopulacao) / desvio);
+            outliers.add(outlier);
+        }
+        outliers.sort((a, b) -> Double.compare(Math.abs((double) b.get("z")), Math.abs((double) a.get("z"))));
+        
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("idosos", total);
+        resultado.put("fc_media_populacao", mediaPopulacao);
+        resultado.put("desvio_padrao", desvio);
+        resultado.put("limite_z", limiteZ);
+        resultado.put("total_outliers", outliers.size());
+        resultado.put("outliers", outliers.size() > limite ? new ArrayList<>(outliers.subList(0, limite)) : outliers);
+        duracaoOutliersFc.registrar(System.nanoTime() - inicio);
+        return resultado;
+    }
+}
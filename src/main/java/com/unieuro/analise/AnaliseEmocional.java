@@ -0,0 +1,64 @@
+package com.unieuro.analise;
+
+/**
+ * Resultado da análise emocional de um idoso.
+ * Quando vem do motor de regras, a descrição é montada apenas na primeira chamada a getDescricao
+ * (ao gravar ou exibir), a partir das regras disparadas e dos valores da avaliação.
+ */
+public class AnaliseEmocional {
+    
+    private final String nivelRisco;
+    private final int pontuacao;
+    private String descricao;
+    
+    // Dados para a descrição adiada
+    private final RegrasRisco regras;
+    private final long regrasDisparadas;
+    private final double[][] valores;
+    private final int linha;
+    
+    public AnaliseEmocional(String nivelRisco, int pontuacao, String descricao) {
+        this(nivelRisco, pontuacao, descricao, null, 0L, null, 0);
+    }
+    
+    AnaliseEmocional(String nivelRisco, int pontuacao, RegrasRisco regras, long regrasDisparadas,
+                     double[][] valores, int linha) {
+        this(nivelRisco, pontuacao, null, regras, regrasDisparadas, valores, linha);
+    }
+    
+    private AnaliseEmocional(String nivelRisco, int pontuacao, String descricao, RegrasRisco regras,
+                             long regrasDisparadas, double[][] valores, int linha) {
+        this.nivelRisco = nivelRisco;
+        this.pontuacao = pontuacao;
+        this.descricao = descricao;
+        this.regras = regras;
+        this.regrasDisparadas = regrasDisparadas;
+        this.valores = valores;
+        this.linha = linha;
+    }
+    
+    public String getNivelRisco() {
+        return nivelRisco;
+    }
+    
+    public int getPontuacao() {
+        return pontuacao;
+    }
+    
+    /**
+     * Bits das regras satisfeitas, na ordem do conjunto de regras (0 se a análise não veio do motor).
+     */
+    public long getRegrasDisparadas() {
+        return regrasDisparadas;
+    }
+    
+    public String getDescricao() {
+        // Corrida benigna: threads concorrentes montam o mesmo texto imutável
+        String texto = descricao;
+        if (texto == null) {
+            texto = regras.descrever(regrasDisparadas, valores, linha);
+            descricao = texto;
+        }
+        return texto;
+    }
+}
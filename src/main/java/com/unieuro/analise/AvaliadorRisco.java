@@ -0,0 +1,30 @@
+package com.unieuro.analise;
+
+/**
+ * Calcula o risco emocional a partir do estado da janela de um idoso.
+ * As regras vêm de regras-risco.properties (veja {@link CarregadorRegras}); a pontuação considera
+ * a leitura mais recente e as tendências usam as sequências consecutivas mantidas pela janela.
+ * Para muitos idosos de uma vez, use {@link LoteAvaliacao}.
+ */
+public final class AvaliadorRisco {
+    
+    private AvaliadorRisco() {
+    }
+    
+    /**
+     * Avalia o risco emocional do idoso. A janela deve possuir ao menos uma leitura.
+     */
+    public static AnaliseEmocional avaliar(JanelaPaciente janela) {
+        LoteAvaliacao lote = new LoteAvaliacao(1);
+        lote.adicionar(janela);
+        lote.avaliar();
+        return lote.getAnalise(0);
+    }
+    
+    /**
+     * Determina o nível de risco a partir da pontuação, segundo as regras em uso.
+     */
+    public static String nivelRisco(int pontuacaoRisco) {
+        return CarregadorRegras.getInstance().getRegras().nivel(pontuacaoRisco);
+    }
+}
@@ -0,0 +1,84 @@
+package com.unieuro.analise;
+
+import com.unieuro.model.Humor;
+import com.unieuro.model.NivelAtividade;
+
+/**
+ * Indicadores da janela que as regras de risco podem consultar.
+ * Cada campo é uma coluna de double na avaliação em lote; humor e atividade guardam o código do enum.
+ */
+enum CampoRisco {
+    SONO_HORAS("sono_horas", false),
+    QUALIDADE_SONO("qualidade_sono", true),
+    HUMOR("humor", true),
+    ATIVIDADE_FISICA("atividade_fisica", true),
+    FREQUENCIA_CARDIACA("frequencia_cardiaca", true),
+    MEDIA_SONO("media_sono", false),
+    MEDIA_FREQUENCIA_CARDIACA("media_frequencia_cardiaca", false),
+    TOTAL_HUMOR_NEGATIVO("total_humor_negativo", true),
+    TOTAL_SONO_BAIXO("total_sono_baixo", true),
+    HUMOR_NEGATIVO_CONSECUTIVO("humor_negativo_consecutivo", true),
+    SONO_BAIXO_CONSECUTIVO("sono_baixo_consecutivo", true);
+    
+    static final CampoRisco[] VALORES = values();
+    
+    private final String nome;
+    private final boolean inteiro;
+    
+    CampoRisco(String nome, boolean inteiro) {
+        this.nome = nome;
+        this.inteiro = inteiro;
+    }
+    
+    String getNome() {
+        return nome;
+    }
+    
+    /**
+     * Campos categóricos aceitam rótulos (ex.: negativo, sedentaria) e são testados por máscara de códigos.
+     */
+    boolean isCategorico() {
+        return this == HUMOR || this == ATIVIDADE_FISICA;
+    }
+    
+    /**
+     * Código do rótulo de um campo categórico; lança IllegalArgumentException se for desconhecido.
+     */
+    int codigo(String rotulo) {
+        if (this == HUMOR) {
+            Humor humor = Humor.deRotuloOuNulo(rotulo);
+            if (humor != null) {
+                return humor.getCodigo();
+            }
+        } else if (this == ATIVIDADE_FISICA) {
+            NivelAtividade nivel = NivelAtividade.deRotuloOuNulo(rotulo);
+            if (nivel != null) {
+                return nivel.getCodigo();
+            }
+        }
+        throw new IllegalArgumentException("Valor '" + rotulo + "' inválido para o campo " + nome);
+    }
+    
+    /**
+     * Texto do valor usado nas descrições: inteiro, decimal ou rótulo.
+     */
+    String formatar(double valor) {
+        if (this == HUMOR) {
+            return Humor.deCodigo((byte) valor).getRotulo();
+        } else if (this == ATIVIDADE_FISICA) {
+            return NivelAtividade.deCodigo((byte) valor).getRotulo();
+        } else if (inteiro) {
+            return Long.toString((long) valor);
+        }
+        return Double.toString(valor);
+    }
+    
+    static CampoRisco deNome(String nome) {
+        for (CampoRisco campo : VALORES) {
+            if (campo.nome.equals(nome)) {
+                return campo;
+            }
+        }
+        throw new IllegalArgumentException("Campo de regra desconhecido: " + nome);
+    }
+}
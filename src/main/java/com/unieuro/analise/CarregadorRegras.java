@@ -0,0 +1,131 @@
+package com.unieuro.analise;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Metricas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Mantém as regras de risco compiladas em uso.
+ * Sem -Dsaude.regras, usa regras-risco.properties do classpath. Com -Dsaude.regras=arquivo, o
+ * arquivo é verificado periodicamente (-Dsaude.regras.intervaloVerificacaoMs, padrão 5000) e
+ * recompilado quando muda; se a nova versão tiver erro, as regras anteriores continuam valendo.
+ */
+public final class CarregadorRegras {
+    
+    private static final Logger logger = Logger.getLogger(CarregadorRegras.class.getName());
+    
+    private static final String RECURSO_PADRAO = "/regras-risco.properties";
+    private static final long INTERVALO_VERIFICACAO_PADRAO_MS = 5000;
+    
+    private static CarregadorRegras instance;
+    
+    private final Path arquivo;
+    private volatile RegrasRisco regras;
+    private long ultimaModificacao;
+    
+    private final Contador recargas = Metricas.contador("regras.recargas");
+    private final Contador errosRecarga = Metricas.contador("regras.erros_recarga");
+    
+    private CarregadorRegras() {
+        String caminho = System.getProperty("saude.regras");
+        this.arquivo = caminho == null ? null : Paths.get(caminho);
+        
+        if (arquivo == null) {
+            this.regras = RegrasRisco.compilar(lerRecurso(), 0L);
+        } else {
+            if (!recarregar()) {
+                throw new IllegalStateException("Não foi possível carregar as regras de " + arquivo.toAbsolutePath());
+            }
+            iniciarVerificacao(Long.getLong("saude.regras.intervaloVerificacaoMs", INTERVALO_VERIFICACAO_PADRAO_MS));
+        }
+        Metricas.medidor("regras.quantidade", () -> regras.getQuantidadeRegras());
+        logger.info("Regras de risco carregadas: " + regras.getNomesRegras());
+    }
+    
+    public static synchronized CarregadorRegras getInstance() {
+        if (instance == null) {
+            instance = new CarregadorRegras();
+        }
+        return instance;
+    }
+    
+    /**
+     * Regras em uso. Cada avaliação deve ler a referência uma vez e usá-la até o fim.
+     */
+    public RegrasRisco getRegras() {
+        return regras;
+    }
+    
+    /**
+     * Recompila o arquivo de regras se ele mudou desde a última leitura.
+     * Retorna false se a leitura ou a compilação falhou.
+     */
+    public synchronized boolean recarregar() {
+        if (arquivo == null) {
+            return true;
+        }
+        long modificacao = 0L;
+        try {
+            modificacao = Files.getLastModifiedTime(arquivo).toMillis();
+            if (modificacao == ultimaModificacao) {
+                return regras != null;
+            }
+            Properties propriedades = new Properties();
+            try (Reader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+                propriedades.load(leitor);
+            }
+            RegrasRisco novas = RegrasRisco.compilar(propriedades, modificacao);
+            boolean recarga = regras != null;
+            regras = novas;
+            ultimaModificacao = modificacao;
+            if (recarga) {
+                recargas.incrementar();
+                logger.info("Regras de risco recarregadas de " + arquivo + ": " + novas.getNomesRegras());
+            }
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            errosRecarga.incrementar();
+            // A mesma versão com erro não é relida; espera a próxima modificação do arquivo
+            ultimaModificacao = modificacao;
+            logger.severe("Erro ao carregar as regras de " + arquivo + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void iniciarVerificacao(long intervaloMs) {
+        ScheduledExecutorService verificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "verificador-regras");
+            thread.setDaemon(true);
+            return thread;
+        });
+        verificador.scheduleWithFixedDelay(this::recarregar, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+    
+    private static Properties lerRecurso() {
+        Properties propriedades = new Properties();
+        try (InputStream entrada = CarregadorRegras.class.getResourceAsStream(RECURSO_PADRAO)) {
+            if (entrada == null) {
+                throw new IllegalStateException("Recurso " + RECURSO_PADRAO + " não encontrado no classpath");
+            }
+            try (Reader leitor = new InputStreamReader(entrada, StandardCharsets.UTF_8)) {
+                propriedades.load(leitor);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao ler " + RECURSO_PADRAO + ": " + e.getMessage(), e);
+        }
+        return propriedades;
+    }
+}
@@ -0,0 +1,82 @@
+package com.unieuro.analise;
+
+import com.unieuro.model.LoteLeituras;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estado em memória de todos os idosos acompanhados nesta JVM (uma janela por idoso).
+ */
+public final class EstadoPacientes {
+    
+    /** Dias cobertos pela janela de cada idoso. */
+    public static final int DIAS_JANELA = 3;
+    
+    private static final EstadoPacientes instance = new EstadoPacientes();
+    
+    private final Map<Long, JanelaPaciente> janelas = new ConcurrentHashMap<>();
+    
+    private EstadoPacientes() {
+    }
+    
+    public static EstadoPacientes getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Retorna a janela do idoso, se já existir.
+     */
+    public JanelaPaciente getJanela(long idIdoso) {
+        return janelas.get(idIdoso);
+    }
+    
+    /**
+     * Retorna a janela do idoso, criando-a vazia na primeira vez.
+     * O histórico do banco é carregado à parte, com reconstruir.
+     */
+    public JanelaPaciente obterJanela(long idIdoso) {
+        return janelas.computeIfAbsent(idIdoso,
+            id -> new JanelaPaciente(id, DIAS_JANELA, getLimiarSonoBaixo()));
+    }
+    
+    /**
+     * Limiar de sono baixo das regras em uso; janelas novas e reconstruídas passam a usá-lo.
+     */
+    public double getLimiarSonoBaixo() {
+        return CarregadorRegras.getInstance().getRegras().getLimiarSonoBaixo();
+    }
+    
+    /**
+     * Descarta a janela de um idoso que deixou de ser acompanhado nesta JVM (passou a outro nó do cluster).
+     */
+    public void remover(long idIdoso) {
+        janelas.remove(idIdoso);
+    }
+    
+    /**
+     * Recarrega a janela com as leituras dos últimos DIAS_JANELA dias, na ordem devolvida
+     * por DatabaseManager.buscarDadosSaudeRecentes (da mais recente para a mais antiga),
+     * com o limiar de sono baixo das regras em uso. As leituras recebidas desde
+     * JanelaPaciente.iniciarReconstrucao que ainda não estão no banco são reaplicadas em seguida.
+     */
+    public void reconstruir(JanelaPaciente janela, LoteLeituras dados) {
+        janela.concluirReconstrucao(dados, getLimiarSonoBaixo());
+    }
+    
+    /**
+     * Visão somente leitura das janelas existentes; cada janela deve ser lida pelos seus métodos sincronizados.
+     */
+    public Collection<JanelaPaciente> getJanelas() {
+        return Collections.unmodifiableCollection(janelas.values());
+    }
+    
+    /**
+     * Número de idosos com estado em memória.
+     */
+    public int getTotalPacientes() {
+        return janelas.size();
+    }
+}
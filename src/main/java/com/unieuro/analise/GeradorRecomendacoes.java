@@ -0,0 +1,90 @@
+package com.unieuro.analise;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seleciona recomendações de intervenção de acordo com o nível de risco emocional.
+ */
+public class GeradorRecomendacoes {
+    
+    // Recomendações por tipo de risco
+    private static final List<String> RECOMENDACOES_RISCO_BAIXO = Arrays.asList(
+        "Continue mantendo sua rotina saudável",
+        "Pratique exercícios de respiração por 5 minutos",
+        "Ouça música relaxante",
+        "Faça uma caminhada leve",
+        "Mantenha contato social com familiares"
+    );
+    
+    private static final List<String> RECOMENDACOES_RISCO_MODERADO = Arrays.asList(
+        "Pratique exercícios de respiração profunda por 10 minutos",
+        "Faça uma caminhada de 15-20 minutos",
+        "Pratique meditação ou mindfulness",
+        "Converse com um familiar ou amigo",
+        "Escute música calma e relaxante",
+        "Faça alongamentos suaves",
+        "Beba um chá calmante (camomila, erva-cidreira)"
+    );
+    
+    private static final List<String> RECOMENDACOES_RISCO_ALTO = Arrays.asList(
+        "Entre em contato com um familiar ou cuidador",
+        "Considere conversar com um profissional de saúde",
+        "Pratique técnicas de relaxamento imediatamente",
+        "Evite ficar sozinho por longos períodos",
+        "Mantenha uma rotina de sono regular",
+        "Procure atividades que tragam prazer e bem-estar",
+        "Considere participar de grupos de apoio"
+    );
+    
+    private final Random random;
+    
+    public GeradorRecomendacoes(Random random) {
+        this.random = random;
+    }
+    
+    /**
+     * Gera uma recomendação baseada no nível de risco.
+     */
+    public String gerarRecomendacao(String nivelRisco) {
+        List<String> recomendacoes;
+        
+        switch (nivelRisco.toLowerCase()) {
+            case "alto":
+                recomendacoes = RECOMENDACOES_RISCO_ALTO;
+                break;
+            case "moderado":
+                recomendacoes = RECOMENDACOES_RISCO_MODERADO;
+                break;
+            case "baixo":
+            default:
+                recomendacoes = RECOMENDACOES_RISCO_BAIXO;
+                break;
+        }
+        
+        // Seleciona uma recomendação aleatória da lista apropriada
+        return recomendacoes.get(random.nextInt(recomendacoes.size()));
+    }
+    
+    /**
+     * Gera recomendação personalizada baseada no histórico do idoso.
+     */
+    public String gerarRecomendacaoPersonalizada(String nivelRisco, String contexto) {
+        // Esta função poderia usar machine learning ou regras mais sofisticadas
+        // para personalizar recomendações baseadas no histórico do idoso
+        
+        String recomendacaoBase = gerarRecomendacao(nivelRisco);
+        
+        // Adiciona personalização baseada no contexto
+        if (contexto != null && contexto.contains("sono")) {
+            recomendacaoBase += " Foque especialmente em melhorar a qualidade do sono.";
+        } else if (contexto != null && contexto.contains("humor")) {
+            recomendacaoBase += " Procure atividades que melhorem seu humor.";
+        } else if (contexto != null && contexto.contains("atividade")) {
+            recomendacaoBase += " Aumente gradualmente sua atividade física.";
+        }
+        
+        return recomendacaoBase;
+    }
+}
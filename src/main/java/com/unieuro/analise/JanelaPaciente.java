@@ -0,0 +1,345 @@
+package com.unieuro.analise;
+
+import com.unieuro.model.Humor;
+import com.unieuro.model.LeituraSaude;
+import com.unieuro.model.LoteLeituras;
+import com.unieuro.model.NivelAtividade;
+import com.unieuro.model.PopulacaoPacientes;
+
+import java.util.Arrays;
+
+/**
+ * Janela deslizante em memória com o estado recente de um idoso.
+ * As leituras são acumuladas em baldes diários circulares, então cada nova leitura
+ * atualiza somas, contagens e sequências consecutivas em O(1), sem percorrer o histórico.
+ * Os métodos são sincronizados: a janela é escrita pelo analisador dono do idoso e pode
+ * ser lida por outras threads.
+ */
+public class JanelaPaciente {
+    
+    private final long idIdoso;
+    private final int dias;
+    private double limiarSonoBaixo;
+    
+    // Baldes diários, indexados por (dia mod dias)
+    private final long[] diaBalde;
+    private final int[] contagemBalde;
+    private final double[] somaSonoBalde;
+    private final long[] somaFcBalde;
+    private final int[] humorNegativoBalde;
+    private final int[] sonoBaixoBalde;
+    
+    // Totais correntes da janela
+    private int total;
+    private double somaSono;
+    private long somaFc;
+    private int totalHumorNegativo;
+    private int totalSonoBaixo;
+    private long diaMaisRecente = Long.MIN_VALUE;
+    
+    // Sequências consecutivas a partir da leitura mais recente
+    private int humorNegativoConsecutivo;
+    private int sonoBaixoConsecutivo;
+    
+    // Leitura mais recente
+    private boolean possuiLeitura;
+    private double ultimoSono;
+    private int ultimaQualidadeSono;
+    private Humor ultimoHumor;
+    private NivelAtividade ultimaAtividade;
+    private int ultimaFrequenciaCardiaca;
+    private long atualizadaEm;
+    
+    // Leituras acrescentadas desde iniciarReconstrucao, reaplicadas sobre o histórico do banco
+    private int reconstrucoesPendentes;
+    private LoteLeituras recebidasNaReconstrucao;
+    
+    public JanelaPaciente(long idIdoso, int dias, double limiarSonoBaixo) {
+        this.idIdoso = idIdoso;
+        this.dias = dias;
+        this.limiarSonoBaixo = limiarSonoBaixo;
+        this.diaBalde = new long[dias];
+        this.contagemBalde = new int[dias];
+        this.somaSonoBalde = new double[dias];
+        this.somaFcBalde = new long[dias];
+        this.humorNegativoBalde = new int[dias];
+        this.sonoBaixoBalde = new int[dias];
+        Arrays.fill(diaBalde, Long.MIN_VALUE);
+    }
+    
+    /**
+     * Acrescenta uma leitura. As leituras devem chegar em ordem cronológica;
+     * leituras de dias que já saíram da janela são ignoradas.
+     */
+    public synchronized void adicionar(long diaColeta, double sonoHoras, int qualidadeSono, Humor humor,
+                                       NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        if (recebidasNaReconstrucao != null) {
+            recebidasNaReconstrucao.adicionar(0L, idIdoso, diaColeta, sonoHoras, qualidadeSono, humor,
+                atividadeFisica, frequenciaCardiaca, 0L);
+        }
+        aplicar(diaColeta, sonoHoras, qualidadeSono, humor, atividadeFisica, frequenciaCardiaca);
+    }
+    
+    private void aplicar(long diaColeta, double sonoHoras, int qualidadeSono, Humor humor,
+                         NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        if (diaColeta > diaMaisRecente) {
+            avancarPara(diaColeta);
+        } else if (diaColeta <= diaMaisRecente - dias) {
+            return;
+        }
+        
+        boolean negativo = humor == Humor.NEGATIVO;
+        boolean sonoBaixo = sonoHoras < limiarSonoBaixo;
+        
+        int i = indice(diaColeta);
+        contagemBalde[i]++;
+        somaSonoBalde[i] += sonoHoras;
+        somaFcBalde[i] += frequenciaCardiaca;
+        total++;
+        somaSono += sonoHoras;
+        somaFc += frequenciaCardiaca;
+        if (negativo) {
+            humorNegativoBalde[i]++;
+            totalHumorNegativo++;
+        }
+        if (sonoBaixo) {
+            sonoBaixoBalde[i]++;
+            totalSonoBaixo++;
+        }
+        
+        humorNegativoConsecutivo = negativo ? humorNegativoConsecutivo + 1 : 0;
+        sonoBaixoConsecutivo = sonoBaixo ? sonoBaixoConsecutivo + 1 : 0;
+        
+        possuiLeitura = true;
+        ultimoSono = sonoHoras;
+        ultimaQualidadeSono = qualidadeSono;
+        ultimoHumor = humor;
+        ultimaAtividade = atividadeFisica;
+        ultimaFrequenciaCardiaca = frequenciaCardiaca;
+        atualizadaEm = System.currentTimeMillis();
+    }
+    
+    /**
+     * Marca uma reconstrução pendente, ao agendá-la. Até concluirReconstrucao ou cancelarReconstrucao,
+     * as leituras acrescentadas também são guardadas, para não se perderem quando o histórico do banco
+     * substituir a janela: podem ter chegado depois da consulta ou ainda não ter sido gravadas.
+     */
+    public synchronized void iniciarReconstrucao() {
+        if (reconstrucoesPendentes++ == 0) {
+            recebidasNaReconstrucao = new LoteLeituras();
+        }
+    }
+    
+    /**
+     * Recarrega a janela com o histórico do banco (da leitura mais recente para a mais antiga) e reaplica
+     * as leituras guardadas desde iniciarReconstrucao que o histórico não contém. As que já foram gravadas
+     * estão entre as mais recentes do histórico, então só essas linhas são comparadas.
+     */
+    public synchronized void concluirReconstrucao(LoteLeituras historico, double limiarSonoBaixo) {
+        limpar(limiarSonoBaixo);
+        for (int i = historico.tamanho() - 1; i >= 0; i--) {
+            aplicar(historico.getDiaColeta(i), historico.getSonoHoras(i), historico.getQualidadeSono(i),
+                historico.getHumor(i), historico.getAtividadeFisica(i), historico.getFrequenciaCardiaca(i));
+        }
+        LoteLeituras recebidas = recebidasNaReconstrucao;
+        if (recebidas == null) {
+            return;
+        }
+        boolean[] encontradas = new boolean[Math.min(recebidas.tamanho(), historico.tamanho())];
+        for (int j = 0; j < recebidas.tamanho(); j++) {
+            if (!encontrarNoHistorico(recebidas, j, historico, encontradas)) {
+                aplicar(recebidas.getDiaColeta(j), recebidas.getSonoHoras(j), recebidas.getQualidadeSono(j),
+                    recebidas.getHumor(j), recebidas.getAtividadeFisica(j), recebidas.getFrequenciaCardiaca(j));
+            }
+        }
+        cancelarReconstrucao();
+    }
+    
+    /**
+     * Encerra uma reconstrução pendente sem recarregar a janela (consulta ao banco falhou).
+     */
+    public synchronized void cancelarReconstrucao() {
+        if (reconstrucoesPendentes > 0 && --reconstrucoesPendentes == 0) {
+            recebidasNaReconstrucao = null;
+        }
+    }
+    
+    /**
+     * Procura a leitura j entre as linhas mais recentes do histórico ainda não associadas a outra leitura.
+     */
+    private static boolean encontrarNoHistorico(LoteLeituras recebidas, int j, LoteLeituras historico,
+                                                boolean[] encontradas) {
+        for (int i = 0; i < encontradas.length; i++) {
+            if (!encontradas[i]
+                && historico.getDiaColeta(i) == recebidas.getDiaColeta(j)
+                && historico.getSonoHoras(i) == recebidas.getSonoHoras(j)
+                && historico.getQualidadeSono(i) == recebidas.getQualidadeSono(j)
+                && historico.getHumor(i) == recebidas.getHumor(j)
+                && historico.getAtividadeFisica(i) == recebidas.getAtividadeFisica(j)
+                && historico.getFrequenciaCardiaca(i) == recebidas.getFrequenciaCardiaca(j)) {
+                encontradas[i] = true;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Descarta todo o estado (usado antes de reconstruir a janela a partir do banco).
+     */
+    public synchronized void limpar() {
+        limpar(limiarSonoBaixo);
+    }
+    
+    /**
+     * Descarta todo o estado e passa a usar o limiar de sono baixo informado nas próximas leituras.
+     */
+    public synchronized void limpar(double limiarSonoBaixo) {
+        this.limiarSonoBaixo = limiarSonoBaixo;
+        Arrays.fill(diaBalde, Long.MIN_VALUE);
+        Arrays.fill(contagemBalde, 0);
+        Arrays.fill(somaSonoBalde, 0.0);
+        Arrays.fill(somaFcBalde, 0L);
+        Arrays.fill(humorNegativoBalde, 0);
+        Arrays.fill(sonoBaixoBalde, 0);
+        total = 0;
+        somaSono = 0.0;
+        somaFc = 0L;
+        totalHumorNegativo = 0;
+        totalSonoBaixo = 0;
+        diaMaisRecente = Long.MIN_VALUE;
+        humorNegativoConsecutivo = 0;
+        sonoBaixoConsecutivo = 0;
+        possuiLeitura = false;
+    }
+    
+    /**
+     * Move a janela até o dia informado, descartando os baldes que saíram dela.
+     * Percorre no máximo 'dias' baldes, independentemente do intervalo pulado.
+     */
+    private void avancarPara(long dia) {
+        long inicio = diaMaisRecente == Long.MIN_VALUE ? dia - dias + 1 : Math.max(diaMaisRecente + 1, dia - dias + 1);
+        for (long d = inicio; d <= dia; d++) {
+            int i = indice(d);
+            if (diaBalde[i] != Long.MIN_VALUE) {
+                total -= contagemBalde[i];
+                somaSono -= somaSonoBalde[i];
+                somaFc -= somaFcBalde[i];
+                totalHumorNegativo -= humorNegativoBalde[i];
+                totalSonoBaixo -= sonoBaixoBalde[i];
+            }
+            diaBalde[i] = d;
+            contagemBalde[i] = 0;
+            somaSonoBalde[i] = 0.0;
+            somaFcBalde[i] = 0L;
+            humorNegativoBalde[i] = 0;
+            sonoBaixoBalde[i] = 0;
+        }
+        diaMaisRecente = dia;
+    }
+    
+    /**
+     * Copia os indicadores usados pelas regras de risco para a linha informada das colunas
+     * (indexadas por CampoRisco), em um único acesso sincronizado.
+     */
+    synchronized void copiarIndicadores(double[][] colunas, int linha) {
+        colunas[CampoRisco.SONO_HORAS.ordinal()][linha] = ultimoSono;
+        colunas[CampoRisco.QUALIDADE_SONO.ordinal()][linha] = ultimaQualidadeSono;
+        colunas[CampoRisco.HUMOR.ordinal()][linha] = ultimoHumor.getCodigo();
+        colunas[CampoRisco.ATIVIDADE_FISICA.ordinal()][linha] = ultimaAtividade.getCodigo();
+        colunas[CampoRisco.FREQUENCIA_CARDIACA.ordinal()][linha] = ultimaFrequenciaCardiaca;
+        colunas[CampoRisco.MEDIA_SONO.ordinal()][linha] = total == 0 ? 0.0 : somaSono / total;
+        colunas[CampoRisco.MEDIA_FREQUENCIA_CARDIACA.ordinal()][linha] = total == 0 ? 0.0 : (double) somaFc / total;
+        colunas[CampoRisco.TOTAL_HUMOR_NEGATIVO.ordinal()][linha] = totalHumorNegativo;
+        colunas[CampoRisco.TOTAL_SONO_BAIXO.ordinal()][linha] = totalSonoBaixo;
+        colunas[CampoRisco.HUMOR_NEGATIVO_CONSECUTIVO.ordinal()][linha] = humorNegativoConsecutivo;
+        colunas[CampoRisco.SONO_BAIXO_CONSECUTIVO.ordinal()][linha] = sonoBaixoConsecutivo;
+    }
+    
+    /**
+     * Acrescenta os totais da janela à população, em um único acesso sincronizado; janelas vazias são ignoradas.
+     */
+    synchronized void copiarTotais(PopulacaoPacientes populacao, int idade) {
+        if (total > 0) {
+            populacao.adicionar(idIdoso, idade, total, somaSono, somaFc);
+        }
+    }
+    
+    private int indice(long dia) {
+        return (int) Math.floorMod(dia, (long) dias);
+    }
+    
+    public long getIdIdoso() {
+        return idIdoso;
+    }
+    
+    public synchronized int getTotal() {
+        return total;
+    }
+    
+    public synchronized boolean possuiLeitura() {
+        return possuiLeitura;
+    }
+    
+    public synchronized double getMediaSono() {
+        return total == 0 ? 0.0 : somaSono / total;
+    }
+    
+    public synchronized double getMediaFrequenciaCardiaca() {
+        return total == 0 ? 0.0 : (double) somaFc / total;
+    }
+    
+    public synchronized int getTotalHumorNegativo() {
+        return totalHumorNegativo;
+    }
+    
+    public synchronized int getTotalSonoBaixo() {
+        return totalSonoBaixo;
+    }
+    
+    public synchronized int getHumorNegativoConsecutivo() {
+        return humorNegativoConsecutivo;
+    }
+    
+    public synchronized int getSonoBaixoConsecutivo() {
+        return sonoBaixoConsecutivo;
+    }
+    
+    public synchronized double getUltimoSono() {
+        return ultimoSono;
+    }
+    
+    public synchronized int getUltimaQualidadeSono() {
+        return ultimaQualidadeSono;
+    }
+    
+    public synchronized Humor getUltimoHumor() {
+        return ultimoHumor;
+    }
+    
+    public synchronized NivelAtividade getUltimaAtividade() {
+        return ultimaAtividade;
+    }
+    
+    public synchronized int getUltimaFrequenciaCardiaca() {
+        return ultimaFrequenciaCardiaca;
+    }
+    
+    /**
+     * Leitura mais recente acrescentada à janela, ou null se a janela estiver vazia.
+     */
+    public synchronized LeituraSaude getUltimaLeitura() {
+        if (!possuiLeitura) {
+            return null;
+        }
+        return new LeituraSaude(0, idIdoso, diaMaisRecente, ultimoSono, ultimaQualidadeSono, ultimoHumor,
+            ultimaAtividade, ultimaFrequenciaCardiaca);
+    }
+    
+    /**
+     * Instante (ms) da última leitura acrescentada.
+     */
+    public synchronized long getAtualizadaEm() {
+        return atualizadaEm;
+    }
+}
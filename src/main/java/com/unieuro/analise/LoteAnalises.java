@@ -0,0 +1,64 @@
+package com.unieuro.analise;
+
+import java.util.Arrays;
+
+/**
+ * Análises produzidas em um ciclo do analisador, enviadas de uma vez ao recomendador.
+ */
+public class LoteAnalises {
+    
+    private long[] idsIdoso;
+    private AnaliseEmocional[] analises;
+    private long[] instantesColetaNanos;
+    private int tamanho;
+    
+    public LoteAnalises() {
+        this(16);
+    }
+    
+    public LoteAnalises(int capacidadeInicial) {
+        int capacidade = Math.max(1, capacidadeInicial);
+        idsIdoso = new long[capacidade];
+        analises = new AnaliseEmocional[capacidade];
+        instantesColetaNanos = new long[capacidade];
+    }
+    
+    public void adicionar(long idIdoso, AnaliseEmocional analise) {
+        adicionar(idIdoso, analise, 0L);
+    }
+    
+    /**
+     * Acrescenta uma análise guardando o System.nanoTime() da coleta que a originou (0 se desconhecido).
+     */
+    public void adicionar(long idIdoso, AnaliseEmocional analise, long instanteColetaNanos) {
+        if (tamanho == idsIdoso.length) {
+            idsIdoso = Arrays.copyOf(idsIdoso, tamanho * 2);
+            analises = Arrays.copyOf(analises, tamanho * 2);
+            instantesColetaNanos = Arrays.copyOf(instantesColetaNanos, tamanho * 2);
+        }
+        idsIdoso[tamanho] = idIdoso;
+        analises[tamanho] = analise;
+        instantesColetaNanos[tamanho] = instanteColetaNanos;
+        tamanho++;
+    }
+    
+    public int tamanho() {
+        return tamanho;
+    }
+    
+    public boolean isVazio() {
+        return tamanho == 0;
+    }
+    
+    public long getIdIdoso(int i) {
+        return idsIdoso[i];
+    }
+    
+    public AnaliseEmocional getAnalise(int i) {
+        return analises[i];
+    }
+    
+    public long getInstanteColetaNanos(int i) {
+        return instantesColetaNanos[i];
+    }
+}
@@ -0,0 +1,58 @@
+package com.unieuro.analise;
+
+/**
+ * Avaliação de risco de várias janelas em uma única passada pelo motor de regras.
+ * Os indicadores de cada janela são copiados para colunas de double no momento de
+ * {@link #adicionar}, então leituras seguidas do mesmo idoso geram análises distintas.
+ */
+public final class LoteAvaliacao {
+    
+    private final double[][] colunas;
+    private final int[] pontuacoes;
+    private final long[] disparadas;
+    private final int capacidade;
+    private int tamanho;
+    private AnaliseEmocional[] analises;
+    
+    public LoteAvaliacao(int capacidade) {
+        this.capacidade = Math.max(1, capacidade);
+        this.colunas = new double[CampoRisco.VALORES.length][this.capacidade];
+        this.pontuacoes = new int[this.capacidade];
+        this.disparadas = new long[this.capacidade];
+    }
+    
+    /**
+     * Registra o estado atual da janela, que deve possuir ao menos uma leitura, e devolve a linha ocupada.
+     */
+    public int adicionar(JanelaPaciente janela) {
+        if (tamanho == capacidade) {
+            throw new IllegalStateException("Lote de avaliação cheio (" + capacidade + ")");
+        }
+        janela.copiarIndicadores(colunas, tamanho);
+        return tamanho++;
+    }
+    
+    public int tamanho() {
+        return tamanho;
+    }
+    
+    /**
+     * Pontua todas as linhas com as regras em uso e cria as análises.
+     */
+    public void avaliar() {
+        RegrasRisco regras = CarregadorRegras.getInstance().getRegras();
+        regras.pontuar(colunas, tamanho, pontuacoes, disparadas);
+        analises = new AnaliseEmocional[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            analises[i] = new AnaliseEmocional(regras.nivel(pontuacoes[i]), pontuacoes[i], regras,
+                disparadas[i], colunas, i);
+        }
+    }
+    
+    /**
+     * Análise da linha informada; disponível após {@link #avaliar}.
+     */
+    public AnaliseEmocional getAnalise(int linha) {
+        return analises[linha];
+    }
+}
@@ -0,0 +1,339 @@
+package com.unieuro.analise;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Conjunto de regras de risco compilado para avaliação em lote.
+ * Cada regra vira uma linha de arrays paralelos (campo, intervalo, negação, máscara, pontos), e a
+ * pontuação percorre regra a regra colunas de double com uma linha por leitura, sem objetos nem
+ * comparações de texto no laço. As regras disparadas ficam em um long (no máximo 64 regras); o texto
+ * da descrição só é montado por {@link #descrever} quando alguém o pede.
+ *
+ * Formato (veja regras-risco.properties):
+ * <pre>
+ * regras=sono_insuficiente,humor_negativo
+ * regra.sono_insuficiente.campo=sono_horas
+ * regra.sono_insuficiente.condicao=&lt; 6
+ * regra.sono_insuficiente.pontos=2
+ * regra.sono_insuficiente.descricao=Sono insuficiente ({valor}h).
+ * nivel.alto=6
+ * limiar.sono_baixo=6.0
+ * </pre>
+ * Condições: &lt;, &lt;=, &gt;, &gt;=, = valor, entre a..b, fora a..b e, para humor e atividade, em r1,r2.
+ */
+public final class RegrasRisco {
+    
+    public static final int MAXIMO_REGRAS = 64;
+    
+    /** Limiar de sono baixo quando limiar.sono_baixo não é informado. */
+    public static final double LIMIAR_SONO_BAIXO_PADRAO = 6.0;
+    
+    private static final String MARCADOR_VALOR = "{valor}";
+    private static final String DESCRICAO_NORMAL_PADRAO = "Indicadores dentro da normalidade.";
+    
+    // Uma posição por regra, na ordem declarada em "regras"
+    private final String[] nomes;
+    private final int[] campos;
+    private final double[] minimos;
+    private final double[] maximos;
+    private final boolean[] negadas;
+    private final long[] mascaras;
+    private final int[] pontos;
+    private final String[] descricoes;
+    
+    // Níveis em ordem decrescente de pontuação mínima
+    private final String[] niveis;
+    private final int[] minimosNivel;
+    
+    private final String descricaoNormal;
+    private final double limiarSonoBaixo;
+    private final long versao;
+    
+    private RegrasRisco(List<Regra> regras, List<String> niveis, List<Integer> minimosNivel,
+                        String descricaoNormal, double limiarSonoBaixo, long versao) {
+        int total = regras.size();
+        this.nomes = new String[total];
+        this.campos = new int[total];
+        this.minimos = new double[total];
+        this.maximos = new double[total];
+        this.negadas = new boolean[total];
+        this.mascaras = new long[total];
+        this.pontos = new int[total];
+        this.descricoes = new String[total];
+        for (int r = 0; r < total; r++) {
+            Regra regra = regras.get(r);
+            nomes[r] = regra.nome;
+            campos[r] = regra.campo.ordinal();
+            minimos[r] = regra.minimo;
+            maximos[r] = regra.maximo;
+            negadas[r] = regra.negada;
+            mascaras[r] = regra.mascara;
+            pontos[r] = regra.pontos;
+            descricoes[r] = regra.descricao;
+        }
+        this.niveis = niveis.toArray(new String[0]);
+        this.minimosNivel = minimosNivel.stream().mapToInt(Integer::intValue).toArray();
+        this.descricaoNormal = descricaoNormal;
+        this.limiarSonoBaixo = limiarSonoBaixo;
+        this.versao = versao;
+    }
+    
+    /**
+     * Compila as regras descritas nas propriedades; lança IllegalArgumentException se houver erro.
+     */
+    public static RegrasRisco compilar(Properties propriedades, long versao) {
+        String lista = obrigatoria(propriedades, "regras");
+        List<Regra> regras = new ArrayList<>();
+        for (String nome : lista.split(",")) {
+            nome = nome.trim();
+            if (!nome.isEmpty()) {
+                regras.add(compilarRegra(propriedades, nome));
+            }
+        }
+        if (regras.size() > MAXIMO_REGRAS) {
+            throw new IllegalArgumentException("No máximo " + MAXIMO_REGRAS + " regras são suportadas");
+        }
+        
+        // Níveis ordenados da maior para a menor pontuação mínima
+        List<String> niveis = new ArrayList<>();
+        for (String chave : propriedades.stringPropertyNames()) {
+            if (chave.startsWith("nivel.")) {
+                niveis.add(chave.substring("nivel.".length()));
+            }
+        }
+        if (niveis.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum nível de risco definido (nivel.<nome>=<pontuação mínima>)");
+        }
+        niveis.sort((a, b) -> Integer.compare(minimoNivel(propriedades, b), minimoNivel(propriedades, a)));
+        List<Integer> minimos = new ArrayList<>();
+        for (String nivel : niveis) {
+            minimos.add(minimoNivel(propriedades, nivel));
+        }
+        
+        String descricaoNormal = propriedades.getProperty("descricao.normal", DESCRICAO_NORMAL_PADRAO).trim();
+        String limiar = propriedades.getProperty("limiar.sono_baixo");
+        double limiarSonoBaixo;
+        try {
+            limiarSonoBaixo = limiar == null || limiar.trim().isEmpty() ? LIMIAR_SONO_BAIXO_PADRAO : numero(limiar);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("limiar.sono_baixo: " + e.getMessage(), e);
+        }
+        return new RegrasRisco(regras, niveis, minimos, descricaoNormal, limiarSonoBaixo, versao);
+    }
+    
+    private static Regra compilarRegra(Properties propriedades, String nome) {
+        String prefixo = "regra." + nome + ".";
+        CampoRisco campo = CampoRisco.deNome(obrigatoria(propriedades, prefixo + "campo"));
+        String condicao = obrigatoria(propriedades, prefixo + "condicao");
+        
+        Regra regra = new Regra(nome, campo);
+        regra.pontos = inteiro(propriedades, prefixo + "pontos", 0);
+        regra.descricao = propriedades.getProperty(prefixo + "descricao", "").trim();
+        try {
+            compilarCondicao(regra, condicao);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Regra " + nome + ": " + e.getMessage(), e);
+        }
+        return regra;
+    }
+    
+    /**
+     * Converte a condição em intervalo fechado [mínimo, máximo] (opcionalmente negado)
+     * ou, para campos categóricos, em máscara de códigos.
+     */
+    private static void compilarCondicao(Regra regra, String condicao) {
+        int espaco = condicao.indexOf(' ');
+        if (espaco < 0) {
+            throw new IllegalArgumentException("condição sem valor: " + condicao);
+        }
+        String operador = condicao.substring(0, espaco).toLowerCase(Locale.ROOT);
+        String argumento = condicao.substring(espaco + 1).trim();
+        
+        if (regra.campo.isCategorico()) {
+            if (!operador.equals("=") && !operador.equals("em")) {
+                throw new IllegalArgumentException("campo " + regra.campo.getNome() + " aceita apenas '=' e 'em'");
+            }
+            for (String rotulo : argumento.split(",")) {
+                regra.mascara |= 1L << regra.campo.codigo(rotulo.trim());
+            }
+            return;
+        }
+        
+        switch (operador) {
+            case "<":
+                regra.maximo = Math.nextDown(numero(argumento));
+                break;
+            case "<=":
+                regra.maximo = numero(argumento);
+                break;
+            case ">":
+                regra.minimo = Math.nextUp(numero(argumento));
+                break;
+            case ">=":
+                regra.minimo = numero(argumento);
+                break;
+            case "=":
+                regra.minimo = numero(argumento);
+                regra.maximo = regra.minimo;
+                break;
+            case "entre":
+            case "fora":
+                int separador = argumento.indexOf("..");
+                if (separador < 0) {
+                    throw new IllegalArgumentException("intervalo deve ter o formato a..b: " + argumento);
+                }
+                regra.minimo = numero(argumento.substring(0, separador));
+                regra.maximo = numero(argumento.substring(separador + 2));
+                regra.negada = operador.equals("fora");
+                break;
+            default:
+                throw new IllegalArgumentException("operador desconhecido: " + operador);
+        }
+    }
+    
+    /**
+     * Pontua as linhas [0, quantidade) das colunas (indexadas por CampoRisco), acumulando
+     * em pontuacoes e marcando em disparadas o bit de cada regra satisfeita.
+     */
+    void pontuar(double[][] colunas, int quantidade, int[] pontuacoes, long[] disparadas) {
+        Arrays.fill(pontuacoes, 0, quantidade, 0);
+        Arrays.fill(disparadas, 0, quantidade, 0L);
+        
+        for (int r = 0; r < campos.length; r++) {
+            double[] coluna = colunas[campos[r]];
+            int pontosRegra = pontos[r];
+            long bit = 1L << r;
+            long mascara = mascaras[r];
+            
+            if (mascara != 0) {
+                for (int i = 0; i < quantidade; i++) {
+                    long dispara = (mascara >>> (int) coluna[i]) & 1L;
+                    pontuacoes[i] += (int) dispara * pontosRegra;
+                    disparadas[i] |= dispara << r;
+                }
+            } else {
+                double minimo = minimos[r];
+                double maximo = maximos[r];
+                boolean negada = negadas[r];
+                for (int i = 0; i < quantidade; i++) {
+                    double valor = coluna[i];
+                    if ((valor >= minimo & valor <= maximo) != negada) {
+                        pontuacoes[i] += pontosRegra;
+                        disparadas[i] |= bit;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Nível de risco correspondente à pontuação; abaixo de todos os mínimos, o nível mais baixo.
+     */
+    public String nivel(int pontuacao) {
+        for (int n = 0; n < niveis.length; n++) {
+            if (pontuacao >= minimosNivel[n]) {
+                return niveis[n];
+            }
+        }
+        return niveis[niveis.length - 1];
+    }
+    
+    /**
+     * Monta a descrição das regras disparadas usando os valores da linha informada.
+     */
+    String descrever(long disparadas, double[][] colunas, int linha) {
+        StringBuilder descricao = new StringBuilder();
+        for (int r = 0; r < campos.length; r++) {
+            if ((disparadas & (1L << r)) == 0 || descricoes[r].isEmpty()) {
+                continue;
+            }
+            if (descricao.length() > 0) {
+                descricao.append(' ');
+            }
+            String modelo = descricoes[r];
+            if (modelo.contains(MARCADOR_VALOR)) {
+                CampoRisco campo = CampoRisco.VALORES[campos[r]];
+                modelo = modelo.replace(MARCADOR_VALOR, campo.formatar(colunas[campos[r]][linha]));
+            }
+            descricao.append(modelo);
+        }
+        return descricao.length() == 0 ? descricaoNormal : descricao.toString();
+    }
+    
+    public int getQuantidadeRegras() {
+        return nomes.length;
+    }
+    
+    public List<String> getNomesRegras() {
+        return Arrays.asList(nomes.clone());
+    }
+    
+    /**
+     * Sono (em horas) abaixo do qual a leitura conta para total_sono_baixo e sono_baixo_consecutivo.
+     */
+    public double getLimiarSonoBaixo() {
+        return limiarSonoBaixo;
+    }
+    
+    /**
+     * Identificador crescente do conjunto carregado (instante da modificação do arquivo de origem).
+     */
+    public long getVersao() {
+        return versao;
+    }
+    
+    private static String obrigatoria(Properties propriedades, String chave) {
+        String valor = propriedades.getProperty(chave);
+        if (valor == null || valor.trim().isEmpty()) {
+            throw new IllegalArgumentException("Propriedade obrigatória ausente: " + chave);
+        }
+        return valor.trim();
+    }
+    
+    private static int inteiro(Properties propriedades, String chave, int padrao) {
+        String valor = propriedades.getProperty(chave);
+        if (valor == null || valor.trim().isEmpty()) {
+            return padrao;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inteiro inválido para " + chave + ": " + valor);
+        }
+    }
+    
+    private static int minimoNivel(Properties propriedades, String nivel) {
+        return inteiro(propriedades, "nivel." + nivel, 0);
+    }
+    
+    private static double numero(String texto) {
+        try {
+            return Double.parseDouble(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("número inválido: " + texto);
+        }
+    }
+    
+    /**
+     * Regra em compilação; o padrão é o intervalo inteiro, sem negação.
+     */
+    private static final class Regra {
+        final String nome;
+        final CampoRisco campo;
+        double minimo = Double.NEGATIVE_INFINITY;
+        double maximo = Double.POSITIVE_INFINITY;
+        boolean negada;
+        long mascara;
+        int pontos;
+        String descricao;
+        
+        Regra(String nome, CampoRisco campo) {
+            this.nome = nome;
+            this.campo = campo;
+        }
+    }
+}
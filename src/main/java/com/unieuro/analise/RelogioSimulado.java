@@ -0,0 +1,40 @@
+package com.unieuro.analise;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Relógio da simulação: parte de um instante real de origem e avança aceleracao vezes mais
+ * rápido que o relógio do sistema. Com aceleração 1 acompanha a data atual; no gerador de carga,
+ * com aceleração 60, um dia simulado passa em 24 minutos, e as leituras mudam de dia de coleta
+ * como mudariam em produção.
+ */
+public final class RelogioSimulado {
+    
+    private final long origemMillis;
+    private final double aceleracao;
+    
+    public RelogioSimulado(long origemMillis, double aceleracao) {
+        if (aceleracao <= 0) {
+            throw new IllegalArgumentException("Aceleração deve ser positiva: " + aceleracao);
+        }
+        this.origemMillis = origemMillis;
+        this.aceleracao = aceleracao;
+    }
+    
+    /**
+     * Instante simulado, em milissegundos desde a época.
+     */
+    public long agoraMillis() {
+        long decorrido = System.currentTimeMillis() - origemMillis;
+        return origemMillis + Math.round(decorrido * aceleracao);
+    }
+    
+    /**
+     * Dia simulado (epoch day), no fuso do sistema como LocalDate.now().
+     */
+    public long hoje() {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(agoraMillis()), ZoneId.systemDefault()).toEpochDay();
+    }
+}
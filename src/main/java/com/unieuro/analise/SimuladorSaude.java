@@ -0,0 +1,80 @@
+package com.unieuro.analise;
+
+import com.unieuro.model.Humor;
+import com.unieuro.model.LoteLeituras;
+import com.unieuro.model.NivelAtividade;
+
+import java.util.Random;
+
+/**
+ * Modelo de leituras de saúde de uma pessoa idosa: o humor depende do sono, a atividade
+ * física depende do humor e a frequência cardíaca depende da atividade.
+ * Usado pelo Agente de Coleta e pelo gerador de carga; com um Random de semente fixa
+ * a sequência de leituras é reproduzível.
+ */
+public class SimuladorSaude {
+    
+    // Atividades sorteadas conforme o humor
+    private static final NivelAtividade[] ATIVIDADES_HUMOR_POSITIVO =
+        {NivelAtividade.MODERADA, NivelAtividade.INTENSA, NivelAtividade.LEVE};
+    private static final NivelAtividade[] ATIVIDADES_HUMOR_NEGATIVO =
+        {NivelAtividade.SEDENTARIA, NivelAtividade.LEVE, NivelAtividade.NENHUMA};
+    private static final NivelAtividade[] ATIVIDADES_HUMOR_NEUTRO =
+        {NivelAtividade.LEVE, NivelAtividade.MODERADA, NivelAtividade.SEDENTARIA};
+    
+    private final Random random;
+    
+    public SimuladorSaude(Random random) {
+        this.random = random;
+    }
+    
+    /**
+     * Simula uma leitura do idoso e a acrescenta ao lote.
+     */
+    public void simular(long idIdoso, long diaColeta, long instanteColetaNanos, LoteLeituras destino) {
+        // Sono: 4-10 horas (tendência para 6-8 horas)
+        double sonoHoras = 5.0 + (random.nextDouble() * 4.0); // 5.0 a 9.0 horas
+        
+        // Qualidade do sono: 1-5 (1=muito ruim, 5=excelente)
+        int qualidadeSono = 2 + random.nextInt(4); // 2 a 5
+        
+        // Humor baseado na qualidade do sono
+        Humor humor;
+        if (qualidadeSono >= 4 && sonoHoras >= 7) {
+            humor = random.nextBoolean() ? Humor.POSITIVO : Humor.NEUTRO;
+        } else if (qualidadeSono <= 2 || sonoHoras < 6) {
+            humor = random.nextBoolean() ? Humor.NEGATIVO : Humor.NEUTRO;
+        } else {
+            humor = Humor.NEUTRO;
+        }
+        
+        // Atividade física baseada no humor
+        NivelAtividade atividadeFisica;
+        if (humor == Humor.POSITIVO) {
+            atividadeFisica = ATIVIDADES_HUMOR_POSITIVO[random.nextInt(ATIVIDADES_HUMOR_POSITIVO.length)];
+        } else if (humor == Humor.NEGATIVO) {
+            atividadeFisica = ATIVIDADES_HUMOR_NEGATIVO[random.nextInt(ATIVIDADES_HUMOR_NEGATIVO.length)];
+        } else {
+            atividadeFisica = ATIVIDADES_HUMOR_NEUTRO[random.nextInt(ATIVIDADES_HUMOR_NEUTRO.length)];
+        }
+        
+        // Frequência cardíaca: 60-100 bpm (normal para idosos)
+        // Pode variar com atividade física e humor
+        int fcBase = 65 + random.nextInt(20); // 65-85 bpm base
+        
+        int frequenciaCardiaca;
+        if (atividadeFisica == NivelAtividade.INTENSA) {
+            frequenciaCardiaca = fcBase + 10 + random.nextInt(15); // +10 a +25
+        } else if (atividadeFisica == NivelAtividade.MODERADA) {
+            frequenciaCardiaca = fcBase + 5 + random.nextInt(10); // +5 a +15
+        } else {
+            frequenciaCardiaca = fcBase + random.nextInt(10) - 5; // -5 a +5
+        }
+        
+        // Garante que FC está dentro dos limites normais
+        frequenciaCardiaca = Math.max(50, Math.min(120, frequenciaCardiaca));
+        
+        destino.adicionar(0L, idIdoso, diaColeta, sonoHoras, qualidadeSono, humor, atividadeFisica,
+            frequenciaCardiaca, instanteColetaNanos);
+    }
+}
@@ -0,0 +1,17 @@
+package com.unieuro.api;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra a medição de latência nos endpoints da API.
+ */
+@Configuration
+public class ConfiguracaoWeb implements WebMvcConfigurer {
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LatenciaEndpoints()).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,143 @@
+package com.unieuro.api;
+
+import com.unieuro.analise.AgregacaoCoorte;
+import com.unieuro.analise.EstadoPacientes;
+import com.unieuro.cache.CacheLRU;
+import com.unieuro.database.DatabaseManager;
+import com.unieuro.model.PopulacaoPacientes;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consultas sobre a população de idosos (coortes), calculadas no servidor.
+ * O risco persistente é contado no banco; sono por faixa etária e outliers de frequência cardíaca
+ * partem dos totais por idoso (fonte=banco: agregado diário; fonte=memoria: janelas dos agentes
+ * desta JVM) e são agregados em paralelo por AgregacaoCoorte. Os resultados ficam em cache por
+ * alguns segundos.
+ */
+@RestController
+@RequestMapping("/api/cohort")
+@CrossOrigin(origins = "*") // Permite CORS para todas as origens
+public class CoorteController {
+    
+    private static final long TTL_CACHE_SEGUNDOS = 15;
+    private static final int CAPACIDADE_CACHE = 64;
+    private static final int DIAS_MAXIMOS = 366;
+    private static final String FONTE_BANCO = "banco";
+    private static final String FONTE_MEMORIA = "memoria";
+    
+    private final DatabaseManager dbManager;
+    
+    private final CacheLRU<String, PopulacaoPacientes> cachePopulacao = new CacheLRU<>("coorte_populacao",
+        CAPACIDADE_CACHE, TTL_CACHE_SEGUNDOS, TimeUnit.SECONDS);
+    private final CacheLRU<String, List<Map<String, Object>>> cacheRiscoPersistente = new CacheLRU<>(
+        "coorte_risco_persistente", CAPACIDADE_CACHE, TTL_CACHE_SEGUNDOS, TimeUnit.SECONDS);
+    private final CacheLRU<String, List<Map<String, Object>>> cacheSonoPorFaixa = new CacheLRU<>(
+        "coorte_sono_por_faixa", CAPACIDADE_CACHE, TTL_CACHE_SEGUNDOS, TimeUnit.SECONDS);
+    private final CacheLRU<String, Map<String, Object>> cacheOutliersFc = new CacheLRU<>(
+        "coorte_outliers_fc", CAPACIDADE_CACHE, TTL_CACHE_SEGUNDOS, TimeUnit.SECONDS);
+    
+    public CoorteController() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+    
+    /**
+     * Idosos com análises de um nível de risco (padrão: alto) em pelo menos dias dias distintos
+     * dentro dos últimos periodo dias.
+     */
+    @GetMapping("/high-risk")
+    public ResponseEntity<List<Map<String, Object>>> getHighRisk(
+            @RequestParam(name = "dias", defaultValue = "3") int dias,
+            @RequestParam(name = "periodo", defaultValue = "7") int periodo,
+            @RequestParam(name = "risco", defaultValue = "alto") String risco,
+            @RequestParam(name = "limite", defaultValue = "100") int limite) {
+        if (dias < 1 || periodo < dias || periodo > DIAS_MAXIMOS || limite < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            String chave = risco + "|" + dias + "|" + periodo + "|" + limite;
+            return ResponseEntity.ok(cacheRiscoPersistente.obter(chave,
+                c -> dbManager.listarRiscoPersistente(risco, dias, periodo, limite)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Média de sono por faixa etária (largura anos) nos últimos dias dias.
+     */
+    @GetMapping("/sleep-by-age")
+    public ResponseEntity<List<Map<String, Object>>> getSleepByAge(
+            @RequestParam(name = "dias", defaultValue = "7") int dias,
+            @RequestParam(name = "largura", defaultValue = "10") int largura,
+            @RequestParam(name = "fonte", defaultValue = FONTE_BANCO) String fonte) {
+        if (dias < 1 || dias > DIAS_MAXIMOS || largura < 1 || largura > 50 || !fonteValida(fonte)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (fonte.equals(FONTE_MEMORIA) && EstadoPacientes.getInstance().getTotalPacientes() == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            String chave = fonte + "|" + dias + "|" + largura;
+            return ResponseEntity.ok(cacheSonoPorFaixa.obter(chave,
+                c -> AgregacaoCoorte.sonoPorFaixaEtaria(populacao(fonte, dias), largura)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Idosos cuja frequência cardíaca média nos últimos dias dias está a pelo menos z desvios
+     * padrão da média da população.
+     */
+    @GetMapping("/heart-rate-outliers")
+    public ResponseEntity<Map<String, Object>> getHeartRateOutliers(
+            @RequestParam(name = "dias", defaultValue = "7") int dias,
+            @RequestParam(name = "z", defaultValue = "2.0") double z,
+            @RequestParam(name = "limite", defaultValue = "100") int limite,
+            @RequestParam(name = "fonte", defaultValue = FONTE_BANCO) String fonte) {
+        if (dias < 1 || dias > DIAS_MAXIMOS || !(z > 0) || limite < 1 || !fonteValida(fonte)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (fonte.equals(FONTE_MEMORIA) && EstadoPacientes.getInstance().getTotalPacientes() == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            String chave = fonte + "|" + dias + "|" + z + "|" + limite;
+            return ResponseEntity.ok(cacheOutliersFc.obter(chave,
+                c -> AgregacaoCoorte.outliersFrequenciaCardiaca(populacao(fonte, dias), z, limite)));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    private static boolean fonteValida(String fonte) {
+        return fonte.equals(FONTE_BANCO) || fonte.equals(FONTE_MEMORIA);
+    }
+    
+    /**
+     * Totais por idoso da fonte escolhida. As janelas em memória cobrem sempre os últimos
+     * EstadoPacientes.DIAS_JANELA dias, então dias só vale para o banco.
+     */
+    private PopulacaoPacientes populacao(String fonte, int dias) {
+        if (fonte.equals(FONTE_BANCO)) {
+            return cachePopulacao.obter(FONTE_BANCO + "|" + dias, c -> dbManager.buscarPopulacao(dias));
+        }
+        return cachePopulacao.obter(FONTE_MEMORIA, c -> {
+            Map<Long, Integer> idades = new HashMap<>();
+            for (Map<String, Object> idoso : dbManager.listarIdososEmCache()) {
+                idades.put((Long) idoso.get("id"), (Integer) idoso.get("idade"));
+            }
+            return AgregacaoCoorte.deEstado(EstadoPacientes.getInstance(), idades);
+        });
+    }
+}
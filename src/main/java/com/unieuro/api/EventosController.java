@@ -0,0 +1,84 @@
+package com.unieuro.api;
+
+import com.unieuro.eventos.BarramentoEventos;
+import com.unieuro.eventos.DestinoEventos;
+import com.unieuro.eventos.Evento;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transmissão em tempo real (Server-Sent Events) de leituras, análises e alertas.
+ * O cliente escolhe os idosos pelo parâmetro "pacientes" e, ao reconectar, retoma a partir
+ * do cabeçalho Last-Event-ID (enviado automaticamente pelo EventSource) ou do parâmetro "desde".
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*") // Permite CORS para todas as origens
+public class EventosController {
+    
+    private static final long TEMPO_CONEXAO_MS = TimeUnit.MINUTES.toMillis(30);
+    
+    private final BarramentoEventos barramento = BarramentoEventos.getInstance();
+    
+    /**
+     * Endpoint de eventos: GET /api/stream?pacientes=1,2&desde=120
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(name = "pacientes", required = false) List<Long> pacientes,
+                             @RequestParam(name = "desde", required = false) Long desde,
+                             @RequestHeader(name = "Last-Event-ID", required = false) Long ultimoEvento) {
+        SseEmitter emitter = new SseEmitter(TEMPO_CONEXAO_MS);
+        
+        List<Long> ids = pacientes != null ? pacientes : Collections.emptyList();
+        long[] filtro = ids.stream().mapToLong(Long::longValue).toArray();
+        long retomarDe = ultimoEvento != null ? ultimoEvento : desde != null ? desde : -1;
+        
+        BarramentoEventos.Inscricao inscricao = barramento.inscrever(filtro, retomarDe, new DestinoSse(emitter));
+        emitter.onCompletion(inscricao::cancelar);
+        emitter.onTimeout(inscricao::cancelar);
+        emitter.onError(erro -> inscricao.cancelar());
+        return emitter;
+    }
+    
+    /**
+     * Adapta uma conexão SSE ao barramento de eventos.
+     */
+    private static class DestinoSse implements DestinoEventos {
+        private final SseEmitter emitter;
+        
+        DestinoSse(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+        
+        @Override
+        public void enviar(Evento evento) throws IOException {
+            emitter.send(SseEmitter.event()
+                .id(Long.toString(evento.getSequencia()))
+                .name(evento.getTipo())
+                .data(evento.getDados(), MediaType.APPLICATION_JSON));
+        }
+        
+        @Override
+        public void lacuna(long ultimaSequencia) throws IOException {
+            emitter.send(SseEmitter.event()
+                .name("lacuna")
+                .data(Collections.singletonMap("ultima_sequencia", ultimaSequencia), MediaType.APPLICATION_JSON));
+        }
+        
+        @Override
+        public void batimento() throws IOException {
+            emitter.send(SseEmitter.event().comment("batimento"));
+        }
+        
+        @Override
+        public void encerrar() {
+            emitter.complete();
+        }
+    }
+}
@@ -1,37 +1,104 @@
 package com.unieuro.api;
 
+import com.unieuro.agents.StatusAgentes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unieuro.analise.EstadoPacientes;
+import com.unieuro.analise.JanelaPaciente;
+import com.unieuro.cluster.MembrosCluster;
 import com.unieuro.database.DatabaseManager;
+import com.unieuro.model.LeituraSaude;
+import com.unieuro.model.LoteLeituras;
+import com.unieuro.model.Pagina;
+import com.unieuro.model.ResolucaoSerie;
+import com.unieuro.model.SerieSaude;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
-import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.ArrayList;
 
 /**
  * Controlador REST para fornecer dados de saúde para o dashboard web.
+ * As listas que crescem com o histórico e com o cadastro (dados de saúde e idosos) são escritas
+ * em fluxo por RespostaEmFluxo, em JSON ou CBOR e com gzip ou deflate.
  */
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*") // Permite CORS para todas as origens
 public class HealthDataController {
     
+    private static final int DIAS_PADRAO_SERIE = 30;
+    private static final int DIAS_MAXIMOS_DADOS = 366;
+    
     private final DatabaseManager dbManager;
+    private final RespostaEmFluxo respostas;
     
-    public HealthDataController() {
+    public HealthDataController(ObjectMapper objectMapper) {
         this.dbManager = DatabaseManager.getInstance();
+        this.respostas = new RespostaEmFluxo(objectMapper);
     }
     
     /**
-     * Endpoint para obter dados de saúde recentes de um idoso.
+     * Endpoint para obter dados de saúde recentes de um idoso (padrão: últimos 7 dias), da leitura
+     * mais recente para a mais antiga. O período padrão vem do cache; os demais são lidos do banco
+     * e escritos à medida que chegam.
      */
     @GetMapping("/health-data/{idIdoso}")
-    public ResponseEntity<List<Map<String, Object>>> getHealthData(@PathVariable long idIdoso) {
+    public void getHealthData(@PathVariable long idIdoso,
+            @RequestParam(name = "dias", required = false) Integer dias,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int periodo = dias == null ? DatabaseManager.DIAS_CACHE_DADOS_SAUDE : dias;
+        if (periodo < 1 || periodo > DIAS_MAXIMOS_DADOS) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        respostas.responder(request, response, gerador -> {
+            gerador.writeStartArray();
+            if (periodo == DatabaseManager.DIAS_CACHE_DADOS_SAUDE) {
+                LoteLeituras dados = dbManager.buscarDadosSaudeRecentesEmCache(idIdoso);
+                for (int i = 0; i < dados.tamanho(); i++) {
+                    gerador.writeObject(dados.leitura(i));
+                }
+            } else {
+                dbManager.percorrerDadosSaudeRecentes(idIdoso, periodo, gerador::writeObject);
+            }
+            gerador.writeEndArray();
+        });
+    }
+    
+    /**
+     * Endpoint para obter a série de dados de saúde de um idoso em um intervalo (padrão: últimos 30 dias).
+     * A resolução é escolhida pelo tamanho do intervalo: leituras brutas até 31 dias, agregados diários
+     * até um ano e mensais acima disso, ou o agregado que ainda cobre o início se a retenção já removeu
+     * as linhas mais finas; o parâmetro resolucao (leituras, diaria, mensal) força uma delas.
+     */
+    @GetMapping("/health-series/{idIdoso}")
+    public ResponseEntity<SerieSaude> getHealthSeries(@PathVariable long idIdoso,
+            @RequestParam(name = "inicio", required = false) String inicio,
+            @RequestParam(name = "fim", required = false) String fim,
+            @RequestParam(name = "resolucao", required = false) String resolucao) {
         try {
-            List<Map<String, Object>> dados = dbManager.buscarDadosSaudeRecentes(idIdoso, 7);
-            return ResponseEntity.ok(dados);
+            LocalDate dataFim = fim == null ? LocalDate.now() : LocalDate.parse(fim);
+            LocalDate dataInicio = inicio == null ? dataFim.minusDays(DIAS_PADRAO_SERIE - 1) : LocalDate.parse(inicio);
+            ResolucaoSerie escolhida = resolucao == null ? null : ResolucaoSerie.deRotuloOuNulo(resolucao);
+            if (dataInicio.isAfter(dataFim) || (resolucao != null && escolhida == null)) {
+                return ResponseEntity.badRequest().build();
+            }
+            // Leituras brutas só em intervalos em que o agregado diário seria usado
+            if (escolhida == ResolucaoSerie.LEITURAS
+                    && ChronoUnit.DAYS.between(dataInicio, dataFim) >= ResolucaoSerie.DIAS_MAXIMOS_DIARIA) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(dbManager.buscarSerieSaude(idIdoso, dataInicio, dataFim, escolhida));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -39,13 +106,22 @@ public class HealthDataController {
     
     /**
      * Endpoint para obter dados de saúde mais recentes de um idoso.
+     * Com os agentes na mesma JVM, a leitura vem da janela em memória, sem ir ao banco.
      */
     @GetMapping("/latest-data/{idIdoso}")
-    public ResponseEntity<Map<String, Object>> getLatestData(@PathVariable long idIdoso) {
+    public ResponseEntity<LeituraSaude> getLatestData(@PathVariable long idIdoso) {
         try {
-            List<Map<String, Object>> dados = dbManager.buscarDadosSaudeRecentes(idIdoso, 1);
-            if (!dados.isEmpty()) {
-                return ResponseEntity.ok(dados.get(0));
+            long ontem = LocalDate.now().minusDays(1).toEpochDay();
+            JanelaPaciente janela = EstadoPacientes.getInstance().getJanela(idIdoso);
+            LeituraSaude ultima = janela == null ? null : janela.getUltimaLeitura();
+            if (ultima != null && ultima.getDiaColeta() >= ontem) {
+                return ResponseEntity.ok(ultima);
+            }
+            
+            // A leitura mais recente vem primeiro no lote em cache; só vale se for do último dia
+            LoteLeituras dados = dbManager.buscarDadosSaudeRecentesEmCache(idIdoso);
+            if (!dados.isVazio() && dados.getDiaColeta(0) >= ontem) {
+                return ResponseEntity.ok(dados.leitura(0));
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -55,134 +131,84 @@ public class HealthDataController {
     }
     
     /**
-     * Endpoint para obter lista de idosos cadastrados.
+     * Endpoint para obter lista de idosos cadastrados, em ordem de nome, lida do banco em fluxo.
      */
     @GetMapping("/patients")
-    public ResponseEntity<List<Map<String, Object>>> getPatients() {
-        try {
-            List<Map<String, Object>> idosos = dbManager.listarIdosos();
-            return ResponseEntity.ok(idosos);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+    public void getPatients(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        respostas.responder(request, response, gerador -> {
+            gerador.writeStartArray();
+            dbManager.percorrerIdosos(gerador::writeObject);
+            gerador.writeEndArray();
+        });
+    }
+    
+    /**
+     * Endpoint para obter os contadores dos caches de leitura.
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(dbManager.estatisticasCache());
     }
     
     /**
-     * Endpoint para obter estatísticas de risco.
+     * Endpoint para obter estatísticas de risco (total de análises por nível).
+     * Lê a tabela agregada mantida a cada lote gravado, sem percorrer o histórico.
      */
     @GetMapping("/risk-stats")
-    public ResponseEntity<Map<String, Object>> getRiskStats() {
+    public ResponseEntity<Map<String, Long>> getRiskStats() {
         try {
-            // Simulação de estatísticas de risco
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("baixo", 60);
-            stats.put("moderado", 30);
-            stats.put("alto", 10);
-            return ResponseEntity.ok(stats);
+            return ResponseEntity.ok(dbManager.contarAnalisesPorRisco());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
     /**
-     * Endpoint para obter análises emocionais recentes.
+     * Endpoint para obter análises emocionais recentes, paginadas por cursor.
+     * A próxima página é obtida repassando o proximo_cursor da resposta.
      */
     @GetMapping("/analyses/{idIdoso}")
-    public ResponseEntity<List<Map<String, Object>>> getAnalyses(@PathVariable long idIdoso) {
+    public ResponseEntity<Pagina<Map<String, Object>>> getAnalyses(@PathVariable long idIdoso,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limite", defaultValue = "20") int limite) {
         try {
-            // Por simplicidade, retornamos dados simulados
-            // Em um sistema real, consultaríamos a tabela analises_emocionais
-            List<Map<String, Object>> analyses = new ArrayList<>();
-            
-            Map<String, Object> analysis1 = new HashMap<>();
-            analysis1.put("id", 1);
-            analysis1.put("data", "2024-01-07");
-            analysis1.put("risco", "moderado");
-            analysis1.put("descricao", "Sono insuficiente e humor baixo detectados");
-            analyses.add(analysis1);
-            
-            Map<String, Object> analysis2 = new HashMap<>();
-            analysis2.put("id", 2);
-            analysis2.put("data", "2024-01-06");
-            analysis2.put("risco", "baixo");
-            analysis2.put("descricao", "Indicadores dentro da normalidade");
-            analyses.add(analysis2);
-            
-            return ResponseEntity.ok(analyses);
+            return ResponseEntity.ok(dbManager.listarAnalises(idIdoso, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
     /**
-     * Endpoint para obter recomendações recentes.
+     * Endpoint para obter recomendações recentes, paginadas por cursor.
      */
     @GetMapping("/recommendations/{idIdoso}")
-    public ResponseEntity<List<Map<String, Object>>> getRecommendations(@PathVariable long idIdoso) {
+    public ResponseEntity<Pagina<Map<String, Object>>> getRecommendations(@PathVariable long idIdoso,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limite", defaultValue = "20") int limite) {
         try {
-            // Por simplicidade, retornamos dados simulados
-            // Em um sistema real, consultaríamos a tabela recomendacoes
-            List<Map<String, Object>> recommendations = new ArrayList<>();
-            
-            Map<String, Object> rec1 = new HashMap<>();
-            rec1.put("id", 1);
-            rec1.put("recomendacao", "Pratique exercícios de respiração por 10 minutos");
-            rec1.put("tipo", "moderado");
-            recommendations.add(rec1);
-            
-            Map<String, Object> rec2 = new HashMap<>();
-            rec2.put("id", 2);
-            rec2.put("recomendacao", "Faça uma caminhada de 15-20 minutos");
-            rec2.put("tipo", "moderado");
-            recommendations.add(rec2);
-            
-            Map<String, Object> rec3 = new HashMap<>();
-            rec3.put("id", 3);
-            rec3.put("recomendacao", "Continue mantendo sua rotina saudável");
-            rec3.put("tipo", "baixo");
-            recommendations.add(rec3);
-            
-            return ResponseEntity.ok(recommendations);
+            return ResponseEntity.ok(dbManager.listarRecomendacoes(idIdoso, cursor, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
     /**
-     * Endpoint para verificar status dos agentes.
+     * Endpoint para verificar status dos agentes, conforme registrado pelos próprios agentes.
      */
     @GetMapping("/agents-status")
     public ResponseEntity<Map<String, Object>> getAgentsStatus() {
         try {
             Map<String, Object> status = new HashMap<>();
-            
-            Map<String, Object> coletaAgent = new HashMap<>();
-            coletaAgent.put("name", "Agente de Coleta");
-            coletaAgent.put("status", "ativo");
-            coletaAgent.put("description", "Coletando dados a cada 10s");
-            
-            Map<String, Object> analysisAgent = new HashMap<>();
-            analysisAgent.put("name", "Agente Analisador");
-            analysisAgent.put("status", "ativo");
-            analysisAgent.put("description", "Analisando a cada 15s");
-            
-            Map<String, Object> recommendationAgent = new HashMap<>();
-            recommendationAgent.put("name", "Agente de Recomendação");
-            recommendationAgent.put("status", "ativo");
-            recommendationAgent.put("description", "Gerando sugestões a cada 20s");
-            
-            List<Map<String, Object>> agents = new ArrayList<>();
-            agents.add(coletaAgent);
-            agents.add(analysisAgent);
-            agents.add(recommendationAgent);
-            
-            status.put("agents", agents);
+            status.put("agents", StatusAgentes.getInstance().listar());
+            status.put("cluster", MembrosCluster.getInstance().resumo());
             status.put("timestamp", System.currentTimeMillis());
-            
             return ResponseEntity.ok(status);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 }
-
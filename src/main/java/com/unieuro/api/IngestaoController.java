@@ -0,0 +1,42 @@
+package com.unieuro.api;
+
+import com.unieuro.database.DatabaseManager;
+import com.unieuro.ingestao.IngestaoLeituras;
+import com.unieuro.ingestao.ResultadoIngestao;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Ingestão em lote de leituras dos gateways de sensores.
+ * O corpo é lido como fluxo (NDJSON ou binário compacto, opcionalmente com gzip),
+ * sem ser carregado inteiro na memória.
+ */
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*") // Permite CORS para todas as origens
+public class IngestaoController {
+    
+    private final IngestaoLeituras ingestao = new IngestaoLeituras(DatabaseManager.getInstance());
+    
+    /**
+     * Endpoint de ingestão: POST /api/ingest com Content-Type application/x-ndjson
+     * ou application/octet-stream. Responde 400 se o corpo (ou o gzip) estiver corrompido, informando
+     * até onde os registros foram aceitos, e 503 se a gravação dos aceitos não foi confirmada.
+     */
+    @PostMapping(path = "/ingest", consumes = {IngestaoLeituras.TIPO_NDJSON, IngestaoLeituras.TIPO_BINARIO})
+    public ResponseEntity<ResultadoIngestao> ingerir(HttpServletRequest request) throws IOException {
+        boolean gzip = "gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"));
+        ResultadoIngestao resultado = ingestao.ingerir(request.getInputStream(), request.getContentType(), gzip);
+        if (resultado.isNaoConfirmado()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(resultado);
+        }
+        if (resultado.getErro() != null) {
+            return ResponseEntity.badRequest().body(resultado);
+        }
+        return ResponseEntity.ok(resultado);
+    }
+}
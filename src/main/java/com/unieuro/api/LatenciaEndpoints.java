@@ -0,0 +1,52 @@
+package com.unieuro.api;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mede a latência de cada endpoint da API, agrupando pelo padrão da rota
+ * ("/api/latest-data/{idIdoso}") para que os ids não multipliquem as métricas.
+ */
+class LatenciaEndpoints implements HandlerInterceptor {
+    
+    private static final String ATRIBUTO_INICIO = LatenciaEndpoints.class.getName() + ".inicio";
+    
+    private final Map<String, Histograma> latencias = new ConcurrentHashMap<>();
+    private final Contador errosCliente = Metricas.contador("http.respostas_4xx");
+    private final Contador errosServidor = Metricas.contador("http.respostas_5xx");
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ATRIBUTO_INICIO, System.nanoTime());
+        return true;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object inicio = request.getAttribute(ATRIBUTO_INICIO);
+        if (!(inicio instanceof Long)) {
+            return;
+        }
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String rota = request.getMethod().toLowerCase(Locale.ROOT) + " " + (padrao != null ? padrao : "desconhecida");
+        latencias.computeIfAbsent(rota, r -> Metricas.histograma("http." + r + ".latencia_nanos"))
+            .registrar(System.nanoTime() - (Long) inicio);
+        
+        int status = ex != null ? 500 : response.getStatus();
+        if (status >= 500) {
+            errosServidor.incrementar();
+        } else if (status >= 400) {
+            errosCliente.incrementar();
+        }
+    }
+}
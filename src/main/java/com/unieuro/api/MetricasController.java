@@ -0,0 +1,35 @@
+package com.unieuro.api;
+
+import com.unieuro.metrics.ExportadorPrometheus;
+import com.unieuro.metrics.Metricas;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Exposição das métricas internas: /metrics no formato do Prometheus para coleta
+ * periódica e /api/metrics em JSON para inspeção manual.
+ */
+@RestController
+@CrossOrigin(origins = "*") // Permite CORS para todas as origens
+public class MetricasController {
+    
+    /**
+     * Endpoint de coleta do Prometheus.
+     */
+    @GetMapping(path = "/metrics", produces = ExportadorPrometheus.TIPO_CONTEUDO)
+    public String getMetricasPrometheus() {
+        return ExportadorPrometheus.exportar();
+    }
+    
+    /**
+     * Endpoint com o resumo de todas as métricas em JSON.
+     */
+    @GetMapping("/api/metrics")
+    public ResponseEntity<Map<String, Object>> getMetricas() {
+        return ResponseEntity.ok(Metricas.resumo());
+    }
+}
@@ -0,0 +1,111 @@
+package com.unieuro.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respostas escritas em fluxo pelo gerador do Jackson, item a item, sem montar o corpo na memória.
+ * O formato segue o Accept (JSON ou CBOR, com application/cbor) e a compressão segue o
+ * Accept-Encoding (gzip ou deflate). Cada item é serializado pelo ObjectMapper da aplicação e sai
+ * igual ao de uma resposta comum.
+ */
+final class RespostaEmFluxo {
+    
+    static final String TIPO_CBOR = "application/cbor";
+    
+    private static final int TAMANHO_BUFFER = 8192;
+    
+    private final ObjectMapper json;
+    private final ObjectMapper cbor;
+    
+    /**
+     * Corpo da resposta; SQLException antes do primeiro envio vira 500.
+     */
+    @FunctionalInterface
+    interface Escrita {
+        void escrever(JsonGenerator gerador) throws IOException, SQLException;
+    }
+    
+    RespostaEmFluxo(ObjectMapper mapper) {
+        this.json = mapper;
+        this.cbor = mapper.copyWith(new CBORFactory());
+    }
+    
+    /**
+     * Escreve a resposta. Se a escrita falhar antes de algo ser enviado, responde 500. Se falhar
+     * depois, a conexão é interrompida. Os arrays abertos não são fechados automaticamente, para
+     * que uma resposta incompleta não pareça válida e curta.
+     */
+    void responder(HttpServletRequest request, HttpServletResponse response, Escrita escrita) throws IOException {
+        JsonGenerator gerador = abrir(request, response);
+        try {
+            escrita.escrever(gerador);
+        } catch (SQLException | RuntimeException e) {
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                return;
+            }
+            throw new IOException("Resposta interrompida: " + e.getMessage(), e);
+        }
+        gerador.close();
+    }
+    
+    private JsonGenerator abrir(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean binario = aceita(request.getHeader(HttpHeaders.ACCEPT), TIPO_CBOR);
+        response.setContentType(binario ? TIPO_CBOR : MediaType.APPLICATION_JSON_VALUE);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        
+        OutputStream saida = response.getOutputStream();
+        String codificacoes = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (aceita(codificacoes, "gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            saida = new GZIPOutputStream(saida, TAMANHO_BUFFER);
+        } else if (aceita(codificacoes, "deflate")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "deflate");
+            saida = new DeflaterOutputStream(saida);
+        }
+        
+        JsonGenerator gerador = (binario ? cbor : json).createGenerator(saida);
+        gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        return gerador;
+    }
+    
+    /**
+     * Indica se o cabeçalho (Accept ou Accept-Encoding) lista o valor sem q=0.
+     */
+    static boolean aceita(String cabecalho, String valor) {
+        if (cabecalho == null) {
+            return false;
+        }
+        for (String item : cabecalho.split(",")) {
+            String[] partes = item.split(";");
+            if (!partes[0].trim().equalsIgnoreCase(valor)) {
+                continue;
+            }
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parametro.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,141 @@
+package com.unieuro.cache;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Metricas;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache de leitura limitado, com expiração por tempo (TTL) e remoção do item usado há
+ * mais tempo (LRU) quando a capacidade é atingida.
+ * O carregamento em caso de falha é feito fora do bloqueio; se a chave for invalidada
+ * durante o carregamento, o valor carregado é devolvido mas não é guardado.
+ */
+public class CacheLRU<K, V> {
+    
+    private static final int FAIXAS_INVALIDACAO = 64;
+    
+    /**
+     * Valor guardado e o instante em que expira.
+     */
+    private static final class Entrada<V> {
+        final V valor;
+        final long expiraEm;
+        
+        Entrada(V valor, long expiraEm) {
+            this.valor = valor;
+            this.expiraEm = expiraEm;
+        }
+    }
+    
+    private final String nome;
+    private final int capacidade;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+    
+    // Geração por faixa de chaves: detecta invalidações ocorridas durante um carregamento
+    private final long[] geracoes = new long[FAIXAS_INVALIDACAO];
+    
+    private final Contador acertos;
+    private final Contador falhas;
+    private final Contador remocoes;
+    private final Contador expiracoes;
+    private final Contador invalidacoes;
+    
+    public CacheLRU(String nome, int capacidade, long ttl, TimeUnit unidade) {
+        this.nome = nome;
+        this.capacidade = capacidade;
+        this.ttlNanos = unidade.toNanos(ttl);
+        this.entradas = new LinkedHashMap<K, Entrada<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> maisAntiga) {
+                if (size() > CacheLRU.this.capacidade) {
+                    remocoes.incrementar();
+                    return true;
+                }
+                return false;
+            }
+        };
+        
+        this.acertos = Metricas.contador("cache." + nome + ".acertos");
+        this.falhas = Metricas.contador("cache." + nome + ".falhas");
+        this.remocoes = Metricas.contador("cache." + nome + ".remocoes");
+        this.expiracoes = Metricas.contador("cache." + nome + ".expiracoes");
+        this.invalidacoes = Metricas.contador("cache." + nome + ".invalidacoes");
+    }
+    
+    /**
+     * Devolve o valor em cache ou o carrega com a função informada e o guarda.
+     */
+    public V obter(K chave, Function<? super K, ? extends V> carregador) {
+        long geracao;
+        synchronized (this) {
+            Entrada<V> entrada = entradas.get(chave);
+            if (entrada != null) {
+                if (System.nanoTime() - entrada.expiraEm < 0) {
+                    acertos.incrementar();
+                    return entrada.valor;
+                }
+                entradas.remove(chave);
+                expiracoes.incrementar();
+            }
+            falhas.incrementar();
+            geracao = geracoes[faixa(chave)];
+        }
+        
+        V valor = carregador.apply(chave);
+        
+        synchronized (this) {
+            if (valor != null && geracoes[faixa(chave)] == geracao) {
+                entradas.put(chave, new Entrada<>(valor, System.nanoTime() + ttlNanos));
+            }
+        }
+        return valor;
+    }
+    
+    /**
+     * Remove a chave, impedindo também que um carregamento em andamento a guarde.
+     */
+    public synchronized void invalidar(K chave) {
+        geracoes[faixa(chave)]++;
+        if (entradas.remove(chave) != null) {
+            invalidacoes.incrementar();
+        }
+    }
+    
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+    
+    public String getNome() {
+        return nome;
+    }
+    
+    /**
+     * Contadores do cache para exposição na API.
+     */
+    public Map<String, Object> estatisticas() {
+        long totalAcertos = acertos.getValor();
+        long totalFalhas = falhas.getValor();
+        long consultas = totalAcertos + totalFalhas;
+        
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("tamanho", getTamanho());
+        estatisticas.put("capacidade", capacidade);
+        estatisticas.put("acertos", totalAcertos);
+        estatisticas.put("falhas", totalFalhas);
+        estatisticas.put("remocoes", remocoes.getValor());
+        estatisticas.put("expiracoes", expiracoes.getValor());
+        estatisticas.put("invalidacoes", invalidacoes.getValor());
+        estatisticas.put("taxa_acerto", consultas == 0 ? 0.0 : (double) totalAcertos / consultas);
+        return estatisticas;
+    }
+    
+    private static int faixa(Object chave) {
+        int h = chave.hashCode();
+        return (h ^ (h >>> 16)) & (FAIXAS_INVALIDACAO - 1);
+    }
+}
@@ -0,0 +1,97 @@
+package com.unieuro.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Anel de hash consistente que atribui cada idoso a um nó do cluster.
+ * Cada nó ocupa PONTOS_POR_NO posições (nós virtuais) no anel; o idoso pertence ao nó da
+ * primeira posição igual ou seguinte ao hash do seu id. Quando um nó entra ou sai, só mudam
+ * de dono os idosos dos arcos que ele ganha ou perde (cerca de 1/N do total).
+ * Imutável: cada mudança de membros gera um anel novo.
+ */
+public final class AnelHashConsistente {
+    
+    /** Posições de cada nó no anel; mais posições equilibram melhor a carga entre os nós. */
+    public static final int PONTOS_POR_NO = 128;
+    
+    private final List<String> nos;
+    // Posições ordenadas e o índice em nos do dono de cada uma
+    private final long[] posicoes;
+    private final int[] donos;
+    
+    public AnelHashConsistente(Collection<String> membros) {
+        if (membros.isEmpty()) {
+            throw new IllegalArgumentException("O anel precisa de pelo menos um nó");
+        }
+        this.nos = Collections.unmodifiableList(Arrays.asList(new TreeSet<>(membros).toArray(new String[0])));
+        
+        long[] chaves = new long[nos.size() * PONTOS_POR_NO];
+        int k = 0;
+        for (int no = 0; no < nos.size(); no++) {
+            for (int ponto = 0; ponto < PONTOS_POR_NO; ponto++) {
+                // Hash nos bits altos, índice do nó nos baixos: a ordenação de um único long[]
+                // mantém o dono junto da posição
+                chaves[k++] = (hashPonto(nos.get(no), ponto) & ~0xFFFFL) | no;
+            }
+        }
+        Arrays.sort(chaves);
+        posicoes = new long[chaves.length];
+        donos = new int[chaves.length];
+        for (int i = 0; i < chaves.length; i++) {
+            posicoes[i] = chaves[i] & ~0xFFFFL;
+            donos[i] = (int) (chaves[i] & 0xFFFFL);
+        }
+    }
+    
+    /**
+     * Nó responsável pelo idoso.
+     */
+    public String dono(long idIdoso) {
+        long hash = misturar(idIdoso) & ~0xFFFFL;
+        int i = Arrays.binarySearch(posicoes, hash);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        // Depois da última posição o anel volta à primeira
+        return nos.get(donos[i == posicoes.length ? 0 : i]);
+    }
+    
+    /**
+     * Membros do anel, em ordem alfabética.
+     */
+    public List<String> getNos() {
+        return nos;
+    }
+    
+    private static long hashPonto(String no, int ponto) {
+        // FNV-1a de 64 bits sobre "no#ponto", espalhado pelo mesmo finalizador dos ids
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (no + "#" + ponto).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return misturar(hash);
+    }
+    
+    /**
+     * Finalizador de 64 bits do MurmurHash3: ids consecutivos caem em posições distantes do anel.
+     */
+    private static long misturar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xff51afd7ed558ccdL;
+        valor ^= valor >>> 33;
+        valor *= 0xc4ceb9fe1a85ec53L;
+        valor ^= valor >>> 33;
+        return valor;
+    }
+    
+    @Override
+    public String toString() {
+        return "anel " + nos;
+    }
+}
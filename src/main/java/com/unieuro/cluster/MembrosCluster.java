@@ -0,0 +1,327 @@
+package com.unieuro.cluster;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Metricas;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Membros do cluster de plataformas e o anel de hash consistente que divide os idosos entre eles.
+ * Cada nó envia um heartbeat UDP aos endereços conhecidos (sementes configuradas e membros vivos)
+ * a cada intervaloMs, com a lista dos membros que conhece; basta uma semente em comum para que
+ * todos se encontrem. Um membro sem heartbeat por timeoutMs sai do anel; no encerramento o nó
+ * avisa os demais para que saia na hora.
+ * Sem iniciar (um único processo), todos os idosos pertencem a este nó.
+ */
+public final class MembrosCluster implements AutoCloseable {
+    
+    private static final Logger logger = Logger.getLogger(MembrosCluster.class.getName());
+    
+    private static final MembrosCluster instance = new MembrosCluster();
+    
+    private static final String PROTOCOLO = "SAUDE-CLUSTER/1";
+    private static final String ATIVO = "ATIVO";
+    private static final String SAINDO = "SAINDO";
+    private static final int TAMANHO_MAXIMO_DATAGRAMA = 8192;
+    
+    private final Contador mudancasMembros = Metricas.contador("cluster.mudancas_membros");
+    
+    private static final class Membro {
+        final InetSocketAddress endereco;
+        volatile long vistoEm;
+        
+        Membro(InetSocketAddress endereco, long vistoEm) {
+            this.endereco = endereco;
+            this.vistoEm = vistoEm;
+        }
+    }
+    
+    // Protege a abertura e o encerramento; o anel usa o monitor da instância, livre durante a espera inicial
+    private final Object ciclo = new Object();
+    private final Map<String, Membro> membros = new ConcurrentHashMap<>();
+    // Endereços citados nos heartbeats de outros nós; recebem um heartbeat na próxima rodada
+    private final Set<InetSocketAddress> indicados = ConcurrentHashMap.newKeySet();
+    
+    private volatile String idNo;
+    private volatile AnelHashConsistente anel;
+    private volatile long versao;
+    private InetSocketAddress endereco;
+    private List<InetSocketAddress> sementes = Collections.emptyList();
+    private long timeoutMs;
+    private DatagramSocket socket;
+    private ScheduledExecutorService heartbeat;
+    private Thread recepcao;
+    
+    private MembrosCluster() {
+    }
+    
+    public static MembrosCluster getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Abre o socket UDP do nó, começa a enviar heartbeats e espera esperaInicialMs pelos
+     * membros já em execução, para que os agentes criados em seguida partam do anel completo.
+     */
+    public void iniciar(String idNo, InetSocketAddress endereco, Collection<InetSocketAddress> sementes,
+                        long intervaloMs, long timeoutMs, long esperaInicialMs) throws IOException {
+        abrir(idNo, endereco, sementes, intervaloMs, timeoutMs);
+        
+        // Fora de qualquer monitor: a thread de recepção atualiza o anel durante a espera
+        try {
+            Thread.sleep(esperaInicialMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Membros do cluster na partida: " + anel.getNos());
+    }
+    
+    /**
+     * Abre o socket e inicia as threads de recepção e heartbeat.
+     */
+    private void abrir(String idNo, InetSocketAddress endereco, Collection<InetSocketAddress> sementes,
+                       long intervaloMs, long timeoutMs) throws IOException {
+        synchronized (ciclo) {
+            if (this.idNo != null) {
+                throw new IllegalStateException("Cluster já iniciado como " + this.idNo);
+            }
+            if (idNo.isEmpty() || idNo.chars().anyMatch(Character::isWhitespace)) {
+                throw new IllegalArgumentException("Id de nó inválido: '" + idNo + "'");
+            }
+            this.endereco = endereco;
+            this.sementes = new ArrayList<>(sementes);
+            this.sementes.remove(endereco);
+            this.timeoutMs = timeoutMs;
+            this.socket = new DatagramSocket(endereco);
+            
+            this.idNo = idNo;
+            atualizarAnel();
+            Metricas.medidor("cluster.membros", () -> anel.getNos().size());
+            
+            recepcao = new Thread(this::receber, "cluster-recepcao");
+            recepcao.setDaemon(true);
+            recepcao.start();
+            heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "cluster-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            heartbeat.scheduleAtFixedRate(this::rodadaHeartbeat, 0, intervaloMs, TimeUnit.MILLISECONDS);
+            logger.info(String.format("Nó %s do cluster escutando em %s (sementes: %s)", idNo, endereco, this.sementes));
+        }
+    }
+    
+    /**
+     * Indica se este processo faz parte de um cluster.
+     */
+    public boolean isAtivo() {
+        return idNo != null;
+    }
+    
+    public String getIdNo() {
+        return idNo;
+    }
+    
+    /**
+     * Incrementada a cada mudança de membros; quem filtra idosos pelo anel compara com a versão
+     * usada no último filtro.
+     */
+    public long getVersao() {
+        return versao;
+    }
+    
+    /**
+     * Indica se o idoso é atendido por este nó (sempre verdadeiro fora de um cluster).
+     */
+    public boolean pertence(long idIdoso) {
+        AnelHashConsistente atual = anel;
+        return atual == null || atual.dono(idIdoso).equals(idNo);
+    }
+    
+    /**
+     * Estado do cluster para a API: este nó, membros vivos e versão do anel.
+     */
+    public Map<String, Object> resumo() {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("ativo", isAtivo());
+        resumo.put("no", idNo);
+        AnelHashConsistente atual = anel;
+        resumo.put("membros", atual == null ? Collections.emptyList() : atual.getNos());
+        resumo.put("versao", versao);
+        return resumo;
+    }
+    
+    /**
+     * Avisa os demais membros da saída e para as threads do cluster.
+     */
+    @Override
+    public void close() {
+        synchronized (ciclo) {
+            if (socket == null || socket.isClosed()) {
+                return;
+            }
+            heartbeat.shutdownNow();
+            enviarATodos(SAINDO);
+            socket.close();
+        }
+        try {
+            recepcao.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Nó " + idNo + " saiu do cluster");
+    }
+    
+    private void rodadaHeartbeat() {
+        try {
+            long agora = System.currentTimeMillis();
+            boolean mudou = membros.entrySet().removeIf(membro -> {
+                boolean expirou = agora - membro.getValue().vistoEm > timeoutMs;
+                if (expirou) {
+                    logger.warning("Nó " + membro.getKey() + " sem heartbeat há mais de " + timeoutMs + "ms");
+                }
+                return expirou;
+            });
+            if (mudou) {
+                atualizarAnel();
+            }
+            enviarATodos(ATIVO);
+        } catch (RuntimeException e) {
+            // Uma exceção cancelaria as rodadas seguintes do agendador
+            logger.log(Level.WARNING, "Erro na rodada de heartbeat do cluster", e);
+        }
+    }
+    
+    private void enviarATodos(String estado) {
+        Set<InetSocketAddress> destinos = new LinkedHashSet<>(sementes);
+        for (Membro membro : membros.values()) {
+            destinos.add(membro.endereco);
+        }
+        for (InetSocketAddress indicado : indicados) {
+            destinos.add(indicado);
+            indicados.remove(indicado);
+        }
+        destinos.remove(endereco);
+        
+        // PROTOCOLO estado id host:porta [membro=host:porta ...]
+        StringBuilder mensagem = new StringBuilder(PROTOCOLO).append(' ').append(estado).append(' ')
+            .append(idNo).append(' ').append(formatar(endereco));
+        for (Map.Entry<String, Membro> membro : membros.entrySet()) {
+            mensagem.append(' ').append(membro.getKey()).append('=').append(formatar(membro.getValue().endereco));
+        }
+        byte[] dados = mensagem.toString().getBytes(StandardCharsets.UTF_8);
+        for (InetSocketAddress destino : destinos) {
+            try {
+                socket.send(new DatagramPacket(dados, dados.length, destino));
+            } catch (IOException e) {
+                logger.fine("Heartbeat não enviado a " + destino + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private void receber() {
+        byte[] buffer = new byte[TAMANHO_MAXIMO_DATAGRAMA];
+        while (!socket.isClosed()) {
+            DatagramPacket pacote = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(pacote);
+            } catch (SocketException e) {
+                return; // socket fechado no encerramento
+            } catch (IOException e) {
+                logger.warning("Erro ao receber heartbeat: " + e.getMessage());
+                continue;
+            }
+            try {
+                processar(new String(pacote.getData(), 0, pacote.getLength(), StandardCharsets.UTF_8));
+            } catch (RuntimeException e) {
+                logger.fine("Heartbeat inválido de " + pacote.getSocketAddress() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private void processar(String mensagem) {
+        String[] partes = mensagem.split(" ");
+        if (partes.length < 4 || !partes[0].equals(PROTOCOLO)) {
+            throw new IllegalArgumentException("mensagem fora do protocolo");
+        }
+        String id = partes[2];
+        if (id.equals(idNo)) {
+            return;
+        }
+        if (partes[1].equals(SAINDO)) {
+            if (membros.remove(id) != null) {
+                logger.info("Nó " + id + " saiu do cluster");
+                atualizarAnel();
+            }
+            return;
+        }
+        
+        Membro anterior = membros.put(id, new Membro(interpretar(partes[3]), System.currentTimeMillis()));
+        if (anterior == null) {
+            logger.info("Nó " + id + " entrou no cluster (" + partes[3] + ")");
+            atualizarAnel();
+        }
+        // Membros conhecidos pelo remetente que este nó ainda não viu
+        for (int i = 4; i < partes.length; i++) {
+            int separador = partes[i].lastIndexOf('=');
+            String outro = partes[i].substring(0, separador);
+            if (!outro.equals(idNo) && !membros.containsKey(outro)) {
+                indicados.add(interpretar(partes[i].substring(separador + 1)));
+            }
+        }
+    }
+    
+    /**
+     * Recalcula o anel com os membros vivos, se o conjunto mudou.
+     */
+    private synchronized void atualizarAnel() {
+        Set<String> vivos = new TreeSet<>(membros.keySet());
+        vivos.add(idNo);
+        AnelHashConsistente atual = anel;
+        if (atual != null && atual.getNos().equals(new ArrayList<>(vivos))) {
+            return;
+        }
+        anel = new AnelHashConsistente(vivos);
+        versao++;
+        if (atual != null) {
+            mudancasMembros.incrementar();
+            logger.info("Anel do cluster recalculado (versão " + versao + "): " + vivos);
+        }
+    }
+    
+    private static String formatar(InetSocketAddress endereco) {
+        return endereco.getHostString() + ":" + endereco.getPort();
+    }
+    
+    /**
+     * Converte "host:porta" em endereço.
+     */
+    public static InetSocketAddress interpretar(String endereco) {
+        int separador = endereco.lastIndexOf(':');
+        if (separador <= 0) {
+            throw new IllegalArgumentException("Endereço sem porta: " + endereco);
+        }
+        return new InetSocketAddress(endereco.substring(0, separador).trim(),
+            Integer.parseInt(endereco.substring(separador + 1).trim()));
+    }
+}
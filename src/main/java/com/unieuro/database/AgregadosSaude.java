@@ -0,0 +1,184 @@
+package com.unieuro.database;
+
+import com.unieuro.model.Humor;
+import com.unieuro.model.NivelAtividade;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Agregados diários e mensais de dados_saude por idoso (dados_saude_diario e dados_saude_mensal).
+ * Cada lote gravado é primeiro resumido em memória por (idoso, período) e depois somado às tabelas
+ * com um único upsert por linha: INSERT ... ON CONFLICT no PostgreSQL e MERGE no H2.
+ * As chaves são gravadas em ordem para que gravadores concorrentes travem as linhas na mesma sequência.
+ */
+final class AgregadosSaude {
+    
+    static final String TABELA_DIARIA = "dados_saude_diario";
+    static final String TABELA_MENSAL = "dados_saude_mensal";
+    
+    /** Colunas dos agregados, na ordem dos parâmetros do upsert. */
+    static final String COLUNAS = "id_idoso, periodo, leituras, soma_sono, fc_minima, fc_maxima, soma_fc, " +
+        "humor_positivo, humor_neutro, humor_negativo, " +
+        "atividade_nenhuma, atividade_sedentaria, atividade_leve, atividade_moderada, atividade_intensa";
+    
+    private static final String[] CONTAGENS = {
+        "humor_positivo", "humor_neutro", "humor_negativo",
+        "atividade_nenhuma", "atividade_sedentaria", "atividade_leve", "atividade_moderada", "atividade_intensa"
+    };
+    
+    private static final int TOTAL_HUMORES = Humor.values().length;
+    private static final int TOTAL_CONTAGENS = CONTAGENS.length;
+    
+    private final String upsertDiario;
+    private final String upsertMensal;
+    
+    AgregadosSaude(Dialeto dialeto) {
+        this.upsertDiario = upsert(dialeto, TABELA_DIARIA);
+        this.upsertMensal = upsert(dialeto, TABELA_MENSAL);
+    }
+    
+    /**
+     * Novo resumo em memória para um lote de leituras.
+     */
+    Resumo novoResumo() {
+        return new Resumo();
+    }
+    
+    /**
+     * Soma de um lote por (idoso, período), pronta para ser gravada.
+     */
+    final class Resumo {
+        private final Map<Chave, Parcial> diarios = new TreeMap<>();
+        private final Map<Chave, Parcial> mensais = new TreeMap<>();
+        
+        void acumular(long idIdoso, LocalDate dia, double sonoHoras, Humor humor, NivelAtividade atividade,
+                      int frequenciaCardiaca) {
+            diarios.computeIfAbsent(new Chave(idIdoso, dia.toEpochDay()), c -> new Parcial())
+                .acumular(sonoHoras, humor, atividade, frequenciaCardiaca);
+            mensais.computeIfAbsent(new Chave(idIdoso, dia.withDayOfMonth(1).toEpochDay()), c -> new Parcial())
+                .acumular(sonoHoras, humor, atividade, frequenciaCardiaca);
+        }
+        
+        /**
+         * Soma o resumo às tabelas de agregados usando a conexão (e a transação) de quem chama.
+         */
+        void gravar(Connection conn) throws SQLException {
+            gravar(conn, upsertDiario, diarios);
+            gravar(conn, upsertMensal, mensais);
+        }
+        
+        private void gravar(Connection conn, String sql, Map<Chave, Parcial> parciais) throws SQLException {
+            if (parciais.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<Chave, Parcial> entrada : parciais.entrySet()) {
+                    Chave chave = entrada.getKey();
+                    Parcial parcial = entrada.getValue();
+                    stmt.setLong(1, chave.idIdoso);
+                    stmt.setDate(2, Date.valueOf(LocalDate.ofEpochDay(chave.periodo)));
+                    stmt.setInt(3, parcial.leituras);
+                    stmt.setDouble(4, parcial.somaSono);
+                    stmt.setInt(5, parcial.fcMinima);
+                    stmt.setInt(6, parcial.fcMaxima);
+                    stmt.setLong(7, parcial.somaFc);
+                    for (int c = 0; c < TOTAL_CONTAGENS; c++) {
+                        stmt.setInt(8 + c, parcial.contagens[c]);
+                    }
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+    }
+    
+    /**
+     * Comando que insere o período ou soma a parcial ao que já existe.
+     */
+    private static String upsert(Dialeto dialeto, String tabela) {
+        if (dialeto == Dialeto.POSTGRESQL) {
+            StringBuilder parametros = new StringBuilder("?");
+            for (int i = 1; i < 7 + TOTAL_CONTAGENS; i++) {
+                parametros.append(", ?");
+            }
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(tabela).append(" AS a (").append(COLUNAS)
+                .append(") VALUES (").append(parametros).append(") ON CONFLICT (id_idoso, periodo) DO UPDATE SET ")
+                .append("leituras = a.leituras + EXCLUDED.leituras, ")
+                .append("soma_sono = a.soma_sono + EXCLUDED.soma_sono, ")
+                .append("fc_minima = LEAST(a.fc_minima, EXCLUDED.fc_minima), ")
+                .append("fc_maxima = GREATEST(a.fc_maxima, EXCLUDED.fc_maxima), ")
+                .append("soma_fc = a.soma_fc + EXCLUDED.soma_fc");
+            for (String contagem : CONTAGENS) {
+                sql.append(", ").append(contagem).append(" = a.").append(contagem)
+                    .append(" + EXCLUDED.").append(contagem);
+            }
+            return sql.toString();
+        }
+        
+        // H2: MERGE padrão com os parâmetros tipados na tabela de origem
+        StringBuilder origem = new StringBuilder("CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS INT), ")
+            .append("CAST(? AS DOUBLE PRECISION), CAST(? AS INT), CAST(? AS INT), CAST(? AS BIGINT)");
+        for (int c = 0; c < TOTAL_CONTAGENS; c++) {
+            origem.append(", CAST(? AS INT)");
+        }
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(tabela).append(" a USING (VALUES (")
+            .append(origem).append(")) AS n(").append(COLUNAS).append(") ")
+            .append("ON a.id_idoso = n.id_idoso AND a.periodo = n.periodo ")
+            .append("WHEN MATCHED THEN UPDATE SET ")
+            .append("leituras = a.leituras + n.leituras, ")
+            .append("soma_sono = a.soma_sono + n.soma_sono, ")
+            .append("fc_minima = LEAST(a.fc_minima, n.fc_minima), ")
+            .append("fc_maxima = GREATEST(a.fc_maxima, n.fc_maxima), ")
+            .append("soma_fc = a.soma_fc + n.soma_fc");
+        for (String contagem : CONTAGENS) {
+            sql.append(", ").append(contagem).append(" = a.").append(contagem).append(" + n.").append(contagem);
+        }
+        sql.append(" WHEN NOT MATCHED THEN INSERT (").append(COLUNAS).append(") VALUES (")
+            .append("n.").append(COLUNAS.replace(", ", ", n.")).append(")");
+        return sql.toString();
+    }
+    
+    private static final class Chave implements Comparable<Chave> {
+        final long idIdoso;
+        final long periodo;
+        
+        Chave(long idIdoso, long periodo) {
+            this.idIdoso = idIdoso;
+            this.periodo = periodo;
+        }
+        
+        @Override
+        public int compareTo(Chave outra) {
+            int comparacao = Long.compare(idIdoso, outra.idIdoso);
+            return comparacao != 0 ? comparacao : Long.compare(periodo, outra.periodo);
+        }
+    }
+    
+    /**
+     * Soma parcial de um período; as contagens seguem a ordem de CONTAGENS (humores e depois atividades).
+     */
+    private static final class Parcial {
+        int leituras;
+        double somaSono;
+        int fcMinima = Integer.MAX_VALUE;
+        int fcMaxima = Integer.MIN_VALUE;
+        long somaFc;
+        final int[] contagens = new int[TOTAL_CONTAGENS];
+        
+        void acumular(double sonoHoras, Humor humor, NivelAtividade atividade, int frequenciaCardiaca) {
+            leituras++;
+            somaSono += sonoHoras;
+            fcMinima = Math.min(fcMinima, frequenciaCardiaca);
+            fcMaxima = Math.max(fcMaxima, frequenciaCardiaca);
+            somaFc += frequenciaCardiaca;
+            contagens[humor.getCodigo()]++;
+            contagens[TOTAL_HUMORES + atividade.getCodigo()]++;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.unieuro.database;
+
+import com.zaxxer.hikari.HikariConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Configuração do banco de dados e do pool de conexões.
+ * Cada chave é resolvida, em ordem de prioridade, a partir de: propriedade de sistema
+ * (-Dsaude.db.pool.tamanhoMaximo=20), variável de ambiente (SAUDE_DB_POOL_TAMANHOMAXIMO),
+ * arquivo indicado por -Dsaude.config, saude.properties do classpath e valor padrão.
+ */
+public class ConfiguracaoBanco {
+    
+    private static final Logger logger = Logger.getLogger(ConfiguracaoBanco.class.getName());
+    
+    public static final String BACKEND_H2_MEMORIA = "h2-mem";
+    public static final String BACKEND_H2_ARQUIVO = "h2-arquivo";
+    public static final String BACKEND_POSTGRESQL = "postgresql";
+    
+    private final Properties propriedades;
+    
+    private ConfiguracaoBanco(Properties propriedades) {
+        this.propriedades = propriedades;
+    }
+    
+    /**
+     * Carrega saude.properties do classpath e, se definido, o arquivo de -Dsaude.config.
+     */
+    public static ConfiguracaoBanco carregar() {
+        Properties propriedades = new Properties();
+        try (InputStream entrada = ConfiguracaoBanco.class.getResourceAsStream("/saude.properties")) {
+            if (entrada != null) {
+                try (Reader leitor = new InputStreamReader(entrada, StandardCharsets.UTF_8)) {
+                    propriedades.load(leitor);
+                }
+            }
+            String arquivo = System.getProperty("saude.config");
+            if (arquivo != null) {
+                Path caminho = Paths.get(arquivo);
+                try (Reader leitor = Files.newBufferedReader(caminho, StandardCharsets.UTF_8)) {
+                    propriedades.load(leitor);
+                }
+                logger.info("Configuração carregada de " + caminho.toAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao ler a configuração do banco: " + e.getMessage(), e);
+        }
+        return new ConfiguracaoBanco(propriedades);
+    }
+    
+    /**
+     * Backend escolhido: h2-mem (padrão), h2-arquivo ou postgresql.
+     */
+    public String getBackend() {
+        String backend = texto("saude.db.backend", BACKEND_H2_MEMORIA).toLowerCase(Locale.ROOT);
+        if (!backend.equals(BACKEND_H2_MEMORIA) && !backend.equals(BACKEND_H2_ARQUIVO)
+                && !backend.equals(BACKEND_POSTGRESQL)) {
+            throw new IllegalArgumentException("Backend de banco desconhecido: " + backend);
+        }
+        return backend;
+    }
+    
+    public boolean isPostgreSql() {
+        return BACKEND_POSTGRESQL.equals(getBackend());
+    }
+    
+    /**
+     * URL JDBC: saude.db.url, se definida, ou a URL padrão do backend.
+     * O modo h2-arquivo usa AUTO_SERVER para que a API e os agentes compartilhem o mesmo arquivo.
+     */
+    public String getUrl() {
+        String url = texto("saude.db.url", null);
+        if (url != null) {
+            return url;
+        }
+        switch (getBackend()) {
+            case BACKEND_H2_ARQUIVO:
+                return "jdbc:h2:file:" + texto("saude.db.arquivo", "./dados/saude_mental") +
+                    ";AUTO_SERVER=TRUE";
+            case BACKEND_POSTGRESQL:
+                return "jdbc:postgresql://localhost:5432/saude_mental";
+            default:
+                return "jdbc:h2:mem:saude_mental;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+        }
+    }
+    
+    public String getDriver() {
+        return isPostgreSql() ? "org.postgresql.Driver" : "org.h2.Driver";
+    }
+    
+    public String getUsuario() {
+        return texto("saude.db.usuario", isPostgreSql() ? "postgres" : "sa");
+    }
+    
+    public String getSenha() {
+        return texto("saude.db.senha", "");
+    }
+    
+    public int getTamanhoMaximoPool() {
+        return inteiro("saude.db.pool.tamanhoMaximo", 10);
+    }
+    
+    /**
+     * Máximo de tarefas aguardando no executor de acesso assíncrono ao banco.
+     */
+    public int getCapacidadeFilaAsync() {
+        return inteiro("saude.db.async.capacidadeFila", 10000);
+    }
+    
+    /**
+     * Indica se o job de retenção roda neste processo (desative nos demais processos que
+     * compartilham o mesmo banco, para que só um arquive e remova as linhas antigas).
+     */
+    public boolean isRetencaoAtiva() {
+        return booleano("saude.retencao.ativa", true);
+    }
+    
+    /**
+     * Dias mantidos na tabela informada (saude.retencao.dias.<tabela>); 0 mantém para sempre.
+     */
+    public int getDiasRetencao(String tabela, int padrao) {
+        return inteiro("saude.retencao.dias." + tabela, padrao);
+    }
+    
+    /**
+     * Diretório dos arquivos CSV compactados com as linhas removidas; nulo desativa o arquivamento.
+     */
+    public String getDiretorioArquivo() {
+        return booleano("saude.retencao.arquivar", true)
+            ? texto("saude.retencao.diretorioArquivo", "./dados/arquivo")
+            : null;
+    }
+    
+    public int getTamanhoBlocoRetencao() {
+        return inteiro("saude.retencao.tamanhoBloco", 5000);
+    }
+    
+    public long getPausaEntreBlocosMs() {
+        return longo("saude.retencao.pausaEntreBlocosMs", 100);
+    }
+    
+    public long getIntervaloRetencaoMinutos() {
+        return longo("saude.retencao.intervaloMinutos", 60);
+    }
+    
+    /**
+     * Indica se as leituras de saúde passam pelo diário local antes de irem ao banco.
+     * Por padrão, só com backend em disco: com o h2-mem o banco não sobrevive ao processo e um
+     * diário persistente reenviaria leituras de idosos que não existem mais.
+     */
+    public boolean isDiarioAtivo() {
+        return booleano("saude.diario.ativo", !BACKEND_H2_MEMORIA.equals(getBackend()));
+    }
+    
+    /**
+     * Diretório do diário; cada processo precisa do seu.
+     */
+    public String getDiretorioDiario() {
+        return texto("saude.diario.diretorio", "./dados/diario");
+    }
+    
+    public long getTamanhoSegmentoDiarioBytes() {
+        return longo("saude.diario.tamanhoSegmentoMiB", 64) * 1024 * 1024;
+    }
+    
+    /**
+     * Intervalo entre fsyncs do diário; é o atraso máximo da confirmação de uma leitura.
+     */
+    public long getIntervaloSyncDiarioMs() {
+        return longo("saude.diario.intervaloSyncMs", 5);
+    }
+    
+    /**
+     * Leituras aceitas e ainda não gravadas no banco a partir das quais a ingestão bloqueia.
+     */
+    public long getMaximoPendentesDiario() {
+        return longo("saude.diario.maximoPendentes", 5000000);
+    }
+    
+    /**
+     * Aplica URL, credenciais, pool e opções do driver à configuração do HikariCP.
+     */
+    public void aplicar(HikariConfig config) {
+        config.setJdbcUrl(getUrl());
+        config.setUsername(getUsuario());
+        config.setPassword(getSenha());
+        config.setDriverClassName(getDriver());
+        config.setPoolName("saude-" + getBackend());
+        
+        // Configurações do pool de conexões
+        config.setMaximumPoolSize(getTamanhoMaximoPool());
+        config.setMinimumIdle(inteiro("saude.db.pool.minimoOcioso", 2));
+        config.setConnectionTimeout(longo("saude.db.pool.timeoutConexaoMs", 30000));
+        config.setIdleTimeout(longo("saude.db.pool.timeoutOciosoMs", 600000));
+        config.setMaxLifetime(longo("saude.db.pool.vidaMaximaMs", 1800000));
+        
+        if (isPostgreSql()) {
+            // Cache de comandos preparados no driver: após prepareThreshold execuções o comando
+            // passa a ser preparado no servidor e reaproveitado entre chamadas
+            if (booleano("saude.db.cacheStatements", true)) {
+                config.addDataSourceProperty("prepareThreshold", inteiro("saude.db.postgresql.prepareThreshold", 3));
+                config.addDataSourceProperty("preparedStatementCacheQueries",
+                    inteiro("saude.db.cacheStatements.tamanho", 256));
+                config.addDataSourceProperty("preparedStatementCacheSizeMiB",
+                    inteiro("saude.db.cacheStatements.tamanhoMiB", 5));
+            } else {
+                config.addDataSourceProperty("prepareThreshold", 0);
+            }
+            // Reescreve os lotes de INSERT do GravadorEmLote como INSERTs de múltiplas linhas
+            config.addDataSourceProperty("reWriteBatchedInserts",
+                booleano("saude.db.postgresql.reWriteBatchedInserts", true));
+        }
+    }
+    
+    /**
+     * Resumo sem credenciais, para log.
+     */
+    @Override
+    public String toString() {
+        return String.format("backend=%s, url=%s, pool=%d", getBackend(), getUrl(), getTamanhoMaximoPool());
+    }
+    
+    private String texto(String chave, String padrao) {
+        String valor = System.getProperty(chave);
+        if (valor == null) {
+            valor = System.getenv(chave.replace('.', '_').toUpperCase(Locale.ROOT));
+        }
+        if (valor == null) {
+            valor = propriedades.getProperty(chave);
+        }
+        if (valor == null || valor.trim().isEmpty()) {
+            return padrao;
+        }
+        return valor.trim();
+    }
+    
+    private int inteiro(String chave, int padrao) {
+        return (int) longo(chave, padrao);
+    }
+    
+    private long longo(String chave, long padrao) {
+        String valor = texto(chave, null);
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + chave + ": " + valor);
+        }
+    }
+    
+    private boolean booleano(String chave, boolean padrao) {
+        String valor = texto(chave, null);
+        return valor == null ? padrao : Boolean.parseBoolean(valor);
+    }
+}
@@ -1,19 +1,48 @@
 package com.unieuro.database;
 
+import com.unieuro.cache.CacheLRU;
+import com.unieuro.eventos.BarramentoEventos;
+import com.unieuro.eventos.Evento;
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import com.unieuro.metrics.TemposInicializacao;
+import com.unieuro.model.Humor;
+import com.unieuro.model.LeituraSaude;
+import com.unieuro.model.LoteLeituras;
+import com.unieuro.model.NivelAtividade;
+import com.unieuro.model.Pagina;
+import com.unieuro.model.PopulacaoPacientes;
+import com.unieuro.model.PontoSerie;
+import com.unieuro.model.ResolucaoSerie;
+import com.unieuro.model.SerieSaude;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import jadex.commons.future.IFuture;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.sql.*;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
  * Gerenciador de banco de dados para o sistema de monitoramento de saúde mental.
- * Utiliza H2 para desenvolvimento e PostgreSQL para produção.
+ * Utiliza H2 para desenvolvimento e PostgreSQL para produção; o backend e o pool são
+ * definidos pela ConfiguracaoBanco (saude.properties).
  */
 public class DatabaseManager {
     
@@ -21,6 +50,83 @@ public class DatabaseManager {
     private static DatabaseManager instance;
     private HikariDataSource dataSource;
     
+    // Parâmetros dos gravadores em lote
+    private static final int CAPACIDADE_FILA_GRAVACAO = 10000;
+    private static final int TAMANHO_LOTE_GRAVACAO = 500;
+    private static final long INTERVALO_MAXIMO_LOTE_MS = 200;
+    
+    // Verificação diária das partições futuras (apenas PostgreSQL)
+    private static final long INTERVALO_MANUTENCAO_PARTICOES_HORAS = 24;
+    
+    // Caches de leitura usados pela API REST
+    public static final int DIAS_CACHE_DADOS_SAUDE = 7;
+    private static final int CAPACIDADE_CACHE_DADOS_SAUDE = 10000;
+    private static final long TTL_CACHE_DADOS_SAUDE_SEGUNDOS = 30;
+    private static final long TTL_CACHE_IDOSOS_SEGUNDOS = 60;
+    
+    // Tamanho máximo de página das consultas paginadas
+    private static final int LIMITE_MAXIMO_PAGINA = 100;
+    
+    // Linhas de cada bloco das consultas percorridas em fluxo; a conexão é devolvida entre os blocos
+    private static final int TAMANHO_BLOCO_FLUXO = 1000;
+    
+    private static final String SQL_DADOS_SAUDE_RECENTES =
+        "SELECT id, data_coleta, sono_horas, qualidade_sono, humor, atividade_fisica, " +
+        "frequencia_cardiaca FROM dados_saude " +
+        "WHERE id_idoso = ? AND data_coleta >= ? " +
+        "ORDER BY data_coleta DESC, id DESC";
+    
+    // Latência de cada operação (métricas db.*); nas inserções mede só o enfileiramento
+    private static final Histograma latenciaBuscarDadosSaude =
+        Metricas.histograma("db.buscar_dados_saude_recentes.latencia_nanos");
+    private static final Histograma latenciaInserirDadosSaude =
+        Metricas.histograma("db.inserir_dados_saude.latencia_nanos");
+    private static final Histograma latenciaInserirAnalise =
+        Metricas.histograma("db.inserir_analise_emocional.latencia_nanos");
+    private static final Histograma latenciaInserirRecomendacao =
+        Metricas.histograma("db.inserir_recomendacao.latencia_nanos");
+    private static final Histograma latenciaListarAnalises =
+        Metricas.histograma("db.listar_analises.latencia_nanos");
+    private static final Histograma latenciaListarRecomendacoes =
+        Metricas.histograma("db.listar_recomendacoes.latencia_nanos");
+    private static final Histograma latenciaContarRisco =
+        Metricas.histograma("db.contar_analises_por_risco.latencia_nanos");
+    private static final Histograma latenciaListarIdosos =
+        Metricas.histograma("db.listar_idosos.latencia_nanos");
+    private static final Histograma latenciaPercorrerDadosSaude =
+        Metricas.histograma("db.percorrer_dados_saude.latencia_nanos");
+    private static final Histograma latenciaPercorrerIdosos =
+        Metricas.histograma("db.percorrer_idosos.latencia_nanos");
+    private static final Histograma latenciaListarIdsIdosos =
+        Metricas.histograma("db.listar_ids_idosos.latencia_nanos");
+    private static final Histograma latenciaBuscarSerieSaude =
+        Metricas.histograma("db.buscar_serie_saude.latencia_nanos");
+    private static final Histograma latenciaBuscarPopulacao =
+        Metricas.histograma("db.buscar_populacao.latencia_nanos");
+    private static final Histograma latenciaRiscoPersistente =
+        Metricas.histograma("db.listar_risco_persistente.latencia_nanos");
+    private static final Contador errosBanco = Metricas.contador("db.erros");
+    
+    private final CacheLRU<Long, LoteLeituras> cacheDadosSaude = new CacheLRU<>("dados_saude_recentes",
+        CAPACIDADE_CACHE_DADOS_SAUDE, TTL_CACHE_DADOS_SAUDE_SEGUNDOS, TimeUnit.SECONDS);
+    private final CacheLRU<String, List<Map<String, Object>>> cacheIdosos = new CacheLRU<>("idosos",
+        1, TTL_CACHE_IDOSOS_SEGUNDOS, TimeUnit.SECONDS);
+    private final CacheLRU<String, long[]> cacheIdsIdosos = new CacheLRU<>("ids_idosos",
+        1, TTL_CACHE_IDOSOS_SEGUNDOS, TimeUnit.SECONDS);
+    
+    private final BarramentoEventos eventos = BarramentoEventos.getInstance();
+    private MigradorEsquema migrador;
+    private AgregadosSaude agregadosSaude;
+    private ExecutorBanco executorBanco;
+    private ScheduledExecutorService manutencaoParticoes;
+    private RetencaoDados retencao;
+    private ScheduledExecutorService manutencaoRetencao;
+    
+    private GravadorEmLote<DadoSaudePendente> gravadorDadosSaude;
+    private DiarioLeituras diario;
+    private GravadorEmLote<AnalisePendente> gravadorAnalises;
+    private GravadorEmLote<RecomendacaoPendente> gravadorRecomendacoes;
+    
     private DatabaseManager() {
         initializeDatabase();
     }
@@ -33,34 +139,47 @@ public class DatabaseManager {
     }
     
     /**
-     * Inicializa o banco de dados H2 para desenvolvimento.
+     * Inicializa o banco de dados conforme a ConfiguracaoBanco (H2 em memória por padrão).
      */
     private void initializeDatabase() {
         try {
+            long fase = System.nanoTime();
+            ConfiguracaoBanco configuracao = ConfiguracaoBanco.carregar();
             HikariConfig config = new HikariConfig();
-            
-            // Configuração para H2 (desenvolvimento)
-            config.setJdbcUrl("jdbc:h2:mem:saude_mental;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
-            config.setUsername("sa");
-            config.setPassword("");
-            config.setDriverClassName("org.h2.Driver");
-            
-            // Configurações do pool de conexões
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(2);
-            config.setConnectionTimeout(30000);
-            config.setIdleTimeout(600000);
-            config.setMaxLifetime(1800000);
+            configuracao.aplicar(config);
+            config.setMetricsTrackerFactory(new MetricasPool());
             
             dataSource = new HikariDataSource(config);
+            executorBanco = new ExecutorBanco("banco", configuracao.getTamanhoMaximoPool(),
+                configuracao.getCapacidadeFilaAsync());
+            fase = TemposInicializacao.registrar("banco.pool", fase);
             
-            // Cria as tabelas
-            createTables();
+            // Cria ou atualiza o esquema (tabelas, índices e partições)
+            migrador = new MigradorEsquema(dataSource);
+            migrador.migrar();
+            iniciarManutencaoParticoes();
+            agregadosSaude = new AgregadosSaude(migrador.getDialeto());
+            fase = TemposInicializacao.registrar("banco.migracao", fase);
             
             // Insere dados de exemplo
             insertSampleData();
+            fase = TemposInicializacao.registrar("banco.dados_exemplo", fase);
+            
+            // Inicia os gravadores em lote
+            iniciarGravadores();
+            
+            // Diário local das leituras; reenvia ao banco o que ficou pendente na última execução
+            if (configuracao.isDiarioAtivo()) {
+                iniciarDiario(configuracao);
+            }
+            
+            retencao = new RetencaoDados(dataSource, configuracao);
+            if (configuracao.isRetencaoAtiva()) {
+                iniciarRetencao(configuracao.getIntervaloRetencaoMinutos());
+            }
+            TemposInicializacao.registrar("banco.gravadores", fase);
             
-            logger.info("Banco de dados H2 inicializado com sucesso!");
+            logger.info("Banco de dados inicializado com sucesso! (" + configuracao + ")");
             
         } catch (Exception e) {
             logger.severe("Erro ao inicializar banco de dados: " + e.getMessage());
@@ -69,69 +188,74 @@ public class DatabaseManager {
     }
     
     /**
-     * Cria as tabelas do banco de dados.
+     * Abre o diário de leituras. Se ele não puder ser aberto (por exemplo, já em uso por outro
+     * processo no mesmo diretório), este processo grava as leituras direto pelo gravador em lote.
      */
-    private void createTables() throws SQLException {
-        try (Connection conn = dataSource.getConnection()) {
-            
-            // Tabela idosos
-            String createIdosos = "CREATE TABLE IF NOT EXISTS idosos (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                "nome VARCHAR(100) NOT NULL," +
-                "idade INT NOT NULL," +
-                "sexo CHAR(1)," +
-                "data_cadastro TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
-                ")";
-            
-            // Tabela dados_saude
-            String createDadosSaude = "CREATE TABLE IF NOT EXISTS dados_saude (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                "id_idoso BIGINT REFERENCES idosos(id)," +
-                "data_coleta DATE NOT NULL," +
-                "sono_horas DECIMAL(3,1)," +
-                "qualidade_sono INT," +
-                "humor VARCHAR(20)," +
-                "atividade_fisica VARCHAR(50)," +
-                "frequencia_cardiaca INT," +
-                "observacoes TEXT" +
-                ")";
-            
-            // Tabela analises_emocionais
-            String createAnalises = "CREATE TABLE IF NOT EXISTS analises_emocionais (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                "id_idoso BIGINT REFERENCES idosos(id)," +
-                "data_analise TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "risco_emocional VARCHAR(20)," +
-                "descricao TEXT" +
-                ")";
-            
-            // Tabela recomendacoes
-            String createRecomendacoes = "CREATE TABLE IF NOT EXISTS recomendacoes (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
-                "id_idoso BIGINT REFERENCES idosos(id)," +
-                "data_envio TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
-                "recomendacao VARCHAR(100)," +
-                "tipo_risco VARCHAR(20)," +
-                "observacoes TEXT" +
-                ")";
-            
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute(createIdosos);
-                stmt.execute(createDadosSaude);
-                stmt.execute(createAnalises);
-                stmt.execute(createRecomendacoes);
-            }
-            
-            logger.info("Tabelas criadas com sucesso!");
-        }
-    }
-    
-    /**
-     * Insere dados de exemplo no banco.
+    private void iniciarDiario(ConfiguracaoBanco configuracao) {
+        try {
+            diario = new DiarioLeituras(Paths.get(configuracao.getDiretorioDiario()),
+                configuracao.getTamanhoSegmentoDiarioBytes(), configuracao.getMaximoPendentesDiario(),
+                configuracao.getIntervaloSyncDiarioMs(), TAMANHO_LOTE_GRAVACAO, this::gravarLeiturasDoDiario);
+        } catch (IOException e) {
+            logger.warning("Diário de leituras desativado neste processo: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Agenda o job de retenção, que arquiva e remove as linhas que passaram do prazo de cada tabela.
+     */
+    private void iniciarRetencao(long intervaloMinutos) {
+        manutencaoRetencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "retencao-dados");
+            thread.setDaemon(true);
+            return thread;
+        });
+        manutencaoRetencao.scheduleWithFixedDelay(retencao::executar, intervaloMinutos, intervaloMinutos,
+            TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Executa a retenção imediatamente, na thread de quem chama, e devolve as linhas removidas por tabela.
+     */
+    public Map<String, Long> executarRetencao() {
+        return retencao.executar();
+    }
+    
+    /**
+     * Agenda a criação das partições dos próximos meses antes que os dados cheguem a elas.
+     */
+    private void iniciarManutencaoParticoes() {
+        if (!migrador.getDialeto().suportaParticionamento()) {
+            return;
+        }
+        manutencaoParticoes = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "manutencao-particoes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        manutencaoParticoes.scheduleAtFixedRate(() -> {
+            try {
+                migrador.garantirParticoes(LocalDate.now());
+            } catch (SQLException e) {
+                logger.severe("Erro ao criar partições: " + e.getMessage());
+            }
+        }, INTERVALO_MANUTENCAO_PARTICOES_HORAS, INTERVALO_MANUTENCAO_PARTICOES_HORAS, TimeUnit.HOURS);
+    }
+    
+    /**
+     * Insere dados de exemplo no banco, apenas se ainda não houver idosos cadastrados
+     * (bancos em disco mantêm os dados entre execuções).
      */
     private void insertSampleData() throws SQLException {
         try (Connection conn = dataSource.getConnection()) {
             
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM idosos")) {
+                if (rs.next() && rs.getLong(1) > 0) {
+                    return;
+                }
+            }
+            
             // Inserir idosos
             String insertIdosos = "INSERT INTO idosos (nome, idade, sexo) VALUES (?, ?, ?)";
             try (PreparedStatement stmt = conn.prepareStatement(insertIdosos)) {
@@ -150,114 +274,758 @@ public class DatabaseManager {
         }
     }
     
+    /**
+     * Cria os gravadores assíncronos usados pelos métodos de inserção.
+     */
+    private void iniciarGravadores() {
+        gravadorDadosSaude = new GravadorEmLote<>("dados_saude", dataSource,
+            "INSERT INTO dados_saude (id_idoso, data_coleta, sono_horas, qualidade_sono, " +
+            "humor, atividade_fisica, frequencia_cardiaca) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)",
+            (stmt, dado) -> {
+                stmt.setLong(1, dado.idIdoso);
+                stmt.setDate(2, dado.dataColeta);
+                stmt.setDouble(3, dado.sonoHoras);
+                stmt.setInt(4, dado.qualidadeSono);
+                stmt.setString(5, dado.humor.getRotulo());
+                stmt.setString(6, dado.atividadeFisica.getRotulo());
+                stmt.setInt(7, dado.frequenciaCardiaca);
+            },
+            CAPACIDADE_FILA_GRAVACAO, TAMANHO_LOTE_GRAVACAO, INTERVALO_MAXIMO_LOTE_MS);
+        
+        // Agregados diários e mensais atualizados na mesma transação das leituras
+        gravadorDadosSaude.setComplementoTransacao(this::atualizarAgregadosSaude);
+        
+        // Leitura nova gravada: a janela em cache do idoso deixa de ser válida e o dashboard é avisado
+        gravadorDadosSaude.adicionarOuvinte(lote -> {
+            for (DadoSaudePendente dado : lote) {
+                cacheDadosSaude.invalidar(dado.idIdoso);
+                eventos.publicar(Evento.LEITURA, dado.idIdoso, new LeituraSaude(0, dado.idIdoso,
+                    dado.dataColeta.toLocalDate().toEpochDay(), dado.sonoHoras, dado.qualidadeSono,
+                    dado.humor, dado.atividadeFisica, dado.frequenciaCardiaca));
+            }
+        });
+        
+        gravadorAnalises = new GravadorEmLote<>("analises_emocionais", dataSource,
+            "INSERT INTO analises_emocionais (id_idoso, data_analise, risco_emocional, descricao) " +
+            "VALUES (?, ?, ?, ?)",
+            (stmt, analise) -> {
+                stmt.setLong(1, analise.idIdoso);
+                stmt.setTimestamp(2, analise.dataAnalise);
+                stmt.setString(3, analise.riscoEmocional);
+                stmt.setString(4, analise.descricao.get());
+            },
+            CAPACIDADE_FILA_GRAVACAO, TAMANHO_LOTE_GRAVACAO, INTERVALO_MAXIMO_LOTE_MS);
+        
+        // Contagem por nível de risco atualizada na mesma transação das análises
+        gravadorAnalises.setComplementoTransacao(this::atualizarEstatisticasRisco);
+        
+        gravadorAnalises.adicionarOuvinte(lote -> {
+            for (AnalisePendente analise : lote) {
+                Map<String, Object> dados = new LinkedHashMap<>();
+                dados.put("id_idoso", analise.idIdoso);
+                dados.put("data", analise.dataAnalise.toLocalDateTime().toString());
+                dados.put("risco", analise.riscoEmocional);
+                dados.put("descricao", analise.descricao.get());
+                eventos.publicar(Evento.ANALISE, analise.idIdoso, dados);
+                if ("alto".equals(analise.riscoEmocional)) {
+                    eventos.publicar(Evento.ALERTA, analise.idIdoso, dados);
+                }
+            }
+        });
+        
+        gravadorRecomendacoes = new GravadorEmLote<>("recomendacoes", dataSource,
+            "INSERT INTO recomendacoes (id_idoso, data_envio, recomendacao, tipo_risco, observacoes) " +
+            "VALUES (?, ?, ?, ?, ?)",
+            (stmt, rec) -> {
+                stmt.setLong(1, rec.idIdoso);
+                stmt.setTimestamp(2, rec.dataEnvio);
+                stmt.setString(3, rec.recomendacao);
+                stmt.setString(4, rec.tipoRisco);
+                stmt.setString(5, rec.observacoes.get());
+            },
+            CAPACIDADE_FILA_GRAVACAO, TAMANHO_LOTE_GRAVACAO, INTERVALO_MAXIMO_LOTE_MS);
+    }
+    
     /**
      * Insere dados de saúde no banco.
+     * A gravação é assíncrona e feita em lote; a chamada só bloqueia se a fila estiver cheia.
+     * Com o diário ativo, a leitura vai primeiro para o diário local e chega ao banco em segundo plano.
+     * Com ou sem o diário, valores que não cabem em LoteLeituras lançam IllegalArgumentException.
      */
     public void inserirDadosSaude(long idIdoso, double sonoHoras, int qualidadeSono, 
-                                  String humor, String atividadeFisica, int frequenciaCardiaca) {
-        String sql = "INSERT INTO dados_saude (id_idoso, data_coleta, sono_horas, qualidade_sono, " +
-                     "humor, atividade_fisica, frequencia_cardiaca) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+                                  Humor humor, NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        LoteLeituras.validarFaixas(qualidadeSono, frequenciaCardiaca);
+        long inicio = System.nanoTime();
+        if (diario != null) {
+            diario.acrescentar(idIdoso, LocalDate.now().toEpochDay(), sonoHoras, qualidadeSono, humor,
+                atividadeFisica, frequenciaCardiaca);
+        } else {
+            gravadorDadosSaude.enfileirar(new DadoSaudePendente(idIdoso, Date.valueOf(LocalDate.now()),
+                sonoHoras, qualidadeSono, humor, atividadeFisica, frequenciaCardiaca));
+        }
+        latenciaInserirDadosSaude.registrar(System.nanoTime() - inicio);
+    }
+    
+    /**
+     * Insere as leituras do lote, cada uma com o seu dia de coleta (ingestão em lote).
+     * Bloqueia enquanto a fila do gravador (ou o diário) estiver cheia; o lote pode ser reutilizado após a chamada.
+     * Com o diário ativo, o futuro é concluído quando o lote (e tudo acrescentado antes dele) estiver
+     * sincronizado no disco local; sem o diário, as leituras ficam na fila em memória do gravador e o
+     * futuro já vem concluído.
+     */
+    public IFuture<Void> inserirLeituras(LoteLeituras leituras) {
+        long inicio = System.nanoTime();
+        IFuture<Void> confirmacao = IFuture.DONE;
+        if (diario != null) {
+            confirmacao = diario.acrescentar(leituras);
+        } else {
+            for (int i = 0; i < leituras.tamanho(); i++) {
+                gravadorDadosSaude.enfileirar(dadoPendente(leituras, i));
+            }
+        }
+        latenciaInserirDadosSaude.registrar(System.nanoTime() - inicio);
+        return confirmacao;
+    }
+    
+    /**
+     * Destino do diário: grava um bloco de leituras já sincronizadas em uma transação.
+     * Um erro é repassado para que o diário tente o mesmo bloco de novo.
+     */
+    private void gravarLeiturasDoDiario(LoteLeituras leituras) throws SQLException {
+        List<DadoSaudePendente> lote = new ArrayList<>(leituras.tamanho());
+        for (int i = 0; i < leituras.tamanho(); i++) {
+            lote.add(dadoPendente(leituras, i));
+        }
+        gravadorDadosSaude.gravarAgora(lote);
+    }
+    
+    private static DadoSaudePendente dadoPendente(LoteLeituras leituras, int i) {
+        return new DadoSaudePendente(leituras.getIdIdoso(i),
+            Date.valueOf(LocalDate.ofEpochDay(leituras.getDiaColeta(i))), leituras.getSonoHoras(i),
+            leituras.getQualidadeSono(i), leituras.getHumor(i), leituras.getAtividadeFisica(i),
+            leituras.getFrequenciaCardiaca(i));
+    }
+    
+    /**
+     * Busca dados de saúde recentes de um idoso, da leitura mais recente para a mais antiga.
+     */
+    public LoteLeituras buscarDadosSaudeRecentes(long idIdoso, int dias) {
+        LoteLeituras resultados = new LoteLeituras();
         
+        long inicio = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SQL_DADOS_SAUDE_RECENTES)) {
             
             stmt.setLong(1, idIdoso);
-            stmt.setDate(2, Date.valueOf(LocalDate.now()));
-            stmt.setDouble(3, sonoHoras);
-            stmt.setInt(4, qualidadeSono);
-            stmt.setString(5, humor);
-            stmt.setString(6, atividadeFisica);
-            stmt.setInt(7, frequenciaCardiaca);
+            // Data de corte como parâmetro: usa o índice (id_idoso, data_coleta) e,
+            // no PostgreSQL, descarta as partições anteriores ao corte
+            stmt.setDate(2, Date.valueOf(LocalDate.now().minusDays(dias)));
             
-            stmt.executeUpdate();
-            logger.info("Dados de saúde inseridos para idoso ID: " + idIdoso);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    resultados.adicionar(
+                        rs.getLong(1),
+                        idIdoso,
+                        rs.getDate(2).toLocalDate().toEpochDay(),
+                        rs.getDouble(3),
+                        rs.getInt(4),
+                        Humor.deRotulo(rs.getString(5)),
+                        NivelAtividade.deRotulo(rs.getString(6)),
+                        rs.getInt(7),
+                        0L);
+                }
+            }
             
         } catch (SQLException e) {
-            logger.severe("Erro ao inserir dados de saúde: " + e.getMessage());
+            logger.severe("Erro ao buscar dados de saúde: " + e.getMessage());
+            errosBanco.incrementar();
+        }
+        
+        latenciaBuscarDadosSaude.registrar(System.nanoTime() - inicio);
+        return resultados;
+    }
+    
+    /**
+     * Dados de saúde dos últimos DIAS_CACHE_DADOS_SAUDE dias, servidos do cache quando possível.
+     * O lote devolvido é compartilhado e não deve ser alterado.
+     */
+    public LoteLeituras buscarDadosSaudeRecentesEmCache(long idIdoso) {
+        return cacheDadosSaude.obter(idIdoso, id -> buscarDadosSaudeRecentes(id, DIAS_CACHE_DADOS_SAUDE));
+    }
+    
+    /**
+     * Recebe, uma a uma, as linhas de uma consulta percorrida em fluxo. Uma exceção interrompe a consulta.
+     */
+    @FunctionalInterface
+    public interface ConsumidorLinha<T> {
+        void aceitar(T linha) throws IOException;
+    }
+    
+    /**
+     * Mesma consulta de buscarDadosSaudeRecentes, entregando cada leitura ao consumidor sem montar o
+     * lote: a memória usada não depende do número de linhas. A consulta é feita em blocos por
+     * (data_coleta, id), e nenhuma conexão fica presa enquanto o consumidor escreve; retorna o
+     * número de leituras entregues.
+     */
+    public long percorrerDadosSaudeRecentes(long idIdoso, int dias, ConsumidorLinha<LeituraSaude> consumidor)
+            throws SQLException, IOException {
+        Date desde = Date.valueOf(LocalDate.now().minusDays(dias));
+        return percorrer(latenciaPercorrerDadosSaude, (conn, ultima) -> {
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT id, data_coleta, sono_horas, qualidade_sono, humor, atividade_fisica, " +
+                "frequencia_cardiaca FROM dados_saude WHERE id_idoso = ? AND data_coleta >= ?" +
+                (ultima != null ? " AND (data_coleta < ? OR (data_coleta = ? AND id < ?))" : "") +
+                " ORDER BY data_coleta DESC, id DESC LIMIT ?");
+            int parametro = 1;
+            stmt.setLong(parametro++, idIdoso);
+            stmt.setDate(parametro++, desde);
+            if (ultima != null) {
+                Date dataUltima = Date.valueOf(LocalDate.ofEpochDay(ultima.getDiaColeta()));
+                stmt.setDate(parametro++, dataUltima);
+                stmt.setDate(parametro++, dataUltima);
+                stmt.setLong(parametro++, ultima.getId());
+            }
+            stmt.setInt(parametro, TAMANHO_BLOCO_FLUXO);
+            return stmt;
+        }, rs -> new LeituraSaude(
+            rs.getLong(1),
+            idIdoso,
+            rs.getDate(2).toLocalDate().toEpochDay(),
+            rs.getDouble(3),
+            rs.getInt(4),
+            Humor.deRotulo(rs.getString(5)),
+            NivelAtividade.deRotulo(rs.getString(6)),
+            rs.getInt(7)), consumidor);
+    }
+    
+    /**
+     * Idosos cadastrados, em ordem de nome (e id, entre homônimos), entregues um a um com as mesmas
+     * chaves de listarIdosos. A consulta é feita em blocos, como em percorrerDadosSaudeRecentes.
+     */
+    public long percorrerIdosos(ConsumidorLinha<Map<String, Object>> consumidor) throws SQLException, IOException {
+        return percorrer(latenciaPercorrerIdosos, (conn, ultimo) -> {
+            PreparedStatement stmt = conn.prepareStatement(
+                "SELECT id, nome, idade, sexo, data_cadastro FROM idosos" +
+                (ultimo != null ? " WHERE nome > ? OR (nome = ? AND id > ?)" : "") +
+                " ORDER BY nome, id LIMIT ?");
+            int parametro = 1;
+            if (ultimo != null) {
+                stmt.setString(parametro++, (String) ultimo.get("nome"));
+                stmt.setString(parametro++, (String) ultimo.get("nome"));
+                stmt.setLong(parametro++, (Long) ultimo.get("id"));
+            }
+            stmt.setInt(parametro, TAMANHO_BLOCO_FLUXO);
+            return stmt;
+        }, rs -> {
+            Map<String, Object> idoso = new LinkedHashMap<>();
+            idoso.put("id", rs.getLong(1));
+            idoso.put("nome", rs.getString(2));
+            idoso.put("idade", rs.getInt(3));
+            idoso.put("sexo", rs.getString(4));
+            idoso.put("data_cadastro", rs.getTimestamp(5));
+            return idoso;
+        }, consumidor);
+    }
+    
+    /**
+     * Prepara a consulta do bloco seguinte à linha ultima (null no primeiro bloco), com no máximo
+     * TAMANHO_BLOCO_FLUXO linhas.
+     */
+    @FunctionalInterface
+    private interface ConsultaBloco<T> {
+        PreparedStatement preparar(Connection conn, T ultima) throws SQLException;
+    }
+    
+    @FunctionalInterface
+    private interface LeitorLinha<T> {
+        T ler(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * Percorre a consulta em blocos por chave (keyset). Cada bloco é lido com uma conexão do pool,
+     * devolvida antes de as linhas serem entregues ao consumidor: um cliente HTTP lento não prende
+     * conexões que os gravadores e o diário também usam. Os erros são repassados a quem chamou, que
+     * pode já ter enviado parte das linhas. A latência registrada é a de cada bloco no banco.
+     */
+    private <T> long percorrer(Histograma latencia, ConsultaBloco<T> consulta, LeitorLinha<T> leitor,
+                               ConsumidorLinha<T> consumidor) throws SQLException, IOException {
+        long total = 0;
+        List<T> bloco = new ArrayList<>(TAMANHO_BLOCO_FLUXO);
+        T ultima = null;
+        do {
+            bloco.clear();
+            long inicio = System.nanoTime();
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = consulta.preparar(conn, ultima);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    bloco.add(leitor.ler(rs));
+                }
+            } catch (SQLException e) {
+                logger.severe("Erro ao percorrer consulta em fluxo: " + e.getMessage());
+                errosBanco.incrementar();
+                throw e;
+            } finally {
+                latencia.registrar(System.nanoTime() - inicio);
+            }
+            
+            for (T linha : bloco) {
+                consumidor.aceitar(linha);
+            }
+            total += bloco.size();
+            if (!bloco.isEmpty()) {
+                ultima = bloco.get(bloco.size() - 1);
+            }
+        } while (bloco.size() == TAMANHO_BLOCO_FLUXO);
+        return total;
+    }
+    
+    /**
+     * Versão assíncrona de buscarDadosSaudeRecentes, executada no ExecutorBanco.
+     */
+    public IFuture<LoteLeituras> buscarDadosSaudeRecentesAsync(long idIdoso, int dias) {
+        return executorBanco.executar(() -> buscarDadosSaudeRecentes(idIdoso, dias));
+    }
+    
+    /**
+     * Versão de inserirDadosSaude que nunca bloqueia quem chama: com a fila do gravador (ou o
+     * diário) cheia, a espera acontece no ExecutorBanco. Com o diário ativo, o futuro é concluído
+     * quando a leitura estiver sincronizada no disco local; com o diário encerrado, falha.
+     */
+    public IFuture<Void> inserirDadosSaudeAsync(long idIdoso, double sonoHoras, int qualidadeSono,
+                                                Humor humor, NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        return inserirDadosSaudeAsync(idIdoso, LocalDate.now().toEpochDay(), sonoHoras, qualidadeSono, humor,
+            atividadeFisica, frequenciaCardiaca);
+    }
+    
+    /**
+     * Versão de inserirDadosSaudeAsync com o dia de coleta (epoch day) informado por quem chama,
+     * como o relógio simulado do gerador de carga.
+     */
+    public IFuture<Void> inserirDadosSaudeAsync(long idIdoso, long dia, double sonoHoras, int qualidadeSono,
+                                                Humor humor, NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        LoteLeituras.validarFaixas(qualidadeSono, frequenciaCardiaca);
+        if (diario != null) {
+            long inicio = System.nanoTime();
+            IFuture<Void> confirmacao = diario.tentarAcrescentar(idIdoso, dia, sonoHoras, qualidadeSono, humor,
+                atividadeFisica, frequenciaCardiaca);
+            if (confirmacao != null) {
+                latenciaInserirDadosSaude.registrar(System.nanoTime() - inicio);
+                return confirmacao;
+            }
+            // Diário cheio: a espera por espaço e pelo fsync acontece no ExecutorBanco
+            return executorBanco.executar(() -> {
+                IFuture<Void> aceita = diario.acrescentar(idIdoso, dia, sonoHoras, qualidadeSono, humor,
+                    atividadeFisica, frequenciaCardiaca);
+                latenciaInserirDadosSaude.registrar(System.nanoTime() - inicio);
+                return aceita.get();
+            });
+        }
+        return enfileirarAsync(gravadorDadosSaude, latenciaInserirDadosSaude,
+            new DadoSaudePendente(idIdoso, Date.valueOf(LocalDate.ofEpochDay(dia)),
+                sonoHoras, qualidadeSono, humor, atividadeFisica, frequenciaCardiaca));
+    }
+    
+    /**
+     * Versão de inserirAnaliseEmocional que nunca bloqueia quem chama.
+     */
+    public IFuture<Void> inserirAnaliseEmocionalAsync(long idIdoso, String riscoEmocional, String descricao) {
+        return inserirAnaliseEmocionalAsync(idIdoso, riscoEmocional, () -> descricao);
+    }
+    
+    /**
+     * Como inserirAnaliseEmocionalAsync, mas a descrição só é obtida na thread de gravação,
+     * ao vincular o registro; o fornecedor deve devolver sempre o mesmo texto.
+     */
+    public IFuture<Void> inserirAnaliseEmocionalAsync(long idIdoso, String riscoEmocional,
+                                                      Supplier<String> descricao) {
+        return enfileirarAsync(gravadorAnalises, latenciaInserirAnalise, new AnalisePendente(idIdoso,
+            Timestamp.valueOf(LocalDateTime.now()), riscoEmocional, descricao));
+    }
+    
+    /**
+     * Versão de inserirRecomendacao que nunca bloqueia quem chama.
+     */
+    public IFuture<Void> inserirRecomendacaoAsync(long idIdoso, String recomendacao, String tipoRisco,
+                                                  String observacoes) {
+        return inserirRecomendacaoAsync(idIdoso, recomendacao, tipoRisco, () -> observacoes);
+    }
+    
+    /**
+     * Como inserirRecomendacaoAsync, mas as observações só são montadas na thread de gravação.
+     */
+    public IFuture<Void> inserirRecomendacaoAsync(long idIdoso, String recomendacao, String tipoRisco,
+                                                  Supplier<String> observacoes) {
+        return enfileirarAsync(gravadorRecomendacoes, latenciaInserirRecomendacao, new RecomendacaoPendente(idIdoso,
+            Timestamp.valueOf(LocalDateTime.now()), recomendacao, tipoRisco, observacoes));
+    }
+    
+    /**
+     * Enfileira direto se houver espaço; caso contrário delega a espera ao ExecutorBanco.
+     */
+    private <T> IFuture<Void> enfileirarAsync(GravadorEmLote<T> gravador, Histograma latencia, T registro) {
+        long inicio = System.nanoTime();
+        try {
+            if (gravador.enfileirar(registro, 0, TimeUnit.NANOSECONDS)) {
+                latencia.registrar(System.nanoTime() - inicio);
+                return IFuture.DONE;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        return executorBanco.executar(() -> {
+            gravador.enfileirar(registro);
+            latencia.registrar(System.nanoTime() - inicio);
+            return null;
+        });
+    }
+    
+    /**
+     * Insere análise emocional no banco (gravação assíncrona em lote).
+     */
+    public void inserirAnaliseEmocional(long idIdoso, String riscoEmocional, String descricao) {
+        long inicio = System.nanoTime();
+        gravadorAnalises.enfileirar(new AnalisePendente(idIdoso,
+            Timestamp.valueOf(LocalDateTime.now()), riscoEmocional, () -> descricao));
+        latenciaInserirAnalise.registrar(System.nanoTime() - inicio);
+    }
+    
+    /**
+     * Insere recomendação no banco (gravação assíncrona em lote).
+     */
+    public void inserirRecomendacao(long idIdoso, String recomendacao, String tipoRisco, String observacoes) {
+        long inicio = System.nanoTime();
+        gravadorRecomendacoes.enfileirar(new RecomendacaoPendente(idIdoso,
+            Timestamp.valueOf(LocalDateTime.now()), recomendacao, tipoRisco, () -> observacoes));
+        latenciaInserirRecomendacao.registrar(System.nanoTime() - inicio);
     }
     
     /**
-     * Busca dados de saúde recentes de um idoso.
+     * Análises de um idoso da mais recente para a mais antiga, paginadas por cursor.
      */
-    public List<Map<String, Object>> buscarDadosSaudeRecentes(long idIdoso, int dias) {
-        String sql = "SELECT * FROM dados_saude " +
-                     "WHERE id_idoso = ? AND data_coleta >= DATEADD('DAY', ?, CURRENT_DATE) " +
-                     "ORDER BY data_coleta DESC";
+    public Pagina<Map<String, Object>> listarAnalises(long idIdoso, String cursor, int limite) {
+        return listarPagina(latenciaListarAnalises,
+            "SELECT id, data_analise, risco_emocional, descricao FROM analises_emocionais",
+            "data_analise", idIdoso, cursor, limite, (rs, item) -> {
+                item.put("risco", rs.getString(3));
+                item.put("descricao", rs.getString(4));
+            });
+    }
+    
+    /**
+     * Recomendações de um idoso da mais recente para a mais antiga, paginadas por cursor.
+     */
+    public Pagina<Map<String, Object>> listarRecomendacoes(long idIdoso, String cursor, int limite) {
+        return listarPagina(latenciaListarRecomendacoes,
+            "SELECT id, data_envio, recomendacao, tipo_risco, observacoes FROM recomendacoes",
+            "data_envio", idIdoso, cursor, limite, (rs, item) -> {
+                item.put("recomendacao", rs.getString(3));
+                item.put("tipo", rs.getString(4));
+                item.put("observacoes", rs.getString(5));
+            });
+    }
+    
+    /**
+     * Soma as leituras do lote aos agregados diários e mensais de cada idoso.
+     */
+    private void atualizarAgregadosSaude(Connection conn, List<DadoSaudePendente> lote) throws SQLException {
+        AgregadosSaude.Resumo resumo = agregadosSaude.novoResumo();
+        for (DadoSaudePendente dado : lote) {
+            resumo.acumular(dado.idIdoso, dado.dataColeta.toLocalDate(), dado.sonoHoras, dado.humor,
+                dado.atividadeFisica, dado.frequenciaCardiaca);
+        }
+        resumo.gravar(conn);
+    }
+    
+    /**
+     * Série de dados de saúde de um idoso entre inicio e fim (inclusive), do mais antigo ao mais recente.
+     * Sem resolução informada, usa as leituras brutas em intervalos curtos e os agregados diários
+     * ou mensais nos longos (veja ResolucaoSerie.paraIntervalo), passando ao agregado quando a
+     * retenção já removeu a resolução mais fina no início do intervalo.
+     */
+    public SerieSaude buscarSerieSaude(long idIdoso, LocalDate inicio, LocalDate fim, ResolucaoSerie resolucao) {
+        if (resolucao == null) {
+            resolucao = ResolucaoSerie.paraIntervalo(ChronoUnit.DAYS.between(inicio, fim) + 1,
+                retencao.resolucaoRetida(inicio));
+        }
         
-        List<Map<String, Object>> resultados = new ArrayList<>();
+        String sql;
+        LocalDate corte = inicio;
+        if (resolucao == ResolucaoSerie.LEITURAS) {
+            sql = "SELECT data_coleta, sono_horas, humor, atividade_fisica, frequencia_cardiaca " +
+                  "FROM dados_saude WHERE id_idoso = ? AND data_coleta BETWEEN ? AND ? " +
+                  "ORDER BY data_coleta, id";
+        } else {
+            String tabela = resolucao == ResolucaoSerie.DIARIA
+                ? AgregadosSaude.TABELA_DIARIA
+                : AgregadosSaude.TABELA_MENSAL;
+            if (resolucao == ResolucaoSerie.MENSAL) {
+                corte = inicio.withDayOfMonth(1);
+            }
+            sql = "SELECT " + AgregadosSaude.COLUNAS + " FROM " + tabela +
+                  " WHERE id_idoso = ? AND periodo BETWEEN ? AND ? ORDER BY periodo";
+        }
         
+        List<PontoSerie> pontos = new ArrayList<>();
+        long inicioConsulta = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setLong(1, idIdoso);
-            stmt.setInt(2, -dias);
+            stmt.setDate(2, Date.valueOf(corte));
+            stmt.setDate(3, Date.valueOf(fim));
             
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    Map<String, Object> dados = new HashMap<>();
-                    dados.put("id", rs.getLong("id"));
-                    dados.put("data_coleta", rs.getDate("data_coleta"));
-                    dados.put("sono_horas", rs.getDouble("sono_horas"));
-                    dados.put("qualidade_sono", rs.getInt("qualidade_sono"));
-                    dados.put("humor", rs.getString("humor"));
-                    dados.put("atividade_fisica", rs.getString("atividade_fisica"));
-                    dados.put("frequencia_cardiaca", rs.getInt("frequencia_cardiaca"));
-                    resultados.add(dados);
+                    pontos.add(resolucao == ResolucaoSerie.LEITURAS ? pontoLeitura(rs) : pontoAgregado(rs));
                 }
             }
             
         } catch (SQLException e) {
-            logger.severe("Erro ao buscar dados de saúde: " + e.getMessage());
+            logger.severe("Erro ao buscar série de dados de saúde: " + e.getMessage());
+            errosBanco.incrementar();
         }
+        latenciaBuscarSerieSaude.registrar(System.nanoTime() - inicioConsulta);
+        return new SerieSaude(idIdoso, inicio, fim, resolucao, pontos);
+    }
+    
+    private static PontoSerie pontoLeitura(ResultSet rs) throws SQLException {
+        return PontoSerie.deLeitura(rs.getDate(1).toLocalDate().toEpochDay(), rs.getDouble(2),
+            Humor.deRotulo(rs.getString(3)), NivelAtividade.deRotulo(rs.getString(4)), rs.getInt(5));
+    }
+    
+    /**
+     * Converte uma linha de agregado (colunas na ordem de AgregadosSaude.COLUNAS) em ponto da série.
+     */
+    private static PontoSerie pontoAgregado(ResultSet rs) throws SQLException {
+        int leituras = rs.getInt(3);
+        int[] humores = new int[Humor.values().length];
+        for (int h = 0; h < humores.length; h++) {
+            humores[h] = rs.getInt(8 + h);
+        }
+        int[] atividades = new int[NivelAtividade.values().length];
+        for (int a = 0; a < atividades.length; a++) {
+            atividades[a] = rs.getInt(8 + humores.length + a);
+        }
+        return new PontoSerie(rs.getDate(2).toLocalDate().toEpochDay(), leituras, rs.getDouble(4) / leituras,
+            rs.getInt(5), rs.getInt(6), (double) rs.getLong(7) / leituras, humores, atividades);
+    }
+    
+    /**
+     * Totais de cada idoso com leituras nos últimos dias (inclusive hoje), lidos do agregado diário
+     * em uma única consulta agrupada; as agregações entre idosos ficam com AgregacaoCoorte.
+     */
+    public PopulacaoPacientes buscarPopulacao(int dias) {
+        String sql = "SELECT i.id, i.idade, SUM(d.leituras), SUM(d.soma_sono), SUM(d.soma_fc) " +
+                     "FROM " + AgregadosSaude.TABELA_DIARIA + " d JOIN idosos i ON i.id = d.id_idoso " +
+                     "WHERE d.periodo >= ? GROUP BY i.id, i.idade";
+        PopulacaoPacientes populacao = new PopulacaoPacientes();
         
-        return resultados;
+        long inicio = System.nanoTime();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setDate(1, Date.valueOf(LocalDate.now().minusDays(dias - 1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    populacao.adicionar(rs.getLong(1), rs.getInt(2), rs.getInt(3), rs.getDouble(4), rs.getLong(5));
+                }
+            }
+            
+        } catch (SQLException e) {
+            logger.severe("Erro ao buscar totais da população: " + e.getMessage());
+            errosBanco.incrementar();
+        }
+        latenciaBuscarPopulacao.registrar(System.nanoTime() - inicio);
+        return populacao;
     }
     
     /**
-     * Insere análise emocional no banco.
+     * Idosos com análises do nível de risco informado em pelo menos diasMinimos dias distintos
+     * dentro dos últimos periodoDias dias, dos que têm mais dias para os que têm menos.
+     * A contagem é feita inteiramente no banco.
      */
-    public void inserirAnaliseEmocional(long idIdoso, String riscoEmocional, String descricao) {
-        String sql = "INSERT INTO analises_emocionais (id_idoso, risco_emocional, descricao) " +
-                     "VALUES (?, ?, ?)";
+    public List<Map<String, Object>> listarRiscoPersistente(String risco, int diasMinimos, int periodoDias,
+                                                            int limite) {
+        String sql = "SELECT a.id_idoso, i.nome, i.idade, COUNT(DISTINCT CAST(a.data_analise AS DATE)) AS dias, " +
+                     "MAX(a.data_analise) AS ultima " +
+                     "FROM analises_emocionais a JOIN idosos i ON i.id = a.id_idoso " +
+                     "WHERE a.risco_emocional = ? AND a.data_analise >= ? " +
+                     "GROUP BY a.id_idoso, i.nome, i.idade " +
+                     "HAVING COUNT(DISTINCT CAST(a.data_analise AS DATE)) >= ? " +
+                     "ORDER BY dias DESC, a.id_idoso LIMIT ?";
+        List<Map<String, Object>> idosos = new ArrayList<>();
         
+        long inicio = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setLong(1, idIdoso);
-            stmt.setString(2, riscoEmocional);
-            stmt.setString(3, descricao);
+            stmt.setString(1, risco);
+            stmt.setTimestamp(2, Timestamp.valueOf(LocalDate.now().minusDays(periodoDias - 1).atStartOfDay()));
+            stmt.setInt(3, diasMinimos);
+            stmt.setInt(4, Math.min(Math.max(limite, 1), LIMITE_MAXIMO_PAGINA));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> idoso = new LinkedHashMap<>();
+                    idoso.put("id_idoso", rs.getLong(1));
+                    idoso.put("nome", rs.getString(2));
+                    idoso.put("idade", rs.getInt(3));
+                    idoso.put("dias", rs.getInt(4));
+                    idoso.put("ultima_analise", rs.getTimestamp(5).toLocalDateTime().toString());
+                    idosos.add(idoso);
+                }
+            }
+            
+        } catch (SQLException e) {
+            logger.severe("Erro ao listar idosos com risco persistente: " + e.getMessage());
+            errosBanco.incrementar();
+        }
+        latenciaRiscoPersistente.registrar(System.nanoTime() - inicio);
+        return idosos;
+    }
+    
+    /**
+     * Total de análises por nível de risco, lido da tabela agregada estatisticas_risco.
+     */
+    public Map<String, Long> contarAnalisesPorRisco() {
+        Map<String, Long> totais = new LinkedHashMap<>();
+        long inicio = System.nanoTime();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT risco, total FROM estatisticas_risco");
+             ResultSet rs = stmt.executeQuery()) {
             
-            stmt.executeUpdate();
-            logger.info("Análise emocional inserida para idoso ID: " + idIdoso);
+            while (rs.next()) {
+                totais.put(rs.getString(1), rs.getLong(2));
+            }
             
         } catch (SQLException e) {
-            logger.severe("Erro ao inserir análise emocional: " + e.getMessage());
+            logger.severe("Erro ao contar análises por risco: " + e.getMessage());
+            errosBanco.incrementar();
         }
+        latenciaContarRisco.registrar(System.nanoTime() - inicio);
+        return totais;
     }
     
     /**
-     * Insere recomendação no banco.
+     * Preenche os campos específicos de uma linha paginada.
      */
-    public void inserirRecomendacao(long idIdoso, String recomendacao, String tipoRisco, String observacoes) {
-        String sql = "INSERT INTO recomendacoes (id_idoso, recomendacao, tipo_risco, observacoes) " +
-                     "VALUES (?, ?, ?, ?)";
+    @FunctionalInterface
+    private interface MapeadorLinha {
+        void mapear(ResultSet rs, Map<String, Object> item) throws SQLException;
+    }
+    
+    /**
+     * Consulta paginada por (data, id) decrescentes usando o índice (id_idoso, data DESC).
+     * As duas primeiras colunas do SELECT devem ser o id e a coluna de data.
+     * O cursor é opaco para o cliente: "segundos.nanos.id" da última linha da página anterior.
+     */
+    private Pagina<Map<String, Object>> listarPagina(Histograma latencia, String select, String colunaData,
+                                                    long idIdoso, String cursor, int limite,
+                                                    MapeadorLinha mapeador) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO_PAGINA));
+        Timestamp dataCursor = null;
+        long idCursor = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] partes = cursor.split("\\.");
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            try {
+                dataCursor = Timestamp.from(Instant.ofEpochSecond(Long.parseLong(partes[0]), Long.parseLong(partes[1])));
+                idCursor = Long.parseLong(partes[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+        }
         
+        String sql = select + " WHERE id_idoso = ?" +
+            (dataCursor != null ? " AND (" + colunaData + " < ? OR (" + colunaData + " = ? AND id < ?))" : "") +
+            " ORDER BY " + colunaData + " DESC, id DESC LIMIT ?";
+        
+        List<Map<String, Object>> itens = new ArrayList<>(tamanho);
+        String proximoCursor = null;
+        
+        long inicio = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            stmt.setLong(1, idIdoso);
-            stmt.setString(2, recomendacao);
-            stmt.setString(3, tipoRisco);
-            stmt.setString(4, observacoes);
+            int parametro = 1;
+            stmt.setLong(parametro++, idIdoso);
+            if (dataCursor != null) {
+                stmt.setTimestamp(parametro++, dataCursor);
+                stmt.setTimestamp(parametro++, dataCursor);
+                stmt.setLong(parametro++, idCursor);
+            }
+            // Uma linha a mais indica se existe próxima página
+            stmt.setInt(parametro, tamanho + 1);
             
-            stmt.executeUpdate();
-            logger.info("Recomendação inserida para idoso ID: " + idIdoso);
+            try (ResultSet rs = stmt.executeQuery()) {
+                Timestamp ultimaData = null;
+                long ultimoId = 0;
+                while (rs.next()) {
+                    if (itens.size() == tamanho) {
+                        Instant instante = ultimaData.toInstant();
+                        proximoCursor = instante.getEpochSecond() + "." + instante.getNano() + "." + ultimoId;
+                        break;
+                    }
+                    ultimoId = rs.getLong(1);
+                    ultimaData = rs.getTimestamp(2);
+                    
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("id", ultimoId);
+                    item.put("data", ultimaData.toLocalDateTime().toString());
+                    mapeador.mapear(rs, item);
+                    itens.add(item);
+                }
+            }
             
         } catch (SQLException e) {
-            logger.severe("Erro ao inserir recomendação: " + e.getMessage());
+            logger.severe("Erro na consulta paginada: " + e.getMessage());
+            errosBanco.incrementar();
         }
+        
+        latencia.registrar(System.nanoTime() - inicio);
+        return new Pagina<>(itens, proximoCursor);
+    }
+    
+    /**
+     * Soma as análises do lote em estatisticas_risco (executado dentro da transação do lote).
+     */
+    private void atualizarEstatisticasRisco(Connection conn, List<AnalisePendente> lote) throws SQLException {
+        Map<String, Long> porRisco = new HashMap<>();
+        for (AnalisePendente analise : lote) {
+            if (analise.riscoEmocional != null) {
+                porRisco.merge(analise.riscoEmocional, 1L, Long::sum);
+            }
+        }
+        
+        try (PreparedStatement atualizar = conn.prepareStatement(
+                 "UPDATE estatisticas_risco SET total = total + ? WHERE risco = ?");
+             PreparedStatement inserir = conn.prepareStatement(
+                 "INSERT INTO estatisticas_risco (risco, total) VALUES (?, ?)")) {
+            for (Map.Entry<String, Long> entrada : porRisco.entrySet()) {
+                atualizar.setLong(1, entrada.getValue());
+                atualizar.setString(2, entrada.getKey());
+                if (atualizar.executeUpdate() == 0) {
+                    inserir.setString(1, entrada.getKey());
+                    inserir.setLong(2, entrada.getValue());
+                    inserir.executeUpdate();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Bloqueia até que todas as inserções feitas antes da chamada estejam gravadas.
+     */
+    public void aguardarGravacoes() {
+        if (diario != null) {
+            diario.aguardarDrenagem();
+        }
+        gravadorDadosSaude.aguardarGravacoes();
+        gravadorAnalises.aguardarGravacoes();
+        gravadorRecomendacoes.aguardarGravacoes();
     }
     
     /**
@@ -267,6 +1035,7 @@ public class DatabaseManager {
         String sql = "SELECT * FROM idosos ORDER BY nome";
         List<Map<String, Object>> idosos = new ArrayList<>();
         
+        long inicio = System.nanoTime();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
@@ -283,19 +1052,216 @@ public class DatabaseManager {
             
         } catch (SQLException e) {
             logger.severe("Erro ao listar idosos: " + e.getMessage());
+            errosBanco.incrementar();
         }
         
+        latenciaListarIdosos.registrar(System.nanoTime() - inicio);
         return idosos;
     }
     
     /**
-     * Fecha o pool de conexões.
+     * Cadastra idosos sintéticos até que a tabela tenha pelo menos o total informado
+     * (usado pelo gerador de carga). Retorna quantos foram criados.
+     */
+    public int cadastrarIdososSinteticos(int total) {
+        try (Connection conn = dataSource.getConnection()) {
+            int existentes;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM idosos")) {
+                rs.next();
+                existentes = rs.getInt(1);
+            }
+            
+            int criar = total - existentes;
+            if (criar <= 0) {
+                return 0;
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO idosos (nome, idade, sexo) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < criar; i++) {
+                    int numero = existentes + i + 1;
+                    stmt.setString(1, "Paciente Sintético " + numero);
+                    stmt.setInt(2, 65 + numero % 30);
+                    stmt.setString(3, numero % 2 == 0 ? "F" : "M");
+                    stmt.addBatch();
+                    if ((i + 1) % TAMANHO_LOTE_GRAVACAO == 0) {
+                        stmt.executeBatch();
+                    }
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            
+            cacheIdosos.invalidar("todos");
+            cacheIdsIdosos.invalidar("todos");
+            return criar;
+            
+        } catch (SQLException e) {
+            errosBanco.incrementar();
+            logger.severe("Erro ao cadastrar idosos sintéticos: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Lista de idosos servida do cache; expira após TTL_CACHE_IDOSOS_SEGUNDOS.
+     */
+    public List<Map<String, Object>> listarIdososEmCache() {
+        return cacheIdosos.obter("todos", chave -> Collections.unmodifiableList(listarIdosos()));
+    }
+    
+    /**
+     * Indica se o idoso está cadastrado, consultando a lista de IDs em cache.
+     * Um idoso recém-cadastrado pode levar até TTL_CACHE_IDOSOS_SEGUNDOS para ser reconhecido.
+     */
+    public boolean idosoCadastrado(long idIdoso) {
+        long[] ids = cacheIdsIdosos.obter("todos", chave -> listarIdsIdosos(0, 1));
+        return Arrays.binarySearch(ids, idIdoso) >= 0;
+    }
+    
+    /**
+     * Versão assíncrona de listarIdsIdosos, executada no ExecutorBanco.
+     */
+    public IFuture<long[]> listarIdsIdososAsync(int shard, int totalShards) {
+        return executorBanco.executar(() -> listarIdsIdosos(shard, totalShards));
+    }
+    
+    /**
+     * Estatísticas de acertos, falhas e remoções dos caches de leitura.
+     */
+    public Map<String, Object> estatisticasCache() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put(cacheDadosSaude.getNome(), cacheDadosSaude.estatisticas());
+        estatisticas.put(cacheIdosos.getNome(), cacheIdosos.estatisticas());
+        estatisticas.put(cacheIdsIdosos.getNome(), cacheIdsIdosos.estatisticas());
+        return estatisticas;
+    }
+    
+    /**
+     * Lista os IDs dos idosos de uma partição (id mod totalShards = shard), em ordem crescente.
+     */
+    public long[] listarIdsIdosos(int shard, int totalShards) {
+        String sql = "SELECT id FROM idosos WHERE MOD(id, ?) = ? ORDER BY id";
+        long[] ids = new long[64];
+        int total = 0;
+        
+        long inicio = System.nanoTime();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setInt(1, totalShards);
+            stmt.setInt(2, shard);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (total == ids.length) {
+                        ids = Arrays.copyOf(ids, total * 2);
+                    }
+                    ids[total++] = rs.getLong(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            logger.severe("Erro ao listar IDs de idosos: " + e.getMessage());
+            errosBanco.incrementar();
+        }
+        
+        latenciaListarIdsIdosos.registrar(System.nanoTime() - inicio);
+        return Arrays.copyOf(ids, total);
+    }
+    
+    /**
+     * Grava as inserções pendentes e fecha o pool de conexões.
      */
     public void close() {
+        if (manutencaoParticoes != null) {
+            manutencaoParticoes.shutdownNow();
+        }
+        if (manutencaoRetencao != null) {
+            manutencaoRetencao.shutdownNow();
+        }
+        if (executorBanco != null) {
+            executorBanco.close();
+        }
+        if (diario != null) {
+            diario.close();
+        }
+        if (gravadorDadosSaude != null) {
+            gravadorDadosSaude.close();
+            gravadorAnalises.close();
+            gravadorRecomendacoes.close();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             logger.info("Pool de conexões fechado.");
         }
     }
+    
+    /**
+     * Registro de dados de saúde aguardando gravação.
+     */
+    private static class DadoSaudePendente {
+        final long idIdoso;
+        final Date dataColeta;
+        final double sonoHoras;
+        final int qualidadeSono;
+        final Humor humor;
+        final NivelAtividade atividadeFisica;
+        final int frequenciaCardiaca;
+        
+        DadoSaudePendente(long idIdoso, Date dataColeta, double sonoHoras, int qualidadeSono,
+                          Humor humor, NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+            this.idIdoso = idIdoso;
+            this.dataColeta = dataColeta;
+            this.sonoHoras = sonoHoras;
+            this.qualidadeSono = qualidadeSono;
+            this.humor = humor;
+            this.atividadeFisica = atividadeFisica;
+            this.frequenciaCardiaca = frequenciaCardiaca;
+        }
+    }
+    
+    /**
+     * Análise emocional aguardando gravação.
+     */
+    private static class AnalisePendente {
+        final long idIdoso;
+        final Timestamp dataAnalise;
+        final String riscoEmocional;
+        final Supplier<String> descricao;
+        
+        AnalisePendente(long idIdoso, Timestamp dataAnalise, String riscoEmocional, Supplier<String> descricao) {
+            this.idIdoso = idIdoso;
+            this.dataAnalise = dataAnalise;
+            this.riscoEmocional = riscoEmocional;
+            this.descricao = descricao;
+        }
+    }
+    
+    /**
+     * Recomendação aguardando gravação.
+     */
+    private static class RecomendacaoPendente {
+        final long idIdoso;
+        final Timestamp dataEnvio;
+        final String recomendacao;
+        final String tipoRisco;
+        final Supplier<String> observacoes;
+        
+        RecomendacaoPendente(long idIdoso, Timestamp dataEnvio, String recomendacao,
+                             String tipoRisco, Supplier<String> observacoes) {
+            this.idIdoso = idIdoso;
+            this.dataEnvio = dataEnvio;
+            this.recomendacao = recomendacao;
+            this.tipoRisco = tipoRisco;
+            this.observacoes = observacoes;
+        }
+    }
 }
-
@@ -0,0 +1,30 @@
+package com.unieuro.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bancos suportados pelo sistema. H2 é usado em desenvolvimento e PostgreSQL em produção.
+ */
+public enum Dialeto {
+    H2,
+    POSTGRESQL;
+    
+    /**
+     * Identifica o dialeto a partir dos metadados da conexão.
+     */
+    public static Dialeto detectar(Connection conn) throws SQLException {
+        String produto = conn.getMetaData().getDatabaseProductName();
+        if (produto != null && produto.toLowerCase().contains("postgres")) {
+            return POSTGRESQL;
+        }
+        return H2;
+    }
+    
+    /**
+     * Indica se o banco suporta particionamento declarativo por intervalo de datas.
+     */
+    public boolean suportaParticionamento() {
+        return this == POSTGRESQL;
+    }
+}
@@ -0,0 +1,705 @@
+package com.unieuro.database;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import com.unieuro.model.Humor;
+import com.unieuro.model.LoteLeituras;
+import com.unieuro.model.NivelAtividade;
+import jadex.commons.future.Future;
+import jadex.commons.future.IFuture;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Diário local (write-ahead) das leituras de saúde, em segmentos de arquivo mapeados em memória.
+ * Acrescentar uma leitura é só uma cópia para a página mapeada; uma thread força os segmentos para
+ * o disco a cada intervaloSyncMs (fsync em grupo) e confirma quem aguarda, e outra drena as leituras
+ * já sincronizadas para o banco. Uma falha transitória (banco fora do ar, timeout) repete o mesmo bloco;
+ * uma leitura que o banco recusa por causa dos dados (SQLState das classes 22 e 23, por exemplo um idoso
+ * inexistente) é isolada dividindo o bloco e vai para o arquivo rejeitados.csv, sem parar a drenagem.
+ * A posição drenada fica no arquivo checkpoint; ao abrir, o que estiver depois dela é reenviado ao banco.
+ * A entrega é pelo menos uma vez: uma queda entre o commit e o checkpoint reenvia o último bloco.
+ *
+ * Registro de 40 bytes, big-endian: sequência (8), id do idoso (8), dia da coleta (4), horas de sono (8),
+ * frequência cardíaca (2), qualidade do sono (1), humor (1), atividade (1), reservado (3), CRC32 dos 36
+ * bytes anteriores (4). Os segmentos são pré-alocados com zeros, então o primeiro registro com CRC ou
+ * sequência inválidos marca o fim do diário.
+ */
+final class DiarioLeituras implements AutoCloseable {
+    
+    private static final Logger logger = Logger.getLogger(DiarioLeituras.class.getName());
+    
+    static final int TAMANHO_REGISTRO = 40;
+    private static final int TAMANHO_DADOS = TAMANHO_REGISTRO - 4;
+    private static final String PREFIXO_SEGMENTO = "diario-";
+    private static final String SUFIXO_SEGMENTO = ".wal";
+    private static final String ARQUIVO_REJEITADOS = "rejeitados.csv";
+    private static final long ESPERA_MAXIMA_FALHA_MS = 5000;
+    private static final long ESPERA_ENCERRAMENTO_MS = 5000;
+    
+    /**
+     * Destino das leituras drenadas; deve gravar o lote inteiro ou lançar SQLException.
+     */
+    @FunctionalInterface
+    interface Destino {
+        void gravar(LoteLeituras lote) throws SQLException;
+    }
+    
+    /**
+     * Confirmação pendente: concluída quando o fsync cobrir a sequência.
+     */
+    private static final class Confirmacao {
+        final long sequencia;
+        final Future<Void> futuro;
+        
+        Confirmacao(long sequencia, Future<Void> futuro) {
+            this.sequencia = sequencia;
+            this.futuro = futuro;
+        }
+    }
+    
+    private final Path diretorio;
+    private long registrosPorSegmento;
+    private final long maximoPendentes;
+    private final long intervaloSyncMs;
+    private final int tamanhoLote;
+    private final Destino destino;
+    private final FileChannel checkpoint;
+    
+    // Segmentos mapeados, pelo número; acessados sob o monitor do diário
+    private final TreeMap<Long, MappedByteBuffer> segmentos = new TreeMap<>();
+    private final Deque<Confirmacao> confirmacoes = new ArrayDeque<>();
+    private final byte[] registro = new byte[TAMANHO_REGISTRO];
+    private final ByteBuffer codificador = ByteBuffer.wrap(registro);
+    private final CRC32 crc = new CRC32();
+    
+    // Posições (sequências) no diário: drenado <= sincronizado <= escrito
+    private long escrito;
+    private long sincronizado;
+    private long drenado;
+    private boolean encerrando;
+    
+    private final Thread sincronizacao;
+    private final Thread drenagem;
+    
+    private final Histograma duracaoSync = Metricas.histograma("diario.sync_nanos");
+    private final Histograma registrosPorSync = Metricas.histograma("diario.registros_por_sync");
+    private final Contador falhasDrenagem = Metricas.contador("diario.falhas_drenagem");
+    private final Contador recuperados = Metricas.contador("diario.registros_recuperados");
+    private final Contador rejeitados = Metricas.contador("diario.registros_rejeitados");
+    
+    /**
+     * Abre (ou cria) o diário no diretório e retoma a drenagem a partir do último checkpoint.
+     */
+    DiarioLeituras(Path diretorio, long tamanhoSegmentoBytes, long maximoPendentes, long intervaloSyncMs,
+                   int tamanhoLote, Destino destino) throws IOException {
+        this.diretorio = diretorio;
+        this.registrosPorSegmento = Math.max(1, tamanhoSegmentoBytes / TAMANHO_REGISTRO);
+        this.maximoPendentes = maximoPendentes;
+        this.intervaloSyncMs = intervaloSyncMs;
+        this.tamanhoLote = tamanhoLote;
+        this.destino = destino;
+        
+        Files.createDirectories(diretorio);
+        this.checkpoint = FileChannel.open(diretorio.resolve("checkpoint"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        travar();
+        recuperar();
+        
+        Metricas.medidor("diario.pendentes", this::getPendentes);
+        Metricas.medidor("diario.nao_sincronizados", () -> {
+            synchronized (this) {
+                return escrito - sincronizado;
+            }
+        });
+        
+        this.sincronizacao = new Thread(this::sincronizar, "diario-sincronizacao");
+        this.sincronizacao.setDaemon(true);
+        this.sincronizacao.start();
+        this.drenagem = new Thread(this::drenar, "diario-drenagem");
+        this.drenagem.setDaemon(true);
+        this.drenagem.start();
+    }
+    
+    /**
+     * Acrescenta uma leitura sem bloquear e devolve um futuro concluído quando ela estiver no disco,
+     * ou null se já houver maximoPendentes leituras ainda não gravadas no banco. Com o diário
+     * encerrado, o futuro já vem com o erro.
+     */
+    IFuture<Void> tentarAcrescentar(long idIdoso, long diaColeta, double sonoHoras, int qualidadeSono,
+                                    Humor humor, NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        Future<Void> futuro = new Future<>();
+        synchronized (this) {
+            if (encerrando) {
+                return new Future<>(new IllegalStateException("Diário de leituras já foi encerrado"));
+            }
+            if (escrito - drenado >= maximoPendentes) {
+                return null;
+            }
+            try {
+                long sequencia = gravarRegistro(idIdoso, diaColeta, sonoHoras, qualidadeSono, humor,
+                    atividadeFisica, frequenciaCardiaca);
+                confirmacoes.addLast(new Confirmacao(sequencia, futuro));
+            } catch (IllegalStateException e) {
+                return new Future<>(e);
+            }
+        }
+        return futuro;
+    }
+    
+    /**
+     * Como tentarAcrescentar, mas espera se houver maximoPendentes leituras ainda não gravadas no
+     * banco; não deve ser chamado nas threads dos agentes.
+     */
+    IFuture<Void> acrescentar(long idIdoso, long diaColeta, double sonoHoras, int qualidadeSono, Humor humor,
+                              NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        Future<Void> futuro = new Future<>();
+        synchronized (this) {
+            long sequencia = acrescentarRegistro(idIdoso, diaColeta, sonoHoras, qualidadeSono, humor,
+                atividadeFisica, frequenciaCardiaca);
+            confirmacoes.addLast(new Confirmacao(sequencia, futuro));
+        }
+        return futuro;
+    }
+    
+    /**
+     * Acrescenta todas as leituras do lote (ingestão em lote), esperando espaço como acrescentar, e
+     * devolve um único futuro, concluído quando o fsync cobrir a última delas e tudo que foi escrito
+     * antes. Com o diário encerrado, o futuro já vem com o erro.
+     */
+    IFuture<Void> acrescentar(LoteLeituras leituras) {
+        Future<Void> futuro = new Future<>();
+        synchronized (this) {
+            try {
+                for (int i = 0; i < leituras.tamanho(); i++) {
+                    acrescentarRegistro(leituras.getIdIdoso(i), leituras.getDiaColeta(i), leituras.getSonoHoras(i),
+                        leituras.getQualidadeSono(i), leituras.getHumor(i), leituras.getAtividadeFisica(i),
+                        leituras.getFrequenciaCardiaca(i));
+                }
+            } catch (IllegalStateException e) {
+                return new Future<>(e);
+            }
+            if (sincronizado >= escrito) {
+                return IFuture.DONE;
+            }
+            confirmacoes.addLast(new Confirmacao(escrito - 1, futuro));
+        }
+        return futuro;
+    }
+    
+    /**
+     * Leituras aceitas e ainda não gravadas no banco.
+     */
+    synchronized long getPendentes() {
+        return escrito - drenado;
+    }
+    
+    /**
+     * Bloqueia até que tudo que foi acrescentado antes da chamada esteja gravado no banco.
+     */
+    void aguardarDrenagem() {
+        synchronized (this) {
+            long alvo = escrito;
+            try {
+                while (drenado < alvo && !encerrando) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Sincroniza o que falta, tenta drenar o restante por alguns segundos e para as threads.
+     * O que não chegar ao banco fica no diário para a próxima abertura.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (encerrando) {
+                return;
+            }
+            encerrando = true;
+            notifyAll();
+        }
+        try {
+            sincronizacao.join(ESPERA_ENCERRAMENTO_MS);
+            // Uma drenagem com o banco fora do ar pode estar na espera entre tentativas
+            drenagem.join(ESPERA_ENCERRAMENTO_MS + ESPERA_MAXIMA_FALHA_MS);
+            if (drenagem.isAlive()) {
+                drenagem.interrupt();
+                drenagem.join(ESPERA_ENCERRAMENTO_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            checkpoint.close();
+        } catch (IOException e) {
+            logger.warning("Erro ao fechar o checkpoint do diário: " + e.getMessage());
+        }
+        logger.info("Diário de leituras encerrado com " + getPendentes() + " leituras pendentes");
+    }
+    
+    private long acrescentarRegistro(long idIdoso, long diaColeta, double sonoHoras, int qualidadeSono,
+                                     Humor humor, NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        try {
+            while (escrito - drenado >= maximoPendentes && !encerrando) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando espaço no diário de leituras", e);
+        }
+        if (encerrando) {
+            throw new IllegalStateException("Diário de leituras já foi encerrado");
+        }
+        return gravarRegistro(idIdoso, diaColeta, sonoHoras, qualidadeSono, humor, atividadeFisica,
+            frequenciaCardiaca);
+    }
+    
+    /**
+     * Copia o registro para o segmento mapeado; chamado sob o monitor, com espaço garantido.
+     * Valores que não cabem nos campos do registro são rejeitados antes de qualquer escrita.
+     */
+    private long gravarRegistro(long idIdoso, long diaColeta, double sonoHoras, int qualidadeSono,
+                                Humor humor, NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        if (diaColeta < Integer.MIN_VALUE || diaColeta > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dia de coleta fora da faixa: " + diaColeta);
+        }
+        LoteLeituras.validarFaixas(qualidadeSono, frequenciaCardiaca);
+        long sequencia = escrito;
+        codificador.clear();
+        codificador.putLong(sequencia)
+            .putLong(idIdoso)
+            .putInt((int) diaColeta)
+            .putDouble(sonoHoras)
+            .putShort((short) frequenciaCardiaca)
+            .put((byte) qualidadeSono)
+            .put(humor.getCodigo())
+            .put(atividadeFisica.getCodigo())
+            .put((byte) 0).put((byte) 0).put((byte) 0);
+        crc.reset();
+        crc.update(registro, 0, TAMANHO_DADOS);
+        codificador.putInt((int) crc.getValue());
+        
+        ByteBuffer destinoRegistro = segmento(sequencia / registrosPorSegmento, true).duplicate();
+        destinoRegistro.position((int) (sequencia % registrosPorSegmento) * TAMANHO_REGISTRO);
+        destinoRegistro.put(registro);
+        escrito = sequencia + 1;
+        return sequencia;
+    }
+    
+    /**
+     * Laço da thread de sincronização: um fsync por intervalo cobre tudo que foi escrito até ali.
+     */
+    private void sincronizar() {
+        boolean ativo = true;
+        while (ativo) {
+            try {
+                Thread.sleep(intervaloSyncMs);
+            } catch (InterruptedException e) {
+                ativo = false;
+            }
+            preAlocar();
+            
+            long alvo;
+            List<MappedByteBuffer> forcar = new ArrayList<>();
+            synchronized (this) {
+                ativo &= !encerrando;
+                alvo = escrito;
+                if (alvo == sincronizado) {
+                    continue;
+                }
+                long primeiro = sincronizado / registrosPorSegmento;
+                long ultimo = (alvo - 1) / registrosPorSegmento;
+                forcar.addAll(segmentos.subMap(primeiro, true, ultimo, true).values());
+            }
+            
+            long inicio = System.nanoTime();
+            for (MappedByteBuffer buffer : forcar) {
+                buffer.force();
+            }
+            duracaoSync.registrar(System.nanoTime() - inicio);
+            
+            List<Future<Void>> confirmados = new ArrayList<>();
+            synchronized (this) {
+                registrosPorSync.registrar(alvo - sincronizado);
+                sincronizado = alvo;
+                while (!confirmacoes.isEmpty() && confirmacoes.peekFirst().sequencia < alvo) {
+                    confirmados.add(confirmacoes.pollFirst().futuro);
+                }
+                notifyAll();
+            }
+            for (Future<Void> futuro : confirmados) {
+                futuro.setResultIfUndone(null);
+            }
+        }
+    }
+    
+    /**
+     * Mapeia o próximo segmento antes que a escrita chegue a ele, para que a criação do arquivo
+     * não aconteça na thread de quem acrescenta nem sob o monitor do diário.
+     */
+    private void preAlocar() {
+        long proximo;
+        synchronized (this) {
+            proximo = escrito / registrosPorSegmento + 1;
+            if (encerrando || segmentos.containsKey(proximo)) {
+                return;
+            }
+        }
+        MappedByteBuffer buffer;
+        try {
+            buffer = mapear(proximo);
+        } catch (IOException e) {
+            // A escrita tenta criar o segmento de novo quando chegar a ele
+            logger.warning("Erro ao pré-alocar segmento do diário: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            segmentos.putIfAbsent(proximo, buffer);
+        }
+    }
+    
+    /**
+     * Laço da thread de drenagem: grava no banco, em ordem, as leituras já sincronizadas.
+     * Um bloco com falha transitória é repetido com espera crescente, sem pular para o próximo.
+     * Com falha permanente, o bloco é dividido ao meio até isolar as leituras recusadas, que vão
+     * para rejeitados.csv; as demais seguem para o banco.
+     */
+    private void drenar() {
+        long espera = 100;
+        long prazoEncerramento = Long.MAX_VALUE;
+        // Até fimSuspeito (fim do bloco que falhou permanentemente), os blocos têm no máximo limiteBloco leituras
+        long limiteBloco = tamanhoLote;
+        long fimSuspeito = -1;
+        while (true) {
+            long inicio;
+            long fim;
+            LoteLeituras lote;
+            synchronized (this) {
+                try {
+                    while (drenado == sincronizado && !(encerrando && sincronizado == escrito)) {
+                        wait(intervaloSyncMs * 10);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (drenado == sincronizado || System.nanoTime() > prazoEncerramento) {
+                    return;
+                }
+                if (encerrando && prazoEncerramento == Long.MAX_VALUE) {
+                    prazoEncerramento = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_ENCERRAMENTO_MS);
+                }
+                inicio = drenado;
+                fim = Math.min(sincronizado, inicio + limiteBloco);
+                lote = ler(inicio, fim);
+            }
+            
+            try {
+                destino.gravar(lote);
+            } catch (SQLException | RuntimeException e) {
+                falhasDrenagem.incrementar();
+                boolean permanente = permanente(e);
+                if (permanente && fim - inicio > 1) {
+                    fimSuspeito = Math.max(fimSuspeito, fim);
+                    limiteBloco = (fim - inicio) / 2;
+                    continue;
+                }
+                if (!permanente || !rejeitar(inicio, lote, e)) {
+                    logger.warning(String.format("Falha ao drenar o diário (%d leituras pendentes), nova tentativa em %d ms: %s",
+                        getPendentes(), espera, e.getMessage()));
+                    try {
+                        Thread.sleep(espera);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                    espera = Math.min(espera * 2, ESPERA_MAXIMA_FALHA_MS);
+                    continue;
+                }
+            }
+            espera = 100;
+            // Depois de isolar a leitura recusada, o bloco volta a crescer
+            limiteBloco = fim >= fimSuspeito ? tamanhoLote : Math.min(limiteBloco * 2, tamanhoLote);
+            
+            gravarCheckpoint(fim);
+            synchronized (this) {
+                drenado = fim;
+                // Segmentos inteiramente drenados não são mais necessários
+                long segmentoAtual = drenado / registrosPorSegmento;
+                while (!segmentos.isEmpty() && segmentos.firstKey() < segmentoAtual) {
+                    removerSegmento(segmentos.pollFirstEntry().getKey());
+                }
+                notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Erros causados pelos dados da leitura (classe 22, dado inválido, e 23, violação de integridade),
+     * que se repetiriam em toda nova tentativa. Os demais são tratados como transitórios.
+     */
+    static boolean permanente(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLException) {
+                for (SQLException e = (SQLException) causa; e != null; e = e.getNextException()) {
+                    String estado = e.getSQLState();
+                    if (estado != null && (estado.startsWith("22") || estado.startsWith("23"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Acrescenta a leitura recusada pelo banco a rejeitados.csv e força o arquivo para o disco,
+     * antes que o checkpoint passe por ela. Devolve false se não conseguir escrever.
+     */
+    private boolean rejeitar(long sequencia, LoteLeituras lote, Exception erro) {
+        Path caminho = diretorio.resolve(ARQUIVO_REJEITADOS);
+        String estado = erro instanceof SQLException ? ((SQLException) erro).getSQLState() : "";
+        StringBuilder linha = new StringBuilder();
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            if (canal.size() == 0) {
+                linha.append("sequencia,id_idoso,data_coleta,sono_horas,qualidade_sono,humor,atividade_fisica,")
+                    .append("frequencia_cardiaca,sqlstate,erro\n");
+            }
+            String mensagem = String.valueOf(erro.getMessage()).replace("\"", "\"\"");
+            linha.append(sequencia).append(',')
+                .append(lote.getIdIdoso(0)).append(',')
+                .append(LocalDate.ofEpochDay(lote.getDiaColeta(0))).append(',')
+                .append(lote.getSonoHoras(0)).append(',')
+                .append(lote.getQualidadeSono(0)).append(',')
+                .append(lote.getHumor(0).getRotulo()).append(',')
+                .append(lote.getAtividadeFisica(0).getRotulo()).append(',')
+                .append(lote.getFrequenciaCardiaca(0)).append(',')
+                .append(estado == null ? "" : estado).append(',')
+                .append('"').append(mensagem).append("\"\n");
+            ByteBuffer dados = ByteBuffer.wrap(linha.toString().getBytes(StandardCharsets.UTF_8));
+            while (dados.hasRemaining()) {
+                canal.write(dados);
+            }
+            canal.force(false);
+        } catch (IOException e) {
+            logger.warning("Erro ao escrever leitura rejeitada em " + caminho + ": " + e.getMessage());
+            return false;
+        }
+        rejeitados.incrementar();
+        logger.warning(String.format("Leitura %d do diário (idoso %d) recusada pelo banco e movida para %s: %s",
+            sequencia, lote.getIdIdoso(0), caminho, erro.getMessage()));
+        return true;
+    }
+    
+    /**
+     * Decodifica as leituras [inicio, fim) do diário; chamado sob o monitor.
+     */
+    private LoteLeituras ler(long inicio, long fim) {
+        LoteLeituras lote = new LoteLeituras((int) (fim - inicio));
+        byte[] dados = new byte[TAMANHO_REGISTRO];
+        ByteBuffer leitor = ByteBuffer.wrap(dados);
+        for (long sequencia = inicio; sequencia < fim; sequencia++) {
+            lerRegistro(sequencia, dados);
+            leitor.clear();
+            leitor.position(8);
+            long idIdoso = leitor.getLong();
+            long dia = leitor.getInt();
+            double sono = leitor.getDouble();
+            int fc = leitor.getShort();
+            int qualidade = leitor.get();
+            Humor humor = Humor.deCodigo(leitor.get());
+            NivelAtividade atividade = NivelAtividade.deCodigo(leitor.get());
+            lote.adicionar(0L, idIdoso, dia, sono, qualidade, humor, atividade, fc, 0L);
+        }
+        return lote;
+    }
+    
+    private void lerRegistro(long sequencia, byte[] dados) {
+        ByteBuffer origem = segmento(sequencia / registrosPorSegmento, false).duplicate();
+        origem.position((int) (sequencia % registrosPorSegmento) * TAMANHO_REGISTRO);
+        origem.get(dados);
+    }
+    
+    /**
+     * Reabre os segmentos existentes e encontra o fim do diário a partir do checkpoint.
+     */
+    private void recuperar() throws IOException {
+        List<Long> existentes = new ArrayList<>();
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio,
+                PREFIXO_SEGMENTO + "*" + SUFIXO_SEGMENTO)) {
+            for (Path arquivo : arquivos) {
+                String nome = arquivo.getFileName().toString();
+                existentes.add(Long.parseLong(nome.substring(PREFIXO_SEGMENTO.length(),
+                    nome.length() - SUFIXO_SEGMENTO.length())));
+            }
+        }
+        existentes.sort(null);
+        // Segmentos já gravados definem o tamanho, mesmo que a configuração tenha mudado. Um arquivo
+        // menor que um registro ou fora do múltiplo de TAMANHO_REGISTRO (queda durante a criação) não
+        // conta; sem nenhum válido, vale o tamanho configurado
+        for (Long numero : existentes) {
+            long bytes = Files.size(caminhoSegmento(numero));
+            if (bytes >= TAMANHO_REGISTRO && bytes % TAMANHO_REGISTRO == 0) {
+                registrosPorSegmento = bytes / TAMANHO_REGISTRO;
+                break;
+            }
+        }
+        for (Iterator<Long> it = existentes.iterator(); it.hasNext(); ) {
+            Path caminho = caminhoSegmento(it.next());
+            if (Files.size(caminho) != registrosPorSegmento * TAMANHO_REGISTRO) {
+                // Fica ao lado, fora do padrão dos segmentos, para inspeção
+                Files.move(caminho, caminho.resolveSibling(caminho.getFileName() + ".descartado"),
+                    StandardCopyOption.REPLACE_EXISTING);
+                logger.warning("Segmento do diário com tamanho inválido descartado: " + caminho);
+                it.remove();
+            }
+        }
+        
+        long inicio = lerCheckpoint();
+        if (inicio < 0) {
+            // Sem checkpoint válido: reenvia desde o segmento mais antigo
+            inicio = existentes.isEmpty() ? 0 : existentes.get(0) * registrosPorSegmento;
+        }
+        for (Long numero : existentes) {
+            if (numero < inicio / registrosPorSegmento) {
+                Files.deleteIfExists(caminhoSegmento(numero));
+            } else {
+                segmentos.put(numero, mapear(numero));
+            }
+        }
+        
+        drenado = inicio;
+        escrito = inicio;
+        byte[] dados = new byte[TAMANHO_REGISTRO];
+        ByteBuffer leitor = ByteBuffer.wrap(dados);
+        while (segmentos.containsKey(escrito / registrosPorSegmento)) {
+            lerRegistro(escrito, dados);
+            crc.reset();
+            crc.update(dados, 0, TAMANHO_DADOS);
+            if (leitor.getLong(0) != escrito || leitor.getInt(TAMANHO_DADOS) != (int) crc.getValue()) {
+                break;
+            }
+            escrito++;
+        }
+        sincronizado = escrito;
+        
+        if (escrito > drenado) {
+            recuperados.incrementar(escrito - drenado);
+            logger.warning(String.format("Diário de leituras: %d leituras não confirmadas serão reenviadas ao banco",
+                escrito - drenado));
+        }
+    }
+    
+    /**
+     * Impede que dois processos usem o mesmo diário; a trava é liberada ao fechar o checkpoint.
+     */
+    private void travar() throws IOException {
+        FileLock trava;
+        try {
+            trava = checkpoint.tryLock();
+        } catch (OverlappingFileLockException e) {
+            trava = null;
+        }
+        if (trava == null) {
+            checkpoint.close();
+            throw new IOException("Diário de leituras em " + diretorio.toAbsolutePath() + " já está em uso");
+        }
+    }
+    
+    private MappedByteBuffer segmento(long numero, boolean criar) {
+        MappedByteBuffer buffer = segmentos.get(numero);
+        if (buffer == null) {
+            if (!criar) {
+                throw new IllegalStateException("Segmento " + numero + " do diário não está aberto");
+            }
+            try {
+                buffer = mapear(numero);
+            } catch (IOException e) {
+                throw new IllegalStateException("Erro ao criar segmento do diário: " + e.getMessage(), e);
+            }
+            segmentos.put(numero, buffer);
+        }
+        return buffer;
+    }
+    
+    private MappedByteBuffer mapear(long numero) throws IOException {
+        try (FileChannel canal = FileChannel.open(caminhoSegmento(numero), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // O mapeamento continua válido depois que o canal é fechado
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, registrosPorSegmento * TAMANHO_REGISTRO);
+        }
+    }
+    
+    private void removerSegmento(long numero) {
+        try {
+            Files.deleteIfExists(caminhoSegmento(numero));
+        } catch (IOException e) {
+            logger.warning("Erro ao remover segmento drenado do diário: " + e.getMessage());
+        }
+    }
+    
+    private Path caminhoSegmento(long numero) {
+        return diretorio.resolve(String.format("%s%016d%s", PREFIXO_SEGMENTO, numero, SUFIXO_SEGMENTO));
+    }
+    
+    /**
+     * Checkpoint: sequência drenada (8 bytes) e seu CRC32 (4 bytes); -1 se ausente ou corrompido.
+     */
+    private long lerCheckpoint() throws IOException {
+        ByteBuffer dados = ByteBuffer.allocate(12);
+        while (dados.hasRemaining() && checkpoint.read(dados, dados.position()) > 0) {
+            // lê até completar ou chegar ao fim do arquivo
+        }
+        if (dados.hasRemaining()) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(dados.array(), 0, 8);
+        return dados.getInt(8) == (int) crc.getValue() ? dados.getLong(0) : -1;
+    }
+    
+    private void gravarCheckpoint(long sequencia) {
+        ByteBuffer dados = ByteBuffer.allocate(12);
+        dados.putLong(sequencia);
+        CRC32 crcCheckpoint = new CRC32();
+        crcCheckpoint.update(dados.array(), 0, 8);
+        dados.putInt((int) crcCheckpoint.getValue());
+        dados.flip();
+        try {
+            while (dados.hasRemaining()) {
+                checkpoint.write(dados, dados.position());
+            }
+            checkpoint.force(false);
+        } catch (IOException e) {
+            // Sem checkpoint as leituras são reenviadas na próxima abertura, nunca perdidas
+            logger.warning("Erro ao gravar o checkpoint do diário: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.unieuro.database;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import jadex.commons.future.Future;
+import jadex.commons.future.IFuture;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Executor dedicado ao trabalho JDBC bloqueante, para que as threads dos agentes Jadex
+ * não fiquem presas esperando o banco.
+ * Usa threads virtuais quando o runtime as oferece (Java 21+) e, caso contrário, um pool
+ * fixo de threads de plataforma. Em ambos os casos a concorrência é limitada (normalmente
+ * ao tamanho do pool de conexões) e o número de tarefas pendentes é limitado: acima da
+ * capacidade, o futuro é concluído com RejectedExecutionException.
+ */
+public class ExecutorBanco implements AutoCloseable {
+    
+    private static final Logger logger = Logger.getLogger(ExecutorBanco.class.getName());
+    
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final Semaphore permissoes;
+    private final int capacidadeFila;
+    private final AtomicInteger pendentes = new AtomicInteger();
+    
+    private final Histograma profundidadeFila;
+    private final Histograma tempoEspera;
+    private final Histograma tempoExecucao;
+    private final Contador rejeitadas;
+    
+    public ExecutorBanco(String nome, int concorrencia, int capacidadeFila) {
+        this.capacidadeFila = capacidadeFila;
+        ExecutorService virtualPorTarefa = criarExecutorVirtual();
+        this.virtual = virtualPorTarefa != null;
+        if (virtual) {
+            // Uma thread virtual por tarefa; o semáforo limita quantas usam o banco ao mesmo tempo
+            this.executor = virtualPorTarefa;
+            this.permissoes = new Semaphore(concorrencia);
+        } else {
+            AtomicInteger numero = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(concorrencia, concorrencia, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, nome + "-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            this.permissoes = null;
+        }
+        
+        this.profundidadeFila = Metricas.histograma("executor." + nome + ".profundidade_fila");
+        this.tempoEspera = Metricas.histograma("executor." + nome + ".espera_nanos");
+        this.tempoExecucao = Metricas.histograma("executor." + nome + ".execucao_nanos");
+        this.rejeitadas = Metricas.contador("executor." + nome + ".rejeitadas");
+        Metricas.medidor("executor." + nome + ".pendentes", pendentes::get);
+        
+        logger.info(String.format("Executor %s: %s, concorrência %d, capacidade %d",
+            nome, virtual ? "threads virtuais" : "threads de plataforma", concorrencia, capacidadeFila));
+    }
+    
+    /**
+     * Executa a tarefa fora da thread chamadora. Os ouvintes do futuro são chamados na
+     * thread do executor; agentes devem voltar à própria thread para continuar.
+     */
+    public <T> IFuture<T> executar(Callable<T> tarefa) {
+        Future<T> futuro = new Future<>();
+        int profundidade = pendentes.incrementAndGet();
+        if (profundidade > capacidadeFila) {
+            pendentes.decrementAndGet();
+            rejeitadas.incrementar();
+            futuro.setException(new RejectedExecutionException("Fila de acesso ao banco cheia"));
+            return futuro;
+        }
+        profundidadeFila.registrar(profundidade);
+        long enfileiradaEm = System.nanoTime();
+        
+        try {
+            executor.execute(() -> rodar(tarefa, futuro, enfileiradaEm));
+        } catch (RejectedExecutionException e) {
+            pendentes.decrementAndGet();
+            rejeitadas.incrementar();
+            futuro.setException(e);
+        }
+        return futuro;
+    }
+    
+    private <T> void rodar(Callable<T> tarefa, Future<T> futuro, long enfileiradaEm) {
+        boolean adquirida = false;
+        try {
+            if (permissoes != null) {
+                permissoes.acquire();
+                adquirida = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendentes.decrementAndGet();
+            futuro.setException(e);
+            return;
+        }
+        
+        long inicio = System.nanoTime();
+        tempoEspera.registrar(inicio - enfileiradaEm);
+        pendentes.decrementAndGet();
+        try {
+            futuro.setResult(tarefa.call());
+        } catch (Exception e) {
+            futuro.setExceptionIfUndone(e);
+        } finally {
+            tempoExecucao.registrar(System.nanoTime() - inicio);
+            if (adquirida) {
+                permissoes.release();
+            }
+        }
+    }
+    
+    /**
+     * Tarefas aguardando execução.
+     */
+    public int getPendentes() {
+        return pendentes.get();
+    }
+    
+    public boolean isVirtual() {
+        return virtual;
+    }
+    
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() via reflexão, pois o projeto compila para Java 11.
+     */
+    private static ExecutorService criarExecutorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.unieuro.database;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Gravador assíncrono que acumula registros em uma fila limitada e os grava em lote
+ * (addBatch/executeBatch) dentro de uma única transação.
+ * O lote é descarregado quando atinge o tamanho máximo ou quando o intervalo máximo
+ * de espera expira. Com a fila cheia, quem enfileira fica bloqueado (backpressure).
+ * Se o lote falhar, é regravado registro a registro, e só os registros recusados são perdidos.
+ */
+public class GravadorEmLote<T> implements AutoCloseable {
+    
+    private static final Logger logger = Logger.getLogger(GravadorEmLote.class.getName());
+    
+    private static final long ESPERA_ENCERRAMENTO_SEGUNDOS = 30;
+    
+    /**
+     * Associa os campos de um registro aos parâmetros do comando preparado.
+     */
+    @FunctionalInterface
+    public interface Vinculador<T> {
+        void vincular(PreparedStatement stmt, T registro) throws SQLException;
+    }
+    
+    /**
+     * Trabalho adicional executado na mesma transação do lote, antes do commit.
+     */
+    @FunctionalInterface
+    public interface ComplementoTransacao<T> {
+        void executar(Connection conn, List<T> lote) throws SQLException;
+    }
+    
+    /**
+     * Marcador colocado na fila para forçar a gravação de tudo que veio antes dele.
+     */
+    private static final class PedidoDescarga {
+        final CountDownLatch concluido = new CountDownLatch(1);
+        final boolean encerrar;
+        
+        PedidoDescarga(boolean encerrar) {
+            this.encerrar = encerrar;
+        }
+    }
+    
+    private final String nome;
+    private final DataSource dataSource;
+    private final String sql;
+    private final Vinculador<T> vinculador;
+    private final int tamanhoLote;
+    private final long intervaloMaximoNanos;
+    private final BlockingQueue<Object> fila;
+    private final Thread trabalhador;
+    private volatile boolean encerrado;
+    private final List<Consumer<List<T>>> ouvintes = new CopyOnWriteArrayList<>();
+    private volatile ComplementoTransacao<T> complemento;
+    
+    private final Histograma tamanhoLotes;
+    private final Histograma latenciaGravacao;
+    private final Contador registrosGravados;
+    private final Contador registrosPerdidos;
+    
+    public GravadorEmLote(String nome, DataSource dataSource, String sql, Vinculador<T> vinculador,
+                          int capacidadeFila, int tamanhoLote, long intervaloMaximoMs) {
+        this.nome = nome;
+        this.dataSource = dataSource;
+        this.sql = sql;
+        this.vinculador = vinculador;
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloMaximoNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMaximoMs);
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        
+        this.tamanhoLotes = Metricas.histograma("gravador." + nome + ".tamanho_lote");
+        this.latenciaGravacao = Metricas.histograma("gravador." + nome + ".latencia_gravacao_nanos");
+        this.registrosGravados = Metricas.contador("gravador." + nome + ".registros_gravados");
+        this.registrosPerdidos = Metricas.contador("gravador." + nome + ".registros_perdidos");
+        Metricas.medidor("gravador." + nome + ".pendentes", fila::size);
+        
+        this.trabalhador = new Thread(this::executar, "gravador-" + nome);
+        this.trabalhador.setDaemon(true);
+        this.trabalhador.start();
+    }
+    
+    /**
+     * Enfileira um registro, bloqueando enquanto a fila estiver cheia.
+     */
+    public void enfileirar(T registro) {
+        if (encerrado) {
+            throw new IllegalStateException("Gravador " + nome + " já foi encerrado");
+        }
+        try {
+            fila.put(registro);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            registrosPerdidos.incrementar();
+            logger.warning("Enfileiramento interrompido no gravador " + nome);
+        }
+    }
+    
+    /**
+     * Tenta enfileirar um registro esperando no máximo o tempo informado.
+     * Retorna false se a fila continuou cheia.
+     */
+    public boolean enfileirar(T registro, long tempo, TimeUnit unidade) throws InterruptedException {
+        if (encerrado) {
+            throw new IllegalStateException("Gravador " + nome + " já foi encerrado");
+        }
+        return fila.offer(registro, tempo, unidade);
+    }
+    
+    /**
+     * Define o trabalho executado junto com cada lote; deve ser chamado antes do primeiro registro.
+     */
+    public void setComplementoTransacao(ComplementoTransacao<T> complemento) {
+        this.complemento = complemento;
+    }
+    
+    /**
+     * Registra um ouvinte chamado na thread de gravação após o commit de cada lote.
+     * A lista recebida é reutilizada e não deve ser guardada pelo ouvinte.
+     */
+    public void adicionarOuvinte(Consumer<List<T>> ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+    
+    /**
+     * Número de registros aguardando gravação.
+     */
+    public int getPendentes() {
+        return fila.size();
+    }
+    
+    /**
+     * Bloqueia até que todos os registros enfileirados antes da chamada tenham sido gravados.
+     */
+    public void aguardarGravacoes() {
+        if (encerrado) {
+            return;
+        }
+        PedidoDescarga pedido = new PedidoDescarga(false);
+        try {
+            fila.put(pedido);
+            pedido.concluido.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Grava o que estiver pendente e encerra a thread de gravação, esperando no máximo
+     * ESPERA_ENCERRAMENTO_SEGUNDOS; o que não for gravado nesse prazo fica na fila e se perde.
+     */
+    @Override
+    public void close() {
+        if (encerrado) {
+            return;
+        }
+        encerrado = true;
+        PedidoDescarga pedido = new PedidoDescarga(true);
+        try {
+            if (!fila.offer(pedido, ESPERA_ENCERRAMENTO_SEGUNDOS, TimeUnit.SECONDS)
+                    || !pedido.concluido.await(ESPERA_ENCERRAMENTO_SEGUNDOS, TimeUnit.SECONDS)) {
+                logger.warning(String.format("Gravador %s encerrado sem gravar %d registros pendentes",
+                    nome, fila.size()));
+                trabalhador.interrupt();
+            }
+            trabalhador.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Laço da thread de gravação: monta lotes por tamanho ou tempo e os grava.
+     */
+    @SuppressWarnings("unchecked")
+    private void executar() {
+        List<T> lote = new ArrayList<>(tamanhoLote);
+        boolean ativo = true;
+        
+        while (ativo) {
+            Object atual;
+            try {
+                atual = fila.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            
+            long prazo = System.nanoTime() + intervaloMaximoNanos;
+            PedidoDescarga pedido = null;
+            
+            while (atual != null) {
+                if (atual instanceof PedidoDescarga) {
+                    pedido = (PedidoDescarga) atual;
+                    break;
+                }
+                lote.add((T) atual);
+                if (lote.size() >= tamanhoLote) {
+                    break;
+                }
+                
+                // Usa o que já está disponível e só espera enquanto o prazo do lote não expirar
+                atual = fila.poll();
+                if (atual == null) {
+                    long restante = prazo - System.nanoTime();
+                    if (restante > 0) {
+                        try {
+                            atual = fila.poll(restante, TimeUnit.NANOSECONDS);
+                        } catch (InterruptedException e) {
+                            ativo = false;
+                        }
+                    }
+                }
+            }
+            
+            gravar(lote);
+            lote.clear();
+            
+            if (pedido != null) {
+                pedido.concluido.countDown();
+                if (pedido.encerrar) {
+                    ativo = false;
+                }
+            }
+        }
+        
+        // Libera quem ainda estiver esperando após o encerramento
+        Object restante;
+        while ((restante = fila.poll()) != null) {
+            if (restante instanceof PedidoDescarga) {
+                ((PedidoDescarga) restante).concluido.countDown();
+            } else {
+                registrosPerdidos.incrementar();
+            }
+        }
+    }
+    
+    /**
+     * Grava um lote em uma única transação. Nenhum erro sai daqui: a thread de gravação é a única
+     * que esvazia a fila.
+     */
+    private void gravar(List<T> lote) {
+        try {
+            gravarAgora(lote);
+            return;
+        } catch (SQLException | RuntimeException e) {
+            if (lote.size() == 1) {
+                registrosPerdidos.incrementar();
+                logger.warning("Registro descartado pelo gravador " + nome + ": " + e);
+                return;
+            }
+            logger.warning(String.format("Erro ao gravar lote de %d registros no gravador %s, "
+                + "regravando registro a registro: %s", lote.size(), nome, e));
+        }
+        gravarUmAUm(lote);
+    }
+    
+    /**
+     * Regrava um lote que falhou, um registro por transação, perdendo só os registros recusados.
+     * Uma falha que não vem dos dados do registro (banco fora do ar, timeout) encerra a tentativa,
+     * pois os registros seguintes falhariam do mesmo jeito.
+     */
+    private void gravarUmAUm(List<T> lote) {
+        List<T> unitario = new ArrayList<>(1);
+        int perdidos = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            unitario.clear();
+            unitario.add(lote.get(i));
+            try {
+                gravarAgora(unitario);
+            } catch (SQLException | RuntimeException e) {
+                if (!(e instanceof RuntimeException) && !DiarioLeituras.permanente(e)) {
+                    perdidos += lote.size() - i;
+                    logger.severe(String.format("Erro ao gravar no gravador %s, %d registros perdidos: %s",
+                        nome, lote.size() - i, e.getMessage()));
+                    break;
+                }
+                perdidos++;
+                logger.warning("Registro descartado pelo gravador " + nome + ": " + e);
+            }
+        }
+        registrosPerdidos.incrementar(perdidos);
+    }
+    
+    /**
+     * Grava um lote em uma única transação na thread de quem chama, sem passar pela fila.
+     * Qualquer erro (também de um vinculador ou do complemento) desfaz a transação e é repassado,
+     * para que quem chama decida se tenta de novo.
+     */
+    void gravarAgora(List<T> lote) throws SQLException {
+        if (lote.isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (T registro : lote) {
+                    vinculador.vincular(stmt, registro);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                if (complemento != null) {
+                    complemento.executar(conn, lote);
+                }
+                conn.commit();
+            } catch (Throwable e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException erroRollback) {
+                    e.addSuppressed(erroRollback);
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        
+        registrosGravados.incrementar(lote.size());
+        tamanhoLotes.registrar(lote.size());
+        latenciaGravacao.registrar(System.nanoTime() - inicio);
+        
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Gravador %s: lote de %d registros gravado", nome, lote.size()));
+        }
+        
+        for (Consumer<List<T>> ouvinte : ouvintes) {
+            try {
+                ouvinte.accept(lote);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Erro em ouvinte do gravador " + nome, e);
+            }
+        }
+    }
+}
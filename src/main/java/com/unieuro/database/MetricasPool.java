@@ -0,0 +1,52 @@
+package com.unieuro.database;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+/**
+ * Liga o HikariCP ao registro de Metricas: tempo de espera por conexão, tempo de uso,
+ * timeouts e os medidores de conexões ativas, ociosas e threads aguardando.
+ */
+class MetricasPool implements MetricsTrackerFactory {
+    
+    @Override
+    public IMetricsTracker create(String nomePool, PoolStats estatisticas) {
+        Metricas.medidor("pool.conexoes_ativas", estatisticas::getActiveConnections);
+        Metricas.medidor("pool.conexoes_ociosas", estatisticas::getIdleConnections);
+        Metricas.medidor("pool.conexoes_total", estatisticas::getTotalConnections);
+        Metricas.medidor("pool.threads_aguardando", estatisticas::getPendingThreads);
+        return new Rastreador();
+    }
+    
+    private static final class Rastreador implements IMetricsTracker {
+        
+        private final Histograma esperaConexao = Metricas.histograma("pool.espera_conexao_nanos");
+        private final Histograma usoConexao = Metricas.histograma("pool.uso_conexao_ms");
+        private final Histograma criacaoConexao = Metricas.histograma("pool.criacao_conexao_ms");
+        private final Contador timeouts = Metricas.contador("pool.timeouts");
+        
+        @Override
+        public void recordConnectionAcquiredNanos(long nanos) {
+            esperaConexao.registrar(nanos);
+        }
+        
+        @Override
+        public void recordConnectionUsageMillis(long millis) {
+            usoConexao.registrar(millis);
+        }
+        
+        @Override
+        public void recordConnectionCreatedMillis(long millis) {
+            criacaoConexao.registrar(millis);
+        }
+        
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.incrementar();
+        }
+    }
+}
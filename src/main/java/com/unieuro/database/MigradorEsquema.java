@@ -0,0 +1,299 @@
+package com.unieuro.database;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Cria e atualiza o esquema do banco por meio de migrações numeradas.
+ * As versões aplicadas ficam na tabela versao_esquema, então cada migração roda uma única vez.
+ * No PostgreSQL as tabelas de séries temporais são particionadas por mês e as partições
+ * futuras são criadas por garantirParticoes.
+ */
+public class MigradorEsquema {
+    
+    private static final Logger logger = Logger.getLogger(MigradorEsquema.class.getName());
+    
+    /** Quantos meses à frente do atual devem ter partição criada. */
+    public static final int MESES_PARTICOES_FUTURAS = 2;
+    
+    /**
+     * Tabela particionada por intervalo e a coluna de data usada como chave.
+     */
+    private static final class TabelaParticionada {
+        final String nome;
+        final String coluna;
+        
+        TabelaParticionada(String nome, String coluna) {
+            this.nome = nome;
+            this.coluna = coluna;
+        }
+    }
+    
+    private static final List<TabelaParticionada> TABELAS_PARTICIONADAS = Arrays.asList(
+        new TabelaParticionada("dados_saude", "data_coleta"),
+        new TabelaParticionada("analises_emocionais", "data_analise"),
+        new TabelaParticionada("recomendacoes", "data_envio")
+    );
+    
+    /**
+     * Passo de evolução do esquema.
+     */
+    @FunctionalInterface
+    private interface Passo {
+        void aplicar(Statement stmt, Dialeto dialeto) throws SQLException;
+    }
+    
+    private static final class Migracao {
+        final String descricao;
+        final Passo passo;
+        
+        Migracao(String descricao, Passo passo) {
+            this.descricao = descricao;
+            this.passo = passo;
+        }
+    }
+    
+    // A posição na lista é a versão (1, 2, ...); novas migrações entram sempre no final
+    private static final List<Migracao> MIGRACOES = Arrays.asList(
+        new Migracao("Tabelas iniciais", MigradorEsquema::criarTabelas),
+        new Migracao("Índices compostos por idoso e data", MigradorEsquema::criarIndices),
+        new Migracao("Agregado de análises por nível de risco", MigradorEsquema::criarEstatisticasRisco),
+        new Migracao("Agregados diários e mensais de dados de saúde", MigradorEsquema::criarAgregadosSaude)
+    );
+    
+    private final DataSource dataSource;
+    private Dialeto dialeto;
+    
+    public MigradorEsquema(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+    
+    /**
+     * Dialeto do banco, conhecido após a primeira chamada a migrar.
+     */
+    public Dialeto getDialeto() {
+        return dialeto;
+    }
+    
+    /**
+     * Aplica as migrações pendentes, cada uma em sua própria transação.
+     */
+    public void migrar() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            dialeto = Dialeto.detectar(conn);
+            
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS versao_esquema (" +
+                    "versao INT PRIMARY KEY," +
+                    "descricao VARCHAR(200)," +
+                    "aplicada_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                    ")");
+            }
+            
+            int versaoAtual = versaoAtual(conn);
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int versao = versaoAtual + 1; versao <= MIGRACOES.size(); versao++) {
+                    try (Statement stmt = conn.createStatement();
+                         PreparedStatement registro = conn.prepareStatement(
+                             "INSERT INTO versao_esquema (versao, descricao) VALUES (?, ?)")) {
+                        Migracao migracao = MIGRACOES.get(versao - 1);
+                        migracao.passo.aplicar(stmt, dialeto);
+                        registro.setInt(1, versao);
+                        registro.setString(2, migracao.descricao);
+                        registro.executeUpdate();
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw new SQLException("Falha na migração " + versao + ": " + e.getMessage(), e);
+                    }
+                    logger.info(String.format("Migração %d aplicada (%s): %s",
+                        versao, dialeto, MIGRACOES.get(versao - 1).descricao));
+                }
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        
+        garantirParticoes(LocalDate.now());
+    }
+    
+    /**
+     * Cria, se ainda não existirem, as partições mensais do mês de referência e dos
+     * MESES_PARTICOES_FUTURAS seguintes. Não faz nada em bancos sem particionamento.
+     */
+    public void garantirParticoes(LocalDate referencia) throws SQLException {
+        if (dialeto == null || !dialeto.suportaParticionamento()) {
+            return;
+        }
+        
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            YearMonth inicio = YearMonth.from(referencia);
+            for (int i = 0; i <= MESES_PARTICOES_FUTURAS; i++) {
+                YearMonth mes = inicio.plusMonths(i);
+                for (TabelaParticionada tabela : TABELAS_PARTICIONADAS) {
+                    stmt.execute(String.format(
+                        "CREATE TABLE IF NOT EXISTS %s_p%d%02d PARTITION OF %s " +
+                        "FOR VALUES FROM ('%s') TO ('%s')",
+                        tabela.nome, mes.getYear(), mes.getMonthValue(), tabela.nome,
+                        mes.atDay(1), mes.plusMonths(1).atDay(1)));
+                }
+            }
+        }
+    }
+    
+    private int versaoAtual(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(versao), 0) FROM versao_esquema")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+    
+    /**
+     * Versão 1: tabelas do sistema. No PostgreSQL as séries temporais são particionadas por mês,
+     * com uma partição padrão para datas fora das partições já criadas.
+     */
+    private static void criarTabelas(Statement stmt, Dialeto dialeto) throws SQLException {
+        boolean particionar = dialeto.suportaParticionamento();
+        String identidade = dialeto == Dialeto.POSTGRESQL
+            ? "BIGINT GENERATED BY DEFAULT AS IDENTITY"
+            : "BIGINT AUTO_INCREMENT";
+        
+        stmt.execute("CREATE TABLE IF NOT EXISTS idosos (" +
+            "id " + identidade + " PRIMARY KEY," +
+            "nome VARCHAR(100) NOT NULL," +
+            "idade INT NOT NULL," +
+            "sexo CHAR(1)," +
+            "data_cadastro TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")");
+        
+        // Em tabela particionada a chave primária precisa incluir a coluna de partição
+        stmt.execute("CREATE TABLE IF NOT EXISTS dados_saude (" +
+            "id " + identidade + (particionar ? "," : " PRIMARY KEY,") +
+            "id_idoso BIGINT REFERENCES idosos(id)," +
+            "data_coleta DATE NOT NULL," +
+            "sono_horas DECIMAL(3,1)," +
+            "qualidade_sono INT," +
+            "humor VARCHAR(20)," +
+            "atividade_fisica VARCHAR(50)," +
+            "frequencia_cardiaca INT," +
+            "observacoes TEXT" +
+            (particionar ? ", PRIMARY KEY (id, data_coleta)) PARTITION BY RANGE (data_coleta)" : ")"));
+        
+        stmt.execute("CREATE TABLE IF NOT EXISTS analises_emocionais (" +
+            "id " + identidade + (particionar ? "," : " PRIMARY KEY,") +
+            "id_idoso BIGINT REFERENCES idosos(id)," +
+            "data_analise TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
+            "risco_emocional VARCHAR(20)," +
+            "descricao TEXT" +
+            (particionar ? ", PRIMARY KEY (id, data_analise)) PARTITION BY RANGE (data_analise)" : ")"));
+        
+        stmt.execute("CREATE TABLE IF NOT EXISTS recomendacoes (" +
+            "id " + identidade + (particionar ? "," : " PRIMARY KEY,") +
+            "id_idoso BIGINT REFERENCES idosos(id)," +
+            "data_envio TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
+            "recomendacao VARCHAR(100)," +
+            "tipo_risco VARCHAR(20)," +
+            "observacoes TEXT" +
+            (particionar ? ", PRIMARY KEY (id, data_envio)) PARTITION BY RANGE (data_envio)" : ")"));
+        
+        if (particionar) {
+            for (TabelaParticionada tabela : TABELAS_PARTICIONADAS) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + tabela.nome + "_padrao PARTITION OF " +
+                    tabela.nome + " DEFAULT");
+            }
+        }
+    }
+    
+    /**
+     * Versão 2: índices compostos (id_idoso, data DESC) usados pelas consultas por janela de tempo.
+     * No PostgreSQL o índice criado na tabela particionada é replicado em cada partição.
+     */
+    private static void criarIndices(Statement stmt, Dialeto dialeto) throws SQLException {
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_dados_saude_idoso_data " +
+            "ON dados_saude (id_idoso, data_coleta DESC)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_analises_idoso_data " +
+            "ON analises_emocionais (id_idoso, data_analise DESC)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_recomendacoes_idoso_data " +
+            "ON recomendacoes (id_idoso, data_envio DESC)");
+    }
+    
+    /**
+     * Versão 3: contagem de análises por nível de risco, mantida pelo gravador de análises
+     * na mesma transação das inserções. Parte da contagem do histórico já existente.
+     */
+    private static void criarEstatisticasRisco(Statement stmt, Dialeto dialeto) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS estatisticas_risco (" +
+            "risco VARCHAR(20) PRIMARY KEY," +
+            "total BIGINT NOT NULL" +
+            ")");
+        stmt.execute("INSERT INTO estatisticas_risco (risco, total) " +
+            "SELECT risco_emocional, COUNT(*) FROM analises_emocionais " +
+            "WHERE risco_emocional IS NOT NULL GROUP BY risco_emocional");
+        for (String risco : Arrays.asList("baixo", "moderado", "alto")) {
+            stmt.execute("INSERT INTO estatisticas_risco (risco, total) SELECT '" + risco + "', 0 " +
+                "WHERE NOT EXISTS (SELECT 1 FROM estatisticas_risco WHERE risco = '" + risco + "')");
+        }
+    }
+    
+    /**
+     * Versão 4: agregados diários e mensais de dados_saude por idoso, mantidos pelo gravador de
+     * dados de saúde na mesma transação das inserções. Parte dos dados já existentes; o mensal é
+     * calculado a partir do diário.
+     */
+    private static void criarAgregadosSaude(Statement stmt, Dialeto dialeto) throws SQLException {
+        for (String tabela : Arrays.asList(AgregadosSaude.TABELA_DIARIA, AgregadosSaude.TABELA_MENSAL)) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + tabela + " (" +
+                "id_idoso BIGINT NOT NULL," +
+                "periodo DATE NOT NULL," +
+                "leituras INT NOT NULL," +
+                "soma_sono DOUBLE PRECISION NOT NULL," +
+                "fc_minima INT NOT NULL," +
+                "fc_maxima INT NOT NULL," +
+                "soma_fc BIGINT NOT NULL," +
+                "humor_positivo INT NOT NULL," +
+                "humor_neutro INT NOT NULL," +
+                "humor_negativo INT NOT NULL," +
+                "atividade_nenhuma INT NOT NULL," +
+                "atividade_sedentaria INT NOT NULL," +
+                "atividade_leve INT NOT NULL," +
+                "atividade_moderada INT NOT NULL," +
+                "atividade_intensa INT NOT NULL," +
+                "PRIMARY KEY (id_idoso, periodo)" +
+                ")");
+        }
+        
+        stmt.execute("INSERT INTO " + AgregadosSaude.TABELA_DIARIA + " (" + AgregadosSaude.COLUNAS + ") " +
+            "SELECT id_idoso, data_coleta, COUNT(*), COALESCE(SUM(sono_horas), 0), " +
+            "MIN(frequencia_cardiaca), MAX(frequencia_cardiaca), COALESCE(SUM(frequencia_cardiaca), 0), " +
+            contagem("humor", "positivo") + ", " + contagem("humor", "neutro") + ", " +
+            contagem("humor", "negativo") + ", " + contagem("atividade_fisica", "nenhuma") + ", " +
+            contagem("atividade_fisica", "sedentaria") + ", " + contagem("atividade_fisica", "leve") + ", " +
+            contagem("atividade_fisica", "moderada") + ", " + contagem("atividade_fisica", "intensa") + " " +
+            "FROM dados_saude WHERE id_idoso IS NOT NULL AND frequencia_cardiaca IS NOT NULL " +
+            "GROUP BY id_idoso, data_coleta");
+        
+        String mes = "CAST(DATE_TRUNC('MONTH', periodo) AS DATE)";
+        stmt.execute("INSERT INTO " + AgregadosSaude.TABELA_MENSAL + " (" + AgregadosSaude.COLUNAS + ") " +
+            "SELECT id_idoso, " + mes + ", SUM(leituras), SUM(soma_sono), MIN(fc_minima), MAX(fc_maxima), " +
+            "SUM(soma_fc), SUM(humor_positivo), SUM(humor_neutro), SUM(humor_negativo), " +
+            "SUM(atividade_nenhuma), SUM(atividade_sedentaria), SUM(atividade_leve), " +
+            "SUM(atividade_moderada), SUM(atividade_intensa) " +
+            "FROM " + AgregadosSaude.TABELA_DIARIA + " GROUP BY id_idoso, " + mes);
+    }
+    
+    private static String contagem(String coluna, String rotulo) {
+        return "SUM(CASE WHEN " + coluna + " = '" + rotulo + "' THEN 1 ELSE 0 END)";
+    }
+}
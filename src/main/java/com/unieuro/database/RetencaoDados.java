@@ -0,0 +1,315 @@
+package com.unieuro.database;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Histograma;
+import com.unieuro.metrics.Metricas;
+import com.unieuro.model.ResolucaoSerie;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Job de retenção das séries temporais. Linhas mais antigas que o prazo de cada tabela são
+ * copiadas para um CSV compactado (gzip) e removidas em blocos pequenos, cada um em sua própria
+ * transação curta e com uma pausa entre blocos, para não disputar com os gravadores em lote.
+ * As leituras brutas já estão resumidas nos agregados diário e mensal; o diário expirado é
+ * apenas removido, pois o mensal continua cobrindo o período.
+ */
+final class RetencaoDados {
+    
+    private static final Logger logger = Logger.getLogger(RetencaoDados.class.getName());
+    
+    private static final DateTimeFormatter FORMATO_ARQUIVO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    /**
+     * Tabela com linhas identificadas por id crescente e expiradas pela coluna de data.
+     */
+    private static final class Politica {
+        final String tabela;
+        final String colunaData;
+        final String colunas;
+        final int diasPadrao;
+        
+        Politica(String tabela, String colunaData, String colunas, int diasPadrao) {
+            this.tabela = tabela;
+            this.colunaData = colunaData;
+            this.colunas = colunas;
+            this.diasPadrao = diasPadrao;
+        }
+    }
+    
+    private static final Politica DADOS_SAUDE = new Politica("dados_saude", "data_coleta",
+        "id, id_idoso, data_coleta, sono_horas, qualidade_sono, humor, atividade_fisica, frequencia_cardiaca, " +
+        "observacoes", 30);
+    
+    private static final List<Politica> POLITICAS = Arrays.asList(
+        DADOS_SAUDE,
+        new Politica("analises_emocionais", "data_analise",
+            "id, id_idoso, data_analise, risco_emocional, descricao", 30),
+        new Politica("recomendacoes", "data_envio",
+            "id, id_idoso, data_envio, recomendacao, tipo_risco, observacoes", 90)
+    );
+    
+    private static final int DIAS_PADRAO_AGREGADO_DIARIO = 400;
+    
+    private final DataSource dataSource;
+    private final ConfiguracaoBanco configuracao;
+    private final Path diretorioArquivo;
+    private final int tamanhoBloco;
+    private final long pausaEntreBlocosMs;
+    
+    private final Histograma duracaoExecucao = Metricas.histograma("retencao.execucao_nanos");
+    private final Contador erros = Metricas.contador("retencao.erros");
+    
+    RetencaoDados(DataSource dataSource, ConfiguracaoBanco configuracao) {
+        this.dataSource = dataSource;
+        this.configuracao = configuracao;
+        String diretorio = configuracao.getDiretorioArquivo();
+        this.diretorioArquivo = diretorio == null ? null : Paths.get(diretorio);
+        this.tamanhoBloco = configuracao.getTamanhoBlocoRetencao();
+        this.pausaEntreBlocosMs = configuracao.getPausaEntreBlocosMs();
+    }
+    
+    /**
+     * Resolução mais fina cujos dados ainda cobrem o dia informado, pelos prazos configurados:
+     * antes do prazo de dados_saude só restam os agregados, e antes do prazo do diário, o mensal.
+     */
+    ResolucaoSerie resolucaoRetida(LocalDate dia) {
+        if (!configuracao.isRetencaoAtiva()) {
+            return ResolucaoSerie.LEITURAS;
+        }
+        LocalDate hoje = LocalDate.now();
+        if (!expirado(dia, hoje, configuracao.getDiasRetencao(DADOS_SAUDE.tabela, DADOS_SAUDE.diasPadrao))) {
+            return ResolucaoSerie.LEITURAS;
+        }
+        if (!expirado(dia, hoje, configuracao.getDiasRetencao(AgregadosSaude.TABELA_DIARIA, DIAS_PADRAO_AGREGADO_DIARIO))) {
+            return ResolucaoSerie.DIARIA;
+        }
+        return ResolucaoSerie.MENSAL;
+    }
+    
+    private static boolean expirado(LocalDate dia, LocalDate hoje, int dias) {
+        // Mesmo corte de executar: saem as linhas anteriores a hoje - dias; 0 mantém para sempre
+        return dias > 0 && dia.isBefore(hoje.minusDays(dias));
+    }
+    
+    /**
+     * Aplica a retenção a todas as tabelas e devolve quantas linhas saíram de cada uma.
+     * Uma tabela com erro é registrada e não impede as demais.
+     */
+    Map<String, Long> executar() {
+        long inicio = System.nanoTime();
+        Map<String, Long> removidas = new LinkedHashMap<>();
+        LocalDate hoje = LocalDate.now();
+        
+        for (Politica politica : POLITICAS) {
+            int dias = configuracao.getDiasRetencao(politica.tabela, politica.diasPadrao);
+            if (dias <= 0) {
+                continue;
+            }
+            try {
+                long total = expirar(politica, hoje.minusDays(dias));
+                removidas.put(politica.tabela, total);
+                if (total > 0) {
+                    logger.info(String.format("Retenção: %d linhas de %s anteriores a %s removidas",
+                        total, politica.tabela, hoje.minusDays(dias)));
+                }
+            } catch (SQLException | IOException e) {
+                erros.incrementar();
+                logger.severe("Erro na retenção de " + politica.tabela + ": " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return removidas;
+            }
+        }
+        
+        int diasDiario = configuracao.getDiasRetencao(AgregadosSaude.TABELA_DIARIA, DIAS_PADRAO_AGREGADO_DIARIO);
+        if (diasDiario > 0) {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(
+                     "DELETE FROM " + AgregadosSaude.TABELA_DIARIA + " WHERE periodo < ?")) {
+                stmt.setDate(1, Date.valueOf(hoje.minusDays(diasDiario)));
+                long total = stmt.executeUpdate();
+                removidas.put(AgregadosSaude.TABELA_DIARIA, total);
+                Metricas.contador("retencao." + AgregadosSaude.TABELA_DIARIA + ".removidas").incrementar(total);
+            } catch (SQLException e) {
+                erros.incrementar();
+                logger.severe("Erro na retenção de " + AgregadosSaude.TABELA_DIARIA + ": " + e.getMessage());
+            }
+        }
+        
+        duracaoExecucao.registrar(System.nanoTime() - inicio);
+        return removidas;
+    }
+    
+    /**
+     * Arquiva e remove, em blocos de ids crescentes, as linhas com data anterior ao corte.
+     * Cada bloco é gravado e descarregado no arquivo antes do DELETE ser confirmado.
+     */
+    private long expirar(Politica politica, LocalDate corte) throws SQLException, IOException, InterruptedException {
+        String selecionar = "SELECT " + politica.colunas + " FROM " + politica.tabela +
+            " WHERE " + politica.colunaData + " < ? ORDER BY id LIMIT ?";
+        // Os ids selecionados são os menores com data anterior ao corte, então o intervalo
+        // [menor, maior] com o mesmo filtro remove exatamente as linhas do bloco
+        String remover = "DELETE FROM " + politica.tabela +
+            " WHERE id BETWEEN ? AND ? AND " + politica.colunaData + " < ?";
+        Contador removidas = Metricas.contador("retencao." + politica.tabela + ".removidas");
+        
+        long total = 0;
+        try (ArquivoCsv arquivo = diretorioArquivo == null ? null : new ArquivoCsv(politica.tabela)) {
+            while (true) {
+                int linhas = 0;
+                try (Connection conn = dataSource.getConnection()) {
+                    boolean autoCommit = conn.getAutoCommit();
+                    conn.setAutoCommit(false);
+                    try (PreparedStatement consulta = conn.prepareStatement(selecionar);
+                         PreparedStatement exclusao = conn.prepareStatement(remover)) {
+                        consulta.setDate(1, Date.valueOf(corte));
+                        consulta.setInt(2, tamanhoBloco);
+                        long menorId = Long.MAX_VALUE;
+                        long maiorId = Long.MIN_VALUE;
+                        try (ResultSet rs = consulta.executeQuery()) {
+                            while (rs.next()) {
+                                long id = rs.getLong(1);
+                                menorId = Math.min(menorId, id);
+                                maiorId = Math.max(maiorId, id);
+                                if (arquivo != null) {
+                                    arquivo.escrever(rs);
+                                }
+                                linhas++;
+                            }
+                        }
+                        if (linhas == 0) {
+                            conn.commit();
+                            break;
+                        }
+                        if (arquivo != null) {
+                            arquivo.descarregar();
+                        }
+                        
+                        exclusao.setLong(1, menorId);
+                        exclusao.setLong(2, maiorId);
+                        exclusao.setDate(3, Date.valueOf(corte));
+                        exclusao.executeUpdate();
+                        conn.commit();
+                    } catch (SQLException | IOException e) {
+                        conn.rollback();
+                        throw e;
+                    } finally {
+                        conn.setAutoCommit(autoCommit);
+                    }
+                }
+                
+                total += linhas;
+                removidas.incrementar(linhas);
+                if (linhas < tamanhoBloco) {
+                    break;
+                }
+                Thread.sleep(pausaEntreBlocosMs);
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * CSV compactado com as linhas removidas de uma tabela em uma execução,
+     * em diretorioArquivo/tabela/tabela-AAAAMMDD-HHMMSS.csv.gz. Só é criado se houver linhas.
+     */
+    private final class ArquivoCsv implements Closeable {
+        private final String tabela;
+        private Writer saida;
+        
+        ArquivoCsv(String tabela) {
+            this.tabela = tabela;
+        }
+        
+        void escrever(ResultSet rs) throws SQLException, IOException {
+            ResultSetMetaData metadados = rs.getMetaData();
+            int colunas = metadados.getColumnCount();
+            if (saida == null) {
+                abrir();
+                for (int c = 1; c <= colunas; c++) {
+                    if (c > 1) {
+                        saida.write(',');
+                    }
+                    saida.write(metadados.getColumnLabel(c).toLowerCase(Locale.ROOT));
+                }
+                saida.write('\n');
+            }
+            for (int c = 1; c <= colunas; c++) {
+                if (c > 1) {
+                    saida.write(',');
+                }
+                String valor = rs.getString(c);
+                if (valor != null) {
+                    escreverCampo(valor);
+                }
+            }
+            saida.write('\n');
+        }
+        
+        /**
+         * Força o conteúdo já escrito para o arquivo (gzip com sync flush).
+         */
+        void descarregar() throws IOException {
+            if (saida != null) {
+                saida.flush();
+            }
+        }
+        
+        private void abrir() throws IOException {
+            Path diretorio = diretorioArquivo.resolve(tabela);
+            Files.createDirectories(diretorio);
+            Path caminho = diretorio.resolve(tabela + "-" + LocalDateTime.now().format(FORMATO_ARQUIVO) + ".csv.gz");
+            saida = new OutputStreamWriter(new GZIPOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(caminho)), 64 * 1024, true), StandardCharsets.UTF_8);
+            logger.info("Arquivando linhas de " + tabela + " em " + caminho);
+        }
+        
+        private void escreverCampo(String valor) throws IOException {
+            boolean aspas = false;
+            for (int i = 0; i < valor.length() && !aspas; i++) {
+                char c = valor.charAt(i);
+                aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!aspas) {
+                saida.write(valor);
+                return;
+            }
+            saida.write('"');
+            saida.write(valor.replace("\"", "\"\""));
+            saida.write('"');
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (saida != null) {
+                saida.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.unieuro.eventos;
+
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Metricas;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Barramento de eventos em memória para transmissão ao dashboard.
+ * Os eventos ficam em um buffer circular indexado pela sequência; cada inscrição mantém
+ * seu próprio cursor e é drenada por uma thread do pool de envio (no máximo uma por vez), de forma
+ * que um cliente lento não atrasa os demais nem quem publica. O envio ao destino bloqueia; o pool
+ * cresce além de THREADS_ENVIO quando há envios parados, e uma inscrição com um envio parado há
+ * mais de TEMPO_MAXIMO_ENVIO_SEGUNDOS é descartada.
+ */
+public final class BarramentoEventos {
+    
+    private static final Logger logger = Logger.getLogger(BarramentoEventos.class.getName());
+    private static final BarramentoEventos instance = new BarramentoEventos();
+    
+    // Potência de 2: posição no buffer = sequência & MASCARA
+    private static final int CAPACIDADE = 1 << 16;
+    private static final int MASCARA = CAPACIDADE - 1;
+    private static final int MAXIMO_POR_ENVIO = 256;
+    private static final int THREADS_ENVIO = 4;
+    private static final long INTERVALO_BATIMENTO_SEGUNDOS = 15;
+    private static final long TEMPO_MAXIMO_ENVIO_SEGUNDOS = 10;
+    private static final long SEM_ENVIO = Long.MIN_VALUE;
+    
+    private final Evento[] buffer = new Evento[CAPACIDADE];
+    private long ultimaSequencia;
+    
+    private final List<Inscricao> inscricoes = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor;
+    private final ScheduledExecutorService agendador;
+    private final Contador inscricoesExpiradas = Metricas.contador("eventos.inscricoes_expiradas");
+    
+    private BarramentoEventos() {
+        // THREADS_ENVIO threads fixas; outras são criadas enquanto houver envios parados
+        executor = new ThreadPoolExecutor(THREADS_ENVIO, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), r -> {
+                Thread thread = new Thread(r, "envio-eventos");
+                thread.setDaemon(true);
+                return thread;
+            });
+        agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "eventos-batimento");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleAtFixedRate(this::enviarBatimentos,
+            INTERVALO_BATIMENTO_SEGUNDOS, INTERVALO_BATIMENTO_SEGUNDOS, TimeUnit.SECONDS);
+        agendador.scheduleAtFixedRate(this::verificarEnvios, 1, 1, TimeUnit.SECONDS);
+        Metricas.medidor("eventos.inscricoes", this::getTotalInscricoes);
+        Metricas.medidor("eventos.ultima_sequencia", this::ultimaSequenciaPublicada);
+    }
+    
+    public static BarramentoEventos getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Inscrição de um cliente: filtro de idosos, cursor e destino.
+     */
+    public final class Inscricao {
+        private final long[] idsIdoso;
+        private final DestinoEventos destino;
+        private final AtomicBoolean agendada = new AtomicBoolean();
+        private final AtomicBoolean ativa = new AtomicBoolean(true);
+        private volatile long cursor;
+        private volatile boolean batimentoPendente;
+        // Instante (nanoTime) em que começou o envio em andamento, ou SEM_ENVIO
+        private volatile long envioDesde = SEM_ENVIO;
+        
+        private Inscricao(long[] idsIdoso, DestinoEventos destino, long cursor) {
+            this.idsIdoso = idsIdoso;
+            this.destino = destino;
+            this.cursor = cursor;
+        }
+        
+        boolean aceita(long idIdoso) {
+            return idsIdoso == null || Arrays.binarySearch(idsIdoso, idIdoso) >= 0;
+        }
+        
+        void agendar() {
+            if (ativa.get() && agendada.compareAndSet(false, true)) {
+                executor.execute(this::drenar);
+            }
+        }
+        
+        private void drenar() {
+            List<Evento> pendentes = new ArrayList<>(MAXIMO_POR_ENVIO);
+            try {
+                while (ativa.get()) {
+                    if (batimentoPendente) {
+                        batimentoPendente = false;
+                        enviar(destino::batimento);
+                    }
+                    pendentes.clear();
+                    long inicio = cursor;
+                    long verificado = coletar(this, pendentes);
+                    if (verificado < 0) {
+                        // O cliente ficou para trás além da capacidade do buffer
+                        enviar(() -> destino.lacuna(inicio));
+                        cursor = menorSequenciaDisponivel() - 1;
+                        continue;
+                    }
+                    for (Evento evento : pendentes) {
+                        enviar(() -> destino.enviar(evento));
+                    }
+                    cursor = verificado;
+                    if (verificado == inicio) {
+                        break;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                cancelar();
+                return;
+            } finally {
+                agendada.set(false);
+            }
+            // Eventos (ou batimento) chegados entre a última coleta e a liberação do agendamento
+            if (cursor < ultimaSequenciaPublicada() || batimentoPendente) {
+                agendar();
+            }
+        }
+        
+        private void enviar(Envio envio) throws IOException {
+            envioDesde = System.nanoTime();
+            try {
+                envio.executar();
+            } finally {
+                envioDesde = SEM_ENVIO;
+            }
+        }
+        
+        /**
+         * Encerra a inscrição e fecha o destino.
+         */
+        public void cancelar() {
+            if (ativa.compareAndSet(true, false)) {
+                inscricoes.remove(this);
+                destino.encerrar();
+            }
+        }
+        
+        /**
+         * Descarta a inscrição cujo envio está parado. O destino é fechado em outra thread do pool:
+         * o fechamento pode esperar o próprio envio parado terminar.
+         */
+        private void expirar(long paradoNanos) {
+            if (ativa.compareAndSet(true, false)) {
+                inscricoes.remove(this);
+                inscricoesExpiradas.incrementar();
+                logger.warning(String.format("Inscrição de eventos descartada: envio parado há %d ms",
+                    TimeUnit.NANOSECONDS.toMillis(paradoNanos)));
+                executor.execute(destino::encerrar);
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Envio {
+        void executar() throws IOException;
+    }
+    
+    /**
+     * Publica um evento e agenda a entrega às inscrições interessadas nesse idoso.
+     */
+    public long publicar(String tipo, long idIdoso, Object dados) {
+        long sequencia;
+        synchronized (this) {
+            sequencia = ++ultimaSequencia;
+            buffer[(int) (sequencia & MASCARA)] = new Evento(sequencia, tipo, idIdoso, dados);
+        }
+        for (Inscricao inscricao : inscricoes) {
+            if (inscricao.aceita(idIdoso)) {
+                inscricao.agendar();
+            }
+        }
+        return sequencia;
+    }
+    
+    /**
+     * Inscreve um destino. idsIdoso vazio ou nulo recebe eventos de todos os idosos.
+     * Com desdeSequencia maior ou igual a zero, os eventos posteriores a ela ainda presentes
+     * no buffer são reenviados antes dos novos; caso contrário só os novos são entregues.
+     */
+    public Inscricao inscrever(long[] idsIdoso, long desdeSequencia, DestinoEventos destino) {
+        long[] filtro = null;
+        if (idsIdoso != null && idsIdoso.length > 0) {
+            filtro = idsIdoso.clone();
+            Arrays.sort(filtro);
+        }
+        
+        Inscricao inscricao;
+        synchronized (this) {
+            long cursor = desdeSequencia >= 0 ? Math.min(desdeSequencia, ultimaSequencia) : ultimaSequencia;
+            inscricao = new Inscricao(filtro, destino, cursor);
+            inscricoes.add(inscricao);
+        }
+        inscricao.agendar();
+        return inscricao;
+    }
+    
+    public int getTotalInscricoes() {
+        return inscricoes.size();
+    }
+    
+    public synchronized long ultimaSequenciaPublicada() {
+        return ultimaSequencia;
+    }
+    
+    private synchronized long menorSequenciaDisponivel() {
+        return Math.max(1, ultimaSequencia - CAPACIDADE + 1);
+    }
+    
+    /**
+     * Copia para pendentes os eventos aceitos pela inscrição a partir do cursor.
+     * Devolve a última sequência examinada, ou -1 se o cursor já saiu do buffer.
+     */
+    private synchronized long coletar(Inscricao inscricao, List<Evento> pendentes) {
+        long sequencia = inscricao.cursor;
+        if (sequencia < ultimaSequencia - CAPACIDADE) {
+            return -1;
+        }
+        while (sequencia < ultimaSequencia && pendentes.size() < MAXIMO_POR_ENVIO) {
+            sequencia++;
+            Evento evento = buffer[(int) (sequencia & MASCARA)];
+            if (inscricao.aceita(evento.getIdIdoso())) {
+                pendentes.add(evento);
+            }
+        }
+        return sequencia;
+    }
+    
+    /**
+     * Pede um batimento a cada inscrição; ele é enviado pela drenagem da própria inscrição,
+     * para que um cliente parado não atrase os batimentos dos demais.
+     */
+    private void enviarBatimentos() {
+        for (Inscricao inscricao : inscricoes) {
+            inscricao.batimentoPendente = true;
+            inscricao.agendar();
+        }
+        if (!inscricoes.isEmpty()) {
+            logger.fine("Inscrições ativas no barramento de eventos: " + inscricoes.size());
+        }
+    }
+    
+    /**
+     * Descarta as inscrições com um envio em andamento há mais de TEMPO_MAXIMO_ENVIO_SEGUNDOS.
+     */
+    private void verificarEnvios() {
+        long agora = System.nanoTime();
+        long limite = TimeUnit.SECONDS.toNanos(TEMPO_MAXIMO_ENVIO_SEGUNDOS);
+        for (Inscricao inscricao : inscricoes) {
+            long desde = inscricao.envioDesde;
+            if (desde != SEM_ENVIO && agora - desde > limite) {
+                inscricao.expirar(agora - desde);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.unieuro.eventos;
+
+import java.io.IOException;
+
+/**
+ * Canal de saída de uma inscrição (por exemplo, uma conexão SSE).
+ * Uma IOException encerra a inscrição.
+ */
+public interface DestinoEventos {
+    
+    void enviar(Evento evento) throws IOException;
+    
+    /**
+     * Avisa que eventos posteriores a ultimaSequencia foram descartados do buffer antes de
+     * serem entregues; o cliente deve recarregar o estado pela API REST.
+     */
+    void lacuna(long ultimaSequencia) throws IOException;
+    
+    /**
+     * Mensagem periódica que mantém a conexão aberta e detecta clientes desconectados.
+     */
+    void batimento() throws IOException;
+    
+    void encerrar();
+}
@@ -0,0 +1,40 @@
+package com.unieuro.eventos;
+
+/**
+ * Evento publicado pelo sistema (leitura, análise ou alerta) com número de sequência
+ * crescente, usado pelos clientes para retomar a transmissão após uma desconexão.
+ */
+public class Evento {
+    
+    public static final String LEITURA = "leitura";
+    public static final String ANALISE = "analise";
+    public static final String ALERTA = "alerta";
+    
+    private final long sequencia;
+    private final String tipo;
+    private final long idIdoso;
+    private final Object dados;
+    
+    Evento(long sequencia, String tipo, long idIdoso, Object dados) {
+        this.sequencia = sequencia;
+        this.tipo = tipo;
+        this.idIdoso = idIdoso;
+        this.dados = dados;
+    }
+    
+    public long getSequencia() {
+        return sequencia;
+    }
+    
+    public String getTipo() {
+        return tipo;
+    }
+    
+    public long getIdIdoso() {
+        return idIdoso;
+    }
+    
+    public Object getDados() {
+        return dados;
+    }
+}
@@ -0,0 +1,52 @@
+package com.unieuro.ingestao;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Corpo com Content-Encoding gzip. Um fluxo corrompido ou truncado vira FormatoInvalidoException,
+ * e a ingestão responde 400 com os registros aceitos até ali. O cabeçalho gzip só é lido na
+ * primeira leitura, dentro do tratamento de erros da ingestão.
+ */
+final class EntradaGzip extends InputStream {
+    
+    private static final int TAMANHO_BUFFER = 16384;
+    
+    private final InputStream compactada;
+    private GZIPInputStream descompactada;
+    
+    EntradaGzip(InputStream compactada) {
+        this.compactada = compactada;
+    }
+    
+    @Override
+    public int read() throws IOException {
+        byte[] um = new byte[1];
+        return read(um, 0, 1) < 0 ? -1 : um[0] & 0xFF;
+    }
+    
+    @Override
+    public int read(byte[] destino, int inicio, int tamanho) throws IOException {
+        try {
+            if (descompactada == null) {
+                descompactada = new GZIPInputStream(compactada, TAMANHO_BUFFER);
+            }
+            return descompactada.read(destino, inicio, tamanho);
+        } catch (ZipException | EOFException e) {
+            throw new FormatoInvalidoException("Corpo gzip inválido: "
+                + (e.getMessage() != null ? e.getMessage() : "fluxo truncado"));
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (descompactada != null) {
+            descompactada.close();
+        } else {
+            compactada.close();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.unieuro.ingestao;
+
+import java.io.IOException;
+
+/**
+ * Corpo da requisição corrompido a ponto de impedir a leitura dos registros seguintes.
+ */
+public class FormatoInvalidoException extends IOException {
+    
+    public FormatoInvalidoException(String mensagem) {
+        super(mensagem);
+    }
+}
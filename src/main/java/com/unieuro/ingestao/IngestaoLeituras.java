@@ -0,0 +1,151 @@
+package com.unieuro.ingestao;
+
+import com.unieuro.database.DatabaseManager;
+import com.unieuro.metrics.Contador;
+import com.unieuro.metrics.Metricas;
+import com.unieuro.model.LoteLeituras;
+import jadex.commons.future.IFuture;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+
+/**
+ * Ingestão em lote de leituras enviadas pelos gateways de sensores.
+ * Os registros são lidos do fluxo um a um, validados e repassados ao gravador em lote de
+ * dados_saude em blocos de TAMANHO_BLOCO; com a fila do gravador cheia, a leitura do corpo
+ * é pausada (backpressure até o cliente). Com o diário ativo, a resposta só sai depois do fsync
+ * dos registros aceitos; se ele não vier em ESPERA_CONFIRMACAO_MS, a resposta é 503.
+ */
+public class IngestaoLeituras {
+    
+    public static final String TIPO_NDJSON = "application/x-ndjson";
+    public static final String TIPO_BINARIO = "application/octet-stream";
+    
+    private static final int TAMANHO_BLOCO = 1000;
+    private static final long ESPERA_CONFIRMACAO_MS = 10000;
+    
+    // Limites aceitos para cada campo
+    private static final double SONO_MAXIMO_HORAS = 24.0;
+    private static final int QUALIDADE_SONO_MINIMA = 1;
+    private static final int QUALIDADE_SONO_MAXIMA = 5;
+    private static final int FREQUENCIA_MINIMA = 20;
+    private static final int FREQUENCIA_MAXIMA = 250;
+    
+    private static final Contador registrosAceitos = Metricas.contador("ingestao.aceitos");
+    private static final Contador registrosRejeitados = Metricas.contador("ingestao.rejeitados");
+    private static final Contador requisicoesInterrompidas = Metricas.contador("ingestao.interrompidas");
+    private static final Contador requisicoesNaoConfirmadas = Metricas.contador("ingestao.nao_confirmadas");
+    
+    private final DatabaseManager dbManager;
+    
+    public IngestaoLeituras(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+    
+    /**
+     * Ingere o corpo NDJSON ou binário conforme o tipo de conteúdo, descompactando-o se gzip.
+     */
+    public ResultadoIngestao ingerir(InputStream corpo, String tipoConteudo, boolean gzip) throws IOException {
+        InputStream entrada = gzip ? new EntradaGzip(corpo) : corpo;
+        LeitorRegistros leitor;
+        try {
+            leitor = tipoConteudo != null && tipoConteudo.startsWith(TIPO_BINARIO)
+                ? new LeitorBinario(entrada)
+                : new LeitorNdjson(entrada);
+        } catch (FormatoInvalidoException e) {
+            ResultadoIngestao resultado = new ResultadoIngestao();
+            resultado.interromper("Registro 0: " + e.getMessage());
+            requisicoesInterrompidas.incrementar();
+            return resultado;
+        }
+        return ingerir(leitor);
+    }
+    
+    ResultadoIngestao ingerir(LeitorRegistros leitor) throws IOException {
+        ResultadoIngestao resultado = new ResultadoIngestao();
+        RegistroRecebido registro = new RegistroRecebido();
+        LoteLeituras bloco = new LoteLeituras(TAMANHO_BLOCO);
+        long hoje = LocalDate.now().toEpochDay();
+        // Os blocos são sincronizados em ordem: a confirmação do último cobre os anteriores
+        IFuture<Void> confirmacao = IFuture.DONE;
+        
+        try {
+            while (leitor.proximo(registro)) {
+                String motivo = validar(registro, hoje);
+                if (motivo != null) {
+                    resultado.rejeitar(motivo);
+                    continue;
+                }
+                long dia = registro.diaColeta == RegistroRecebido.DIA_NAO_INFORMADO ? hoje : registro.diaColeta;
+                bloco.adicionar(0L, registro.idIdoso, dia, registro.sonoHoras, registro.qualidadeSono,
+                    registro.humor, registro.atividadeFisica, registro.frequenciaCardiaca, 0L);
+                resultado.aceitar();
+                
+                if (bloco.tamanho() == TAMANHO_BLOCO) {
+                    confirmacao = dbManager.inserirLeituras(bloco);
+                    bloco.limpar();
+                }
+            }
+        } catch (FormatoInvalidoException e) {
+            resultado.interromper("Registro " + resultado.getRecebidos() + ": " + e.getMessage());
+            requisicoesInterrompidas.incrementar();
+        } finally {
+            // Os registros já aceitos são gravados mesmo quando o corpo termina com erro
+            if (!bloco.isVazio()) {
+                confirmacao = dbManager.inserirLeituras(bloco);
+            }
+            registrosAceitos.incrementar(resultado.getAceitos());
+            registrosRejeitados.incrementar(resultado.getRejeitados());
+        }
+        aguardarConfirmacao(confirmacao, resultado);
+        return resultado;
+    }
+    
+    /**
+     * Espera o fsync dos registros aceitos; sem ele, os aceitos podem se perder numa queda e o
+     * cliente deve reenviar o lote.
+     */
+    private static void aguardarConfirmacao(IFuture<Void> confirmacao, ResultadoIngestao resultado) {
+        try {
+            confirmacao.get(ESPERA_CONFIRMACAO_MS);
+        } catch (RuntimeException e) {
+            resultado.naoConfirmar("Gravação dos registros aceitos não confirmada: " + e.getMessage());
+            requisicoesNaoConfirmadas.incrementar();
+        }
+    }
+    
+    /**
+     * Retorna o motivo da rejeição, ou null se o registro é válido.
+     */
+    private String validar(RegistroRecebido registro, long hoje) {
+        if (registro.problema != null) {
+            return registro.problema;
+        }
+        if (registro.idIdoso <= 0) {
+            return "id_idoso ausente";
+        }
+        if (!dbManager.idosoCadastrado(registro.idIdoso)) {
+            return "idoso não cadastrado: " + registro.idIdoso;
+        }
+        if (registro.diaColeta != RegistroRecebido.DIA_NAO_INFORMADO && registro.diaColeta > hoje + 1) {
+            return "data_coleta no futuro";
+        }
+        if (!(registro.sonoHoras >= 0 && registro.sonoHoras <= SONO_MAXIMO_HORAS)) {
+            return "sono_horas ausente ou fora de 0-24";
+        }
+        if (registro.qualidadeSono < QUALIDADE_SONO_MINIMA || registro.qualidadeSono > QUALIDADE_SONO_MAXIMA) {
+            return "qualidade_sono ausente ou fora de 1-5";
+        }
+        if (registro.humor == null) {
+            return "humor ausente";
+        }
+        if (registro.atividadeFisica == null) {
+            return "atividade_fisica ausente";
+        }
+        if (registro.frequenciaCardiaca < FREQUENCIA_MINIMA || registro.frequenciaCardiaca > FREQUENCIA_MAXIMA) {
+            return "frequencia_cardiaca ausente ou fora de 20-250";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.unieuro.ingestao;
+
+import com.unieuro.model.Humor;
+import com.unieuro.model.NivelAtividade;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Lê o formato binário compacto dos gateways: cabeçalho "SDB1" seguido de registros de
+ * 21 bytes em big-endian:
+ * id_idoso (long), dia da coleta em dias desde 1970-01-01 (int), sono_horas (float),
+ * qualidade_sono (byte), código do humor (byte), código da atividade (byte) e
+ * frequencia_cardiaca (short). Os códigos seguem Humor.getCodigo e NivelAtividade.getCodigo.
+ */
+class LeitorBinario implements LeitorRegistros {
+    
+    static final int CABECALHO = ('S' << 24) | ('D' << 16) | ('B' << 8) | '1';
+    static final int TAMANHO_REGISTRO = 21;
+    
+    private static final int TOTAL_HUMORES = Humor.values().length;
+    private static final int TOTAL_ATIVIDADES = NivelAtividade.values().length;
+    
+    private final DataInputStream entrada;
+    private final byte[] bytes = new byte[TAMANHO_REGISTRO];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private boolean cabecalhoLido;
+    
+    LeitorBinario(InputStream entrada) {
+        this.entrada = new DataInputStream(new BufferedInputStream(entrada, 16384));
+    }
+    
+    @Override
+    public boolean proximo(RegistroRecebido registro) throws IOException {
+        if (!cabecalhoLido) {
+            int cabecalho;
+            try {
+                cabecalho = entrada.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            if (cabecalho != CABECALHO) {
+                throw new FormatoInvalidoException("Cabeçalho binário inválido (esperado SDB1)");
+            }
+            cabecalhoLido = true;
+        }
+        
+        // O fim do fluxo só é válido entre registros
+        int primeiro = entrada.read();
+        if (primeiro < 0) {
+            return false;
+        }
+        bytes[0] = (byte) primeiro;
+        try {
+            entrada.readFully(bytes, 1, TAMANHO_REGISTRO - 1);
+        } catch (EOFException e) {
+            throw new FormatoInvalidoException("Registro binário incompleto no fim do fluxo");
+        }
+        
+        registro.limpar();
+        buffer.clear();
+        registro.idIdoso = buffer.getLong();
+        registro.diaColeta = buffer.getInt();
+        registro.sonoHoras = buffer.getFloat();
+        registro.qualidadeSono = buffer.get();
+        int humor = buffer.get();
+        int atividade = buffer.get();
+        registro.frequenciaCardiaca = buffer.getShort();
+        
+        if (humor >= 0 && humor < TOTAL_HUMORES) {
+            registro.humor = Humor.deCodigo((byte) humor);
+        } else {
+            registro.problema = "código de humor desconhecido: " + humor;
+        }
+        if (atividade >= 0 && atividade < TOTAL_ATIVIDADES) {
+            registro.atividadeFisica = NivelAtividade.deCodigo((byte) atividade);
+        } else if (registro.problema == null) {
+            registro.problema = "código de atividade desconhecido: " + atividade;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package com.unieuro.ingestao;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.unieuro.model.Humor;
+import com.unieuro.model.NivelAtividade;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Lê NDJSON (um objeto JSON por linha) com o parser de streaming do Jackson.
+ * Campos: id_idoso, data_coleta (AAAA-MM-DD, opcional), sono_horas, qualidade_sono,
+ * humor, atividade_fisica e frequencia_cardiaca. Campos desconhecidos são ignorados.
+ * Um número que não cabe no campo rejeita só o registro; JSON malformado interrompe a leitura.
+ */
+class LeitorNdjson implements LeitorRegistros {
+    
+    private static final JsonFactory FABRICA = new JsonFactory();
+    
+    private final JsonParser parser;
+    
+    LeitorNdjson(InputStream entrada) throws IOException {
+        // A criação já lê o início do corpo para detectar a codificação
+        try {
+            this.parser = FABRICA.createParser(entrada);
+        } catch (StreamReadException e) {
+            throw new FormatoInvalidoException("JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+    
+    @Override
+    public boolean proximo(RegistroRecebido registro) throws IOException {
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return false;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new FormatoInvalidoException("Esperado um objeto JSON por linha, encontrado " + token);
+            }
+            registro.limpar();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.getCurrentName();
+                JsonToken valor = parser.nextToken();
+                lerCampo(campo, valor, registro);
+            }
+            return true;
+        } catch (StreamReadException e) {
+            throw new FormatoInvalidoException("JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+    
+    private void lerCampo(String campo, JsonToken valor, RegistroRecebido registro) throws IOException {
+        switch (campo) {
+            case "id_idoso":
+                if (valor == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == NumberType.BIG_INTEGER) {
+                    problema(registro, "id_idoso fora do intervalo: " + parser.getText());
+                } else if (valor == JsonToken.VALUE_NUMBER_INT) {
+                    registro.idIdoso = parser.getLongValue();
+                } else {
+                    problema(registro, "id_idoso deve ser inteiro");
+                }
+                break;
+            case "data_coleta":
+                if (valor == JsonToken.VALUE_STRING) {
+                    try {
+                        registro.diaColeta = LocalDate.parse(parser.getText()).toEpochDay();
+                    } catch (DateTimeParseException e) {
+                        problema(registro, "data_coleta inválida: " + parser.getText());
+                    }
+                } else if (valor != JsonToken.VALUE_NULL) {
+                    problema(registro, "data_coleta deve ser texto AAAA-MM-DD");
+                }
+                break;
+            case "sono_horas":
+                if (valor == JsonToken.VALUE_NUMBER_INT || valor == JsonToken.VALUE_NUMBER_FLOAT) {
+                    registro.sonoHoras = parser.getDoubleValue();
+                } else {
+                    problema(registro, "sono_horas deve ser numérico");
+                }
+                break;
+            case "qualidade_sono":
+                if (valor == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != NumberType.INT) {
+                    problema(registro, "qualidade_sono fora do intervalo: " + parser.getText());
+                } else if (valor == JsonToken.VALUE_NUMBER_INT) {
+                    registro.qualidadeSono = parser.getIntValue();
+                } else {
+                    problema(registro, "qualidade_sono deve ser inteiro");
+                }
+                break;
+            case "humor":
+                registro.humor = valor == JsonToken.VALUE_STRING ? Humor.deRotuloOuNulo(parser.getText()) : null;
+                if (registro.humor == null) {
+                    problema(registro, "humor desconhecido: " + parser.getText());
+                }
+                break;
+            case "atividade_fisica":
+                registro.atividadeFisica =
+                    valor == JsonToken.VALUE_STRING ? NivelAtividade.deRotuloOuNulo(parser.getText()) : null;
+                if (registro.atividadeFisica == null) {
+                    problema(registro, "atividade_fisica desconhecida: " + parser.getText());
+                }
+                break;
+            case "frequencia_cardiaca":
+                if (valor == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != NumberType.INT) {
+                    problema(registro, "frequencia_cardiaca fora do intervalo: " + parser.getText());
+                } else if (valor == JsonToken.VALUE_NUMBER_INT) {
+                    registro.frequenciaCardiaca = parser.getIntValue();
+                } else {
+                    problema(registro, "frequencia_cardiaca deve ser inteiro");
+                }
+                break;
+            default:
+                parser.skipChildren();
+        }
+    }
+    
+    private void problema(RegistroRecebido registro, String descricao) throws IOException {
+        if (registro.problema == null) {
+            registro.problema = descricao;
+        }
+        // Objetos ou listas no lugar de valores simples são descartados por inteiro
+        parser.skipChildren();
+    }
+}
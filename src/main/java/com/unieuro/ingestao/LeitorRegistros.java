@@ -0,0 +1,16 @@
+package com.unieuro.ingestao;
+
+import java.io.IOException;
+
+/**
+ * Lê registros um a um do corpo da requisição, sem carregá-lo inteiro na memória.
+ */
+interface LeitorRegistros {
+    
+    /**
+     * Preenche o registro com o próximo item do fluxo.
+     * Retorna false no fim do fluxo; lança FormatoInvalidoException quando o fluxo
+     * está corrompido e não é possível continuar.
+     */
+    boolean proximo(RegistroRecebido registro) throws IOException;
+}
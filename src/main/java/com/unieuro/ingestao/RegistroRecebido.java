@@ -0,0 +1,36 @@
+package com.unieuro.ingestao;
+
+import com.unieuro.model.Humor;
+import com.unieuro.model.NivelAtividade;
+
+/**
+ * Campos de um registro lido do corpo da requisição, antes da validação.
+ * A mesma instância é reaproveitada para todos os registros de uma requisição.
+ * Campos ausentes ficam com os valores de limpar().
+ */
+final class RegistroRecebido {
+    
+    static final long DIA_NAO_INFORMADO = Long.MIN_VALUE;
+    
+    long idIdoso;
+    long diaColeta;
+    double sonoHoras;
+    int qualidadeSono;
+    Humor humor;
+    NivelAtividade atividadeFisica;
+    int frequenciaCardiaca;
+    
+    // Problema encontrado durante a leitura (tipo errado, rótulo desconhecido etc.)
+    String problema;
+    
+    void limpar() {
+        idIdoso = 0;
+        diaColeta = DIA_NAO_INFORMADO;
+        sonoHoras = Double.NaN;
+        qualidadeSono = -1;
+        humor = null;
+        atividadeFisica = null;
+        frequenciaCardiaca = -1;
+        problema = null;
+    }
+}
@@ -0,0 +1,110 @@
+package com.unieuro.ingestao;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resposta da ingestão em lote. Os registros são numerados a partir de 0 na ordem do corpo;
+ * todo registro que não aparece em "rejeicoes" foi aceito e enfileirado para gravação (com o diário
+ * ativo, já sincronizado no disco local). Se a gravação não foi confirmada a tempo, a resposta é 503 e
+ * o lote deve ser reenviado.
+ * Acima de MAXIMO_REJEICOES_DETALHADAS as rejeições só são contadas.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoIngestao {
+    
+    static final int MAXIMO_REJEICOES_DETALHADAS = 1000;
+    
+    /**
+     * Registro recusado e o motivo.
+     */
+    public static class Rejeicao {
+        private final long indice;
+        private final String motivo;
+        
+        Rejeicao(long indice, String motivo) {
+            this.indice = indice;
+            this.motivo = motivo;
+        }
+        
+        @JsonProperty("indice")
+        public long getIndice() {
+            return indice;
+        }
+        
+        @JsonProperty("motivo")
+        public String getMotivo() {
+            return motivo;
+        }
+    }
+    
+    private long recebidos;
+    private long aceitos;
+    private long rejeitados;
+    private final List<Rejeicao> rejeicoes = new ArrayList<>();
+    private String erro;
+    private boolean naoConfirmado;
+    
+    void aceitar() {
+        recebidos++;
+        aceitos++;
+    }
+    
+    void rejeitar(String motivo) {
+        if (rejeicoes.size() < MAXIMO_REJEICOES_DETALHADAS) {
+            rejeicoes.add(new Rejeicao(recebidos, motivo));
+        }
+        recebidos++;
+        rejeitados++;
+    }
+    
+    void interromper(String erro) {
+        this.erro = erro;
+    }
+    
+    void naoConfirmar(String erro) {
+        this.erro = erro;
+        this.naoConfirmado = true;
+    }
+    
+    @JsonProperty("recebidos")
+    public long getRecebidos() {
+        return recebidos;
+    }
+    
+    @JsonProperty("aceitos")
+    public long getAceitos() {
+        return aceitos;
+    }
+    
+    @JsonProperty("rejeitados")
+    public long getRejeitados() {
+        return rejeitados;
+    }
+    
+    @JsonProperty("rejeicoes")
+    public List<Rejeicao> getRejeicoes() {
+        return rejeicoes;
+    }
+    
+    /**
+     * Motivo da interrupção quando o corpo estava corrompido; os registros anteriores
+     * ao ponto do erro continuam aceitos.
+     */
+    @JsonProperty("erro")
+    public String getErro() {
+        return erro;
+    }
+    
+    /**
+     * Indica que a gravação dos registros aceitos não foi confirmada a tempo (resposta 503).
+     */
+    @JsonIgnore
+    public boolean isNaoConfirmado() {
+        return naoConfirmado;
+    }
+}
@@ -0,0 +1,60 @@
+package com.unieuro.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Alertas contados por nível de risco e registrados no log no máximo uma vez por intervalo, no lugar
+ * de uma linha por evento. O primeiro alerta depois de um intervalo sem log sai na hora, com o idoso
+ * e quantos alertas de cada nível houve desde a linha anterior; os contadores prefixo.nivel
+ * registram todos.
+ */
+public final class AlertasAmostrados {
+    
+    private final Logger logger;
+    private final String prefixo;
+    private final String mensagem;
+    private final long intervaloNanos;
+    
+    private final Map<String, Contador> contadores = new ConcurrentHashMap<>();
+    // Alertas por nível desde a última linha de log
+    private final Map<String, LongAdder> desdeUltimoLog = new ConcurrentHashMap<>();
+    private final AtomicLong proximoLog = new AtomicLong(System.nanoTime());
+    
+    public AlertasAmostrados(Logger logger, String prefixo, String mensagem, long intervaloMs) {
+        this.logger = logger;
+        this.prefixo = prefixo;
+        this.mensagem = mensagem;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+    }
+    
+    /**
+     * Conta um alerta; só uma chamada por intervalo escreve no log.
+     */
+    public void registrar(String nivel, long idIdoso) {
+        contadores.computeIfAbsent(nivel, n -> Metricas.contador(prefixo + "." + n)).incrementar();
+        desdeUltimoLog.computeIfAbsent(nivel, n -> new LongAdder()).increment();
+        
+        long agora = System.nanoTime();
+        long proximo = proximoLog.get();
+        if (agora - proximo < 0 || !proximoLog.compareAndSet(proximo, agora + intervaloNanos)) {
+            return;
+        }
+        Map<String, Long> porNivel = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<String, LongAdder> entrada : desdeUltimoLog.entrySet()) {
+            long quantidade = entrada.getValue().sumThenReset();
+            if (quantidade > 0) {
+                porNivel.put(entrada.getKey(), quantidade);
+                total += quantidade;
+            }
+        }
+        logger.warning(String.format("%s - risco %s, idoso %d (%d alerta(s) desde o último registro: %s)",
+            mensagem, nivel, idIdoso, total, porNivel));
+    }
+}
@@ -0,0 +1,32 @@
+package com.unieuro.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador monotônico de eventos, barato o suficiente para caminhos quentes.
+ */
+public class Contador {
+    
+    private final String nome;
+    private final LongAdder valor = new LongAdder();
+    
+    Contador(String nome) {
+        this.nome = nome;
+    }
+    
+    public void incrementar() {
+        valor.increment();
+    }
+    
+    public void incrementar(long quantidade) {
+        valor.add(quantidade);
+    }
+    
+    public long getValor() {
+        return valor.sum();
+    }
+    
+    public String getNome() {
+        return nome;
+    }
+}
@@ -0,0 +1,75 @@
+package com.unieuro.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Serializa as métricas no formato texto do Prometheus (versão 0.0.4).
+ * Contadores viram counters com sufixo _total, medidores viram gauges e histogramas
+ * viram summaries com os quantis 0.5 e 0.99, além de um gauge _max.
+ * Os nomes recebem o prefixo "saude_" e têm pontos e hífens trocados por "_".
+ */
+public final class ExportadorPrometheus {
+    
+    public static final String TIPO_CONTEUDO = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private static final String PREFIXO = "saude_";
+    
+    private ExportadorPrometheus() {
+    }
+    
+    public static String exportar() {
+        StringBuilder saida = new StringBuilder(8192);
+        
+        for (Map.Entry<String, Contador> entrada : new TreeMap<>(Metricas.getContadores()).entrySet()) {
+            String nome = nomePrometheus(entrada.getKey());
+            saida.append("# TYPE ").append(nome).append("_total counter\n");
+            saida.append(nome).append("_total ").append(entrada.getValue().getValor()).append('\n');
+        }
+        
+        for (Map.Entry<String, LongSupplier> entrada : new TreeMap<>(Metricas.getMedidores()).entrySet()) {
+            String nome = nomePrometheus(entrada.getKey());
+            saida.append("# TYPE ").append(nome).append(" gauge\n");
+            saida.append(nome).append(' ').append(entrada.getValue().getAsLong()).append('\n');
+        }
+        
+        for (Map.Entry<String, Histograma> entrada : new TreeMap<>(Metricas.getHistogramas()).entrySet()) {
+            String nome = nomePrometheus(entrada.getKey());
+            Histograma histograma = entrada.getValue();
+            saida.append("# TYPE ").append(nome).append(" summary\n");
+            saida.append(nome).append("{quantile=\"0.5\"} ").append(histograma.percentil(50)).append('\n');
+            saida.append(nome).append("{quantile=\"0.99\"} ").append(histograma.percentil(99)).append('\n');
+            saida.append(nome).append("_sum ").append(histograma.getSoma()).append('\n');
+            saida.append(nome).append("_count ").append(histograma.getContagem()).append('\n');
+            saida.append("# TYPE ").append(nome).append("_max gauge\n");
+            saida.append(nome).append("_max ").append(histograma.getMaximo()).append('\n');
+        }
+        
+        return saida.toString();
+    }
+    
+    /**
+     * Converte "cache.dados_saude.acertos" em "saude_cache_dados_saude_acertos".
+     */
+    static String nomePrometheus(String nome) {
+        StringBuilder convertido = new StringBuilder(PREFIXO.length() + nome.length()).append(PREFIXO);
+        boolean ultimoSublinhado = true;
+        for (int i = 0; i < nome.length(); i++) {
+            char c = nome.charAt(i);
+            boolean valido = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+            if (valido) {
+                convertido.append(c);
+                ultimoSublinhado = false;
+            } else if (!ultimoSublinhado) {
+                convertido.append('_');
+                ultimoSublinhado = true;
+            }
+        }
+        int fim = convertido.length();
+        if (convertido.charAt(fim - 1) == '_') {
+            convertido.setLength(fim - 1);
+        }
+        return convertido.toString();
+    }
+}
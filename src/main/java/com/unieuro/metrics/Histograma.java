@@ -0,0 +1,122 @@
+package com.unieuro.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribuição de valores (tamanhos de lote, latências em nanossegundos etc.).
+ * Usa faixas em potências de 2, então registrar um valor não aloca memória e os
+ * percentis são aproximados com erro máximo de 2x.
+ */
+public class Histograma {
+    
+    private static final int FAIXAS = 64;
+    
+    private final String nome;
+    private final LongAdder contagem = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+    private final AtomicLongArray faixas = new AtomicLongArray(FAIXAS);
+    
+    Histograma(String nome) {
+        this.nome = nome;
+    }
+    
+    /**
+     * Registra um valor não negativo.
+     */
+    public void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        contagem.increment();
+        soma.add(valor);
+        faixas.incrementAndGet(faixa(valor));
+        long atual = maximo.get();
+        while (valor > atual && !maximo.compareAndSet(atual, valor)) {
+            atual = maximo.get();
+        }
+    }
+    
+    /**
+     * Descarta os valores registrados (usado pelo gerador de carga para ignorar o aquecimento).
+     * Registros concorrentes com a chamada podem ser perdidos.
+     */
+    public void zerar() {
+        contagem.reset();
+        soma.reset();
+        maximo.set(0);
+        for (int i = 0; i < FAIXAS; i++) {
+            faixas.set(i, 0);
+        }
+    }
+    
+    public long getContagem() {
+        return contagem.sum();
+    }
+    
+    public long getSoma() {
+        return soma.sum();
+    }
+    
+    public long getMaximo() {
+        return maximo.get();
+    }
+    
+    public double getMedia() {
+        long n = contagem.sum();
+        return n == 0 ? 0.0 : (double) soma.sum() / n;
+    }
+    
+    /**
+     * Estima o percentil informado (0 a 100) pelo limite superior da faixa correspondente.
+     */
+    public long percentil(double percentil) {
+        long total = 0;
+        long[] copia = new long[FAIXAS];
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = faixas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = (long) Math.ceil(total * (percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+    
+    /**
+     * Resumo para exposição em JSON.
+     */
+    public Map<String, Object> resumo() {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("contagem", getContagem());
+        resumo.put("media", getMedia());
+        resumo.put("p50", percentil(50));
+        resumo.put("p99", percentil(99));
+        resumo.put("maximo", getMaximo());
+        return resumo;
+    }
+    
+    public String getNome() {
+        return nome;
+    }
+    
+    private static int faixa(long valor) {
+        return valor == 0 ? 0 : 64 - Long.numberOfLeadingZeros(valor) - 1;
+    }
+    
+    private static long limiteSuperior(int faixa) {
+        return faixa >= 62 ? Long.MAX_VALUE : (2L << faixa) - 1;
+    }
+}
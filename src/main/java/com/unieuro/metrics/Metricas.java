@@ -0,0 +1,67 @@
+package com.unieuro.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro central de métricas do sistema.
+ * Contadores e histogramas são criados sob demanda e devem ser guardados em
+ * campos pelos chamadores, evitando a busca por nome a cada evento.
+ */
+public final class Metricas {
+    
+    private static final Map<String, Contador> contadores = new ConcurrentHashMap<>();
+    private static final Map<String, Histograma> histogramas = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> medidores = new ConcurrentHashMap<>();
+    
+    private Metricas() {
+    }
+    
+    public static Contador contador(String nome) {
+        return contadores.computeIfAbsent(nome, Contador::new);
+    }
+    
+    public static Histograma histograma(String nome) {
+        return histogramas.computeIfAbsent(nome, Histograma::new);
+    }
+    
+    /**
+     * Registra um medidor lido apenas na exportação (tamanho de fila, conexões ativas etc.).
+     * Um novo registro com o mesmo nome substitui o anterior.
+     */
+    public static void medidor(String nome, LongSupplier leitura) {
+        medidores.put(nome, leitura);
+    }
+    
+    /**
+     * Zera todos os histogramas; os contadores continuam monotônicos.
+     */
+    public static void zerarHistogramas() {
+        histogramas.values().forEach(Histograma::zerar);
+    }
+    
+    static Map<String, Contador> getContadores() {
+        return contadores;
+    }
+    
+    static Map<String, Histograma> getHistogramas() {
+        return histogramas;
+    }
+    
+    static Map<String, LongSupplier> getMedidores() {
+        return medidores;
+    }
+    
+    /**
+     * Fotografia de todas as métricas, ordenada por nome.
+     */
+    public static Map<String, Object> resumo() {
+        Map<String, Object> resumo = new TreeMap<>();
+        contadores.forEach((nome, contador) -> resumo.put(nome, contador.getValor()));
+        histogramas.forEach((nome, histograma) -> resumo.put(nome, histograma.resumo()));
+        medidores.forEach((nome, leitura) -> resumo.put(nome, leitura.getAsLong()));
+        return resumo;
+    }
+}
@@ -0,0 +1,81 @@
+package com.unieuro.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Duração de cada fase da inicialização (métricas inicializacao.&lt;fase&gt;_ms) e o tempo desde o
+ * início da JVM até a primeira coleta de dados, que é o número a reduzir no início rápido.
+ */
+public final class TemposInicializacao {
+    
+    private static final Logger logger = Logger.getLogger(TemposInicializacao.class.getName());
+    
+    private static final String FASE_PRIMEIRA_COLETA = "primeira_coleta";
+    
+    private static final Map<String, Long> fases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final CountDownLatch primeiraColeta = new CountDownLatch(1);
+    
+    private TemposInicializacao() {
+    }
+    
+    /**
+     * Registra a fase iniciada em inicioNanos (System.nanoTime()) e devolve o instante atual,
+     * para encadear as fases seguintes.
+     */
+    public static long registrar(String fase, long inicioNanos) {
+        long agora = System.nanoTime();
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(agora - inicioNanos);
+        if (fases.put(fase, duracaoMs) == null) {
+            Metricas.medidor("inicializacao." + fase + "_ms", () -> fases.getOrDefault(fase, 0L));
+        }
+        return agora;
+    }
+    
+    /**
+     * Registra como fase "jvm" o tempo entre o início da JVM e a chamada (carga de classes até o main).
+     */
+    public static void registrarJvm() {
+        registrar("jvm", System.nanoTime()
+            - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime()));
+    }
+    
+    /**
+     * Chamado ao fim de cada ciclo de coleta; só o primeiro é registrado, em milissegundos desde o início da JVM.
+     */
+    public static void marcarPrimeiraColeta() {
+        if (primeiraColeta.getCount() == 0) {
+            return;
+        }
+        synchronized (fases) {
+            if (fases.containsKey(FASE_PRIMEIRA_COLETA)) {
+                return;
+            }
+            fases.put(FASE_PRIMEIRA_COLETA, ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+        Metricas.medidor("inicializacao." + FASE_PRIMEIRA_COLETA + "_ms", () -> fases.get(FASE_PRIMEIRA_COLETA));
+        primeiraColeta.countDown();
+        logger.info("Tempos de inicialização (ms): " + resumo());
+    }
+    
+    /**
+     * Espera a primeira coleta; retorna false se o tempo acabar antes.
+     */
+    public static boolean aguardarPrimeiraColeta(long tempo, TimeUnit unidade) throws InterruptedException {
+        return primeiraColeta.await(tempo, unidade);
+    }
+    
+    /**
+     * Fases registradas até agora, na ordem em que terminaram.
+     */
+    public static Map<String, Long> resumo() {
+        synchronized (fases) {
+            return new LinkedHashMap<>(fases);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.unieuro.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Humor registrado em uma leitura de saúde.
+ * O rótulo é o valor gravado na coluna dados_saude.humor; o código cabe em um byte.
+ */
+public enum Humor {
+    POSITIVO("positivo"),
+    NEUTRO("neutro"),
+    NEGATIVO("negativo");
+    
+    private static final Humor[] VALORES = values();
+    
+    private final String rotulo;
+    
+    Humor(String rotulo) {
+        this.rotulo = rotulo;
+    }
+    
+    @JsonValue
+    public String getRotulo() {
+        return rotulo;
+    }
+    
+    public byte getCodigo() {
+        return (byte) ordinal();
+    }
+    
+    public static Humor deCodigo(byte codigo) {
+        return VALORES[codigo];
+    }
+    
+    /**
+     * Converte o rótulo gravado no banco; valores desconhecidos são tratados como neutros.
+     */
+    public static Humor deRotulo(String rotulo) {
+        for (Humor humor : VALORES) {
+            if (humor.rotulo.equals(rotulo)) {
+                return humor;
+            }
+        }
+        return NEUTRO;
+    }
+    
+    /**
+     * Converte um rótulo recebido de fora do sistema; devolve null se for desconhecido.
+     */
+    public static Humor deRotuloOuNulo(String rotulo) {
+        for (Humor humor : VALORES) {
+            if (humor.rotulo.equals(rotulo)) {
+                return humor;
+            }
+        }
+        return null;
+    }
+}
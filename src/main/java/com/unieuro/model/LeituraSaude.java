@@ -0,0 +1,88 @@
+package com.unieuro.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDate;
+
+/**
+ * Leitura de saúde imutável, com campos primitivos.
+ * Serializa em JSON com os mesmos nomes das colunas de dados_saude.
+ */
+@JsonPropertyOrder({"id", "id_idoso", "data_coleta", "sono_horas", "qualidade_sono",
+                    "humor", "atividade_fisica", "frequencia_cardiaca"})
+public final class LeituraSaude {
+    
+    private final long id;
+    private final long idIdoso;
+    private final long diaColeta;
+    private final double sonoHoras;
+    private final int qualidadeSono;
+    private final Humor humor;
+    private final NivelAtividade atividadeFisica;
+    private final int frequenciaCardiaca;
+    
+    public LeituraSaude(long id, long idIdoso, long diaColeta, double sonoHoras, int qualidadeSono,
+                        Humor humor, NivelAtividade atividadeFisica, int frequenciaCardiaca) {
+        this.id = id;
+        this.idIdoso = idIdoso;
+        this.diaColeta = diaColeta;
+        this.sonoHoras = sonoHoras;
+        this.qualidadeSono = qualidadeSono;
+        this.humor = humor;
+        this.atividadeFisica = atividadeFisica;
+        this.frequenciaCardiaca = frequenciaCardiaca;
+    }
+    
+    /**
+     * ID da linha em dados_saude (0 enquanto a leitura não foi gravada).
+     */
+    @JsonProperty("id")
+    public long getId() {
+        return id;
+    }
+    
+    @JsonProperty("id_idoso")
+    public long getIdIdoso() {
+        return idIdoso;
+    }
+    
+    /**
+     * Dia da coleta em dias desde 1970-01-01 (LocalDate.toEpochDay()).
+     */
+    @JsonIgnore
+    public long getDiaColeta() {
+        return diaColeta;
+    }
+    
+    @JsonProperty("data_coleta")
+    public LocalDate getDataColeta() {
+        return LocalDate.ofEpochDay(diaColeta);
+    }
+    
+    @JsonProperty("sono_horas")
+    public double getSonoHoras() {
+        return sonoHoras;
+    }
+    
+    @JsonProperty("qualidade_sono")
+    public int getQualidadeSono() {
+        return qualidadeSono;
+    }
+    
+    @JsonProperty("humor")
+    public Humor getHumor() {
+        return humor;
+    }
+    
+    @JsonProperty("atividade_fisica")
+    public NivelAtividade getAtividadeFisica() {
+        return atividadeFisica;
+    }
+    
+    @JsonProperty("frequencia_cardiaca")
+    public int getFrequenciaCardiaca() {
+        return frequenciaCardiaca;
+    }
+}
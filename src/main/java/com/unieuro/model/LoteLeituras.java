@@ -0,0 +1,172 @@
+package com.unieuro.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lote de leituras de saúde em formato colunar, com uma matriz primitiva por campo.
+ * Percorrer o lote com os acessores por índice não cria objetos; humor e atividade
+ * são guardados como códigos de um byte.
+ */
+public final class LoteLeituras {
+    
+    private static final int CAPACIDADE_INICIAL = 16;
+    
+    private long[] ids;
+    private long[] idsIdoso;
+    private long[] diasColeta;
+    private double[] sonoHoras;
+    private byte[] qualidadeSono;
+    private byte[] humor;
+    private byte[] atividadeFisica;
+    private short[] frequenciaCardiaca;
+    private long[] instantesColetaNanos;
+    private int tamanho;
+    
+    public LoteLeituras() {
+        this(CAPACIDADE_INICIAL);
+    }
+    
+    public LoteLeituras(int capacidade) {
+        capacidade = Math.max(1, capacidade);
+        ids = new long[capacidade];
+        idsIdoso = new long[capacidade];
+        diasColeta = new long[capacidade];
+        sonoHoras = new double[capacidade];
+        qualidadeSono = new byte[capacidade];
+        humor = new byte[capacidade];
+        atividadeFisica = new byte[capacidade];
+        frequenciaCardiaca = new short[capacidade];
+        instantesColetaNanos = new long[capacidade];
+    }
+    
+    /**
+     * Acrescenta uma leitura ao lote.
+     *
+     * @param id ID em dados_saude, ou 0 se ainda não gravada
+     * @param instanteColetaNanos System.nanoTime() da coleta, ou 0 se desconhecido
+     */
+    public void adicionar(long id, long idIdoso, long diaColeta, double sono, int qualidade,
+                          Humor humorLeitura, NivelAtividade atividade, int fc, long instanteColetaNanos) {
+        validarFaixas(qualidade, fc);
+        if (tamanho == ids.length) {
+            crescer();
+        }
+        ids[tamanho] = id;
+        idsIdoso[tamanho] = idIdoso;
+        diasColeta[tamanho] = diaColeta;
+        sonoHoras[tamanho] = sono;
+        qualidadeSono[tamanho] = (byte) qualidade;
+        humor[tamanho] = humorLeitura.getCodigo();
+        atividadeFisica[tamanho] = atividade.getCodigo();
+        frequenciaCardiaca[tamanho] = (short) fc;
+        instantesColetaNanos[tamanho] = instanteColetaNanos;
+        tamanho++;
+    }
+    
+    public void adicionar(LeituraSaude leitura) {
+        adicionar(leitura.getId(), leitura.getIdIdoso(), leitura.getDiaColeta(), leitura.getSonoHoras(),
+            leitura.getQualidadeSono(), leitura.getHumor(), leitura.getAtividadeFisica(),
+            leitura.getFrequenciaCardiaca(), 0L);
+    }
+    
+    /**
+     * Confere se a qualidade do sono cabe em um byte e a frequência cardíaca em um short, como são
+     * guardadas no lote e no diário de leituras; fora da faixa, a leitura é rejeitada em vez de truncada.
+     */
+    public static void validarFaixas(int qualidadeSono, int frequenciaCardiaca) {
+        if (qualidadeSono < Byte.MIN_VALUE || qualidadeSono > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Qualidade do sono fora da faixa: " + qualidadeSono);
+        }
+        if (frequenciaCardiaca < Short.MIN_VALUE || frequenciaCardiaca > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Frequência cardíaca fora da faixa: " + frequenciaCardiaca);
+        }
+    }
+    
+    private void crescer() {
+        int novaCapacidade = ids.length * 2;
+        ids = Arrays.copyOf(ids, novaCapacidade);
+        idsIdoso = Arrays.copyOf(idsIdoso, novaCapacidade);
+        diasColeta = Arrays.copyOf(diasColeta, novaCapacidade);
+        sonoHoras = Arrays.copyOf(sonoHoras, novaCapacidade);
+        qualidadeSono = Arrays.copyOf(qualidadeSono, novaCapacidade);
+        humor = Arrays.copyOf(humor, novaCapacidade);
+        atividadeFisica = Arrays.copyOf(atividadeFisica, novaCapacidade);
+        frequenciaCardiaca = Arrays.copyOf(frequenciaCardiaca, novaCapacidade);
+        instantesColetaNanos = Arrays.copyOf(instantesColetaNanos, novaCapacidade);
+    }
+    
+    public int tamanho() {
+        return tamanho;
+    }
+    
+    public boolean isVazio() {
+        return tamanho == 0;
+    }
+    
+    /**
+     * Esvazia o lote mantendo a capacidade já alocada.
+     */
+    public void limpar() {
+        tamanho = 0;
+    }
+    
+    public long getId(int i) {
+        return ids[i];
+    }
+    
+    public long getIdIdoso(int i) {
+        return idsIdoso[i];
+    }
+    
+    public long getDiaColeta(int i) {
+        return diasColeta[i];
+    }
+    
+    public double getSonoHoras(int i) {
+        return sonoHoras[i];
+    }
+    
+    public int getQualidadeSono(int i) {
+        return qualidadeSono[i];
+    }
+    
+    public Humor getHumor(int i) {
+        return Humor.deCodigo(humor[i]);
+    }
+    
+    public NivelAtividade getAtividadeFisica(int i) {
+        return NivelAtividade.deCodigo(atividadeFisica[i]);
+    }
+    
+    public int getFrequenciaCardiaca(int i) {
+        return frequenciaCardiaca[i];
+    }
+    
+    public long getInstanteColetaNanos(int i) {
+        return instantesColetaNanos[i];
+    }
+    
+    /**
+     * Materializa a leitura da posição informada.
+     */
+    public LeituraSaude leitura(int i) {
+        return new LeituraSaude(ids[i], idsIdoso[i], diasColeta[i], sonoHoras[i], qualidadeSono[i],
+            getHumor(i), getAtividadeFisica(i), frequenciaCardiaca[i]);
+    }
+    
+    /**
+     * Lista de leituras imutáveis, usada na serialização JSON.
+     */
+    @JsonValue
+    public List<LeituraSaude> paraLista() {
+        List<LeituraSaude> lista = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            lista.add(leitura(i));
+        }
+        return lista;
+    }
+}
@@ -0,0 +1,67 @@
+package com.unieuro.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Nível de atividade física registrado em uma leitura de saúde.
+ * O rótulo é o valor gravado na coluna dados_saude.atividade_fisica; o código cabe em um byte.
+ */
+public enum NivelAtividade {
+    NENHUMA("nenhuma"),
+    SEDENTARIA("sedentaria"),
+    LEVE("leve"),
+    MODERADA("moderada"),
+    INTENSA("intensa");
+    
+    private static final NivelAtividade[] VALORES = values();
+    
+    private final String rotulo;
+    
+    NivelAtividade(String rotulo) {
+        this.rotulo = rotulo;
+    }
+    
+    @JsonValue
+    public String getRotulo() {
+        return rotulo;
+    }
+    
+    public byte getCodigo() {
+        return (byte) ordinal();
+    }
+    
+    /**
+     * Atividade considerada insuficiente na análise de risco.
+     */
+    public boolean isInsuficiente() {
+        return this == NENHUMA || this == SEDENTARIA;
+    }
+    
+    public static NivelAtividade deCodigo(byte codigo) {
+        return VALORES[codigo];
+    }
+    
+    /**
+     * Converte o rótulo gravado no banco; valores desconhecidos são tratados como atividade leve.
+     */
+    public static NivelAtividade deRotulo(String rotulo) {
+        for (NivelAtividade nivel : VALORES) {
+            if (nivel.rotulo.equals(rotulo)) {
+                return nivel;
+            }
+        }
+        return LEVE;
+    }
+    
+    /**
+     * Converte um rótulo recebido de fora do sistema; devolve null se for desconhecido.
+     */
+    public static NivelAtividade deRotuloOuNulo(String rotulo) {
+        for (NivelAtividade nivel : VALORES) {
+            if (nivel.rotulo.equals(rotulo)) {
+                return nivel;
+            }
+        }
+        return null;
+    }
+}
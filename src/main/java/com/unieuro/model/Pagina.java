@@ -0,0 +1,29 @@
+package com.unieuro.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Página de resultados com o cursor para buscar a próxima (nulo na última página).
+ */
+public class Pagina<T> {
+    
+    private final List<T> itens;
+    private final String proximoCursor;
+    
+    public Pagina(List<T> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+    }
+    
+    @JsonProperty("itens")
+    public List<T> getItens() {
+        return itens;
+    }
+    
+    @JsonProperty("proximo_cursor")
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+}
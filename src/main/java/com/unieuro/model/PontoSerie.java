@@ -0,0 +1,118 @@
+package com.unieuro.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ponto de uma série de dados de saúde: uma leitura bruta ou o agregado de um dia ou mês.
+ * As contagens de humor e atividade são indexadas pelo código do enum.
+ */
+@JsonPropertyOrder({"periodo", "leituras", "sono_medio", "fc_minima", "fc_maxima", "fc_media",
+                    "humor", "atividade_fisica"})
+public final class PontoSerie {
+    
+    private final long periodo;
+    private final int leituras;
+    private final double sonoMedio;
+    private final int fcMinima;
+    private final int fcMaxima;
+    private final double fcMedia;
+    private final int[] humores;
+    private final int[] atividades;
+    
+    public PontoSerie(long periodo, int leituras, double sonoMedio, int fcMinima, int fcMaxima, double fcMedia,
+                      int[] humores, int[] atividades) {
+        this.periodo = periodo;
+        this.leituras = leituras;
+        this.sonoMedio = sonoMedio;
+        this.fcMinima = fcMinima;
+        this.fcMaxima = fcMaxima;
+        this.fcMedia = fcMedia;
+        this.humores = humores;
+        this.atividades = atividades;
+    }
+    
+    /**
+     * Ponto correspondente a uma única leitura.
+     */
+    public static PontoSerie deLeitura(long diaColeta, double sonoHoras, Humor humor, NivelAtividade atividade,
+                                       int frequenciaCardiaca) {
+        int[] humores = new int[Humor.values().length];
+        int[] atividades = new int[NivelAtividade.values().length];
+        humores[humor.getCodigo()] = 1;
+        atividades[atividade.getCodigo()] = 1;
+        return new PontoSerie(diaColeta, 1, sonoHoras, frequenciaCardiaca, frequenciaCardiaca,
+            frequenciaCardiaca, humores, atividades);
+    }
+    
+    /**
+     * Início do período em dias desde 1970-01-01 (dia da leitura, dia ou primeiro dia do mês).
+     */
+    @JsonIgnore
+    public long getDiaPeriodo() {
+        return periodo;
+    }
+    
+    @JsonProperty("periodo")
+    public LocalDate getPeriodo() {
+        return LocalDate.ofEpochDay(periodo);
+    }
+    
+    @JsonProperty("leituras")
+    public int getLeituras() {
+        return leituras;
+    }
+    
+    @JsonProperty("sono_medio")
+    public double getSonoMedio() {
+        return sonoMedio;
+    }
+    
+    @JsonProperty("fc_minima")
+    public int getFcMinima() {
+        return fcMinima;
+    }
+    
+    @JsonProperty("fc_maxima")
+    public int getFcMaxima() {
+        return fcMaxima;
+    }
+    
+    @JsonProperty("fc_media")
+    public double getFcMedia() {
+        return fcMedia;
+    }
+    
+    @JsonIgnore
+    public int getContagemHumor(Humor humor) {
+        return humores[humor.getCodigo()];
+    }
+    
+    @JsonIgnore
+    public int getContagemAtividade(NivelAtividade atividade) {
+        return atividades[atividade.getCodigo()];
+    }
+    
+    @JsonProperty("humor")
+    public Map<String, Integer> getDistribuicaoHumor() {
+        Map<String, Integer> distribuicao = new LinkedHashMap<>();
+        for (Humor humor : Humor.values()) {
+            distribuicao.put(humor.getRotulo(), humores[humor.getCodigo()]);
+        }
+        return distribuicao;
+    }
+    
+    @JsonProperty("atividade_fisica")
+    public Map<String, Integer> getDistribuicaoAtividade() {
+        Map<String, Integer> distribuicao = new LinkedHashMap<>();
+        for (NivelAtividade atividade : NivelAtividade.values()) {
+            distribuicao.put(atividade.getRotulo(), atividades[atividade.getCodigo()]);
+        }
+        return distribuicao;
+    }
+}
@@ -0,0 +1,85 @@
+package com.unieuro.model;
+
+import java.util.Arrays;
+
+/**
+ * Totais de um período por idoso, em formato colunar (uma linha por idoso), usados nas
+ * agregações de coorte. Cada linha traz a idade do idoso e as somas de sono e de frequência
+ * cardíaca das suas leituras no período, de onde saem as médias individuais.
+ */
+public final class PopulacaoPacientes {
+    
+    private static final int CAPACIDADE_INICIAL = 16;
+    
+    private long[] idsIdoso;
+    private int[] idades;
+    private int[] leituras;
+    private double[] somaSono;
+    private long[] somaFc;
+    private int tamanho;
+    
+    public PopulacaoPacientes() {
+        this(CAPACIDADE_INICIAL);
+    }
+    
+    public PopulacaoPacientes(int capacidade) {
+        capacidade = Math.max(1, capacidade);
+        idsIdoso = new long[capacidade];
+        idades = new int[capacidade];
+        leituras = new int[capacidade];
+        somaSono = new double[capacidade];
+        somaFc = new long[capacidade];
+    }
+    
+    /**
+     * Acrescenta os totais de um idoso; idosos sem leituras no período devem ser omitidos.
+     */
+    public void adicionar(long idIdoso, int idade, int totalLeituras, double somaSonoHoras, long somaFrequencia) {
+        if (tamanho == idsIdoso.length) {
+            crescer();
+        }
+        idsIdoso[tamanho] = idIdoso;
+        idades[tamanho] = idade;
+        leituras[tamanho] = totalLeituras;
+        somaSono[tamanho] = somaSonoHoras;
+        somaFc[tamanho] = somaFrequencia;
+        tamanho++;
+    }
+    
+    private void crescer() {
+        int novaCapacidade = idsIdoso.length * 2;
+        idsIdoso = Arrays.copyOf(idsIdoso, novaCapacidade);
+        idades = Arrays.copyOf(idades, novaCapacidade);
+        leituras = Arrays.copyOf(leituras, novaCapacidade);
+        somaSono = Arrays.copyOf(somaSono, novaCapacidade);
+        somaFc = Arrays.copyOf(somaFc, novaCapacidade);
+    }
+    
+    public int tamanho() {
+        return tamanho;
+    }
+    
+    public long getIdIdoso(int i) {
+        return idsIdoso[i];
+    }
+    
+    public int getIdade(int i) {
+        return idades[i];
+    }
+    
+    public int getLeituras(int i) {
+        return leituras[i];
+    }
+    
+    public double getSomaSono(int i) {
+        return somaSono[i];
+    }
+    
+    public long getSomaFrequenciaCardiaca(int i) {
+        return somaFc[i];
+    }
+    
+    public double getMediaFrequenciaCardiaca(int i) {
+        return (double) somaFc[i] / leituras[i];
+    }
+}
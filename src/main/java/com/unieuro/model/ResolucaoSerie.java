@@ -0,0 +1,61 @@
+package com.unieuro.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Granularidade de uma série de dados de saúde: leituras brutas ou agregados por dia ou por mês.
+ */
+public enum ResolucaoSerie {
+    LEITURAS("leituras"),
+    DIARIA("diaria"),
+    MENSAL("mensal");
+    
+    /** Intervalos de até tantos dias são servidos com as leituras brutas. */
+    public static final int DIAS_MAXIMOS_LEITURAS = 31;
+    /** Intervalos de até tantos dias usam o agregado diário; acima disso, o mensal. */
+    public static final int DIAS_MAXIMOS_DIARIA = 366;
+    
+    private final String rotulo;
+    
+    ResolucaoSerie(String rotulo) {
+        this.rotulo = rotulo;
+    }
+    
+    @JsonValue
+    public String getRotulo() {
+        return rotulo;
+    }
+    
+    /**
+     * Resolução mais fina que mantém a resposta pequena para um intervalo com o número de dias informado.
+     */
+    public static ResolucaoSerie paraIntervalo(long dias) {
+        if (dias <= DIAS_MAXIMOS_LEITURAS) {
+            return LEITURAS;
+        } else if (dias <= DIAS_MAXIMOS_DIARIA) {
+            return DIARIA;
+        }
+        return MENSAL;
+    }
+    
+    /**
+     * Como paraIntervalo(dias), mas nunca mais fina que maisFinaRetida: a resolução mais fina cujos
+     * dados ainda existem no início do intervalo, depois da retenção.
+     */
+    public static ResolucaoSerie paraIntervalo(long dias, ResolucaoSerie maisFinaRetida) {
+        ResolucaoSerie porTamanho = paraIntervalo(dias);
+        return porTamanho.ordinal() >= maisFinaRetida.ordinal() ? porTamanho : maisFinaRetida;
+    }
+    
+    /**
+     * Converte um rótulo recebido de fora do sistema; devolve null se for desconhecido.
+     */
+    public static ResolucaoSerie deRotuloOuNulo(String rotulo) {
+        for (ResolucaoSerie resolucao : values()) {
+            if (resolucao.rotulo.equals(rotulo)) {
+                return resolucao;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.unieuro.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Série de dados de saúde de um idoso em um intervalo, na resolução escolhida para o tamanho do intervalo.
+ */
+@JsonPropertyOrder({"id_idoso", "inicio", "fim", "resolucao", "pontos"})
+public final class SerieSaude {
+    
+    private final long idIdoso;
+    private final LocalDate inicio;
+    private final LocalDate fim;
+    private final ResolucaoSerie resolucao;
+    private final List<PontoSerie> pontos;
+    
+    public SerieSaude(long idIdoso, LocalDate inicio, LocalDate fim, ResolucaoSerie resolucao,
+                      List<PontoSerie> pontos) {
+        this.idIdoso = idIdoso;
+        this.inicio = inicio;
+        this.fim = fim;
+        this.resolucao = resolucao;
+        this.pontos = pontos;
+    }
+    
+    @JsonProperty("id_idoso")
+    public long getIdIdoso() {
+        return idIdoso;
+    }
+    
+    @JsonProperty("inicio")
+    public LocalDate getInicio() {
+        return inicio;
+    }
+    
+    @JsonProperty("fim")
+    public LocalDate getFim() {
+        return fim;
+    }
+    
+    @JsonProperty("resolucao")
+    public ResolucaoSerie getResolucao() {
+        return resolucao;
+    }
+    
+    @JsonProperty("pontos")
+    public List<PontoSerie> getPontos() {
+        return pontos;
+    }
+}